@@ -96,7 +96,12 @@ public class AllocationBenchmark {
             "       10|     10|        2|    50",
             "      100|      1|        2|    50",
             "      100|      3|        2|    50",
-            "      100|     10|        2|    50" }
+            "      100|     10|        2|    50",
+
+            // large clusters, to measure the latency of a reroute of a balanced cluster
+            "     1000|     10|        2|   150",
+            "     3000|     10|        2|   150",
+            "    10000|      3|        2|   150" }
     )
     public String indicesShardsReplicasNodes = "10|1|0|1";
 
@@ -104,6 +109,7 @@ public class AllocationBenchmark {
 
     private AllocationService strategy;
     private ClusterState initialClusterState;
+    private ClusterState allocatedClusterState;
 
     @Setup
     public void setUp() throws Exception {
@@ -142,6 +148,16 @@ public class AllocationBenchmark {
             .routingTable(routingTable)
             .nodes(nb)
             .build();
+
+        ClusterState clusterState = measureAllocation();
+        while (clusterState.getRoutingNodes().shardsWithState(ShardRoutingState.INITIALIZING).isEmpty() == false) {
+            clusterState = strategy.applyStartedShards(
+                clusterState,
+                clusterState.getRoutingNodes().shardsWithState(ShardRoutingState.INITIALIZING)
+            );
+            clusterState = strategy.reroute(clusterState, "reroute");
+        }
+        allocatedClusterState = clusterState;
     }
 
     private int toInt(String v) {
@@ -160,4 +176,13 @@ public class AllocationBenchmark {
         }
         return clusterState;
     }
+
+    /**
+     * Measures a reroute of a cluster whose shards are all started and balanced, which is what most reroutes of a large cluster look
+     * like since every shard that starts, every node that joins and every settings update triggers one.
+     */
+    @Benchmark
+    public ClusterState measureRerouteOfAllocatedCluster() {
+        return strategy.reroute(allocatedClusterState, "reroute");
+    }
 }
@@ -8,6 +8,7 @@
 package org.elasticsearch.benchmark.routing.allocation;
 
 import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterInfoService;
 import org.elasticsearch.cluster.ClusterModule;
 import org.elasticsearch.cluster.EmptyClusterInfoService;
 import org.elasticsearch.cluster.node.DiscoveryNode;
@@ -65,11 +66,19 @@ public final class Allocators {
     }
 
     public static AllocationService createAllocationService(Settings settings, ClusterSettings clusterSettings) {
+        return createAllocationService(settings, clusterSettings, EmptyClusterInfoService.INSTANCE);
+    }
+
+    public static AllocationService createAllocationService(
+        Settings settings,
+        ClusterSettings clusterSettings,
+        ClusterInfoService clusterInfoService
+    ) {
         return new AllocationService(
             defaultAllocationDeciders(settings, clusterSettings),
             NoopGatewayAllocator.INSTANCE,
             new BalancedShardsAllocator(settings),
-            EmptyClusterInfoService.INSTANCE,
+            clusterInfoService,
             EmptySnapshotsInfoService.INSTANCE
         );
     }
@@ -0,0 +1,164 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.benchmark.routing.allocation;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterInfo;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.cluster.metadata.Metadata;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.RoutingTable;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.ShardRoutingState;
+import org.elasticsearch.cluster.routing.allocation.AllocationService;
+import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator;
+import org.elasticsearch.common.collect.ImmutableOpenMap;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.shard.ShardId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a rebalancing round of a large cluster whose shards are allocated evenly by count but whose write loads and sizes are
+ * skewed, with and without the load related factors of the {@link BalancedShardsAllocator}.
+ */
+@Fork(3)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") // invoked by benchmarking framework
+public class LoadAwareAllocationBenchmark {
+    // Do NOT make any field final (even if it is not annotated with @Param)! See also
+    // http://hg.openjdk.java.net/code-tools/jmh/file/tip/jmh-samples/src/main/java/org/openjdk/jmh/samples/JMHSample_10_ConstantFold.java
+
+    @Param(
+        {
+            // indices| shards| replicas| nodes
+            "      100|     10|        1|    50",
+            "      500|      5|        1|   100",
+            "     1000|      3|        1|   200",
+            "     2000|      1|        1|   300" }
+    )
+    public String indicesShardsReplicasNodes = "100|10|1|50";
+
+    /**
+     * The value of the write load and disk usage balance factors, {@code 0.0} balances on shard counts only.
+     */
+    @Param({ "0.0", "0.5" })
+    public float loadBalanceFactor = 0.0f;
+
+    private AllocationService strategy;
+    private ClusterState initialClusterState;
+
+    @Setup
+    public void setUp() throws Exception {
+        final String[] params = indicesShardsReplicasNodes.split("\\|");
+
+        int numIndices = toInt(params[0]);
+        int numShards = toInt(params[1]);
+        int numReplicas = toInt(params[2]);
+        int numNodes = toInt(params[3]);
+
+        Metadata.Builder mb = Metadata.builder();
+        for (int i = 1; i <= numIndices; i++) {
+            mb.put(
+                IndexMetadata.builder("test_" + i)
+                    .settings(Settings.builder().put("index.version.created", Version.CURRENT))
+                    .numberOfShards(numShards)
+                    .numberOfReplicas(numReplicas)
+            );
+        }
+        Metadata metadata = mb.build();
+        RoutingTable.Builder rb = RoutingTable.builder();
+        for (int i = 1; i <= numIndices; i++) {
+            rb.addAsNew(metadata.index("test_" + i));
+        }
+        DiscoveryNodes.Builder nb = DiscoveryNodes.builder();
+        for (int i = 1; i <= numNodes; i++) {
+            nb.add(Allocators.newNode("node" + i, Collections.emptyMap()));
+        }
+        ClusterState clusterState = ClusterState.builder(ClusterName.CLUSTER_NAME_SETTING.getDefault(Settings.EMPTY))
+            .metadata(metadata)
+            .routingTable(rb.build())
+            .nodes(nb)
+            .build();
+
+        // allocate the shards by count, as the cluster would have been before the loads were taken into account
+        final AllocationService countBasedStrategy = Allocators.createAllocationService(Settings.EMPTY);
+        clusterState = countBasedStrategy.reroute(clusterState, "reroute");
+        while (clusterState.getRoutingNodes().hasUnassignedShards()
+            || clusterState.getRoutingNodes().shardsWithState(ShardRoutingState.INITIALIZING).isEmpty() == false) {
+            clusterState = countBasedStrategy.applyStartedShards(
+                clusterState,
+                clusterState.getRoutingNodes().shardsWithState(ShardRoutingState.INITIALIZING)
+            );
+            clusterState = countBasedStrategy.reroute(clusterState, "reroute");
+        }
+        initialClusterState = clusterState;
+
+        // a tenth of the indices receives most of the writes and holds most of the data
+        final Random random = new Random(42);
+        final ImmutableOpenMap.Builder<String, Long> shardSizes = ImmutableOpenMap.builder();
+        final ImmutableOpenMap.Builder<ShardId, Double> writeLoads = ImmutableOpenMap.builder();
+        for (ShardRouting shard : clusterState.routingTable().allShards()) {
+            final boolean hot = Math.floorMod(shard.getIndexName().hashCode(), 10) == 0;
+            if (shard.primary()) {
+                writeLoads.put(shard.shardId(), hot ? 2.0 + 6.0 * random.nextDouble() : 0.1 * random.nextDouble());
+            }
+            final long gb = 1L << 30;
+            shardSizes.put(ClusterInfo.shardIdentifierFromRouting(shard), hot ? (20 + random.nextInt(30)) * gb : random.nextInt(2) * gb);
+        }
+        final ClusterInfo clusterInfo = new ClusterInfo(
+            ImmutableOpenMap.of(),
+            ImmutableOpenMap.of(),
+            shardSizes.build(),
+            ImmutableOpenMap.of(),
+            ImmutableOpenMap.of(),
+            ImmutableOpenMap.of(),
+            writeLoads.build(),
+            ImmutableOpenMap.of()
+        );
+
+        final Settings settings = Settings.builder()
+            .put(BalancedShardsAllocator.WRITE_LOAD_BALANCE_FACTOR_SETTING.getKey(), loadBalanceFactor)
+            .put(BalancedShardsAllocator.DISK_USAGE_BALANCE_FACTOR_SETTING.getKey(), loadBalanceFactor)
+            .build();
+        strategy = Allocators.createAllocationService(
+            settings,
+            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS),
+            () -> clusterInfo
+        );
+    }
+
+    private int toInt(String v) {
+        return Integer.valueOf(v.trim());
+    }
+
+    @Benchmark
+    public ClusterState measureRebalance() {
+        return strategy.reroute(initialClusterState, "reroute");
+    }
+}
@@ -287,6 +287,11 @@ public class AggConstructionContentionBenchmark {
             releaseMe.add(aggregator);
         }
 
+        @Override
+        public void removeReleasable(Aggregator aggregator) {
+            releaseMe.remove(aggregator);
+        }
+
         @Override
         public MultiBucketConsumer multiBucketConsumer() {
             return multiBucketConsumer;
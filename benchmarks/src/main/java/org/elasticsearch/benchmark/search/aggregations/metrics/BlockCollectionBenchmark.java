@@ -0,0 +1,129 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.search.aggregations.metrics;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.NumericUtils;
+import org.elasticsearch.index.fielddata.FieldData;
+import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
+import org.elasticsearch.search.aggregations.metrics.CompensatedSum;
+import org.elasticsearch.search.aggregations.support.DocValuesBlock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares summing the values of a field one document at a time, like the {@code sum} aggregation does when it is collected
+ * per document, with reading the values of blocks of documents through {@link DocValuesBlock} and summing them in a tight loop.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 7)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class BlockCollectionBenchmark {
+
+    private static final int NUM_DOCS = 1 << 16;
+    private static final String FIELD = "value";
+
+    @Param({ "16", "128", "1024" })
+    private int blockSize;
+
+    @Param({ "1", "4" })
+    private int matchEvery;
+
+    private Directory directory;
+    private DirectoryReader reader;
+    private int[] docs;
+    private final DocValuesBlock block = new DocValuesBlock();
+
+    @Setup
+    public void setup() throws IOException {
+        final Random random = new Random(0);
+        directory = new ByteBuffersDirectory();
+        try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig())) {
+            for (int i = 0; i < NUM_DOCS; i++) {
+                final Document doc = new Document();
+                doc.add(new SortedNumericDocValuesField(FIELD, NumericUtils.doubleToSortableLong(random.nextDouble())));
+                writer.addDocument(doc);
+            }
+            writer.forceMerge(1);
+        }
+        reader = DirectoryReader.open(directory);
+        docs = new int[NUM_DOCS / matchEvery];
+        for (int i = 0; i < docs.length; i++) {
+            docs[i] = i * matchEvery;
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        reader.close();
+        directory.close();
+    }
+
+    private SortedNumericDoubleValues values() throws IOException {
+        final LeafReader leaf = reader.leaves().get(0).reader();
+        return FieldData.sortableLongBitsToDoubles(DocValues.getSortedNumeric(leaf, FIELD));
+    }
+
+    @Benchmark
+    public double perDocument() throws IOException {
+        final SortedNumericDoubleValues values = values();
+        final CompensatedSum sum = new CompensatedSum(0, 0);
+        for (int doc : docs) {
+            if (values.advanceExact(doc)) {
+                final int count = values.docValueCount();
+                for (int i = 0; i < count; i++) {
+                    sum.add(values.nextValue());
+                }
+            }
+        }
+        return sum.value();
+    }
+
+    @Benchmark
+    public double blocks() throws IOException {
+        final SortedNumericDoubleValues values = values();
+        final CompensatedSum sum = new CompensatedSum(0, 0);
+        final int[] buffer = new int[blockSize];
+        for (int from = 0; from < docs.length; from += blockSize) {
+            final int count = Math.min(blockSize, docs.length - from);
+            System.arraycopy(docs, from, buffer, 0, count);
+            final int valueCount = block.readDoubles(values, buffer, count);
+            final double[] blockValues = block.doubles();
+            for (int i = 0; i < valueCount; i++) {
+                sum.add(blockValues[i]);
+            }
+        }
+        return sum.value();
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.search.aggregations.metrics;
+
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.ByteArray;
+import org.elasticsearch.search.aggregations.metrics.HyperLogLogPlusPlus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares collecting hashes into and merging the registers of {@link HyperLogLogPlusPlus}, which packs six bits per register, with
+ * registers stored using one byte per register.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 7)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class HyperLogLogPlusPlusBenchmark {
+
+    private static final int NUM_HASHES = 1 << 16;
+
+    @Param({ "10", "14", "18" })
+    private int precision;
+
+    @Param({ "1", "100" })
+    private int buckets;
+
+    private long[] hashes;
+    private HyperLogLogPlusPlus packed;
+    private HyperLogLogPlusPlus otherPacked;
+    private ByteRegisters bytes;
+    private ByteRegisters otherBytes;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(0);
+        hashes = new long[NUM_HASHES];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = random.nextLong();
+        }
+        packed = new HyperLogLogPlusPlus(precision, BigArrays.NON_RECYCLING_INSTANCE, buckets);
+        otherPacked = new HyperLogLogPlusPlus(precision, BigArrays.NON_RECYCLING_INSTANCE, buckets);
+        bytes = new ByteRegisters(precision, buckets);
+        otherBytes = new ByteRegisters(precision, buckets);
+        // collect enough values so that all buckets use HyperLogLog rather than linear counting
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            for (int i = 0; i < 1 << precision; i++) {
+                final long hash = random.nextLong();
+                packed.collect(bucket, hash);
+                bytes.collect(bucket, hash);
+                final long otherHash = random.nextLong();
+                otherPacked.collect(bucket, otherHash);
+                otherBytes.collect(bucket, otherHash);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        Releasables.close(packed, otherPacked, bytes, otherBytes);
+    }
+
+    @Benchmark
+    public HyperLogLogPlusPlus collectPacked() {
+        for (int i = 0; i < hashes.length; i++) {
+            packed.collect(i % buckets, hashes[i]);
+        }
+        return packed;
+    }
+
+    @Benchmark
+    public ByteRegisters collectBytes() {
+        for (int i = 0; i < hashes.length; i++) {
+            bytes.collect(i % buckets, hashes[i]);
+        }
+        return bytes;
+    }
+
+    @Benchmark
+    public HyperLogLogPlusPlus mergePacked() {
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            packed.merge(bucket, otherPacked, bucket);
+        }
+        return packed;
+    }
+
+    @Benchmark
+    public ByteRegisters mergeBytes() {
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            bytes.merge(bucket, otherBytes, bucket);
+        }
+        return bytes;
+    }
+
+    @Benchmark
+    public long cardinalityPacked() {
+        long total = 0;
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            total += packed.cardinality(bucket);
+        }
+        return total;
+    }
+
+    /**
+     * HyperLogLog registers stored using one byte per register, like {@link HyperLogLogPlusPlus} used to.
+     */
+    static final class ByteRegisters implements Releasable {
+
+        private final int p;
+        private final int m;
+        private final ByteArray runLens;
+
+        ByteRegisters(int precision, long buckets) {
+            this.p = precision;
+            this.m = 1 << precision;
+            this.runLens = BigArrays.NON_RECYCLING_INSTANCE.newByteArray(buckets << precision);
+        }
+
+        void collect(long bucket, long hash) {
+            final long index = (bucket << p) + (hash >>> (64 - p));
+            final byte runLen = (byte) (1 + Math.min(Long.numberOfLeadingZeros(hash << p), 64 - p));
+            if (runLen > runLens.get(index)) {
+                runLens.set(index, runLen);
+            }
+        }
+
+        void merge(long bucket, ByteRegisters other, long otherBucket) {
+            final long start = bucket << p;
+            final long otherStart = otherBucket << p;
+            for (int i = 0; i < m; i++) {
+                final byte runLen = other.runLens.get(otherStart + i);
+                if (runLen > runLens.get(start + i)) {
+                    runLens.set(start + i, runLen);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            runLens.close();
+        }
+    }
+}
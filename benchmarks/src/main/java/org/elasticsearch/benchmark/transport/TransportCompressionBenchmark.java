@@ -0,0 +1,179 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.benchmark.transport;
+
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.action.OriginalIndices;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.util.PageCacheRecycler;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.fetch.FetchSearchResult;
+import org.elasticsearch.search.internal.AliasFilter;
+import org.elasticsearch.search.internal.ShardSearchContextId;
+import org.elasticsearch.search.internal.ShardSearchRequest;
+import org.elasticsearch.transport.Compression;
+import org.elasticsearch.transport.TransportDecompressor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of compressing and decompressing transport message content with the available {@link Compression.Scheme}s.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@SuppressWarnings("unused") // invoked by benchmarking framework
+public class TransportCompressionBenchmark {
+
+    @Param({ "deflate", "lz4" })
+    public String scheme;
+
+    @Param({ "shard_search_request", "fetch_search_result" })
+    public String payload;
+
+    @Param({ "100" })
+    public int hits;
+
+    private Compression.Scheme compressionScheme;
+    private BytesReference uncompressed;
+    private BytesReference compressed;
+
+    @Setup
+    public void setUp() throws IOException {
+        compressionScheme = Compression.Scheme.valueOf(scheme.toUpperCase(Locale.ROOT));
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            switch (payload) {
+                case "shard_search_request":
+                    shardSearchRequest().writeTo(out);
+                    break;
+                case "fetch_search_result":
+                    fetchSearchResult(hits).writeTo(out);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown payload [" + payload + "]");
+            }
+            uncompressed = new BytesArray(out.bytes().toBytesRef(), true);
+        }
+        compressed = compress();
+    }
+
+    @Benchmark
+    public BytesReference compress() throws IOException {
+        BytesStreamOutput out = new BytesStreamOutput(uncompressed.length());
+        try (StreamOutput compressingStream = compressionScheme.compressingStream(out)) {
+            uncompressed.writeTo(compressingStream);
+        }
+        return out.bytes();
+    }
+
+    @Benchmark
+    public long decompress() throws IOException {
+        long length = 0;
+        try (TransportDecompressor decompressor = TransportDecompressor.getDecompressor(PageCacheRecycler.NON_RECYCLING_INSTANCE,
+            compressed)) {
+            decompressor.decompress(compressed);
+            ReleasableBytesReference page;
+            while ((page = decompressor.pollDecompressedPage()) != null) {
+                length += page.length();
+                page.close();
+            }
+        }
+        return length;
+    }
+
+    private static ShardSearchRequest shardSearchRequest() {
+        SearchSourceBuilder source = new SearchSourceBuilder().size(50)
+            .query(
+                QueryBuilders.boolQuery()
+                    .filter(QueryBuilders.rangeQuery("@timestamp").gte("now-15m").lte("now"))
+                    .filter(QueryBuilders.termsQuery("host.name", "host-01", "host-02", "host-03", "host-04"))
+                    .must(QueryBuilders.matchQuery("message", "connection reset by peer"))
+            )
+            .aggregation(
+                AggregationBuilders.terms("hosts")
+                    .field("host.name")
+                    .size(20)
+                    .subAggregation(AggregationBuilders.percentiles("latency").field("event.duration"))
+            );
+        SearchRequest searchRequest = new SearchRequest(new String[] { "logs-*" }, source);
+        searchRequest.allowPartialSearchResults(true);
+        return new ShardSearchRequest(
+            OriginalIndices.NONE,
+            searchRequest,
+            new ShardId("logs-2021.06.01", "_na_", 0),
+            0,
+            50,
+            AliasFilter.EMPTY,
+            1.0f,
+            System.currentTimeMillis(),
+            null
+        );
+    }
+
+    private static FetchSearchResult fetchSearchResult(int numHits) {
+        Random random = new Random(0);
+        SearchHit[] searchHits = new SearchHit[numHits];
+        for (int i = 0; i < numHits; i++) {
+            String source = String.format(
+                Locale.ROOT,
+                "{\"@timestamp\":\"2021-06-01T12:%02d:%02d.%03dZ\",\"host\":{\"name\":\"host-%02d\",\"ip\":\"10.0.%d.%d\"},"
+                    + "\"event\":{\"duration\":%d,\"dataset\":\"nginx.access\"},\"http\":{\"request\":{\"method\":\"GET\"},"
+                    + "\"response\":{\"status_code\":%d,\"bytes\":%d}},\"url\":{\"path\":\"/api/v1/items/%d\"},"
+                    + "\"message\":\"GET /api/v1/items/%d HTTP/1.1 served in %d ms\"}",
+                random.nextInt(60),
+                random.nextInt(60),
+                random.nextInt(1000),
+                random.nextInt(20),
+                random.nextInt(256),
+                random.nextInt(256),
+                random.nextInt(1_000_000),
+                random.nextBoolean() ? 200 : 404,
+                random.nextInt(100_000),
+                random.nextInt(10_000),
+                random.nextInt(10_000),
+                random.nextInt(1_000)
+            );
+            searchHits[i] = new SearchHit(i, Integer.toString(random.nextInt()), Collections.emptyMap(), Collections.emptyMap())
+                .sourceRef(new BytesArray(source.getBytes(StandardCharsets.UTF_8)));
+        }
+        SearchShardTarget target = new SearchShardTarget("node", new ShardId("logs-2021.06.01", "_na_", 0), null, OriginalIndices.NONE);
+        FetchSearchResult result = new FetchSearchResult(new ShardSearchContextId("session", 1L), target);
+        result.hits(new SearchHits(searchHits, new TotalHits(numHits, TotalHits.Relation.EQUAL_TO), 1.0f));
+        return result;
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.common.util;
+
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.settings.Settings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of {@link BigArrays} backed by on-heap pages and by off-heap pages, see
+ * {@link BigArrays#withOffHeapPages()}.
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 7)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Fork(value = 1)
+@SuppressWarnings("unused") // invoked by benchmarking framework
+public class BigArraysBenchmark {
+
+    @Param({ "heap", "off_heap" })
+    public String pages;
+
+    @Param({ "1000000" })
+    public int size;
+
+    private BigArrays bigArrays;
+    private ByteArray byteArray;
+    private IntArray intArray;
+    private LongArray longArray;
+    private DoubleArray doubleArray;
+    private int[] randomIndices;
+    private byte[] bulkBytes;
+
+    @Setup
+    public void setUp() {
+        final boolean offHeap = pages.equals("off_heap");
+        final PageCacheRecycler recycler = new PageCacheRecycler(
+            Settings.builder().put(PageCacheRecycler.OFF_HEAP_ENABLED_SETTING.getKey(), offHeap).build()
+        );
+        final BigArrays base = new BigArrays(recycler, null, CircuitBreaker.REQUEST);
+        bigArrays = offHeap ? base.withOffHeapPages() : base;
+        if (bigArrays.isOffHeap() != offHeap) {
+            throw new AssertionError("expected off-heap pages to be [" + offHeap + "]");
+        }
+        byteArray = bigArrays.newByteArray(size);
+        intArray = bigArrays.newIntArray(size);
+        longArray = bigArrays.newLongArray(size);
+        doubleArray = bigArrays.newDoubleArray(size);
+        final Random random = new Random(0);
+        randomIndices = new int[size];
+        for (int i = 0; i < size; i++) {
+            randomIndices[i] = random.nextInt(size);
+        }
+        bulkBytes = new byte[100];
+        random.nextBytes(bulkBytes);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Releasables.close(byteArray, intArray, longArray, doubleArray);
+    }
+
+    @Benchmark
+    public long longSequentialGet() {
+        long sum = 0;
+        for (long i = 0; i < size; i++) {
+            sum += longArray.get(i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long longRandomIncrement() {
+        long sum = 0;
+        for (int index : randomIndices) {
+            sum += longArray.increment(index, 1);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public LongArray longSequentialSet() {
+        for (long i = 0; i < size; i++) {
+            longArray.set(i, i);
+        }
+        return longArray;
+    }
+
+    @Benchmark
+    public LongArray longFill() {
+        longArray.fill(0, size, 42L);
+        return longArray;
+    }
+
+    @Benchmark
+    public long intRandomGet() {
+        long sum = 0;
+        for (int index : randomIndices) {
+            sum += intArray.get(index);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public IntArray intFill() {
+        intArray.fill(0, size, 42);
+        return intArray;
+    }
+
+    @Benchmark
+    public double doubleRandomIncrement() {
+        double sum = 0;
+        for (int index : randomIndices) {
+            sum += doubleArray.increment(index, 1.5d);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public DoubleArray doubleFill() {
+        doubleArray.fill(0, size, 4.2d);
+        return doubleArray;
+    }
+
+    @Benchmark
+    public long byteSequentialGet() {
+        long sum = 0;
+        for (long i = 0; i < size; i++) {
+            sum += byteArray.get(i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public ByteArray byteBulkSet() {
+        for (long i = 0; i + bulkBytes.length <= size; i += bulkBytes.length) {
+            byteArray.set(i, bulkBytes, 0, bulkBytes.length);
+        }
+        return byteArray;
+    }
+
+    @Benchmark
+    public ByteArray byteFill() {
+        byteArray.fill(0, size, (byte) 42);
+        return byteArray;
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.KeyedLock;
+import org.elasticsearch.index.translog.Translog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures cycles of updates of the {@link LiveVersionMap} that look up the current version of an id, put the new version and
+ * refresh every {@code opsPerRefresh} operations. The {@code keyed_lock} implementation is the version map that this class replaced,
+ * a {@link ConcurrentCollections#newConcurrentMapWithAggressiveConcurrency() concurrent map} per refresh cycle, and serves as the
+ * baseline. Both implementations serialize the operations on the same id with a {@link KeyedLock}.
+ */
+@Fork(value = 1, jvmArgsAppend = { "-XX:+UseG1GC" })
+@Warmup(iterations = 5)
+@Measurement(iterations = 7)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Threads(4)
+@SuppressWarnings("unused") // invoked by benchmarking framework
+public class LiveVersionMapBenchmark {
+
+    @Param({ "striped", "keyed_lock" })
+    public String implementation;
+
+    @Param({ "100000" })
+    public int numIds;
+
+    @Param({ "10000" })
+    public int opsPerRefresh;
+
+    private VersionMap versionMap;
+    private BytesRef[] ids;
+    private final AtomicLong ops = new AtomicLong();
+    private final Translog.Location location = new Translog.Location(1, 0, 100);
+
+    @Setup
+    public void setUp() {
+        switch (implementation) {
+            case "striped":
+                versionMap = new StripedVersionMap();
+                break;
+            case "keyed_lock":
+                versionMap = new KeyedLockVersionMap();
+                break;
+            default:
+                throw new IllegalArgumentException("unknown implementation [" + implementation + "]");
+        }
+        final Random random = new Random(0);
+        ids = new BytesRef[numIds];
+        for (int i = 0; i < numIds; i++) {
+            // ids similar to auto-generated ones, but indexed as regular ids so that they go through the version map
+            final byte[] bytes = new byte[15];
+            random.nextBytes(bytes);
+            ids[i] = new BytesRef(bytes);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        final Random random = new Random(Thread.currentThread().getId());
+    }
+
+    @Benchmark
+    public void updateAndRefresh(ThreadState state, Blackhole blackhole) throws Exception {
+        final long op = ops.incrementAndGet();
+        final BytesRef id = ids[state.random.nextInt(ids.length)];
+        try (Releasable ignored = versionMap.acquireLock(id)) {
+            final VersionValue current = versionMap.getUnderLock(id);
+            blackhole.consume(current);
+            final long version = current == null ? 1 : current.version + 1;
+            versionMap.putIndexUnderLock(id, new IndexVersionValue(location, version, op, 1));
+        }
+        if (op % opsPerRefresh == 0) {
+            synchronized (this) {
+                versionMap.beforeRefresh();
+                versionMap.afterRefresh(true);
+            }
+        }
+    }
+
+    private interface VersionMap {
+        Releasable acquireLock(BytesRef uid);
+
+        VersionValue getUnderLock(BytesRef uid);
+
+        void putIndexUnderLock(BytesRef uid, IndexVersionValue version);
+
+        void beforeRefresh() throws Exception;
+
+        void afterRefresh(boolean didRefresh) throws Exception;
+    }
+
+    private static final class StripedVersionMap implements VersionMap {
+        private final LiveVersionMap map = new LiveVersionMap();
+
+        StripedVersionMap() {
+            map.enforceSafeAccess();
+        }
+
+        @Override
+        public Releasable acquireLock(BytesRef uid) {
+            return map.acquireLock(uid);
+        }
+
+        @Override
+        public VersionValue getUnderLock(BytesRef uid) {
+            return map.getUnderLock(uid);
+        }
+
+        @Override
+        public void putIndexUnderLock(BytesRef uid, IndexVersionValue version) {
+            map.putIndexUnderLock(uid, version);
+        }
+
+        @Override
+        public void beforeRefresh() throws Exception {
+            map.beforeRefresh();
+        }
+
+        @Override
+        public void afterRefresh(boolean didRefresh) throws Exception {
+            map.afterRefresh(didRefresh);
+        }
+    }
+
+    private static final class KeyedLockVersionMap implements VersionMap {
+        private final KeyedLock<BytesRef> keyedLock = new KeyedLock<>();
+        private volatile Map<BytesRef, VersionValue> current = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
+        private volatile Map<BytesRef, VersionValue> old = Map.of();
+
+        @Override
+        public Releasable acquireLock(BytesRef uid) {
+            return keyedLock.acquire(uid);
+        }
+
+        @Override
+        public VersionValue getUnderLock(BytesRef uid) {
+            final VersionValue value = current.get(uid);
+            return value != null ? value : old.get(uid);
+        }
+
+        @Override
+        public void putIndexUnderLock(BytesRef uid, IndexVersionValue version) {
+            current.put(uid, version);
+        }
+
+        @Override
+        public void beforeRefresh() {
+            old = current;
+            current = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency(old.size());
+        }
+
+        @Override
+        public void afterRefresh(boolean didRefresh) {
+            old = Map.of();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.transport.netty4;
+
+import io.netty.channel.DefaultFileRegion;
+import io.netty.channel.FileRegion;
+import io.netty.util.AbstractReferenceCounted;
+import org.elasticsearch.common.bytes.FileChannelBytesReference;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A {@link FileRegion} over a {@link FileChannelBytesReference} which netty transfers to the socket with
+ * {@link java.nio.channels.FileChannel#transferTo}, i.e. with {@code sendfile} where the platform supports it. Unlike netty's
+ * {@link DefaultFileRegion} it does not close the file channel once it is released, the channel belongs to the creator of the
+ * reference.
+ */
+final class Netty4FileRegion extends AbstractReferenceCounted implements FileRegion {
+
+    private final FileChannelBytesReference reference;
+    private long transferred;
+
+    Netty4FileRegion(FileChannelBytesReference reference) {
+        this.reference = reference;
+    }
+
+    @Override
+    public long position() {
+        return reference.getPosition();
+    }
+
+    @Override
+    public long count() {
+        return reference.length();
+    }
+
+    @Override
+    @Deprecated
+    public long transfered() {
+        return transferred;
+    }
+
+    @Override
+    public long transferred() {
+        return transferred;
+    }
+
+    @Override
+    public long transferTo(WritableByteChannel target, long position) throws IOException {
+        final long count = count() - position;
+        if (count < 0 || position < 0) {
+            throw new IllegalArgumentException("position out of range: " + position + " (expected: 0 - " + (count() - 1) + ')');
+        }
+        if (count == 0) {
+            return 0L;
+        }
+        final long written = reference.getChannel().transferTo(position() + position, count, target);
+        if (written > 0) {
+            transferred += written;
+        } else if (written == 0) {
+            // nothing was transferred, which is what FileChannel#transferTo does if the file is shorter than expected
+            final long size = reference.getChannel().size();
+            if (size < position() + count()) {
+                throw new IOException("underlying file size [" + size + "] is smaller than the end of the region [" +
+                    (position() + count()) + "]");
+            }
+        }
+        return written;
+    }
+
+    @Override
+    public FileRegion retain() {
+        super.retain();
+        return this;
+    }
+
+    @Override
+    public FileRegion retain(int increment) {
+        super.retain(increment);
+        return this;
+    }
+
+    @Override
+    public FileRegion touch() {
+        return this;
+    }
+
+    @Override
+    public FileRegion touch(Object hint) {
+        return this;
+    }
+
+    @Override
+    protected void deallocate() {
+        // the file channel is closed by the owner of the reference
+    }
+
+    @Override
+    public String toString() {
+        return "Netty4FileRegion{position=" + position() + ", count=" + count() + ", transferred=" + transferred + '}';
+    }
+}
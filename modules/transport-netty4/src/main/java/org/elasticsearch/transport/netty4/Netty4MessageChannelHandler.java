@@ -14,8 +14,10 @@ import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
+import io.netty.channel.FileRegion;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.lease.Releasables;
@@ -80,9 +82,16 @@ final class Netty4MessageChannelHandler extends ChannelDuplexHandler {
 
     @Override
     public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
-        assert msg instanceof ByteBuf;
+        assert msg instanceof ByteBuf || msg instanceof BufferAndFileRegion;
         assert Transports.assertDefaultThreadContext(transport.getThreadPool().getThreadContext());
-        final boolean queued = queuedWrites.offer(new WriteOperation((ByteBuf) msg, promise));
+        final WriteOperation writeOperation;
+        if (msg instanceof BufferAndFileRegion) {
+            final BufferAndFileRegion bufferAndFileRegion = (BufferAndFileRegion) msg;
+            writeOperation = new WriteOperation(bufferAndFileRegion.buf, bufferAndFileRegion.fileRegion, promise);
+        } else {
+            writeOperation = new WriteOperation((ByteBuf) msg, null, promise);
+        }
+        final boolean queued = queuedWrites.offer(writeOperation);
         assert queued;
         assert Transports.assertDefaultThreadContext(transport.getThreadPool().getThreadContext());
     }
@@ -131,26 +140,14 @@ final class Netty4MessageChannelHandler extends ChannelDuplexHandler {
                 break;
             }
             final WriteOperation write = currentWrite;
-            if (write.buf.readableBytes() == 0) {
-                write.promise.trySuccess();
-                currentWrite = null;
-                continue;
-            }
-            final int readableBytes = write.buf.readableBytes();
-            final int bufferSize = Math.min(readableBytes, 1 << 18);
-            final int readerIndex = write.buf.readerIndex();
-            final boolean sliced = readableBytes != bufferSize;
-            final ByteBuf writeBuffer;
-            if (sliced) {
-                writeBuffer = write.buf.retainedSlice(readerIndex, bufferSize);
-                write.buf.readerIndex(readerIndex + bufferSize);
-            } else {
-                writeBuffer = write.buf;
-            }
-            final ChannelFuture writeFuture = ctx.write(writeBuffer);
-            if (sliced == false || write.buf.readableBytes() == 0) {
+            if (write.bufWritten || write.buf.readableBytes() == 0) {
                 currentWrite = null;
-                writeFuture.addListener(future -> {
+                if (write.fileRegion == null) {
+                    write.promise.trySuccess();
+                    continue;
+                }
+                // the file region goes out in one write, the channel transfers it in chunks as the socket accepts more bytes
+                ctx.write(write.fileRegion).addListener(future -> {
                     assert ctx.executor().inEventLoop();
                     if (future.isSuccess()) {
                         write.promise.trySuccess();
@@ -159,12 +156,38 @@ final class Netty4MessageChannelHandler extends ChannelDuplexHandler {
                     }
                 });
             } else {
-                writeFuture.addListener(future -> {
-                    assert ctx.executor().inEventLoop();
-                    if (future.isSuccess() == false) {
-                        write.promise.tryFailure(future.cause());
-                    }
-                });
+                final int readableBytes = write.buf.readableBytes();
+                final int bufferSize = Math.min(readableBytes, 1 << 18);
+                final int readerIndex = write.buf.readerIndex();
+                final boolean sliced = readableBytes != bufferSize;
+                final ByteBuf writeBuffer;
+                if (sliced) {
+                    writeBuffer = write.buf.retainedSlice(readerIndex, bufferSize);
+                    write.buf.readerIndex(readerIndex + bufferSize);
+                } else {
+                    writeBuffer = write.buf;
+                }
+                final ChannelFuture writeFuture = ctx.write(writeBuffer);
+                if ((sliced == false || write.buf.readableBytes() == 0) && write.fileRegion == null) {
+                    currentWrite = null;
+                    writeFuture.addListener(future -> {
+                        assert ctx.executor().inEventLoop();
+                        if (future.isSuccess()) {
+                            write.promise.trySuccess();
+                        } else {
+                            write.promise.tryFailure(future.cause());
+                        }
+                    });
+                } else {
+                    // the buffer is fully written once it was not sliced, it is followed by the file region if there is one
+                    write.bufWritten = sliced == false;
+                    writeFuture.addListener(future -> {
+                        assert ctx.executor().inEventLoop();
+                        if (future.isSuccess() == false) {
+                            write.promise.tryFailure(future.cause());
+                        }
+                    });
+                }
             }
             ctx.flush();
             if (channel.isActive() == false) {
@@ -185,11 +208,33 @@ final class Netty4MessageChannelHandler extends ChannelDuplexHandler {
 
         private final ByteBuf buf;
 
+        @Nullable
+        private final FileRegion fileRegion;
+
         private final ChannelPromise promise;
 
-        WriteOperation(ByteBuf buf, ChannelPromise promise) {
+        private boolean bufWritten;
+
+        WriteOperation(ByteBuf buf, @Nullable FileRegion fileRegion, ChannelPromise promise) {
             this.buf = buf;
+            this.fileRegion = fileRegion;
             this.promise = promise;
         }
     }
+
+    /**
+     * A message made of a buffer followed by a file region. Both are written to the channel back to back, without any other write
+     * in between, and the promise of the write is completed once both were written.
+     */
+    static final class BufferAndFileRegion {
+
+        private final ByteBuf buf;
+
+        private final FileRegion fileRegion;
+
+        BufferAndFileRegion(ByteBuf buf, FileRegion fileRegion) {
+            this.buf = buf;
+            this.fileRegion = fileRegion;
+        }
+    }
 }
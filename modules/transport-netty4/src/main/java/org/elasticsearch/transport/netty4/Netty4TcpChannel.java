@@ -10,16 +10,20 @@ package org.elasticsearch.transport.netty4;
 
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelOutboundHandler;
 import io.netty.channel.ChannelPromise;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.FileChannelBytesReference;
 import org.elasticsearch.common.concurrent.CompletableContext;
 import org.elasticsearch.transport.TcpChannel;
 import org.elasticsearch.transport.TransportException;
 
 import java.net.InetSocketAddress;
+import java.util.Map;
 
 public class Netty4TcpChannel implements TcpChannel {
 
@@ -139,6 +143,38 @@ public class Netty4TcpChannel implements TcpChannel {
         }
     }
 
+    @Override
+    public void sendMessage(BytesReference reference, FileChannelBytesReference fileRegion, ActionListener<Void> listener) {
+        if (canTransferFileRegions() == false) {
+            sendMessage(reference, listener);
+            return;
+        }
+        final BytesReference buffer = reference.slice(0, reference.length() - fileRegion.length());
+        final Netty4MessageChannelHandler.BufferAndFileRegion message =
+            new Netty4MessageChannelHandler.BufferAndFileRegion(Netty4Utils.toByteBuf(buffer), new Netty4FileRegion(fileRegion));
+        channel.writeAndFlush(message, addPromise(listener, channel));
+
+        if (channel.eventLoop().isShutdown()) {
+            listener.onFailure(new TransportException("Cannot send message, event loop is shutting down."));
+        }
+    }
+
+    /**
+     * File regions are written to the socket as they are, which is only possible if none of the outbound handlers of the pipeline
+     * transforms the bytes that we write, like an {@link io.netty.handler.ssl.SslHandler} that encrypts them does.
+     */
+    private boolean canTransferFileRegions() {
+        for (Map.Entry<String, ChannelHandler> entry : channel.pipeline()) {
+            final ChannelHandler handler = entry.getValue();
+            if (handler instanceof ChannelOutboundHandler
+                && handler instanceof ESLoggingHandler == false
+                && handler instanceof Netty4MessageChannelHandler == false) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public Channel getNettyChannel() {
         return channel;
     }
@@ -0,0 +1,149 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.transport.netty4;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.FileRegion;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.bytes.FileChannelBytesReference;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.network.NetworkService;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.PageCacheRecycler;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.SharedGroupFactory;
+import org.junit.After;
+import org.junit.Before;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+
+public class Netty4MessageChannelHandlerTests extends ESTestCase {
+
+    private ThreadPool threadPool;
+    private Netty4Transport transport;
+
+    @Before
+    public void createTransport() {
+        threadPool = new TestThreadPool(getTestName());
+        transport = new Netty4Transport(Settings.EMPTY, Version.CURRENT, threadPool, new NetworkService(Collections.emptyList()),
+            PageCacheRecycler.NON_RECYCLING_INSTANCE, new NamedWriteableRegistry(Collections.emptyList()),
+            new NoneCircuitBreakerService(), new SharedGroupFactory(Settings.EMPTY));
+    }
+
+    @After
+    public void terminateThreadPool() {
+        terminate(threadPool);
+    }
+
+    public void testWritesBufferAndFileRegionBackToBack() throws IOException {
+        final byte[] fileBytes = randomByteArrayOfLength(randomIntBetween(1, 1 << 16));
+        final Path file = createTempFile();
+        Files.write(file, fileBytes);
+        final int position = randomIntBetween(0, fileBytes.length - 1);
+        final int length = randomIntBetween(1, fileBytes.length - position);
+        // large enough to be written in several slices at times
+        final byte[] header = randomByteArrayOfLength(randomIntBetween(1, 1 << 19));
+        final byte[] next = randomByteArrayOfLength(randomIntBetween(1, 1 << 10));
+
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final EmbeddedChannel channel = new EmbeddedChannel(new Netty4MessageChannelHandler(PageCacheRecycler.NON_RECYCLING_INSTANCE,
+                transport));
+            final Netty4FileRegion fileRegion = new Netty4FileRegion(new FileChannelBytesReference(fileChannel, position, length));
+            final ChannelFuture first = channel.writeAndFlush(
+                new Netty4MessageChannelHandler.BufferAndFileRegion(Unpooled.wrappedBuffer(header), fileRegion));
+            final ChannelFuture second = channel.writeAndFlush(Unpooled.wrappedBuffer(next));
+            channel.runPendingTasks();
+            assertTrue(first.isSuccess());
+            assertTrue(second.isSuccess());
+
+            final ByteArrayOutputStream written = new ByteArrayOutputStream();
+            final WritableByteChannel target = Channels.newChannel(written);
+            int fileRegions = 0;
+            Object message;
+            while ((message = channel.readOutbound()) != null) {
+                if (message instanceof FileRegion) {
+                    final FileRegion region = (FileRegion) message;
+                    assertThat("the header must be written before the file region", written.size(), equalTo(header.length));
+                    while (region.transferred() < region.count()) {
+                        region.transferTo(target, region.transferred());
+                    }
+                    fileRegions++;
+                } else {
+                    final ByteBuf buf = (ByteBuf) message;
+                    buf.readBytes(written, buf.readableBytes());
+                    buf.release();
+                }
+            }
+            assertThat(fileRegions, equalTo(1));
+
+            final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            expected.write(header);
+            expected.write(fileBytes, position, length);
+            expected.write(next);
+            assertArrayEquals(expected.toByteArray(), written.toByteArray());
+
+            // releasing the region leaves the file channel to its owner
+            fileRegion.release();
+            assertTrue(fileChannel.isOpen());
+            assertFalse(channel.finish());
+        }
+    }
+
+    public void testFileRegionFailsIfFileIsShorterThanRegion() throws IOException {
+        final byte[] fileBytes = randomByteArrayOfLength(randomIntBetween(1, 1 << 10));
+        final Path file = createTempFile();
+        Files.write(file, fileBytes);
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final Netty4FileRegion fileRegion =
+                new Netty4FileRegion(new FileChannelBytesReference(fileChannel, fileBytes.length, randomIntBetween(1, 10)));
+            final WritableByteChannel target = Channels.newChannel(new ByteArrayOutputStream());
+            final IOException e = expectThrows(IOException.class, () -> fileRegion.transferTo(target, 0));
+            assertThat(e.getMessage(), containsString("is smaller than the end of the region"));
+            assertThat(fileRegion.transferred(), equalTo(0L));
+            expectThrows(IllegalArgumentException.class, () -> fileRegion.transferTo(target, fileRegion.count() + 1));
+        }
+    }
+
+    public void testFileRegionTransfersFromItsPosition() throws IOException {
+        final byte[] fileBytes = randomByteArrayOfLength(randomIntBetween(2, 1 << 10));
+        final Path file = createTempFile();
+        Files.write(file, fileBytes);
+        final int position = randomIntBetween(0, fileBytes.length - 2);
+        final int length = randomIntBetween(2, fileBytes.length - position);
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final Netty4FileRegion fileRegion = new Netty4FileRegion(new FileChannelBytesReference(fileChannel, position, length));
+            final ByteArrayOutputStream written = new ByteArrayOutputStream();
+            final WritableByteChannel target = Channels.newChannel(written);
+            // resume from an offset within the region, like netty does after a partial write
+            final int offset = randomIntBetween(1, length - 1);
+            assertThat(fileRegion.transferTo(target, offset), equalTo((long) (length - offset)));
+            assertArrayEquals(Arrays.copyOfRange(fileBytes, position + offset, position + length), written.toByteArray());
+            assertThat(fileRegion.transferred(), equalTo((long) (length - offset)));
+            assertThat(fileRegion.transferTo(target, length), equalTo(0L));
+        }
+    }
+}
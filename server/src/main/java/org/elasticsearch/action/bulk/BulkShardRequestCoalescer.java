@@ -0,0 +1,252 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.action.bulk;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.support.ActiveShardCount;
+import org.elasticsearch.action.support.ContextPreservingActionListener;
+import org.elasticsearch.action.support.WriteRequest.RefreshPolicy;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.index.IndexingPressure;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.tasks.TaskId;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * Merges the {@link BulkShardRequest}s that the coordinating node sends to the same shard within a short window into a single shard
+ * request, so that many small concurrent bulks share one replication round-trip and one translog sync. The items of the merged
+ * request are renumbered and the per-item responses are mapped back to the item ids of the request they came from before each
+ * caller is notified. A batch is flushed once the window elapsed or once it holds
+ * {@link #COALESCE_MAX_BYTES_SETTING} bytes, whichever happens first.
+ * <p>
+ * Only requests that share the refresh policy, the active shard count, the timeout and the headers of the thread context are merged,
+ * the latter makes sure that requests of different users are never executed together. Coalescing is disabled by default.
+ * <p>
+ * The merged request is a child of the parent task of the first request of the batch. Only requests whose parent tasks run on the same
+ * node are merged, so that banning the parent tasks of a node, e.g. because that node left the cluster, cancels the items of all the
+ * merged requests together.
+ */
+public class BulkShardRequestCoalescer {
+
+    public static final Setting<TimeValue> COALESCE_WINDOW_SETTING =
+        Setting.timeSetting("indices.bulk.coalesce.window", TimeValue.ZERO, TimeValue.ZERO, Property.NodeScope);
+
+    /**
+     * Defaults to 1% of {@link IndexingPressure#MAX_INDEXING_BYTES} so that a single batch never holds a significant part of the
+     * bytes that the node accepts for indexing.
+     */
+    public static final Setting<ByteSizeValue> COALESCE_MAX_BYTES_SETTING = Setting.byteSizeSetting("indices.bulk.coalesce.max_bytes",
+        settings -> (IndexingPressure.MAX_INDEXING_BYTES.get(settings).getBytes() / 100) + "b", Property.NodeScope);
+
+    private final ThreadPool threadPool;
+    private final IndexingPressure indexingPressure;
+    private final BiConsumer<BulkShardRequest, ActionListener<BulkShardResponse>> sender;
+    private final TimeValue window;
+    private final long maxBytes;
+    private final Map<BatchKey, Batch> batches = new HashMap<>();
+
+    public BulkShardRequestCoalescer(Settings settings, ThreadPool threadPool, IndexingPressure indexingPressure,
+                                     BiConsumer<BulkShardRequest, ActionListener<BulkShardResponse>> sender) {
+        this.threadPool = threadPool;
+        this.indexingPressure = indexingPressure;
+        this.sender = sender;
+        this.window = COALESCE_WINDOW_SETTING.get(settings);
+        this.maxBytes = COALESCE_MAX_BYTES_SETTING.get(settings).getBytes();
+    }
+
+    public boolean isEnabled() {
+        return window.nanos() > 0;
+    }
+
+    /**
+     * Sends the given shard request, possibly merged with other requests to the same shard. The listener is notified with a response
+     * that only holds the responses of the items of the given request, under the item ids of the given request.
+     *
+     * @param routedBasedOnClusterVersion the version of the cluster state that the request was routed with
+     */
+    public void execute(BulkShardRequest request, long routedBasedOnClusterVersion, ActionListener<BulkShardResponse> listener) {
+        final long bytes = request.ramBytesUsed();
+        if (isEnabled() == false || bytes >= maxBytes) {
+            sender.accept(request, listener);
+            return;
+        }
+        final ThreadContext threadContext = threadPool.getThreadContext();
+        final BatchKey key = new BatchKey(request, threadContext.getHeaders());
+        final PendingRequest pendingRequest = new PendingRequest(request, routedBasedOnClusterVersion,
+            ContextPreservingActionListener.wrapPreservingContext(listener, threadContext));
+        final Batch toFlush;
+        synchronized (batches) {
+            Batch batch = batches.get(key);
+            if (batch == null) {
+                batch = new Batch();
+                batches.put(key, batch);
+                final Batch scheduled = batch;
+                threadPool.schedule(() -> flushIfPending(key, scheduled), window, ThreadPool.Names.GENERIC);
+            }
+            batch.add(pendingRequest, bytes);
+            if (batch.bytes >= maxBytes) {
+                batches.remove(key);
+                toFlush = batch;
+            } else {
+                toFlush = null;
+            }
+        }
+        if (toFlush != null) {
+            flush(toFlush);
+        }
+    }
+
+    private void flushIfPending(BatchKey key, Batch batch) {
+        final boolean removed;
+        synchronized (batches) {
+            removed = batches.remove(key, batch);
+        }
+        // the batch was already flushed if it reached the maximum size before the window elapsed
+        if (removed) {
+            flush(batch);
+        }
+    }
+
+    private void flush(Batch batch) {
+        final List<PendingRequest> requests = batch.requests;
+        if (requests.size() == 1) {
+            final PendingRequest pendingRequest = requests.get(0);
+            sender.accept(pendingRequest.request, pendingRequest.listener);
+            return;
+        }
+        indexingPressure.markShardRequestsCoalesced(requests.size());
+
+        final BulkShardRequest first = requests.get(0).request;
+        final int[] callers = new int[batch.items];
+        final int[] originalIds = new int[batch.items];
+        final BulkItemRequest[] items = new BulkItemRequest[batch.items];
+        long routedBasedOnClusterVersion = 0;
+        int itemId = 0;
+        for (int caller = 0; caller < requests.size(); caller++) {
+            final PendingRequest pendingRequest = requests.get(caller);
+            for (BulkItemRequest item : pendingRequest.request.items()) {
+                callers[itemId] = caller;
+                originalIds[itemId] = item.id();
+                items[itemId] = new BulkItemRequest(itemId, item.request());
+                itemId++;
+            }
+            routedBasedOnClusterVersion = Math.max(routedBasedOnClusterVersion, pendingRequest.routedBasedOnClusterVersion);
+        }
+        final BulkShardRequest merged = new BulkShardRequest(first.shardId(), first.getRefreshPolicy(), items);
+        merged.waitForActiveShards(first.waitForActiveShards());
+        merged.timeout(first.timeout());
+        merged.routedBasedOnClusterVersion(routedBasedOnClusterVersion);
+        merged.setParentTask(first.getParentTask());
+
+        sender.accept(merged, new ActionListener<>() {
+            @Override
+            public void onResponse(BulkShardResponse response) {
+                final List<List<BulkItemResponse>> responsesPerCaller = new ArrayList<>(requests.size());
+                for (PendingRequest pendingRequest : requests) {
+                    responsesPerCaller.add(new ArrayList<>(pendingRequest.request.items().length));
+                }
+                for (BulkItemResponse itemResponse : response.getResponses()) {
+                    final int id = itemResponse.getItemId();
+                    final BulkItemResponse demultiplexed = itemResponse.isFailed()
+                        ? new BulkItemResponse(originalIds[id], itemResponse.getOpType(), itemResponse.getFailure())
+                        : new BulkItemResponse(originalIds[id], itemResponse.getOpType(), itemResponse.getResponse());
+                    responsesPerCaller.get(callers[id]).add(demultiplexed);
+                }
+                for (int caller = 0; caller < requests.size(); caller++) {
+                    final List<BulkItemResponse> responses = responsesPerCaller.get(caller);
+                    final BulkShardResponse callerResponse = new BulkShardResponse(response.getShardId(),
+                        responses.toArray(new BulkItemResponse[0]));
+                    callerResponse.setShardInfo(response.getShardInfo());
+                    requests.get(caller).listener.onResponse(callerResponse);
+                }
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                for (PendingRequest pendingRequest : requests) {
+                    pendingRequest.listener.onFailure(e);
+                }
+            }
+        });
+    }
+
+    private static final class PendingRequest {
+        private final BulkShardRequest request;
+        private final long routedBasedOnClusterVersion;
+        private final ActionListener<BulkShardResponse> listener;
+
+        private PendingRequest(BulkShardRequest request, long routedBasedOnClusterVersion, ActionListener<BulkShardResponse> listener) {
+            this.request = request;
+            this.routedBasedOnClusterVersion = routedBasedOnClusterVersion;
+            this.listener = listener;
+        }
+    }
+
+    private static final class Batch {
+        private final List<PendingRequest> requests = new ArrayList<>();
+        private long bytes;
+        private int items;
+
+        private void add(PendingRequest request, long requestBytes) {
+            requests.add(request);
+            bytes += requestBytes;
+            items += request.request.items().length;
+        }
+    }
+
+    private static final class BatchKey {
+        private final ShardId shardId;
+        private final RefreshPolicy refreshPolicy;
+        private final ActiveShardCount waitForActiveShards;
+        private final TimeValue timeout;
+        private final String parentTaskNode;
+        private final Map<String, String> headers;
+
+        private BatchKey(BulkShardRequest request, Map<String, String> headers) {
+            this.shardId = request.shardId();
+            this.refreshPolicy = request.getRefreshPolicy();
+            this.waitForActiveShards = request.waitForActiveShards();
+            this.timeout = request.timeout();
+            final TaskId parentTask = request.getParentTask();
+            this.parentTaskNode = parentTask.isSet() ? parentTask.getNodeId() : null;
+            this.headers = headers;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final BatchKey that = (BatchKey) o;
+            return shardId.equals(that.shardId) && refreshPolicy == that.refreshPolicy
+                && waitForActiveShards.equals(that.waitForActiveShards) && timeout.equals(that.timeout)
+                && Objects.equals(parentTaskNode, that.parentTaskNode) && headers.equals(that.headers);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(shardId, refreshPolicy, waitForActiveShards, timeout, parentTaskNode, headers);
+        }
+    }
+}
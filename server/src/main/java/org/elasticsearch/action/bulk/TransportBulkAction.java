@@ -45,6 +45,7 @@ import org.elasticsearch.cluster.metadata.Metadata;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.AtomicArray;
 import org.elasticsearch.index.Index;
@@ -99,13 +100,22 @@ public class TransportBulkAction extends HandledTransportAction<BulkRequest, Bul
     private static final String DROPPED_ITEM_WITH_AUTO_GENERATED_ID = "auto-generated";
     private final IndexingPressure indexingPressure;
     private final SystemIndices systemIndices;
+    private final BulkShardRequestCoalescer shardRequestCoalescer;
 
     @Inject
+    public TransportBulkAction(Settings settings, ThreadPool threadPool, TransportService transportService,
+                               ClusterService clusterService, IngestService ingestService,
+                               NodeClient client, ActionFilters actionFilters, IndexNameExpressionResolver indexNameExpressionResolver,
+                               IndexingPressure indexingPressure, SystemIndices systemIndices) {
+        this(settings, threadPool, transportService, clusterService, ingestService, client, actionFilters,
+            indexNameExpressionResolver, indexingPressure, systemIndices, System::nanoTime);
+    }
+
     public TransportBulkAction(ThreadPool threadPool, TransportService transportService,
                                ClusterService clusterService, IngestService ingestService,
                                NodeClient client, ActionFilters actionFilters, IndexNameExpressionResolver indexNameExpressionResolver,
                                IndexingPressure indexingPressure, SystemIndices systemIndices) {
-        this(threadPool, transportService, clusterService, ingestService, client, actionFilters,
+        this(Settings.EMPTY, threadPool, transportService, clusterService, ingestService, client, actionFilters,
             indexNameExpressionResolver, indexingPressure, systemIndices, System::nanoTime);
     }
 
@@ -114,6 +124,15 @@ public class TransportBulkAction extends HandledTransportAction<BulkRequest, Bul
                                NodeClient client, ActionFilters actionFilters, IndexNameExpressionResolver indexNameExpressionResolver,
                                IndexingPressure indexingPressure, SystemIndices systemIndices,
                                LongSupplier relativeTimeProvider) {
+        this(Settings.EMPTY, threadPool, transportService, clusterService, ingestService, client, actionFilters,
+            indexNameExpressionResolver, indexingPressure, systemIndices, relativeTimeProvider);
+    }
+
+    public TransportBulkAction(Settings settings, ThreadPool threadPool, TransportService transportService,
+                               ClusterService clusterService, IngestService ingestService,
+                               NodeClient client, ActionFilters actionFilters, IndexNameExpressionResolver indexNameExpressionResolver,
+                               IndexingPressure indexingPressure, SystemIndices systemIndices,
+                               LongSupplier relativeTimeProvider) {
         super(BulkAction.NAME, transportService, actionFilters, BulkRequest::new, ThreadPool.Names.SAME);
         Objects.requireNonNull(relativeTimeProvider);
         this.threadPool = threadPool;
@@ -125,6 +144,8 @@ public class TransportBulkAction extends HandledTransportAction<BulkRequest, Bul
         this.indexNameExpressionResolver = indexNameExpressionResolver;
         this.indexingPressure = indexingPressure;
         this.systemIndices = systemIndices;
+        this.shardRequestCoalescer = new BulkShardRequestCoalescer(settings, threadPool, indexingPressure,
+            (request, listener) -> client.executeLocally(TransportShardBulkAction.TYPE, request, listener));
         clusterService.addStateApplier(this.ingestForwarder);
     }
 
@@ -497,7 +518,7 @@ public class TransportBulkAction extends HandledTransportAction<BulkRequest, Bul
                 if (task != null) {
                     bulkShardRequest.setParentTask(nodeId, task.getId());
                 }
-                client.executeLocally(TransportShardBulkAction.TYPE, bulkShardRequest, new ActionListener<>() {
+                shardRequestCoalescer.execute(bulkShardRequest, clusterState.version(), new ActionListener<>() {
                     @Override
                     public void onResponse(BulkShardResponse bulkShardResponse) {
                         for (BulkItemResponse bulkItemResponse : bulkShardResponse.getResponses()) {
@@ -48,6 +48,10 @@ import static org.elasticsearch.action.search.SearchPhaseController.setShardInde
  * in the {@link CircuitBreaker#REQUEST} circuit breaker. Before any partial or final reduce, the memory
  * needed to reduce the aggregations is estimated and a {@link CircuitBreakingException} is thrown if it
  * exceeds the maximum memory allowed in this breaker.
+ * A partial reduce is triggered when {@link SearchRequest#getBatchedReduceSize()} results are buffered or, if a
+ * maximum buffer size is set, as soon as the serialized aggregations of the buffered results exceed it. A buffer
+ * size of {@code 0} merges every shard result into the running partial reduce as soon as it arrives, which bounds
+ * the memory needed by high fan-out searches at the cost of more reduce phases.
  */
 public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhaseResult> implements Releasable {
     private static final Logger logger = LogManager.getLogger(QueryPhaseResultConsumer.class);
@@ -79,6 +83,26 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
                                     NamedWriteableRegistry namedWriteableRegistry,
                                     int expectedResultSize,
                                     Consumer<Exception> onPartialMergeFailure) {
+        this(request, executor, circuitBreaker, controller, progressListener, namedWriteableRegistry, expectedResultSize, -1,
+            onPartialMergeFailure);
+    }
+
+    /**
+     * Creates a {@link QueryPhaseResultConsumer} that incrementally reduces aggregation results
+     * as shard results are consumed and that triggers a partial reduce as soon as the serialized
+     * aggregations of the buffered results reach <code>maxBufferedAggsBytes</code>.
+     * A negative <code>maxBufferedAggsBytes</code> means that the buffer is only bounded by the
+     * {@link SearchRequest#getBatchedReduceSize()}.
+     */
+    public QueryPhaseResultConsumer(SearchRequest request,
+                                    Executor executor,
+                                    CircuitBreaker circuitBreaker,
+                                    SearchPhaseController controller,
+                                    SearchProgressListener progressListener,
+                                    NamedWriteableRegistry namedWriteableRegistry,
+                                    int expectedResultSize,
+                                    long maxBufferedAggsBytes,
+                                    Consumer<Exception> onPartialMergeFailure) {
         super(expectedResultSize);
         this.executor = executor;
         this.circuitBreaker = circuitBreaker;
@@ -94,7 +118,8 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         this.hasTopDocs = source == null || source.size() != 0;
         this.hasAggs = source != null && source.aggregations() != null;
         int batchReduceSize = (hasAggs || hasTopDocs) ? Math.min(request.getBatchedReduceSize(), expectedResultSize)  : expectedResultSize;
-        this.pendingMerges = new PendingMerges(batchReduceSize, request.resolveTrackTotalHitsUpTo());
+        this.pendingMerges = new PendingMerges(batchReduceSize, hasAggs ? maxBufferedAggsBytes : -1,
+            request.resolveTrackTotalHitsUpTo());
     }
 
     @Override
@@ -209,6 +234,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
 
     private class PendingMerges implements Releasable {
         private final int batchReduceSize;
+        private final long maxBufferedAggsBytes;
         private final List<QuerySearchResult> buffer = new ArrayList<>();
         private final List<SearchShard> emptyResults = new ArrayList<>();
         // the memory that is accounted in the circuit breaker for this consumer
@@ -226,8 +252,9 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         private volatile boolean hasPartialReduce;
         private volatile int numReducePhases;
 
-        PendingMerges(int batchReduceSize, int trackTotalHitsUpTo) {
+        PendingMerges(int batchReduceSize, long maxBufferedAggsBytes, int trackTotalHitsUpTo) {
             this.batchReduceSize = batchReduceSize;
+            this.maxBufferedAggsBytes = maxBufferedAggsBytes;
             this.topDocsStats = new TopDocsStats(trackTotalHitsUpTo);
         }
 
@@ -305,6 +332,8 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
                         emptyResults.add(new SearchShard(target.getClusterAlias(), target.getShardId()));
                     }
                 } else {
+                    // the size of the aggregations that are buffered, not counting this result
+                    final long bufferedAggsSize = aggsCurrentBufferSize;
                     if (hasAggs) {
                         long aggsSize = ramBytesUsedQueryResult(result);
                         try {
@@ -321,12 +350,13 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
                     }
                     // add one if a partial merge is pending
                     int size = buffer.size() + (hasPartialReduce ? 1 : 0);
-                    if (size >= batchReduceSize) {
+                    if (size >= batchReduceSize || isBufferFull(bufferedAggsSize)) {
                         hasPartialReduce = true;
                         executeNextImmediately = false;
                         QuerySearchResult[] clone = buffer.toArray(QuerySearchResult[]::new);
-                        MergeTask task = new MergeTask(clone, aggsCurrentBufferSize, new ArrayList<>(emptyResults), next);
-                        aggsCurrentBufferSize = 0;
+                        MergeTask task = new MergeTask(clone, bufferedAggsSize, new ArrayList<>(emptyResults), next);
+                        // this result starts the next buffer
+                        aggsCurrentBufferSize -= bufferedAggsSize;
                         buffer.clear();
                         emptyResults.clear();
                         queue.add(task);
@@ -340,6 +370,10 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             }
         }
 
+        private boolean isBufferFull(long bufferedAggsSize) {
+            return maxBufferedAggsBytes >= 0 && buffer.isEmpty() == false && bufferedAggsSize >= maxBufferedAggsBytes;
+        }
+
         private synchronized void onMergeFailure(Exception exc) {
             if (hasFailure()) {
                 assert circuitBreakerBytes == 0;
@@ -37,6 +37,7 @@ import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.AtomicArray;
 import org.elasticsearch.common.util.concurrent.CountDown;
@@ -94,6 +95,13 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
     public static final Setting<Long> SHARD_COUNT_LIMIT_SETTING = Setting.longSetting(
             "action.search.shard_count.limit", Long.MAX_VALUE, 1L, Property.Dynamic, Property.NodeScope);
 
+    /**
+     * The maximum size of the serialized shard aggregations that the coordinating node buffers before it merges them into the
+     * running partial reduce, {@code -1} means that only the {@link SearchRequest#getBatchedReduceSize()} bounds the buffer.
+     */
+    public static final Setting<ByteSizeValue> MAX_BUFFERED_AGGS_SIZE_SETTING = Setting.memorySizeSetting(
+            "action.search.partial_reduce.max_buffer_size", new ByteSizeValue(-1), Property.Dynamic, Property.NodeScope);
+
     private final ThreadPool threadPool;
     private final ClusterService clusterService;
     private final SearchTransportService searchTransportService;
@@ -782,6 +790,7 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
         } else {
             final QueryPhaseResultConsumer queryResultConsumer = searchPhaseController.newSearchPhaseResults(executor,
                 circuitBreaker, task.getProgressListener(), searchRequest, shardIterators.size(),
+                clusterService.getClusterSettings().get(MAX_BUFFERED_AGGS_SIZE_SETTING).getBytes(),
                 exc -> searchTransportService.cancelSearchTask(task, "failed to merge result [" + exc.getMessage() + "]"));
             AbstractSearchAsyncAction<? extends SearchPhaseResult> searchAsyncAction;
             switch (searchRequest.searchType()) {
@@ -36,6 +36,7 @@ import java.util.Optional;
 public class ClusterInfo implements ToXContentFragment, Writeable {
 
     public static final Version DATA_SET_SIZE_SIZE_VERSION = Version.V_7_13_0;
+    public static final Version SHARD_LOADS_VERSION = Version.V_8_0_0;
 
     private final ImmutableOpenMap<String, DiskUsage> leastAvailableSpaceUsage;
     private final ImmutableOpenMap<String, DiskUsage> mostAvailableSpaceUsage;
@@ -44,10 +45,12 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
     public static final ClusterInfo EMPTY = new ClusterInfo();
     final ImmutableOpenMap<ShardRouting, String> routingToDataPath;
     final ImmutableOpenMap<NodeAndPath, ReservedSpace> reservedSpace;
+    final ImmutableOpenMap<ShardId, Double> shardWriteLoads;
+    final ImmutableOpenMap<ShardId, Double> shardSearchLoads;
 
     protected ClusterInfo() {
        this(ImmutableOpenMap.of(), ImmutableOpenMap.of(), ImmutableOpenMap.of(), ImmutableOpenMap.of(), ImmutableOpenMap.of(),
-           ImmutableOpenMap.of());
+           ImmutableOpenMap.of(), ImmutableOpenMap.of(), ImmutableOpenMap.of());
     }
 
     /**
@@ -65,12 +68,36 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
                        ImmutableOpenMap<String, DiskUsage> mostAvailableSpaceUsage, ImmutableOpenMap<String, Long> shardSizes,
                        ImmutableOpenMap<ShardId, Long> shardDataSetSizes, ImmutableOpenMap<ShardRouting, String> routingToDataPath,
                        ImmutableOpenMap<NodeAndPath, ReservedSpace> reservedSpace) {
+        this(leastAvailableSpaceUsage, mostAvailableSpaceUsage, shardSizes, shardDataSetSizes, routingToDataPath, reservedSpace,
+            ImmutableOpenMap.of(), ImmutableOpenMap.of());
+    }
+
+    /**
+     * Creates a new ClusterInfo instance.
+     *
+     * @param leastAvailableSpaceUsage a node id to disk usage mapping for the path that has the least available space on the node.
+     * @param mostAvailableSpaceUsage  a node id to disk usage mapping for the path that has the most available space on the node.
+     * @param shardSizes a shardkey to size in bytes mapping per shard.
+     * @param shardDataSetSizes a shard id to data set size in bytes mapping per shard
+     * @param routingToDataPath the shard routing to datapath mapping
+     * @param reservedSpace reserved space per shard broken down by node and data path
+     * @param shardWriteLoads a shard id to write load mapping, see {@link #getShardWriteLoad}
+     * @param shardSearchLoads a shard id to search load mapping, see {@link #getShardSearchLoad}
+     * @see #shardIdentifierFromRouting
+     */
+    public ClusterInfo(ImmutableOpenMap<String, DiskUsage> leastAvailableSpaceUsage,
+                       ImmutableOpenMap<String, DiskUsage> mostAvailableSpaceUsage, ImmutableOpenMap<String, Long> shardSizes,
+                       ImmutableOpenMap<ShardId, Long> shardDataSetSizes, ImmutableOpenMap<ShardRouting, String> routingToDataPath,
+                       ImmutableOpenMap<NodeAndPath, ReservedSpace> reservedSpace, ImmutableOpenMap<ShardId, Double> shardWriteLoads,
+                       ImmutableOpenMap<ShardId, Double> shardSearchLoads) {
         this.leastAvailableSpaceUsage = leastAvailableSpaceUsage;
         this.shardSizes = shardSizes;
         this.shardDataSetSizes = shardDataSetSizes;
         this.mostAvailableSpaceUsage = mostAvailableSpaceUsage;
         this.routingToDataPath = routingToDataPath;
         this.reservedSpace = reservedSpace;
+        this.shardWriteLoads = shardWriteLoads;
+        this.shardSearchLoads = shardSearchLoads;
     }
 
     public ClusterInfo(StreamInput in) throws IOException {
@@ -90,6 +117,15 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
         } else {
             reservedSpaceMap = Map.of();
         }
+        Map<ShardId, Double> writeLoadMap;
+        Map<ShardId, Double> searchLoadMap;
+        if (in.getVersion().onOrAfter(SHARD_LOADS_VERSION)) {
+            writeLoadMap = in.readMap(ShardId::new, StreamInput::readDouble);
+            searchLoadMap = in.readMap(ShardId::new, StreamInput::readDouble);
+        } else {
+            writeLoadMap = Map.of();
+            searchLoadMap = Map.of();
+        }
 
         ImmutableOpenMap.Builder<String, DiskUsage> leastBuilder = ImmutableOpenMap.builder();
         this.leastAvailableSpaceUsage = leastBuilder.putAll(leastMap).build();
@@ -103,6 +139,10 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
         this.routingToDataPath = routingBuilder.putAll(routingMap).build();
         ImmutableOpenMap.Builder<NodeAndPath, ReservedSpace> reservedSpaceBuilder = ImmutableOpenMap.builder();
         this.reservedSpace = reservedSpaceBuilder.putAll(reservedSpaceMap).build();
+        ImmutableOpenMap.Builder<ShardId, Double> writeLoadBuilder = ImmutableOpenMap.builder();
+        this.shardWriteLoads = writeLoadBuilder.putAll(writeLoadMap).build();
+        ImmutableOpenMap.Builder<ShardId, Double> searchLoadBuilder = ImmutableOpenMap.builder();
+        this.shardSearchLoads = searchLoadBuilder.putAll(searchLoadMap).build();
     }
 
     @Override
@@ -121,6 +161,10 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
         if (out.getVersion().onOrAfter(StoreStats.RESERVED_BYTES_VERSION)) {
             out.writeMap(this.reservedSpace);
         }
+        if (out.getVersion().onOrAfter(SHARD_LOADS_VERSION)) {
+            out.writeMap(this.shardWriteLoads, (o, s) -> s.writeTo(o), StreamOutput::writeDouble);
+            out.writeMap(this.shardSearchLoads, (o, s) -> s.writeTo(o), StreamOutput::writeDouble);
+        }
     }
 
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
@@ -173,6 +217,18 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
             }
         }
         builder.endArray(); // end "reserved_sizes"
+        builder.startObject("shard_write_loads"); {
+            for (ObjectObjectCursor<ShardId, Double> c : this.shardWriteLoads) {
+                builder.field(c.key.toString(), c.value);
+            }
+        }
+        builder.endObject(); // end "shard_write_loads"
+        builder.startObject("shard_search_loads"); {
+            for (ObjectObjectCursor<ShardId, Double> c : this.shardSearchLoads) {
+                builder.field(c.key.toString(), c.value);
+            }
+        }
+        builder.endObject(); // end "shard_search_loads"
         return builder;
     }
 
@@ -217,6 +273,26 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
     public Optional<Long> getShardDataSetSize(ShardId shardId) {
         return Optional.ofNullable(shardDataSetSizes.get(shardId));
     }
+    /**
+     * Returns the write load of each copy of the given shard or <code>defaultValue</code> if that metric is not available. The write
+     * load is the average number of threads that were busy indexing into a copy of the shard between the last two refreshes of the
+     * cluster info, taking the busiest copy of the shard.
+     */
+    public double getShardWriteLoad(ShardId shardId, double defaultValue) {
+        Double writeLoad = shardWriteLoads.get(shardId);
+        return writeLoad == null ? defaultValue : writeLoad;
+    }
+
+    /**
+     * Returns the search load of each copy of the given shard or <code>defaultValue</code> if that metric is not available. The search
+     * load is the average number of threads that were busy searching a copy of the shard between the last two refreshes of the cluster
+     * info, averaged over the copies of the shard since searches are spread across them.
+     */
+    public double getShardSearchLoad(ShardId shardId, double defaultValue) {
+        Double searchLoad = shardSearchLoads.get(shardId);
+        return searchLoad == null ? defaultValue : searchLoad;
+    }
+
     /**
      * Returns the reserved space for each shard on the given node/path pair
      */
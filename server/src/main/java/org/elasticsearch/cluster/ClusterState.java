@@ -47,6 +47,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.stream.StreamSupport;
 
 /**
@@ -600,6 +601,14 @@ public class ClusterState implements ToXContentFragment, Diffable<ClusterState>
         return new ClusterStateDiff(previousState, this);
     }
 
+    /**
+     * Like {@link #diff(ClusterState)}, but compares and diffs the changed indices of the metadata and the routing table on the
+     * calling thread and on up to {@code parallelism - 1} tasks forked to the given executor.
+     */
+    public Diff<ClusterState> diff(ClusterState previousState, Executor executor, int parallelism) {
+        return new ClusterStateDiff(previousState, this, executor, parallelism);
+    }
+
     public static Diff<ClusterState> readDiffFrom(StreamInput in, DiscoveryNode localNode) throws IOException {
         return new ClusterStateDiff(in, localNode);
     }
@@ -660,13 +669,17 @@ public class ClusterState implements ToXContentFragment, Diffable<ClusterState>
         private final Diff<ImmutableOpenMap<String, Custom>> customs;
 
         ClusterStateDiff(ClusterState before, ClusterState after) {
+            this(before, after, Runnable::run, 1);
+        }
+
+        ClusterStateDiff(ClusterState before, ClusterState after, Executor executor, int parallelism) {
             fromUuid = before.stateUUID;
             toUuid = after.stateUUID;
             toVersion = after.version;
             clusterName = after.clusterName;
-            routingTable = after.routingTable.diff(before.routingTable);
+            routingTable = after.routingTable.diff(before.routingTable, executor, parallelism);
             nodes = after.nodes.diff(before.nodes);
-            metadata = after.metadata.diff(before.metadata);
+            metadata = after.metadata.diff(before.metadata, executor, parallelism);
             blocks = after.blocks.diff(before.blocks);
             customs = DiffableUtils.diff(before.customs, after.customs, DiffableUtils.getStringKeySerializer(), CUSTOM_VALUE_SERIALIZER);
         }
@@ -26,11 +26,23 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntConsumer;
 
 public final class DiffableUtils {
     private DiffableUtils() {
     }
 
+    /**
+     * The minimum number of changed values that each thread compares and diffs when computing a diff concurrently, below which
+     * forking to another thread costs more than it saves.
+     */
+    static final int MIN_CHANGED_VALUES_PER_THREAD = 16;
+
     /**
      * Returns a map key serializer for String keys
      */
@@ -70,6 +82,120 @@ public final class DiffableUtils {
         return new ImmutableOpenMapDiff<>(before, after, keySerializer, valueSerializer);
     }
 
+    /**
+     * Calculates diff between two ImmutableOpenMaps of Diffable objects, comparing and diffing the changed values on the calling
+     * thread and on up to {@code parallelism - 1} tasks forked to the given executor.
+     */
+    public static <K, T extends Diffable<T>> MapDiff<K, T, ImmutableOpenMap<K, T>> diff(ImmutableOpenMap<K, T> before,
+            ImmutableOpenMap<K, T> after, KeySerializer<K> keySerializer, Executor executor, int parallelism) {
+        return diff(before, after, keySerializer, DiffableValueSerializer.getWriteOnlyInstance(), executor, parallelism);
+    }
+
+    /**
+     * Calculates diff between two ImmutableOpenMaps of non-diffable objects, comparing and diffing the changed values on the calling
+     * thread and on up to {@code parallelism - 1} tasks forked to the given executor. The result is the same as the one of
+     * {@link #diff(ImmutableOpenMap, ImmutableOpenMap, KeySerializer, ValueSerializer)}.
+     */
+    public static <K, T> MapDiff<K, T, ImmutableOpenMap<K, T>> diff(ImmutableOpenMap<K, T> before, ImmutableOpenMap<K, T> after,
+            KeySerializer<K> keySerializer, ValueSerializer<K, T> valueSerializer, Executor executor, int parallelism) {
+        assert after != null && before != null;
+        assert parallelism >= 1 : parallelism;
+        if (parallelism == 1) {
+            return new ImmutableOpenMapDiff<>(before, after, keySerializer, valueSerializer);
+        }
+
+        final List<K> deletes = new ArrayList<>();
+        for (ObjectCursor<K> key : before.keys()) {
+            if (after.containsKey(key.value) == false) {
+                deletes.add(key.value);
+            }
+        }
+
+        // comparing and diffing the values is the expensive part, and is only needed for the values that are not the same instance
+        final Map<K, T> upserts = new HashMap<>();
+        final List<K> changedKeys = new ArrayList<>();
+        for (ObjectObjectCursor<K, T> partIter : after) {
+            T beforePart = before.get(partIter.key);
+            if (beforePart == null) {
+                upserts.put(partIter.key, partIter.value);
+            } else if (partIter.value != beforePart) {
+                changedKeys.add(partIter.key);
+            }
+        }
+
+        final int changedCount = changedKeys.size();
+        @SuppressWarnings("unchecked")
+        final Diff<T>[] changedDiffs = new Diff[changedCount];
+        final boolean[] changedUpserts = new boolean[changedCount];
+        forEachConcurrently(changedCount, executor, parallelism, i -> {
+            final K key = changedKeys.get(i);
+            final T afterPart = after.get(key);
+            final T beforePart = before.get(key);
+            if (afterPart.equals(beforePart) == false) {
+                if (valueSerializer.supportsDiffableValues()) {
+                    changedDiffs[i] = valueSerializer.diff(afterPart, beforePart);
+                } else {
+                    changedUpserts[i] = true;
+                }
+            }
+        });
+
+        final Map<K, Diff<T>> diffs = new HashMap<>();
+        for (int i = 0; i < changedCount; i++) {
+            if (changedDiffs[i] != null) {
+                diffs.put(changedKeys.get(i), changedDiffs[i]);
+            } else if (changedUpserts[i]) {
+                upserts.put(changedKeys.get(i), after.get(changedKeys.get(i)));
+            }
+        }
+        return new ImmutableOpenMapDiff<>(keySerializer, valueSerializer, deletes, diffs, upserts);
+    }
+
+    /**
+     * Runs the action for every index from {@code 0} to {@code count - 1} on the calling thread and on up to {@code parallelism - 1}
+     * tasks forked to the given executor, all of which claim the next index until none remain. The calling thread only waits for
+     * the indices that forked tasks are already processing, so it makes progress even if the executor is busy or rejects the tasks.
+     */
+    static void forEachConcurrently(int count, Executor executor, int parallelism, IntConsumer action) {
+        final AtomicInteger nextIndex = new AtomicInteger();
+        final CountDownLatch remaining = new CountDownLatch(count);
+        final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        final Runnable worker = () -> {
+            for (int i = nextIndex.getAndIncrement(); i < count; i = nextIndex.getAndIncrement()) {
+                try {
+                    action.accept(i);
+                } catch (RuntimeException e) {
+                    if (failure.compareAndSet(null, e) == false) {
+                        failure.get().addSuppressed(e);
+                    }
+                } finally {
+                    remaining.countDown();
+                }
+            }
+        };
+
+        final int forkedTasks = Math.min(parallelism, count / MIN_CHANGED_VALUES_PER_THREAD) - 1;
+        for (int i = 0; i < forkedTasks; i++) {
+            try {
+                executor.execute(worker);
+            } catch (RejectedExecutionException e) {
+                // the calling thread processes the indices that this task would have processed
+                break;
+            }
+        }
+        worker.run();
+
+        try {
+            remaining.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for the values to be diffed", e);
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
     /**
      * Calculates diff between two ImmutableOpenIntMaps of Diffable objects
      */
@@ -35,6 +35,8 @@ import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.CountDown;
+import org.elasticsearch.index.search.stats.SearchStats;
+import org.elasticsearch.index.shard.IndexingStats;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.store.StoreStats;
 import org.elasticsearch.monitor.fs.FsInfo;
@@ -78,6 +80,8 @@ public class InternalClusterInfoService implements ClusterInfoService, ClusterSt
     private volatile ImmutableOpenMap<String, DiskUsage> leastAvailableSpaceUsages;
     private volatile ImmutableOpenMap<String, DiskUsage> mostAvailableSpaceUsages;
     private volatile IndicesStatsSummary indicesStatsSummary;
+    // the indexing and search times of each shard copy as of the last refresh, by allocation id, to compute the loads of the shards
+    private volatile Map<String, ShardLoadSample> shardLoadSamples = Map.of();
 
     private final ThreadPool threadPool;
     private final Client client;
@@ -199,6 +203,8 @@ public class InternalClusterInfoService implements ClusterInfoService, ClusterSt
             final IndicesStatsRequest indicesStatsRequest = new IndicesStatsRequest();
             indicesStatsRequest.clear();
             indicesStatsRequest.store(true);
+            indicesStatsRequest.indexing(true);
+            indicesStatsRequest.search(true);
             indicesStatsRequest.indicesOptions(IndicesOptions.STRICT_EXPAND_OPEN_CLOSED_HIDDEN);
             indicesStatsRequest.timeout(fetchTimeout);
             client.admin().indices().stats(indicesStatsRequest, ActionListener.runAfter(new ActionListener<>() {
@@ -241,10 +247,17 @@ public class InternalClusterInfoService implements ClusterInfoService, ClusterSt
                             = ImmutableOpenMap.builder();
                     reservedSpaceBuilders.forEach((nodeAndPath, builder) -> rsrvdSpace.put(nodeAndPath, builder.build()));
 
+                    final Map<String, ShardLoadSample> newShardLoadSamples = new HashMap<>();
+                    final ImmutableOpenMap.Builder<ShardId, Double> shardWriteLoadBuilder = ImmutableOpenMap.builder();
+                    final ImmutableOpenMap.Builder<ShardId, Double> shardSearchLoadBuilder = ImmutableOpenMap.builder();
+                    buildShardLoads(stats, threadPool.relativeTimeInMillis(), shardLoadSamples, newShardLoadSamples,
+                        shardWriteLoadBuilder, shardSearchLoadBuilder);
+                    shardLoadSamples = newShardLoadSamples;
+
                     indicesStatsSummary = new IndicesStatsSummary(
                         shardSizeByIdentifierBuilder.build(), shardDataSetSizeBuilder.build(),
                         dataPathByShardRoutingBuilder.build(),
-                        rsrvdSpace.build());
+                        rsrvdSpace.build(), shardWriteLoadBuilder.build(), shardSearchLoadBuilder.build());
                 }
 
                 @Override
@@ -322,6 +335,7 @@ public class InternalClusterInfoService implements ClusterInfoService, ClusterSt
                 leastAvailableSpaceUsages = ImmutableOpenMap.of();
                 mostAvailableSpaceUsages = ImmutableOpenMap.of();
                 indicesStatsSummary = IndicesStatsSummary.EMPTY;
+                shardLoadSamples = Map.of();
                 thisRefreshListeners.forEach(l -> l.onResponse(ClusterInfo.EMPTY));
             };
         }
@@ -360,7 +374,8 @@ public class InternalClusterInfoService implements ClusterInfoService, ClusterSt
         final IndicesStatsSummary indicesStatsSummary = this.indicesStatsSummary; // single volatile read
         return new ClusterInfo(leastAvailableSpaceUsages, mostAvailableSpaceUsages,
             indicesStatsSummary.shardSizes, indicesStatsSummary.shardDataSetSizes,
-            indicesStatsSummary.shardRoutingToDataPath, indicesStatsSummary.reservedSpace);
+            indicesStatsSummary.shardRoutingToDataPath, indicesStatsSummary.reservedSpace,
+            indicesStatsSummary.shardWriteLoads, indicesStatsSummary.shardSearchLoads);
     }
 
     // allow tests to adjust the node stats on receipt
@@ -414,6 +429,55 @@ public class InternalClusterInfoService implements ClusterInfoService, ClusterSt
         }
     }
 
+    /**
+     * Computes the write and search loads of the shards from the indexing and search times that their copies accumulated since the
+     * previous refresh. The load of a copy is the time it spent indexing or searching divided by the elapsed time, i.e. the average
+     * number of threads that were busy with it. Copies that were not sampled by the previous refresh, or whose stats were reset since,
+     * are skipped until the next refresh.
+     */
+    static void buildShardLoads(ShardStats[] stats, long nowMillis, Map<String, ShardLoadSample> previousSamples,
+                                Map<String, ShardLoadSample> newSamples, ImmutableOpenMap.Builder<ShardId, Double> shardWriteLoads,
+                                ImmutableOpenMap.Builder<ShardId, Double> shardSearchLoads) {
+        final Map<ShardId, double[]> searchLoadSumsAndCounts = new HashMap<>();
+        for (ShardStats s : stats) {
+            final ShardRouting shardRouting = s.getShardRouting();
+            final IndexingStats indexingStats = s.getStats().getIndexing();
+            final SearchStats searchStats = s.getStats().getSearch();
+            if (indexingStats == null || searchStats == null || shardRouting.allocationId() == null) {
+                continue;
+            }
+            final String allocationId = shardRouting.allocationId().getId();
+            final ShardLoadSample sample = new ShardLoadSample(nowMillis, indexingStats.getTotal().getIndexTime().millis(),
+                searchStats.getTotal().getQueryTimeInMillis() + searchStats.getTotal().getFetchTimeInMillis());
+            newSamples.put(allocationId, sample);
+
+            final ShardLoadSample previous = previousSamples.get(allocationId);
+            if (previous == null || sample.timestampMillis <= previous.timestampMillis) {
+                continue;
+            }
+            final long elapsedMillis = sample.timestampMillis - previous.timestampMillis;
+            final long indexTimeMillis = sample.indexTimeMillis - previous.indexTimeMillis;
+            final long searchTimeMillis = sample.searchTimeMillis - previous.searchTimeMillis;
+            if (indexTimeMillis < 0 || searchTimeMillis < 0) {
+                // the stats of the copy were reset, e.g. because its shard was closed and reopened
+                continue;
+            }
+
+            final ShardId shardId = shardRouting.shardId();
+            final double writeLoad = (double) indexTimeMillis / elapsedMillis;
+            logger.trace("shard: {} write load: {} search load: {}", shardRouting, writeLoad, (double) searchTimeMillis / elapsedMillis);
+            // all copies index the same documents, so the busiest one is the best estimate of the load that indexing puts on a node
+            if (writeLoad > shardWriteLoads.getOrDefault(shardId, -1.0)) {
+                shardWriteLoads.put(shardId, writeLoad);
+            }
+            // whereas searches are spread across the copies
+            final double[] searchLoadSumAndCount = searchLoadSumsAndCounts.computeIfAbsent(shardId, k -> new double[2]);
+            searchLoadSumAndCount[0] += (double) searchTimeMillis / elapsedMillis;
+            searchLoadSumAndCount[1]++;
+        }
+        searchLoadSumsAndCounts.forEach((shardId, sumAndCount) -> shardSearchLoads.put(shardId, sumAndCount[0] / sumAndCount[1]));
+    }
+
     static void fillDiskUsagePerNode(List<NodeStats> nodeStatsArray,
             ImmutableOpenMap.Builder<String, DiskUsage> newLeastAvailableUsages,
             ImmutableOpenMap.Builder<String, DiskUsage> newMostAvailableUsages) {
@@ -472,23 +536,44 @@ public class InternalClusterInfoService implements ClusterInfoService, ClusterSt
         }
     }
 
+    /**
+     * The cumulative indexing and search times of a shard copy at a point in time.
+     */
+    static final class ShardLoadSample {
+        final long timestampMillis;
+        final long indexTimeMillis;
+        final long searchTimeMillis;
+
+        ShardLoadSample(long timestampMillis, long indexTimeMillis, long searchTimeMillis) {
+            this.timestampMillis = timestampMillis;
+            this.indexTimeMillis = indexTimeMillis;
+            this.searchTimeMillis = searchTimeMillis;
+        }
+    }
+
     private static class IndicesStatsSummary {
-        static final IndicesStatsSummary EMPTY
-            = new IndicesStatsSummary(ImmutableOpenMap.of(), ImmutableOpenMap.of(), ImmutableOpenMap.of(), ImmutableOpenMap.of());
+        static final IndicesStatsSummary EMPTY = new IndicesStatsSummary(ImmutableOpenMap.of(), ImmutableOpenMap.of(),
+            ImmutableOpenMap.of(), ImmutableOpenMap.of(), ImmutableOpenMap.of(), ImmutableOpenMap.of());
 
         final ImmutableOpenMap<String, Long> shardSizes;
         final ImmutableOpenMap<ShardId, Long> shardDataSetSizes;
         final ImmutableOpenMap<ShardRouting, String> shardRoutingToDataPath;
         final ImmutableOpenMap<ClusterInfo.NodeAndPath, ClusterInfo.ReservedSpace> reservedSpace;
+        final ImmutableOpenMap<ShardId, Double> shardWriteLoads;
+        final ImmutableOpenMap<ShardId, Double> shardSearchLoads;
 
         IndicesStatsSummary(ImmutableOpenMap<String, Long> shardSizes,
                             ImmutableOpenMap<ShardId, Long> shardDataSetSizes,
                             ImmutableOpenMap<ShardRouting, String> shardRoutingToDataPath,
-                            ImmutableOpenMap<ClusterInfo.NodeAndPath, ClusterInfo.ReservedSpace> reservedSpace) {
+                            ImmutableOpenMap<ClusterInfo.NodeAndPath, ClusterInfo.ReservedSpace> reservedSpace,
+                            ImmutableOpenMap<ShardId, Double> shardWriteLoads,
+                            ImmutableOpenMap<ShardId, Double> shardSearchLoads) {
             this.shardSizes = shardSizes;
             this.shardDataSetSizes = shardDataSetSizes;
             this.shardRoutingToDataPath = shardRoutingToDataPath;
             this.reservedSpace = reservedSpace;
+            this.shardWriteLoads = shardWriteLoads;
+            this.shardSearchLoads = shardSearchLoads;
         }
     }
 
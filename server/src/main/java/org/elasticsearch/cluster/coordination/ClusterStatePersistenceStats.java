@@ -0,0 +1,111 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.cluster.coordination;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+
+/**
+ * Class encapsulating stats about the writes of the cluster state to disk: the full writes, which rewrite the whole persisted state,
+ * and the incremental writes, which only rewrite the index metadata that changed.
+ */
+public class ClusterStatePersistenceStats implements Writeable, ToXContentFragment {
+
+    private final long fullWriteCount;
+    private final long fullWriteTimeMillis;
+    private final long incrementalWriteCount;
+    private final long incrementalWriteTimeMillis;
+    private final long indicesWritten;
+    private final long indicesSkipped;
+
+    /**
+     * @param fullWriteCount             the number of times this node has written its whole cluster state.
+     * @param fullWriteTimeMillis        the total time spent on these full writes, including the commits.
+     * @param incrementalWriteCount      the number of times this node has written the changes of its cluster state, or its term only.
+     * @param incrementalWriteTimeMillis the total time spent on these incremental writes, including the commits.
+     * @param indicesWritten             the number of index metadata written by all writes.
+     * @param indicesSkipped             the number of unchanged index metadata that incremental writes did not write again.
+     */
+    public ClusterStatePersistenceStats(long fullWriteCount, long fullWriteTimeMillis, long incrementalWriteCount,
+                                        long incrementalWriteTimeMillis, long indicesWritten, long indicesSkipped) {
+        this.fullWriteCount = fullWriteCount;
+        this.fullWriteTimeMillis = fullWriteTimeMillis;
+        this.incrementalWriteCount = incrementalWriteCount;
+        this.incrementalWriteTimeMillis = incrementalWriteTimeMillis;
+        this.indicesWritten = indicesWritten;
+        this.indicesSkipped = indicesSkipped;
+    }
+
+    public ClusterStatePersistenceStats(StreamInput in) throws IOException {
+        fullWriteCount = in.readVLong();
+        fullWriteTimeMillis = in.readVLong();
+        incrementalWriteCount = in.readVLong();
+        incrementalWriteTimeMillis = in.readVLong();
+        indicesWritten = in.readVLong();
+        indicesSkipped = in.readVLong();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(fullWriteCount);
+        out.writeVLong(fullWriteTimeMillis);
+        out.writeVLong(incrementalWriteCount);
+        out.writeVLong(incrementalWriteTimeMillis);
+        out.writeVLong(indicesWritten);
+        out.writeVLong(indicesSkipped);
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject("cluster_state_persistence");
+        {
+            builder.startObject("full_writes");
+            builder.field("count", fullWriteCount);
+            builder.humanReadableField("time_in_millis", "time", new TimeValue(fullWriteTimeMillis));
+            builder.endObject();
+            builder.startObject("incremental_writes");
+            builder.field("count", incrementalWriteCount);
+            builder.humanReadableField("time_in_millis", "time", new TimeValue(incrementalWriteTimeMillis));
+            builder.endObject();
+            builder.field("indices_written", indicesWritten);
+            builder.field("indices_skipped", indicesSkipped);
+        }
+        builder.endObject();
+        return builder;
+    }
+
+    public long getFullWriteCount() { return fullWriteCount; }
+
+    public long getFullWriteTimeMillis() { return fullWriteTimeMillis; }
+
+    public long getIncrementalWriteCount() { return incrementalWriteCount; }
+
+    public long getIncrementalWriteTimeMillis() { return incrementalWriteTimeMillis; }
+
+    public long getIndicesWritten() { return indicesWritten; }
+
+    public long getIndicesSkipped() { return indicesSkipped; }
+
+    @Override
+    public String toString() {
+        return "ClusterStatePersistenceStats(fullWriteCount=" + fullWriteCount
+            + ", fullWriteTimeMillis=" + fullWriteTimeMillis
+            + ", incrementalWriteCount=" + incrementalWriteCount
+            + ", incrementalWriteTimeMillis=" + incrementalWriteTimeMillis
+            + ", indicesWritten=" + indicesWritten
+            + ", indicesSkipped=" + indicesSkipped
+            + ")";
+    }
+}
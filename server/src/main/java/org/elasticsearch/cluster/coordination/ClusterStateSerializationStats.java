@@ -0,0 +1,169 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.cluster.coordination;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.ToXContentObject;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+
+/**
+ * Class encapsulating stats about the work the master does to publish cluster states: computing the diffs and serializing and
+ * compressing the full states and the diffs that are sent to the other nodes.
+ */
+public class ClusterStateSerializationStats implements Writeable, ToXContentFragment {
+
+    public static final ClusterStateSerializationStats EMPTY = new ClusterStateSerializationStats(0L, 0L,
+        SerializedStats.EMPTY, SerializedStats.EMPTY);
+
+    private final long diffComputationCount;
+    private final long diffComputationTimeMillis;
+    private final SerializedStats fullStates;
+    private final SerializedStats diffs;
+
+    /**
+     * @param diffComputationCount      the number of times this node has computed the diff of a cluster state it published.
+     * @param diffComputationTimeMillis the total time spent computing these diffs.
+     * @param fullStates                the stats about the serialization of the full cluster states published by this node.
+     * @param diffs                     the stats about the serialization of the cluster state diffs published by this node.
+     */
+    public ClusterStateSerializationStats(long diffComputationCount, long diffComputationTimeMillis,
+                                          SerializedStats fullStates, SerializedStats diffs) {
+        this.diffComputationCount = diffComputationCount;
+        this.diffComputationTimeMillis = diffComputationTimeMillis;
+        this.fullStates = fullStates;
+        this.diffs = diffs;
+    }
+
+    public ClusterStateSerializationStats(StreamInput in) throws IOException {
+        diffComputationCount = in.readVLong();
+        diffComputationTimeMillis = in.readVLong();
+        fullStates = new SerializedStats(in);
+        diffs = new SerializedStats(in);
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(diffComputationCount);
+        out.writeVLong(diffComputationTimeMillis);
+        fullStates.writeTo(out);
+        diffs.writeTo(out);
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject("serialized_cluster_states");
+        {
+            builder.startObject("diff_computation");
+            builder.field("count", diffComputationCount);
+            builder.humanReadableField("time_in_millis", "time", new TimeValue(diffComputationTimeMillis));
+            builder.endObject();
+            builder.field("full_states", fullStates, params);
+            builder.field("diffs", diffs, params);
+        }
+        builder.endObject();
+        return builder;
+    }
+
+    public long getDiffComputationCount() { return diffComputationCount; }
+
+    public long getDiffComputationTimeMillis() { return diffComputationTimeMillis; }
+
+    public SerializedStats getFullStates() { return fullStates; }
+
+    public SerializedStats getDiffs() { return diffs; }
+
+    @Override
+    public String toString() {
+        return "ClusterStateSerializationStats(diffComputationCount=" + diffComputationCount
+            + ", diffComputationTimeMillis=" + diffComputationTimeMillis
+            + ", fullStates=" + fullStates
+            + ", diffs=" + diffs
+            + ")";
+    }
+
+    /**
+     * The stats about the serialization of one kind of published cluster state, full states or diffs. The time spent serializing
+     * does not include the time spent compressing the serialized bytes.
+     */
+    public static class SerializedStats implements Writeable, ToXContentObject {
+
+        public static final SerializedStats EMPTY = new SerializedStats(0L, 0L, 0L, 0L, 0L);
+
+        private final long count;
+        private final long uncompressedBytes;
+        private final long compressedBytes;
+        private final long serializationTimeMillis;
+        private final long compressionTimeMillis;
+
+        public SerializedStats(long count, long uncompressedBytes, long compressedBytes, long serializationTimeMillis,
+                               long compressionTimeMillis) {
+            this.count = count;
+            this.uncompressedBytes = uncompressedBytes;
+            this.compressedBytes = compressedBytes;
+            this.serializationTimeMillis = serializationTimeMillis;
+            this.compressionTimeMillis = compressionTimeMillis;
+        }
+
+        public SerializedStats(StreamInput in) throws IOException {
+            count = in.readVLong();
+            uncompressedBytes = in.readVLong();
+            compressedBytes = in.readVLong();
+            serializationTimeMillis = in.readVLong();
+            compressionTimeMillis = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(count);
+            out.writeVLong(uncompressedBytes);
+            out.writeVLong(compressedBytes);
+            out.writeVLong(serializationTimeMillis);
+            out.writeVLong(compressionTimeMillis);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject();
+            builder.field("count", count);
+            builder.humanReadableField("uncompressed_size_in_bytes", "uncompressed_size", new ByteSizeValue(uncompressedBytes));
+            builder.humanReadableField("compressed_size_in_bytes", "compressed_size", new ByteSizeValue(compressedBytes));
+            builder.humanReadableField("serialization_time_in_millis", "serialization_time", new TimeValue(serializationTimeMillis));
+            builder.humanReadableField("compression_time_in_millis", "compression_time", new TimeValue(compressionTimeMillis));
+            builder.endObject();
+            return builder;
+        }
+
+        public long getCount() { return count; }
+
+        public long getUncompressedBytes() { return uncompressedBytes; }
+
+        public long getCompressedBytes() { return compressedBytes; }
+
+        public long getSerializationTimeMillis() { return serializationTimeMillis; }
+
+        public long getCompressionTimeMillis() { return compressionTimeMillis; }
+
+        @Override
+        public String toString() {
+            return "SerializedStats(count=" + count
+                + ", uncompressedBytes=" + uncompressedBytes
+                + ", compressedBytes=" + compressedBytes
+                + ", serializationTimeMillis=" + serializationTimeMillis
+                + ", compressionTimeMillis=" + compressionTimeMillis
+                + ")";
+        }
+    }
+}
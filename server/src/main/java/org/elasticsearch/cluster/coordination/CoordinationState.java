@@ -13,6 +13,7 @@ import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.coordination.CoordinationMetadata.VotingConfiguration;
 import org.elasticsearch.cluster.metadata.Metadata;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.Nullable;
 
 import java.io.Closeable;
 import java.io.IOException;
@@ -71,6 +72,11 @@ public class CoordinationState {
         return persistedState.getLastAcceptedState();
     }
 
+    @Nullable
+    public ClusterStatePersistenceStats getPersistenceStats() {
+        return persistedState.getStats();
+    }
+
     public long getLastAcceptedTerm() {
         return getLastAcceptedState().term();
     }
@@ -487,6 +493,14 @@ public class CoordinationState {
             }
         }
 
+        /**
+         * Returns stats about the writes of this persisted state to disk, or {@code null} if it is not written to disk.
+         */
+        @Nullable
+        default ClusterStatePersistenceStats getStats() {
+            return null;
+        }
+
         default void close() throws IOException {
         }
     }
@@ -11,6 +11,7 @@ package org.elasticsearch.cluster.coordination;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.elasticsearch.Version;
 import org.elasticsearch.cluster.coordination.Coordinator.Mode;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
@@ -79,6 +80,7 @@ public class FollowersChecker {
     private final int followerCheckRetryCount;
     private final BiConsumer<DiscoveryNode, String> onNodeFailure;
     private final Consumer<FollowerCheckRequest> handleRequestAndUpdateState;
+    private final Consumer<DiscoveryNode> onFollowerCheckFromLeader;
 
     private final Object mutex = new Object(); // protects writes to this state; read access does not need sync
     private final Map<DiscoveryNode, FollowerChecker> followerCheckers = newConcurrentMap();
@@ -90,9 +92,11 @@ public class FollowersChecker {
 
     public FollowersChecker(Settings settings, TransportService transportService,
                             Consumer<FollowerCheckRequest> handleRequestAndUpdateState,
-                            BiConsumer<DiscoveryNode, String> onNodeFailure, NodeHealthService nodeHealthService) {
+                            BiConsumer<DiscoveryNode, String> onNodeFailure, NodeHealthService nodeHealthService,
+                            Consumer<DiscoveryNode> onFollowerCheckFromLeader) {
         this.transportService = transportService;
         this.handleRequestAndUpdateState = handleRequestAndUpdateState;
+        this.onFollowerCheckFromLeader = onFollowerCheckFromLeader;
         this.onNodeFailure = onNodeFailure;
         this.nodeHealthService = nodeHealthService;
 
@@ -162,6 +166,9 @@ public class FollowersChecker {
         final FastResponseState responder = this.fastResponseState;
         if (responder.mode == Mode.FOLLOWER && responder.term == request.term) {
             logger.trace("responding to {} on fast path", request);
+            if (request.isSenderHealthy()) {
+                onFollowerCheckFromLeader.accept(request.getSender());
+            }
             transportChannel.sendResponse(Empty.INSTANCE);
             return;
         }
@@ -281,7 +288,11 @@ public class FollowersChecker {
                 return;
             }
 
-            final FollowerCheckRequest request = new FollowerCheckRequest(fastResponseState.term, transportService.getLocalNode());
+            // the followers skip their leader checks while we check them, unless we tell them that we are unhealthy so that they go
+            // back to checking us and find out
+            final boolean healthy = nodeHealthService.getHealth().getStatus() != UNHEALTHY;
+            final FollowerCheckRequest request
+                = new FollowerCheckRequest(fastResponseState.term, transportService.getLocalNode(), healthy);
             logger.trace("handleWakeUp: checking {} with {}", discoveryNode, request);
 
             transportService.sendRequest(discoveryNode, FOLLOWER_CHECK_ACTION_NAME, request,
@@ -384,6 +395,8 @@ public class FollowersChecker {
 
         private final DiscoveryNode sender;
 
+        private final boolean senderHealthy;
+
         public long getTerm() {
             return term;
         }
@@ -392,15 +405,29 @@ public class FollowersChecker {
             return sender;
         }
 
-        public FollowerCheckRequest(final long term, final DiscoveryNode sender) {
+        /**
+         * Whether the sender passed its own health checks when it sent this request. Followers only skip their leader checks while
+         * they receive follower checks from a healthy leader.
+         */
+        public boolean isSenderHealthy() {
+            return senderHealthy;
+        }
+
+        public FollowerCheckRequest(final long term, final DiscoveryNode sender, final boolean senderHealthy) {
             this.term = term;
             this.sender = sender;
+            this.senderHealthy = senderHealthy;
         }
 
         public FollowerCheckRequest(final StreamInput in) throws IOException {
             super(in);
             term = in.readLong();
             sender = new DiscoveryNode(in);
+            if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+                senderHealthy = in.readBoolean();
+            } else {
+                senderHealthy = false;
+            }
         }
 
         @Override
@@ -408,6 +435,9 @@ public class FollowersChecker {
             super.writeTo(out);
             out.writeLong(term);
             sender.writeTo(out);
+            if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+                out.writeBoolean(senderHealthy);
+            }
         }
 
         @Override
@@ -416,6 +446,7 @@ public class FollowersChecker {
             if (o == null || getClass() != o.getClass()) return false;
             FollowerCheckRequest that = (FollowerCheckRequest) o;
             return term == that.term &&
+                senderHealthy == that.senderHealthy &&
                 Objects.equals(sender, that.sender);
         }
 
@@ -424,12 +455,13 @@ public class FollowersChecker {
             return "FollowerCheckRequest{" +
                 "term=" + term +
                 ", sender=" + sender +
+                ", senderHealthy=" + senderHealthy +
                 '}';
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(term, sender);
+            return Objects.hash(term, sender, senderHealthy);
         }
     }
 }
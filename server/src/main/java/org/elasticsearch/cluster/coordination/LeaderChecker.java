@@ -12,6 +12,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.message.ParameterizedMessage;
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.Version;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
 import org.elasticsearch.common.Nullable;
@@ -142,6 +143,20 @@ public class LeaderChecker {
         this.discoveryNodes = discoveryNodes;
     }
 
+    /**
+     * Notify this checker that the given node, which was healthy at the time, sent this node a follower check which was accepted in the
+     * current term. A leader only sends follower checks while it is still the master, and only to the nodes in its cluster, which is all
+     * that a leader check verifies, so this node skips its leader checks while its leader keeps checking it. It still checks the leader
+     * itself after skipping {@code cluster.fault_detection.leader_check.retry_count} consecutive checks, so that it does not depend
+     * entirely on the leader's view of the cluster.
+     */
+    void onFollowerCheckFromLeader(DiscoveryNode sender) {
+        final CheckScheduler checkScheduler = currentChecker.get();
+        if (checkScheduler != null && checkScheduler.leader.equals(sender) && sender.getVersion().onOrAfter(Version.V_8_0_0)) {
+            checkScheduler.lastFollowerCheckFromLeaderMillis = transportService.getThreadPool().relativeTimeInMillis();
+        }
+    }
+
     // For assertions
     boolean currentNodeIsMaster() {
         return discoveryNodes.isLocalNodeElectedMaster();
@@ -182,7 +197,9 @@ public class LeaderChecker {
 
         private final AtomicBoolean isClosed = new AtomicBoolean();
         private final AtomicLong failureCountSinceLastSuccess = new AtomicLong();
+        private final AtomicLong skippedCountSinceLastCheck = new AtomicLong();
         private final DiscoveryNode leader;
+        private volatile long lastFollowerCheckFromLeaderMillis = Long.MIN_VALUE;
 
         CheckScheduler(final DiscoveryNode leader) {
             this.leader = leader;
@@ -203,6 +220,16 @@ public class LeaderChecker {
                 return;
             }
 
+            if (transportService.getThreadPool().relativeTimeInMillis() - leaderCheckInterval.millis()
+                <= lastFollowerCheckFromLeaderMillis && skippedCountSinceLastCheck.get() < leaderCheckRetryCount) {
+                logger.trace("skipping check of {} which has checked this node within the last [{}] = {}",
+                    leader, LEADER_CHECK_INTERVAL_SETTING.getKey(), leaderCheckInterval);
+                skippedCountSinceLastCheck.incrementAndGet();
+                scheduleNextWakeUp();
+                return;
+            }
+            skippedCountSinceLastCheck.set(0);
+
             logger.trace("checking {} with [{}] = {}", leader, LEADER_CHECK_TIMEOUT_SETTING.getKey(), leaderCheckTimeout);
 
             transportService.sendRequest(leader, LEADER_CHECK_ACTION_NAME, new LeaderCheckRequest(transportService.getLocalNode()),
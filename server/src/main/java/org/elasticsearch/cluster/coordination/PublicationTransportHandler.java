@@ -29,6 +29,9 @@ import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.BytesTransportRequest;
@@ -39,9 +42,13 @@ import org.elasticsearch.transport.TransportResponse;
 import org.elasticsearch.transport.TransportResponseHandler;
 import org.elasticsearch.transport.TransportService;
 
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
@@ -55,9 +62,15 @@ public class PublicationTransportHandler {
     public static final String PUBLISH_STATE_ACTION_NAME = "internal:cluster/coordination/publish_state";
     public static final String COMMIT_STATE_ACTION_NAME = "internal:cluster/coordination/commit_state";
 
+    // the maximum number of threads that compare and diff the changed indices of the metadata and the routing table when computing
+    // the diff to publish, including the master service thread itself; the others are borrowed from the generic thread pool
+    public static final Setting<Integer> PUBLISH_DIFF_PARALLELISM_SETTING =
+        Setting.intSetting("cluster.publish.diff_parallelism", 4, 1, Setting.Property.NodeScope);
+
     private final TransportService transportService;
     private final NamedWriteableRegistry namedWriteableRegistry;
     private final Function<PublishRequest, PublishWithJoinResponse> handlePublishRequest;
+    private final int diffParallelism;
 
     private final AtomicReference<ClusterState> lastSeenClusterState = new AtomicReference<>();
 
@@ -71,17 +84,24 @@ public class PublicationTransportHandler {
     private final AtomicLong fullClusterStateReceivedCount = new AtomicLong();
     private final AtomicLong incompatibleClusterStateDiffReceivedCount = new AtomicLong();
     private final AtomicLong compatibleClusterStateDiffReceivedCount = new AtomicLong();
+
+    private final AtomicLong diffComputationCount = new AtomicLong();
+    private final AtomicLong diffComputationNanos = new AtomicLong();
+    private final SerializedStatsTracker fullStateSerializationStats = new SerializedStatsTracker();
+    private final SerializedStatsTracker diffSerializationStats = new SerializedStatsTracker();
     // -> no need to put a timeout on the options here, because we want the response to eventually be received
     //  and not log an error if it arrives after the timeout
     private static final TransportRequestOptions STATE_REQUEST_OPTIONS =
             TransportRequestOptions.of(null, TransportRequestOptions.Type.STATE);
 
-    public PublicationTransportHandler(TransportService transportService, NamedWriteableRegistry namedWriteableRegistry,
+    public PublicationTransportHandler(Settings settings, TransportService transportService,
+                                       NamedWriteableRegistry namedWriteableRegistry,
                                        Function<PublishRequest, PublishWithJoinResponse> handlePublishRequest,
                                        BiConsumer<ApplyCommitRequest, ActionListener<Void>> handleApplyCommit) {
         this.transportService = transportService;
         this.namedWriteableRegistry = namedWriteableRegistry;
         this.handlePublishRequest = handlePublishRequest;
+        this.diffParallelism = Math.min(PUBLISH_DIFF_PARALLELISM_SETTING.get(settings), EsExecutors.allocatedProcessors(settings));
 
         transportService.registerRequestHandler(PUBLISH_STATE_ACTION_NAME, ThreadPool.Names.GENERIC, false, false,
             BytesTransportRequest::new, (request, channel, task) -> channel.sendResponse(handleIncomingPublishRequest(request)));
@@ -119,7 +139,12 @@ public class PublicationTransportHandler {
         return new PublishClusterStateStats(
             fullClusterStateReceivedCount.get(),
             incompatibleClusterStateDiffReceivedCount.get(),
-            compatibleClusterStateDiffReceivedCount.get());
+            compatibleClusterStateDiffReceivedCount.get(),
+            new ClusterStateSerializationStats(
+                diffComputationCount.get(),
+                TimeUnit.NANOSECONDS.toMillis(diffComputationNanos.get()),
+                fullStateSerializationStats.stats(),
+                diffSerializationStats.stats()));
     }
 
     private PublishWithJoinResponse handleIncomingPublishRequest(BytesTransportRequest request) throws IOException {
@@ -205,27 +230,126 @@ public class PublicationTransportHandler {
         return publicationContext;
     }
 
-    private static BytesReference serializeFullClusterState(ClusterState clusterState, Version nodeVersion) throws IOException {
+    private BytesReference serializeFullClusterState(ClusterState clusterState, Version nodeVersion) throws IOException {
+        final long startNanos = System.nanoTime();
         final BytesStreamOutput bStream = new BytesStreamOutput();
-        try (StreamOutput stream = new OutputStreamStreamOutput(CompressorFactory.COMPRESSOR.threadLocalOutputStream(bStream))) {
+        final CompressionTrackingOutputStream compressionTracker =
+            new CompressionTrackingOutputStream(CompressorFactory.COMPRESSOR.threadLocalOutputStream(bStream));
+        try (StreamOutput stream = new OutputStreamStreamOutput(compressionTracker.buffered())) {
             stream.setVersion(nodeVersion);
             stream.writeBoolean(true);
             clusterState.writeTo(stream);
         }
         final BytesReference serializedState = bStream.bytes();
+        fullStateSerializationStats.record(compressionTracker, serializedState.length(), System.nanoTime() - startNanos);
         logger.trace("serialized full cluster state version [{}] for node version [{}] with size [{}]",
             clusterState.version(), nodeVersion, serializedState.length());
         return serializedState;
     }
 
-    private static BytesReference serializeDiffClusterState(Diff<ClusterState> diff, Version nodeVersion) throws IOException {
+    private BytesReference serializeDiffClusterState(Diff<ClusterState> diff, Version nodeVersion) throws IOException {
+        final long startNanos = System.nanoTime();
         final BytesStreamOutput bStream = new BytesStreamOutput();
-        try (StreamOutput stream = new OutputStreamStreamOutput(CompressorFactory.COMPRESSOR.threadLocalOutputStream(bStream))) {
+        final CompressionTrackingOutputStream compressionTracker =
+            new CompressionTrackingOutputStream(CompressorFactory.COMPRESSOR.threadLocalOutputStream(bStream));
+        try (StreamOutput stream = new OutputStreamStreamOutput(compressionTracker.buffered())) {
             stream.setVersion(nodeVersion);
             stream.writeBoolean(false);
             diff.writeTo(stream);
         }
-        return bStream.bytes();
+        final BytesReference serializedDiff = bStream.bytes();
+        diffSerializationStats.record(compressionTracker, serializedDiff.length(), System.nanoTime() - startNanos);
+        return serializedDiff;
+    }
+
+    /**
+     * Sits between the serialization of a cluster state and its compression to measure the size of the serialized state and the time
+     * spent compressing it. The serialized bytes are buffered so that the clock is read once per buffer rather than once per serialized
+     * value, and since the buffer is larger than the one of the compressing stream the buffered bytes are compressed without copying
+     * them again.
+     */
+    private static final class CompressionTrackingOutputStream extends FilterOutputStream {
+
+        private static final int BUFFER_SIZE = 8192;
+
+        private long uncompressedBytes;
+        private long compressionNanos;
+
+        CompressionTrackingOutputStream(OutputStream compressingStream) {
+            super(compressingStream);
+        }
+
+        OutputStream buffered() {
+            return new BufferedOutputStream(this, BUFFER_SIZE);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            final long startNanos = System.nanoTime();
+            try {
+                out.write(b);
+            } finally {
+                compressionNanos += System.nanoTime() - startNanos;
+            }
+            uncompressedBytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            final long startNanos = System.nanoTime();
+            try {
+                out.write(b, off, len);
+            } finally {
+                compressionNanos += System.nanoTime() - startNanos;
+            }
+            uncompressedBytes += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            final long startNanos = System.nanoTime();
+            try {
+                out.flush();
+            } finally {
+                compressionNanos += System.nanoTime() - startNanos;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            // closing the compressing stream compresses the bytes it still buffers
+            final long startNanos = System.nanoTime();
+            try {
+                out.close();
+            } finally {
+                compressionNanos += System.nanoTime() - startNanos;
+            }
+        }
+    }
+
+    /**
+     * Accumulates the stats about the serialization of one kind of published cluster state, full states or diffs.
+     */
+    private static final class SerializedStatsTracker {
+
+        private long count;
+        private long uncompressedBytes;
+        private long compressedBytes;
+        private long serializationNanos;
+        private long compressionNanos;
+
+        synchronized void record(CompressionTrackingOutputStream compressionTracker, long compressedBytes, long elapsedNanos) {
+            count++;
+            uncompressedBytes += compressionTracker.uncompressedBytes;
+            this.compressedBytes += compressedBytes;
+            serializationNanos += Math.max(0L, elapsedNanos - compressionTracker.compressionNanos);
+            compressionNanos += compressionTracker.compressionNanos;
+        }
+
+        synchronized ClusterStateSerializationStats.SerializedStats stats() {
+            return new ClusterStateSerializationStats.SerializedStats(count, uncompressedBytes, compressedBytes,
+                TimeUnit.NANOSECONDS.toMillis(serializationNanos), TimeUnit.NANOSECONDS.toMillis(compressionNanos));
+        }
     }
 
     /**
@@ -254,13 +378,14 @@ public class PublicationTransportHandler {
             for (DiscoveryNode node : discoveryNodes) {
                 try {
                     if (sendFullVersion || previousState.nodes().nodeExists(node) == false) {
-                        if (serializedStates.containsKey(node.getVersion()) == false) {
-                            serializedStates.put(node.getVersion(), serializeFullClusterState(newState, node.getVersion()));
-                        }
+                        getOrSerializeFullClusterState(node.getVersion());
                     } else {
                         // will send a diff
                         if (diff == null) {
-                            diff = newState.diff(previousState);
+                            final long startNanos = System.nanoTime();
+                            diff = newState.diff(previousState, transportService.getThreadPool().generic(), diffParallelism);
+                            diffComputationCount.incrementAndGet();
+                            diffComputationNanos.addAndGet(System.nanoTime() - startNanos);
                         }
                         if (serializedDiffs.containsKey(node.getVersion()) == false) {
                             final BytesReference serializedDiff = serializeDiffClusterState(diff, node.getVersion());
@@ -339,18 +464,31 @@ public class PublicationTransportHandler {
                 });
         }
 
-        private void sendFullClusterState(DiscoveryNode destination, ActionListener<PublishWithJoinResponse> listener) {
-            BytesReference bytes = serializedStates.get(destination.getVersion());
-            if (bytes == null) {
-                try {
-                    bytes = serializeFullClusterState(newState, destination.getVersion());
-                    serializedStates.put(destination.getVersion(), bytes);
-                } catch (Exception e) {
-                    logger.warn(() -> new ParameterizedMessage(
-                        "failed to serialize cluster state before publishing it to node {}", destination), e);
-                    listener.onFailure(e);
-                    return;
+        /**
+         * Returns the full state serialized for nodes of the given version, serializing it if needed. Nodes that fail to apply a diff
+         * fall back to the full state concurrently on generic threads, so this serializes the full state at most once per version and
+         * makes the other nodes of that version wait for it rather than serializing it again.
+         */
+        private BytesReference getOrSerializeFullClusterState(Version nodeVersion) throws IOException {
+            synchronized (serializedStates) {
+                BytesReference bytes = serializedStates.get(nodeVersion);
+                if (bytes == null) {
+                    bytes = serializeFullClusterState(newState, nodeVersion);
+                    serializedStates.put(nodeVersion, bytes);
                 }
+                return bytes;
+            }
+        }
+
+        private void sendFullClusterState(DiscoveryNode destination, ActionListener<PublishWithJoinResponse> listener) {
+            final BytesReference bytes;
+            try {
+                bytes = getOrSerializeFullClusterState(destination.getVersion());
+            } catch (Exception e) {
+                logger.warn(() -> new ParameterizedMessage(
+                    "failed to serialize cluster state before publishing it to node {}", destination), e);
+                listener.onFailure(e);
+                return;
             }
             sendClusterState(destination, bytes, false, listener);
         }
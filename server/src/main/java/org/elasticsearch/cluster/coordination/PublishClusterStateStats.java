@@ -8,6 +8,7 @@
 
 package org.elasticsearch.cluster.coordination;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -24,6 +25,7 @@ public class PublishClusterStateStats implements Writeable, ToXContentObject {
     private final long fullClusterStateReceivedCount;
     private final long incompatibleClusterStateDiffReceivedCount;
     private final long compatibleClusterStateDiffReceivedCount;
+    private final ClusterStateSerializationStats serializationStats;
 
     /**
      * @param fullClusterStateReceivedCount the number of times this node has received a full copy of the cluster state from the master.
@@ -33,15 +35,32 @@ public class PublishClusterStateStats implements Writeable, ToXContentObject {
     public PublishClusterStateStats(long fullClusterStateReceivedCount,
                                     long incompatibleClusterStateDiffReceivedCount,
                                     long compatibleClusterStateDiffReceivedCount) {
+        this(fullClusterStateReceivedCount, incompatibleClusterStateDiffReceivedCount, compatibleClusterStateDiffReceivedCount,
+            ClusterStateSerializationStats.EMPTY);
+    }
+
+    /**
+     * @param serializationStats the stats about the diffing, serialization and compression of the cluster states this node published.
+     */
+    public PublishClusterStateStats(long fullClusterStateReceivedCount,
+                                    long incompatibleClusterStateDiffReceivedCount,
+                                    long compatibleClusterStateDiffReceivedCount,
+                                    ClusterStateSerializationStats serializationStats) {
         this.fullClusterStateReceivedCount = fullClusterStateReceivedCount;
         this.incompatibleClusterStateDiffReceivedCount = incompatibleClusterStateDiffReceivedCount;
         this.compatibleClusterStateDiffReceivedCount = compatibleClusterStateDiffReceivedCount;
+        this.serializationStats = serializationStats;
     }
 
     public PublishClusterStateStats(StreamInput in) throws IOException {
         fullClusterStateReceivedCount = in.readVLong();
         incompatibleClusterStateDiffReceivedCount = in.readVLong();
         compatibleClusterStateDiffReceivedCount = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            serializationStats = new ClusterStateSerializationStats(in);
+        } else {
+            serializationStats = ClusterStateSerializationStats.EMPTY;
+        }
     }
 
     @Override
@@ -49,6 +68,9 @@ public class PublishClusterStateStats implements Writeable, ToXContentObject {
         out.writeVLong(fullClusterStateReceivedCount);
         out.writeVLong(incompatibleClusterStateDiffReceivedCount);
         out.writeVLong(compatibleClusterStateDiffReceivedCount);
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            serializationStats.writeTo(out);
+        }
     }
 
     @Override
@@ -60,6 +82,7 @@ public class PublishClusterStateStats implements Writeable, ToXContentObject {
             builder.field("compatible_diffs", compatibleClusterStateDiffReceivedCount);
         }
         builder.endObject();
+        serializationStats.toXContent(builder, params);
         return builder;
     }
 
@@ -69,11 +92,14 @@ public class PublishClusterStateStats implements Writeable, ToXContentObject {
 
     public long getCompatibleClusterStateDiffReceivedCount() { return compatibleClusterStateDiffReceivedCount; }
 
+    public ClusterStateSerializationStats getSerializationStats() { return serializationStats; }
+
     @Override
     public String toString() {
         return "PublishClusterStateStats(full=" + fullClusterStateReceivedCount
             + ", incompatible=" + incompatibleClusterStateDiffReceivedCount
             + ", compatible=" + compatibleClusterStateDiffReceivedCount
+            + ", serialization=" + serializationStats
             + ")";
     }
 }
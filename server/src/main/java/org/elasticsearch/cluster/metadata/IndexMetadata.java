@@ -334,6 +334,7 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
     static final String KEY_SETTINGS = "settings";
     static final String KEY_STATE = "state";
     static final String KEY_MAPPINGS = "mappings";
+    static final String KEY_MAPPINGS_HASH = "mappings_hash";
     static final String KEY_ALIASES = "aliases";
     static final String KEY_ROLLOVER_INFOS = "rollover_info";
     static final String KEY_SYSTEM = "system";
@@ -838,6 +839,15 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
     }
 
     public static IndexMetadata readFrom(StreamInput in) throws IOException {
+        return readFrom(in, null);
+    }
+
+    /**
+     * Reads an index metadata written by {@link #writeTo(StreamOutput, boolean)}.
+     *
+     * @param mappingLookup resolves the hashes of the mappings if they were written as hashes, {@code null} otherwise
+     */
+    public static IndexMetadata readFrom(StreamInput in, @Nullable Function<String, MappingMetadata> mappingLookup) throws IOException {
         Builder builder = new Builder(in.readString());
         builder.version(in.readLong());
         builder.mappingVersion(in.readVLong());
@@ -851,7 +861,16 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
         builder.primaryTerms(in.readVLongArray());
         int mappingsSize = in.readVInt();
         for (int i = 0; i < mappingsSize; i++) {
-            MappingMetadata mappingMd = new MappingMetadata(in);
+            final MappingMetadata mappingMd;
+            if (mappingLookup != null && in.getVersion().onOrAfter(Metadata.MAPPINGS_AS_HASH_VERSION)) {
+                final String mappingHash = in.readString();
+                mappingMd = mappingLookup.apply(mappingHash);
+                if (mappingMd == null) {
+                    throw new IllegalStateException("no mapping found for hash [" + mappingHash + "] of index [" + builder.index + "]");
+                }
+            } else {
+                mappingMd = new MappingMetadata(in);
+            }
             builder.putMapping(mappingMd);
         }
         int aliasesSize = in.readVInt();
@@ -884,6 +903,15 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
+        writeTo(out, false);
+    }
+
+    /**
+     * Writes this index metadata, with its mappings replaced by their {@link MappingMetadata#getSha256() hashes} if
+     * {@code mappingsAsHash} is set and the receiver supports it. The caller is then responsible for sending the mappings, so that
+     * the index metadata can be read with {@link #readFrom(StreamInput, Function)}.
+     */
+    public void writeTo(StreamOutput out, boolean mappingsAsHash) throws IOException {
         out.writeString(index.getName()); // uuid will come as part of settings
         out.writeLong(version);
         out.writeVLong(mappingVersion);
@@ -897,7 +925,11 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
         out.writeVLongArray(primaryTerms);
         out.writeVInt(mappings.size());
         for (ObjectCursor<MappingMetadata> cursor : mappings.values()) {
-            cursor.value.writeTo(out);
+            if (mappingsAsHash && out.getVersion().onOrAfter(Metadata.MAPPINGS_AS_HASH_VERSION)) {
+                out.writeString(cursor.value.getSha256());
+            } else {
+                cursor.value.writeTo(out);
+            }
         }
         out.writeVInt(aliases.size());
         for (ObjectCursor<AliasMetadata> cursor : aliases.values()) {
@@ -927,6 +959,20 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
         return isSystem;
     }
 
+    /**
+     * Returns a copy of this index metadata with its mapping replaced by the given identical mapping, so that indices with identical
+     * mappings can share a single instance.
+     */
+    IndexMetadata withMappingMetadata(MappingMetadata mapping) {
+        assert mapping.equals(mapping()) : mapping + " vs " + mapping();
+        final ImmutableOpenMap.Builder<String, MappingMetadata> newMappings = ImmutableOpenMap.builder(1);
+        newMappings.put(MapperService.SINGLE_MAPPING_NAME, mapping);
+        return new IndexMetadata(index, version, mappingVersion, settingsVersion, aliasesVersion, primaryTerms, state, numberOfShards,
+            numberOfReplicas, settings, newMappings.build(), aliases, customData, inSyncAllocationIds, requireFilters,
+            initialRecoveryFilters, includeFilters, excludeFilters, indexCreatedVersion, routingNumShards, routingPartitionSize,
+            waitForActiveShards, rolloverInfos, isSystem, timestampRange);
+    }
+
     public static Builder builder(String index) {
         return new Builder(index);
     }
@@ -1333,7 +1379,13 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
             }
             builder.endObject();
 
-            if (context != Metadata.XContentContext.API) {
+            if (context != Metadata.XContentContext.API && params.paramAsBoolean(Metadata.DEDUPLICATED_MAPPINGS_PARAM, false)) {
+                // the mapping is written separately, see Metadata#getMappingsByHash()
+                MappingMetadata mmd = indexMetadata.mapping();
+                if (mmd != null) {
+                    builder.field(KEY_MAPPINGS_HASH, mmd.getSha256());
+                }
+            } else if (context != Metadata.XContentContext.API) {
                 builder.startArray(KEY_MAPPINGS);
                 MappingMetadata mmd = indexMetadata.mapping();
                 if (mmd != null) {
@@ -1416,6 +1468,17 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
         }
 
         public static IndexMetadata fromXContent(XContentParser parser) throws IOException {
+            return fromXContent(parser, null);
+        }
+
+        /**
+         * Parses an index metadata.
+         *
+         * @param mappingLookup resolves the mapping of an index metadata that was written with
+         *                      {@link Metadata#DEDUPLICATED_MAPPINGS_PARAM}, may be {@code null} otherwise
+         */
+        public static IndexMetadata fromXContent(XContentParser parser, @Nullable Function<String, MappingMetadata> mappingLookup)
+            throws IOException {
             if (parser.currentToken() == null) { // fresh parser? move to the first token
                 parser.nextToken();
             }
@@ -1542,6 +1605,13 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
                         builder.setRoutingNumShards(parser.intValue());
                     } else if (KEY_SYSTEM.equals(currentFieldName)) {
                         builder.system(parser.booleanValue());
+                    } else if (KEY_MAPPINGS_HASH.equals(currentFieldName)) {
+                        final String mappingHash = parser.text();
+                        final MappingMetadata mappingMetadata = mappingLookup == null ? null : mappingLookup.apply(mappingHash);
+                        if (mappingMetadata == null) {
+                            throw new IllegalArgumentException("no mapping found for hash [" + mappingHash + "]");
+                        }
+                        builder.putMapping(mappingMetadata);
                     } else {
                         throw new IllegalArgumentException("Unexpected field [" + currentFieldName + "]");
                     }
@@ -14,6 +14,7 @@ import org.elasticsearch.cluster.AbstractDiffable;
 import org.elasticsearch.cluster.Diff;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.common.compress.CompressedXContent;
+import org.elasticsearch.common.hash.MessageDigests;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.xcontent.ToXContent;
@@ -43,6 +44,9 @@ public class MappingMetadata extends AbstractDiffable<MappingMetadata> {
 
     private final boolean routingRequired;
 
+    // computed lazily, see #getSha256()
+    private String sha256;
+
     public MappingMetadata(DocumentMapper docMapper) {
         this.type = docMapper.type();
         this.source = docMapper.mappingSource();
@@ -145,6 +149,19 @@ public class MappingMetadata extends AbstractDiffable<MappingMetadata> {
         return this.routingRequired;
     }
 
+    /**
+     * Returns the hex encoded SHA-256 digest of the uncompressed mapping source. Indices whose mappings have the same digest have
+     * identical mappings, which {@link Metadata} relies on to hold, send and persist such mappings only once.
+     */
+    public String getSha256() {
+        String sha256 = this.sha256;
+        if (sha256 == null) {
+            sha256 = MessageDigests.toHexString(MessageDigests.digest(source.uncompressed(), MessageDigests.sha256()));
+            this.sha256 = sha256;
+        }
+        return sha256;
+    }
+
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeString(type());
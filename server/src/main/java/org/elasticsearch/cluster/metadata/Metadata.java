@@ -65,6 +65,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -150,6 +151,17 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
 
     public static final String GLOBAL_STATE_FILE_PREFIX = "global-";
 
+    /**
+     * The version from which the mappings shared by several indices are sent once, and the indices refer to them by hash.
+     */
+    public static final Version MAPPINGS_AS_HASH_VERSION = Version.V_8_0_0;
+
+    /**
+     * If set, the index metadata is rendered with the {@link MappingMetadata#getSha256() hash} of its mapping in place of the mapping,
+     * for the callers that store the mappings of {@link #getMappingsByHash()} separately.
+     */
+    public static final String DEDUPLICATED_MAPPINGS_PARAM = "deduplicated_mappings";
+
     private static final NamedDiffableValueSerializer<Custom> CUSTOM_VALUE_SERIALIZER = new NamedDiffableValueSerializer<>(Custom.class);
 
     private final String clusterUUID;
@@ -178,12 +190,14 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
 
     private final SortedMap<String, IndexAbstraction> indicesLookup;
 
+    private final ImmutableOpenMap<String, MappingMetadata> mappingsByHash;
+
     Metadata(String clusterUUID, boolean clusterUUIDCommitted, long version, CoordinationMetadata coordinationMetadata,
              Settings transientSettings, Settings persistentSettings, DiffableStringMap hashesOfConsistentSettings,
              ImmutableOpenMap<String, IndexMetadata> indices, ImmutableOpenMap<String, IndexTemplateMetadata> templates,
              ImmutableOpenMap<String, Custom> customs, String[] allIndices, String[] visibleIndices, String[] allOpenIndices,
              String[] visibleOpenIndices, String[] allClosedIndices, String[] visibleClosedIndices,
-             SortedMap<String, IndexAbstraction> indicesLookup) {
+             SortedMap<String, IndexAbstraction> indicesLookup, ImmutableOpenMap<String, MappingMetadata> mappingsByHash) {
         this.clusterUUID = clusterUUID;
         this.clusterUUIDCommitted = clusterUUIDCommitted;
         this.version = version;
@@ -213,6 +227,7 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
         this.allClosedIndices = allClosedIndices;
         this.visibleClosedIndices = visibleClosedIndices;
         this.indicesLookup = indicesLookup;
+        this.mappingsByHash = mappingsByHash;
     }
 
     public long version() {
@@ -254,6 +269,14 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
         return this.coordinationMetadata;
     }
 
+    /**
+     * Returns the mappings of the indices by their {@link MappingMetadata#getSha256() hash}. Indices with identical mappings share the
+     * same {@link MappingMetadata} instance.
+     */
+    public ImmutableOpenMap<String, MappingMetadata> getMappingsByHash() {
+        return this.mappingsByHash;
+    }
+
     public boolean hasAlias(String alias) {
         IndexAbstraction indexAbstraction = getIndicesLookup().get(alias);
         if (indexAbstraction != null) {
@@ -832,6 +855,14 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
         return new MetadataDiff(previousState, this);
     }
 
+    /**
+     * Like {@link #diff(Metadata)}, but compares and diffs the changed indices on the calling thread and on up to
+     * {@code parallelism - 1} tasks forked to the given executor.
+     */
+    public Diff<Metadata> diff(Metadata previousState, Executor executor, int parallelism) {
+        return new MetadataDiff(previousState, this, executor, parallelism);
+    }
+
     public static Diff<Metadata> readDiffFrom(StreamInput in) throws IOException {
         return new MetadataDiff(in);
     }
@@ -855,11 +886,17 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
         private final Settings transientSettings;
         private final Settings persistentSettings;
         private final Diff<DiffableStringMap> hashesOfConsistentSettings;
-        private final Diff<ImmutableOpenMap<String, IndexMetadata>> indices;
+        // the mappings of the indices that the diff adds or replaces, which refer to them by hash
+        private final Map<String, MappingMetadata> mappingsByHash;
+        private final DiffableUtils.MapDiff<String, IndexMetadata, ImmutableOpenMap<String, IndexMetadata>> indices;
         private final Diff<ImmutableOpenMap<String, IndexTemplateMetadata>> templates;
         private final Diff<ImmutableOpenMap<String, Custom>> customs;
 
         MetadataDiff(Metadata before, Metadata after) {
+            this(before, after, Runnable::run, 1);
+        }
+
+        MetadataDiff(Metadata before, Metadata after, Executor executor, int parallelism) {
             clusterUUID = after.clusterUUID;
             clusterUUIDCommitted = after.clusterUUIDCommitted;
             version = after.version;
@@ -867,13 +904,43 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
             transientSettings = after.transientSettings;
             persistentSettings = after.persistentSettings;
             hashesOfConsistentSettings = after.hashesOfConsistentSettings.diff(before.hashesOfConsistentSettings);
-            indices = DiffableUtils.diff(before.indices, after.indices, DiffableUtils.getStringKeySerializer());
+            indices = DiffableUtils.diff(before.indices, after.indices, DiffableUtils.getStringKeySerializer(),
+                indexMetadataSerializer(null), executor, parallelism);
+            mappingsByHash = new HashMap<>();
+            for (IndexMetadata indexMetadata : indices.getUpserts().values()) {
+                final MappingMetadata mappingMetadata = indexMetadata.mapping();
+                if (mappingMetadata != null) {
+                    mappingsByHash.putIfAbsent(mappingMetadata.getSha256(), mappingMetadata);
+                }
+            }
             templates = DiffableUtils.diff(before.templates, after.templates, DiffableUtils.getStringKeySerializer());
             customs = DiffableUtils.diff(before.customs, after.customs, DiffableUtils.getStringKeySerializer(), CUSTOM_VALUE_SERIALIZER);
         }
 
-        private static final DiffableUtils.DiffableValueReader<String, IndexMetadata> INDEX_METADATA_DIFF_VALUE_READER =
-                new DiffableUtils.DiffableValueReader<>(IndexMetadata::readFrom, IndexMetadata::readDiffFrom);
+        /**
+         * Serializes the indices that the diff adds or replaces with their mappings as hashes if the receiver supports it, since new
+         * indices often share their mappings. The mappings themselves are sent once, ahead of the indices.
+         */
+        private static DiffableUtils.ValueSerializer<String, IndexMetadata> indexMetadataSerializer(
+                @Nullable Function<String, MappingMetadata> mappingLookup) {
+            return new DiffableUtils.DiffableValueSerializer<String, IndexMetadata>() {
+                @Override
+                public IndexMetadata read(StreamInput in, String key) throws IOException {
+                    return IndexMetadata.readFrom(in, mappingLookup);
+                }
+
+                @Override
+                public Diff<IndexMetadata> readDiff(StreamInput in, String key) throws IOException {
+                    return IndexMetadata.readDiffFrom(in);
+                }
+
+                @Override
+                public void write(IndexMetadata value, StreamOutput out) throws IOException {
+                    value.writeTo(out, true);
+                }
+            };
+        }
+
         private static final DiffableUtils.DiffableValueReader<String, IndexTemplateMetadata> TEMPLATES_DIFF_VALUE_READER =
                 new DiffableUtils.DiffableValueReader<>(IndexTemplateMetadata::readFrom, IndexTemplateMetadata::readDiffFrom);
 
@@ -889,7 +956,14 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
             } else {
                 hashesOfConsistentSettings = DiffableStringMap.DiffableStringMapDiff.EMPTY;
             }
-            indices = DiffableUtils.readImmutableOpenMapDiff(in, DiffableUtils.getStringKeySerializer(), INDEX_METADATA_DIFF_VALUE_READER);
+            if (in.getVersion().onOrAfter(MAPPINGS_AS_HASH_VERSION)) {
+                mappingsByHash = in.readMap(StreamInput::readString, MappingMetadata::new);
+                indices = DiffableUtils.readImmutableOpenMapDiff(in, DiffableUtils.getStringKeySerializer(),
+                    indexMetadataSerializer(mappingsByHash::get));
+            } else {
+                mappingsByHash = Collections.emptyMap();
+                indices = DiffableUtils.readImmutableOpenMapDiff(in, DiffableUtils.getStringKeySerializer(), indexMetadataSerializer(null));
+            }
             templates = DiffableUtils.readImmutableOpenMapDiff(in, DiffableUtils.getStringKeySerializer(), TEMPLATES_DIFF_VALUE_READER);
             customs = DiffableUtils.readImmutableOpenMapDiff(in, DiffableUtils.getStringKeySerializer(), CUSTOM_VALUE_SERIALIZER);
         }
@@ -905,6 +979,9 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
             if (out.getVersion().onOrAfter(Version.V_7_3_0)) {
                 hashesOfConsistentSettings.writeTo(out);
             }
+            if (out.getVersion().onOrAfter(MAPPINGS_AS_HASH_VERSION)) {
+                out.writeMap(mappingsByHash, StreamOutput::writeString, (o, v) -> v.writeTo(o));
+            }
             indices.writeTo(out);
             templates.writeTo(out);
             customs.writeTo(out);
@@ -920,6 +997,7 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
             builder.transientSettings(transientSettings);
             builder.persistentSettings(persistentSettings);
             builder.hashesOfConsistentSettings(hashesOfConsistentSettings.apply(part.hashesOfConsistentSettings));
+            builder.previousMappingsByHash = part.mappingsByHash;
             builder.indices(indices.apply(part.indices));
             builder.templates(templates.apply(part.templates));
             builder.customs(customs.apply(part.customs));
@@ -938,9 +1016,15 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
         if (in.getVersion().onOrAfter(Version.V_7_3_0)) {
             builder.hashesOfConsistentSettings(DiffableStringMap.readFrom(in));
         }
+        final Function<String, MappingMetadata> mappingLookup;
+        if (in.getVersion().onOrAfter(MAPPINGS_AS_HASH_VERSION)) {
+            mappingLookup = in.readMap(StreamInput::readString, MappingMetadata::new)::get;
+        } else {
+            mappingLookup = null;
+        }
         int size = in.readVInt();
         for (int i = 0; i < size; i++) {
-            builder.put(IndexMetadata.readFrom(in), false);
+            builder.put(IndexMetadata.readFrom(in, mappingLookup), false);
         }
         size = in.readVInt();
         for (int i = 0; i < size; i++) {
@@ -965,9 +1049,12 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
         if (out.getVersion().onOrAfter(Version.V_7_3_0)) {
             hashesOfConsistentSettings.writeTo(out);
         }
+        if (out.getVersion().onOrAfter(MAPPINGS_AS_HASH_VERSION)) {
+            out.writeMap(mappingsByHash, StreamOutput::writeString, (o, v) -> v.writeTo(o));
+        }
         out.writeVInt(indices.size());
         for (IndexMetadata indexMetadata : this) {
-            indexMetadata.writeTo(out);
+            indexMetadata.writeTo(out, true);
         }
         out.writeVInt(templates.size());
         for (ObjectCursor<IndexTemplateMetadata> cursor : templates.values()) {
@@ -999,6 +1086,9 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
         private final ImmutableOpenMap.Builder<String, IndexTemplateMetadata> templates;
         private final ImmutableOpenMap.Builder<String, Custom> customs;
 
+        // the mappings that the indices already share, preferred over the identical mappings of the indices that are added
+        private ImmutableOpenMap<String, MappingMetadata> previousMappingsByHash = ImmutableOpenMap.of();
+
         public Builder() {
             clusterUUID = UNKNOWN_CLUSTER_UUID;
             indices = ImmutableOpenMap.builder();
@@ -1018,6 +1108,7 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
             this.indices = ImmutableOpenMap.builder(metadata.indices);
             this.templates = ImmutableOpenMap.builder(metadata.templates);
             this.customs = ImmutableOpenMap.builder(metadata.customs);
+            this.previousMappingsByHash = metadata.mappingsByHash;
         }
 
         public Builder put(IndexMetadata.Builder indexMetadataBuilder) {
@@ -1398,6 +1489,8 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
             //    while these datastructures aren't even used.
             // 2) The aliasAndIndexLookup can be updated instead of rebuilding it all the time.
 
+            final ImmutableOpenMap<String, MappingMetadata> mappingsByHash = dedupeMappings();
+
             final Set<String> allIndices = new HashSet<>(indices.size());
             final List<String> visibleIndices = new ArrayList<>();
             final List<String> allOpenIndices = new ArrayList<>();
@@ -1493,7 +1586,41 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
 
             return new Metadata(clusterUUID, clusterUUIDCommitted, version, coordinationMetadata, transientSettings, persistentSettings,
                 hashesOfConsistentSettings, indices.build(), templates.build(), customs.build(), allIndicesArray, visibleIndicesArray,
-                allOpenIndicesArray, visibleOpenIndicesArray, allClosedIndicesArray, visibleClosedIndicesArray, indicesLookup);
+                allOpenIndicesArray, visibleOpenIndicesArray, allClosedIndicesArray, visibleClosedIndicesArray, indicesLookup,
+                mappingsByHash);
+        }
+
+        /**
+         * Makes the indices with identical mappings share a single {@link MappingMetadata} instance and returns these instances by hash.
+         * The instances that are already shared by the indices of the metadata this builder started from are kept, so that adding an
+         * index only replaces the index metadata of the new index if its mapping is a duplicate.
+         */
+        private ImmutableOpenMap<String, MappingMetadata> dedupeMappings() {
+            final ImmutableOpenMap.Builder<String, MappingMetadata> mappingsByHash =
+                ImmutableOpenMap.builder(previousMappingsByHash.size());
+            final List<IndexMetadata> deduplicated = new ArrayList<>();
+            for (ObjectCursor<IndexMetadata> cursor : indices.values()) {
+                final MappingMetadata mapping = cursor.value.mapping();
+                if (mapping == null) {
+                    continue;
+                }
+                final String hash = mapping.getSha256();
+                MappingMetadata shared = mappingsByHash.get(hash);
+                if (shared == null) {
+                    shared = previousMappingsByHash.get(hash);
+                    if (shared == null || shared.equals(mapping) == false) {
+                        shared = mapping;
+                    }
+                    mappingsByHash.put(hash, shared);
+                }
+                if (shared != mapping && shared.equals(mapping)) {
+                    deduplicated.add(cursor.value.withMappingMetadata(shared));
+                }
+            }
+            for (IndexMetadata indexMetadata : deduplicated) {
+                indices.put(indexMetadata.getIndex().getName(), indexMetadata);
+            }
+            return mappingsByHash.build();
         }
 
         private SortedMap<String, IndexAbstraction> buildIndicesLookup() {
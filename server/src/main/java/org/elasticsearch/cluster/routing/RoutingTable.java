@@ -34,6 +34,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.function.Predicate;
 
 import static org.elasticsearch.cluster.metadata.MetadataIndexStateService.isIndexVerifiedBeforeClosed;
@@ -318,6 +319,14 @@ public class RoutingTable implements Iterable<IndexRoutingTable>, Diffable<Routi
         return new RoutingTableDiff(previousState, this);
     }
 
+    /**
+     * Like {@link #diff(RoutingTable)}, but compares and diffs the changed index routing tables on the calling thread and on up to
+     * {@code parallelism - 1} tasks forked to the given executor.
+     */
+    public Diff<RoutingTable> diff(RoutingTable previousState, Executor executor, int parallelism) {
+        return new RoutingTableDiff(previousState, this, executor, parallelism);
+    }
+
     public static Diff<RoutingTable> readDiffFrom(StreamInput in) throws IOException {
         return new RoutingTableDiff(in);
     }
@@ -350,8 +359,13 @@ public class RoutingTable implements Iterable<IndexRoutingTable>, Diffable<Routi
         private final Diff<ImmutableOpenMap<String, IndexRoutingTable>> indicesRouting;
 
         RoutingTableDiff(RoutingTable before, RoutingTable after) {
+            this(before, after, Runnable::run, 1);
+        }
+
+        RoutingTableDiff(RoutingTable before, RoutingTable after, Executor executor, int parallelism) {
             version = after.version;
-            indicesRouting = DiffableUtils.diff(before.indicesRouting, after.indicesRouting, DiffableUtils.getStringKeySerializer());
+            indicesRouting = DiffableUtils.diff(before.indicesRouting, after.indicesRouting, DiffableUtils.getStringKeySerializer(),
+                executor, parallelism);
         }
 
         private static final DiffableUtils.DiffableValueReader<String, IndexRoutingTable> DIFF_VALUE_READER =
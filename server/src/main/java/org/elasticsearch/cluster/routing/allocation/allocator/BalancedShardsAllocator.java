@@ -12,6 +12,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.IntroSorter;
+import org.elasticsearch.cluster.ClusterInfo;
 import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.cluster.metadata.Metadata;
 import org.elasticsearch.cluster.routing.RoutingNode;
@@ -30,6 +31,7 @@ import org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciders;
 import org.elasticsearch.cluster.routing.allocation.decider.Decision;
 import org.elasticsearch.cluster.routing.allocation.decider.Decision.Type;
 import org.elasticsearch.cluster.routing.allocation.decider.DiskThresholdDecider;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.ClusterSettings;
@@ -39,6 +41,7 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.gateway.PriorityComparator;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -47,18 +50,23 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.StreamSupport;
 
 import static org.elasticsearch.cluster.routing.ShardRoutingState.RELOCATING;
 
 /**
  * The {@link BalancedShardsAllocator} re-balances the nodes allocations
- * within an cluster based on a {@link WeightFunction}. The clusters balance is defined by four parameters which can be set
- * in the cluster update API that allows changes in real-time:
+ * within an cluster based on a {@link WeightFunction}. The clusters balance is defined by the following parameters which can be
+ * set in the cluster update API that allows changes in real-time:
  * <ul><li><code>cluster.routing.allocation.balance.shard</code> - The <b>shard balance</b> defines the weight factor
  * for shards allocated on a {@link RoutingNode}</li>
  * <li><code>cluster.routing.allocation.balance.index</code> - The <b>index balance</b> defines a factor to the number
  * of {@link org.elasticsearch.cluster.routing.ShardRouting}s per index allocated on a specific node</li>
+ * <li><code>cluster.routing.allocation.balance.write_load</code> - The <b>write load balance</b> defines a factor to the indexing
+ * load of the shards allocated on a specific node</li>
+ * <li><code>cluster.routing.allocation.balance.search_load</code> - The <b>search load balance</b> defines a factor to the search
+ * load of the shards allocated on a specific node</li>
+ * <li><code>cluster.routing.allocation.balance.disk_usage</code> - The <b>disk usage balance</b> defines a factor to the size on
+ * disk of the shards allocated on a specific node</li>
  * <li><code>cluster.routing.allocation.balance.threshold</code> - A <b>threshold</b> to set the minimal optimization
  * value of operations that should be performed</li>
  * </ul>
@@ -74,6 +82,12 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         Setting.floatSetting("cluster.routing.allocation.balance.index", 0.55f, 0.0f, Property.Dynamic, Property.NodeScope);
     public static final Setting<Float> SHARD_BALANCE_FACTOR_SETTING =
         Setting.floatSetting("cluster.routing.allocation.balance.shard", 0.45f, 0.0f, Property.Dynamic, Property.NodeScope);
+    public static final Setting<Float> WRITE_LOAD_BALANCE_FACTOR_SETTING =
+        Setting.floatSetting("cluster.routing.allocation.balance.write_load", 0.0f, 0.0f, Property.Dynamic, Property.NodeScope);
+    public static final Setting<Float> SEARCH_LOAD_BALANCE_FACTOR_SETTING =
+        Setting.floatSetting("cluster.routing.allocation.balance.search_load", 0.0f, 0.0f, Property.Dynamic, Property.NodeScope);
+    public static final Setting<Float> DISK_USAGE_BALANCE_FACTOR_SETTING =
+        Setting.floatSetting("cluster.routing.allocation.balance.disk_usage", 0.0f, 0.0f, Property.Dynamic, Property.NodeScope);
     public static final Setting<Float> THRESHOLD_SETTING =
         Setting.floatSetting("cluster.routing.allocation.balance.threshold", 1.0f, 0.0f,
             Property.Dynamic, Property.NodeScope);
@@ -87,14 +101,22 @@ public class BalancedShardsAllocator implements ShardsAllocator {
 
     @Inject
     public BalancedShardsAllocator(Settings settings, ClusterSettings clusterSettings) {
-        setWeightFunction(INDEX_BALANCE_FACTOR_SETTING.get(settings), SHARD_BALANCE_FACTOR_SETTING.get(settings));
+        setWeightFunction(settings);
         setThreshold(THRESHOLD_SETTING.get(settings));
-        clusterSettings.addSettingsUpdateConsumer(INDEX_BALANCE_FACTOR_SETTING, SHARD_BALANCE_FACTOR_SETTING, this::setWeightFunction);
+        clusterSettings.addSettingsUpdateConsumer(this::setWeightFunction, List.of(INDEX_BALANCE_FACTOR_SETTING,
+            SHARD_BALANCE_FACTOR_SETTING, WRITE_LOAD_BALANCE_FACTOR_SETTING, SEARCH_LOAD_BALANCE_FACTOR_SETTING,
+            DISK_USAGE_BALANCE_FACTOR_SETTING), BalancedShardsAllocator::createWeightFunction);
         clusterSettings.addSettingsUpdateConsumer(THRESHOLD_SETTING, this::setThreshold);
     }
 
-    private void setWeightFunction(float indexBalance, float shardBalanceFactor) {
-        weightFunction = new WeightFunction(indexBalance, shardBalanceFactor);
+    private void setWeightFunction(Settings settings) {
+        weightFunction = createWeightFunction(settings);
+    }
+
+    private static WeightFunction createWeightFunction(Settings settings) {
+        return new WeightFunction(INDEX_BALANCE_FACTOR_SETTING.get(settings), SHARD_BALANCE_FACTOR_SETTING.get(settings),
+            WRITE_LOAD_BALANCE_FACTOR_SETTING.get(settings), SEARCH_LOAD_BALANCE_FACTOR_SETTING.get(settings),
+            DISK_USAGE_BALANCE_FACTOR_SETTING.get(settings));
     }
 
     private void setThreshold(float threshold) {
@@ -168,13 +190,36 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         return weightFunction.shardBalance;
     }
 
+    /**
+     * Returns the write load related weight factor.
+     */
+    public float getWriteLoadBalance() {
+        return weightFunction.writeLoadBalance;
+    }
+
+    /**
+     * Returns the search load related weight factor.
+     */
+    public float getSearchLoadBalance() {
+        return weightFunction.searchLoadBalance;
+    }
+
+    /**
+     * Returns the disk usage related weight factor.
+     */
+    public float getDiskUsageBalance() {
+        return weightFunction.diskUsageBalance;
+    }
 
     /**
      * This class is the primary weight function used to create balanced over nodes and shards in the cluster.
-     * Currently this function has 3 properties:
+     * Currently this function has 5 properties:
      * <ul>
      * <li><code>index balance</code> - balance property over shards per index</li>
      * <li><code>shard balance</code> - balance property over shards per cluster</li>
+     * <li><code>write load balance</code> - balance property over the write load of the shards per cluster</li>
+     * <li><code>search load balance</code> - balance property over the search load of the shards per cluster</li>
+     * <li><code>disk usage balance</code> - balance property over the size on disk of the shards per cluster</li>
      * </ul>
      * <p>
      * Each of these properties are expressed as factor such that the properties factor defines the relative
@@ -190,31 +235,93 @@ public class BalancedShardsAllocator implements ShardsAllocator {
      * <li>
      * <code>weight<sub>node</sub>(node, index) = shardBalance * (node.numShards() - avgShardsPerNode)</code>
      * </li>
+     * <li>
+     * <code>weight<sub>load</sub>(node) = loadBalance * (node.load() / totalLoad * numShards - avgShardsPerNode)</code>
+     * </li>
      * </ul>
-     * <code>weight(node, index) = weight<sub>index</sub>(node, index) + weight<sub>node</sub>(node, index)</code>
+     * <code>weight(node, index) = weight<sub>index</sub>(node, index) + weight<sub>node</sub>(node, index)
+     * + weight<sub>load</sub>(node)</code> for each of the write load, search load and disk usage of the shards on the node. The
+     * load weights express how far the share of the load that a node carries is from an even share in numbers of shards, so that
+     * they are comparable to the other weights and to the threshold. The loads are taken from the {@link ClusterInfo} and are only
+     * looked up if one of their factors is greater than {@code 0.0}, which isn't the case by default.
      */
     private static class WeightFunction {
 
         private final float indexBalance;
         private final float shardBalance;
+        private final float writeLoadBalance;
+        private final float searchLoadBalance;
+        private final float diskUsageBalance;
         private final float theta0;
         private final float theta1;
+        private final float theta2;
+        private final float theta3;
+        private final float theta4;
 
-        WeightFunction(float indexBalance, float shardBalance) {
-            float sum = indexBalance + shardBalance;
+        WeightFunction(float indexBalance, float shardBalance, float writeLoadBalance, float searchLoadBalance,
+                       float diskUsageBalance) {
+            float sum = indexBalance + shardBalance + writeLoadBalance + searchLoadBalance + diskUsageBalance;
             if (sum <= 0.0f) {
                 throw new IllegalArgumentException("Balance factors must sum to a value > 0 but was: " + sum);
             }
             theta0 = shardBalance / sum;
             theta1 = indexBalance / sum;
+            theta2 = writeLoadBalance / sum;
+            theta3 = searchLoadBalance / sum;
+            theta4 = diskUsageBalance / sum;
             this.indexBalance = indexBalance;
             this.shardBalance = shardBalance;
+            this.writeLoadBalance = writeLoadBalance;
+            this.searchLoadBalance = searchLoadBalance;
+            this.diskUsageBalance = diskUsageBalance;
+        }
+
+        /**
+         * Returns {@code true} if the weights depend on the loads of the shards.
+         */
+        boolean usesShardLoads() {
+            return theta2 > 0.0f || theta3 > 0.0f || theta4 > 0.0f;
         }
 
         float weight(Balancer balancer, ModelNode node, String index) {
-            final float weightShard = node.numShards() - balancer.avgShardsPerNode();
-            final float weightIndex = node.numShards(index) - balancer.avgShardsPerNode(index);
-            return theta0 * weightShard + theta1 * weightIndex;
+            return weight(balancer, index, node.numShards(), node.numShards(index), node.writeLoad(), node.searchLoad(),
+                node.diskUsageInBytes());
+        }
+
+        /**
+         * Returns the weight the node would have if the given shard of the index was added to it, or removed from it if
+         * {@code added} is {@code false}. A shard changes the shard count weights by {@code 1.0} together, but the load weights by
+         * its share of the loads, so the weights after a relocation must be computed rather than derived from the current ones.
+         */
+        float weightWithShard(Balancer balancer, ModelNode node, String index, ShardRouting shard, boolean added) {
+            final int sign = added ? 1 : -1;
+            return weight(balancer, index, node.numShards() + sign, node.numShards(index) + sign,
+                node.writeLoad() + sign * balancer.shardWriteLoad(shard), node.searchLoad() + sign * balancer.shardSearchLoad(shard),
+                node.diskUsageInBytes() + sign * balancer.shardDiskUsageInBytes(shard));
+        }
+
+        private float weight(Balancer balancer, String index, int numShards, int numIndexShards, double writeLoad, double searchLoad,
+                             long diskUsageInBytes) {
+            final float weightShard = numShards - balancer.avgShardsPerNode();
+            final float weightIndex = numIndexShards - balancer.avgShardsPerNode(index);
+            float weight = theta0 * weightShard + theta1 * weightIndex;
+            if (theta2 > 0.0f) {
+                weight += theta2 * loadWeight(balancer, writeLoad, balancer.totalWriteLoad());
+            }
+            if (theta3 > 0.0f) {
+                weight += theta3 * loadWeight(balancer, searchLoad, balancer.totalSearchLoad());
+            }
+            if (theta4 > 0.0f) {
+                weight += theta4 * loadWeight(balancer, diskUsageInBytes, balancer.totalDiskUsageInBytes());
+            }
+            return weight;
+        }
+
+        private static float loadWeight(Balancer balancer, double nodeLoad, double totalLoad) {
+            if (totalLoad <= 0.0) {
+                return 0.0f;
+            }
+            return (float) (nodeLoad / totalLoad * balancer.totalNumberOfShards()) - balancer.avgShardsPerNode();
         }
     }
 
@@ -232,6 +339,13 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         private final Metadata metadata;
         private final float avgShardsPerNode;
         private final NodeSorter sorter;
+        @Nullable // if the weight function doesn't depend on the loads of the shards
+        private final ClusterInfo shardLoads;
+        private final double totalWriteLoad;
+        private final double totalSearchLoad;
+        private final long totalDiskUsageInBytes;
+        // the number of shards relocated in the model, including the relocations that are only simulated because they are throttled
+        private long relocations;
 
         public Balancer(Logger logger, RoutingAllocation allocation, WeightFunction weight, float threshold) {
             this.logger = logger;
@@ -241,6 +355,25 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             this.routingNodes = allocation.routingNodes();
             this.metadata = allocation.metadata();
             avgShardsPerNode = ((float) metadata.getTotalNumberOfShards()) / routingNodes.size();
+            if (weight.usesShardLoads()) {
+                shardLoads = allocation.clusterInfo();
+                double writeLoad = 0.0;
+                double searchLoad = 0.0;
+                long diskUsageInBytes = 0L;
+                for (ShardRouting shard : allocation.routingTable().allShards()) {
+                    writeLoad += shardLoads.getShardWriteLoad(shard.shardId(), 0.0);
+                    searchLoad += shardLoads.getShardSearchLoad(shard.shardId(), 0.0);
+                    diskUsageInBytes += shardLoads.getShardSize(shard, 0L);
+                }
+                totalWriteLoad = writeLoad;
+                totalSearchLoad = searchLoad;
+                totalDiskUsageInBytes = diskUsageInBytes;
+            } else {
+                shardLoads = null;
+                totalWriteLoad = 0.0;
+                totalSearchLoad = 0.0;
+                totalDiskUsageInBytes = 0L;
+            }
             nodes = Collections.unmodifiableMap(buildModelFromAssigned());
             sorter = newNodeSorter();
         }
@@ -266,6 +399,55 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             return avgShardsPerNode;
         }
 
+        /**
+         * Returns the total number of shards in the cluster, including replicas and unassigned shards
+         */
+        public int totalNumberOfShards() {
+            return metadata.getTotalNumberOfShards();
+        }
+
+        /**
+         * Returns the total write load of the shards in the cluster, or {@code 0} if the weight function doesn't use it
+         */
+        public double totalWriteLoad() {
+            return totalWriteLoad;
+        }
+
+        /**
+         * Returns the total search load of the shards in the cluster, or {@code 0} if the weight function doesn't use it
+         */
+        public double totalSearchLoad() {
+            return totalSearchLoad;
+        }
+
+        /**
+         * Returns the total size on disk of the shards in the cluster, or {@code 0} if the weight function doesn't use it
+         */
+        public long totalDiskUsageInBytes() {
+            return totalDiskUsageInBytes;
+        }
+
+        /**
+         * Returns the write load of the given shard, or {@code 0} if the weight function doesn't use it
+         */
+        double shardWriteLoad(ShardRouting shard) {
+            return shardLoads == null ? 0.0 : shardLoads.getShardWriteLoad(shard.shardId(), 0.0);
+        }
+
+        /**
+         * Returns the search load of the given shard, or {@code 0} if the weight function doesn't use it
+         */
+        double shardSearchLoad(ShardRouting shard) {
+            return shardLoads == null ? 0.0 : shardLoads.getShardSearchLoad(shard.shardId(), 0.0);
+        }
+
+        /**
+         * Returns the size on disk of the given shard, or {@code 0} if the weight function doesn't use it
+         */
+        long shardDiskUsageInBytes(ShardRouting shard) {
+            return shardLoads == null ? 0L : shardLoads.getShardSize(shard, 0L);
+        }
+
         /**
          * Returns a new {@link NodeSorter} that sorts the nodes based on their
          * current weight with respect to the index passed to the sorter. The
@@ -295,6 +477,21 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             return delta <= (threshold + 0.001f);
         }
 
+        /**
+         * Returns the delta between the weights of the two nodes once the given shard of the index is relocated from one to the other.
+         */
+        private float deltaAfterRelocation(ModelNode from, ModelNode to, String index, ShardRouting shard) {
+            return Math.abs(weight.weightWithShard(this, from, index, shard, false) - weight.weightWithShard(this, to, index, shard, true));
+        }
+
+        /**
+         * Returns {@code true} iff a relocation brings the weights of two nodes closer together, ignoring the floating point errors
+         * like {@link #lessThan} does, so that relocations that only swap the weights of the two nodes are not worth it.
+         */
+        private static boolean deltaShrinks(float deltaBefore, float deltaAfter) {
+            return lessThan(deltaBefore, deltaAfter) == false;
+        }
+
         /**
          * Balances the nodes on the cluster model according to the weight function.
          * The actual balancing is delegated to {@link #balanceByWeights()}
@@ -385,7 +582,8 @@ public class BalancedShardsAllocator implements ShardsAllocator {
                     boolean deltaAboveThreshold = lessThan(currentDelta, threshold) == false;
                     // calculate the delta of the weights of the two nodes if we were to add the shard to the
                     // node in question and move it away from the node that currently holds it.
-                    boolean betterWeightWithShardAdded = nodeWeight + 1.0f < currentWeight;
+                    float deltaWithShardMoved = deltaAfterRelocation(currentNode, node, idxName, shard);
+                    boolean betterWeightWithShardAdded = deltaShrinks(currentDelta, deltaWithShardMoved);
                     rebalanceConditionsMet = deltaAboveThreshold && betterWeightWithShardAdded;
                     // if the simulated weight delta with the shard moved away is better than the weight delta
                     // with the shard remaining on the current node, and we are allowed to allocate to the
@@ -448,12 +646,25 @@ public class BalancedShardsAllocator implements ShardsAllocator {
          * the threshold is set to {@code 1.0} to enforce gaining relocation
          * only, or in other words relocations that move the weight delta closer
          * to {@code 0.0}
+         * <p>
+         * Indices whose weight delta is under the threshold have nothing to relocate as long as the model doesn't change, so once
+         * the balanced indices are reached and no shard was relocated the remaining indices are skipped. In a balanced cluster this
+         * avoids checking which nodes are relevant for each index, so that the cost of a round is dominated by computing the deltas.
          */
         private void balanceByWeights() {
             final AllocationDeciders deciders = allocation.deciders();
             final ModelNode[] modelNodes = sorter.modelNodes;
             final float[] weights = sorter.weights;
-            for (String index : buildWeightOrderedIndices()) {
+            final String[] indices = allocation.routingTable().indicesRouting().keys().toArray(String.class);
+            final float[] deltas = new float[indices.length];
+            buildWeightOrderedIndices(indices, deltas);
+            final long relocationsBefore = relocations;
+            for (int i = 0; i < indices.length; i++) {
+                final String index = indices[i];
+                if (relocations == relocationsBefore && lessThan(deltas[i], threshold)) {
+                    // the weights are still the ones the deltas were computed from and this index, like the next ones, is balanced
+                    break;
+                }
                 IndexMetadata indexMetadata = metadata.index(index);
 
                 // find nodes that have a shard of this index or where shards of this index are allowed to be allocated to,
@@ -510,18 +721,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
                             logger.trace("Balancing from node [{}] weight: [{}] to node [{}] weight: [{}]  delta: [{}]",
                                     maxNode.getNodeId(), weights[highIdx], minNode.getNodeId(), weights[lowIdx], delta);
                         }
-                        if (delta <= 1.0f) {
-                            /*
-                             * prevent relocations that only swap the weights of the two nodes. a relocation must bring us closer to the
-                             * balance if we only achieve the same delta the relocation is useless
-                             *
-                             * NB this comment above was preserved from an earlier version but doesn't obviously describe the code today. We
-                             * already know that lessThan(delta, threshold) == false and threshold defaults to 1.0, so by default we never
-                             * hit this case anyway.
-                             */
-                            logger.trace("Couldn't find shard to relocate from node [{}] to node [{}]",
-                                maxNode.getNodeId(), minNode.getNodeId());
-                        } else if (tryRelocateShard(minNode, maxNode, index)) {
+                        if (tryRelocateShard(minNode, maxNode, index)) {
                             /*
                              * TODO we could be a bit smarter here, we don't need to fully sort necessarily
                              * we could just find the place to insert linearly but the win might be minor
@@ -568,12 +768,14 @@ public class BalancedShardsAllocator implements ShardsAllocator {
          * average. To re-balance we need to move shards back eventually likely
          * to the nodes we relocated them from.
          */
-        private String[] buildWeightOrderedIndices() {
-            final String[] indices = allocation.routingTable().indicesRouting().keys().toArray(String.class);
-            final float[] deltas = new float[indices.length];
-            for (int i = 0; i < deltas.length; i++) {
-                sorter.reset(indices[i]);
-                deltas[i] = sorter.delta();
+        private void buildWeightOrderedIndices(String[] indices, float[] deltas) {
+            if (weight.usesShardLoads()) {
+                for (int i = 0; i < deltas.length; i++) {
+                    sorter.reset(indices[i]);
+                    deltas[i] = sorter.delta();
+                }
+            } else {
+                computeWeightDeltas(indices, deltas);
             }
             new IntroSorter() {
 
@@ -604,8 +806,49 @@ public class BalancedShardsAllocator implements ShardsAllocator {
                     return Float.compare(deltas[j], pivotWeight);
                 }
             }.sort(0, deltas.length);
+        }
 
-            return indices;
+        /**
+         * Computes the delta between the weights of the heaviest and the lightest node of each index, like {@link NodeSorter#delta()}
+         * but without computing the weight of every node for every index. If the weights don't depend on the loads of the shards,
+         * the weight of a node that holds no shard of an index only depends on the number of shards on the node, and grows with it.
+         * So only the weights of the nodes that hold shards of the index and of the nodes with the fewest and most shards among the
+         * others are needed, which makes the cost proportional to the number of shards rather than to the number of indices times
+         * the number of nodes.
+         */
+        private void computeWeightDeltas(String[] indices, float[] deltas) {
+            assert weight.usesShardLoads() == false;
+            final ModelNode[] nodesByNumShards = nodesArray();
+            Arrays.sort(nodesByNumShards, Comparator.comparingInt(ModelNode::numShards));
+            final Map<String, List<ModelNode>> nodesByIndex = new HashMap<>();
+            for (ModelNode node : nodesByNumShards) {
+                for (ModelIndex modelIndex : node) {
+                    nodesByIndex.computeIfAbsent(modelIndex.getIndexId(), k -> new ArrayList<>()).add(node);
+                }
+            }
+            for (int i = 0; i < indices.length; i++) {
+                final String index = indices[i];
+                float minWeight = Float.POSITIVE_INFINITY;
+                float maxWeight = Float.NEGATIVE_INFINITY;
+                for (ModelNode node : nodesByIndex.getOrDefault(index, Collections.emptyList())) {
+                    final float nodeWeight = weight.weight(this, node, index);
+                    minWeight = Math.min(minWeight, nodeWeight);
+                    maxWeight = Math.max(maxWeight, nodeWeight);
+                }
+                for (int j = 0; j < nodesByNumShards.length; j++) {
+                    if (nodesByNumShards[j].getIndex(index) == null) {
+                        minWeight = Math.min(minWeight, weight.weight(this, nodesByNumShards[j], index));
+                        break;
+                    }
+                }
+                for (int j = nodesByNumShards.length - 1; j >= 0; j--) {
+                    if (nodesByNumShards[j].getIndex(index) == null) {
+                        maxWeight = Math.max(maxWeight, weight.weight(this, nodesByNumShards[j], index));
+                        break;
+                    }
+                }
+                deltas[i] = maxWeight - minWeight;
+            }
         }
 
         /**
@@ -720,7 +963,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         private Map<String, ModelNode> buildModelFromAssigned() {
             Map<String, ModelNode> nodes = new HashMap<>();
             for (RoutingNode rn : routingNodes) {
-                ModelNode node = new ModelNode(rn);
+                ModelNode node = new ModelNode(rn, shardLoads);
                 nodes.put(rn.nodeId(), node);
                 for (ShardRouting shard : rn) {
                     assert rn.nodeId().equals(shard.currentNodeId());
@@ -954,22 +1197,37 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         private static final Comparator<ShardRouting> BY_DESCENDING_SHARD_ID = Comparator.comparing(ShardRouting::shardId).reversed();
 
         /**
-         * Tries to find a relocation from the max node to the minimal node for an arbitrary shard of the given index on the
-         * balance model. Iff this method returns a <code>true</code> the relocation has already been executed on the
-         * simulation model as well as on the cluster.
+         * Tries to find a relocation from the max node to the minimal node for a shard of the given index that brings their
+         * weights closer together on the balance model. Iff this method returns a <code>true</code> the relocation has already
+         * been executed on the simulation model as well as on the cluster.
          */
         private boolean tryRelocateShard(ModelNode minNode, ModelNode maxNode, String idx) {
             final ModelIndex index = maxNode.getIndex(idx);
             if (index != null) {
                 logger.trace("Try relocating shard of [{}] from [{}] to [{}]", idx, maxNode.getNodeId(), minNode.getNodeId());
-                final Iterable<ShardRouting> shardRoutings = StreamSupport.stream(index.spliterator(), false)
-                    .filter(ShardRouting::started) // cannot rebalance unassigned, initializing or relocating shards anyway
-                    .filter(maxNode::containsShard)
-                    .sorted(BY_DESCENDING_SHARD_ID) // check in descending order of shard id so that the decision is deterministic
-                    ::iterator;
+                final float delta = Math.abs(weight.weight(this, maxNode, idx) - weight.weight(this, minNode, idx));
+                /*
+                 * Only relocate shards that bring the weights of the two nodes closer together, since relocations that only swap the
+                 * weights are useless. With loads the shards of an index weigh differently, so check the shards that even out the
+                 * weights the most first. Shards that weigh the same, which all shards do without loads, are checked in descending
+                 * order of shard id so that the decision is deterministic.
+                 */
+                final List<Tuple<ShardRouting, Float>> candidates = new ArrayList<>();
+                for (ShardRouting shard : index) {
+                    // cannot rebalance unassigned, initializing or relocating shards anyway
+                    if (shard.started() && maxNode.containsShard(shard)) {
+                        final float deltaAfter = deltaAfterRelocation(maxNode, minNode, idx, shard);
+                        if (deltaShrinks(delta, deltaAfter)) {
+                            candidates.add(Tuple.tuple(shard, deltaAfter));
+                        }
+                    }
+                }
+                candidates.sort(Comparator.comparing((Tuple<ShardRouting, Float> candidate) -> candidate.v2())
+                    .thenComparing(Tuple::v1, BY_DESCENDING_SHARD_ID));
 
                 final AllocationDeciders deciders = allocation.deciders();
-                for (ShardRouting shard : shardRoutings) {
+                for (Tuple<ShardRouting, Float> candidate : candidates) {
+                    final ShardRouting shard = candidate.v1();
                     final Decision rebalanceDecision = deciders.canRebalance(shard, allocation);
                     if (rebalanceDecision.type() == Type.NO) {
                         continue;
@@ -982,6 +1240,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
                     final Decision decision = new Decision.Multi().add(allocationDecision).add(rebalanceDecision);
 
                     maxNode.removeShard(shard);
+                    relocations++;
                     long shardSize = allocation.clusterInfo().getShardSize(shard, ShardRouting.UNAVAILABLE_EXPECTED_SHARD_SIZE);
 
                     if (decision.type() == Type.YES) {
@@ -1008,9 +1267,15 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         private final Map<String, ModelIndex> indices = new HashMap<>();
         private int numShards = 0;
         private final RoutingNode routingNode;
+        @Nullable // if the loads of the shards are not tracked
+        private final ClusterInfo shardLoads;
+        private double writeLoad = 0.0;
+        private double searchLoad = 0.0;
+        private long diskUsageInBytes = 0L;
 
-        ModelNode(RoutingNode routingNode) {
+        ModelNode(RoutingNode routingNode, @Nullable ClusterInfo shardLoads) {
             this.routingNode = routingNode;
+            this.shardLoads = shardLoads;
         }
 
         public ModelIndex getIndex(String indexId) {
@@ -1034,6 +1299,18 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             return index == null ? 0 : index.numShards();
         }
 
+        public double writeLoad() {
+            return writeLoad;
+        }
+
+        public double searchLoad() {
+            return searchLoad;
+        }
+
+        public long diskUsageInBytes() {
+            return diskUsageInBytes;
+        }
+
         public int highestPrimary(String index) {
             ModelIndex idx = indices.get(index);
             if (idx != null) {
@@ -1050,6 +1327,11 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             }
             index.addShard(shard);
             numShards++;
+            if (shardLoads != null) {
+                writeLoad += shardLoads.getShardWriteLoad(shard.shardId(), 0.0);
+                searchLoad += shardLoads.getShardSearchLoad(shard.shardId(), 0.0);
+                diskUsageInBytes += shardLoads.getShardSize(shard, 0L);
+            }
         }
 
         public void removeShard(ShardRouting shard) {
@@ -1061,6 +1343,11 @@ public class BalancedShardsAllocator implements ShardsAllocator {
                 }
             }
             numShards--;
+            if (shardLoads != null) {
+                writeLoad -= shardLoads.getShardWriteLoad(shard.shardId(), 0.0);
+                searchLoad -= shardLoads.getShardSearchLoad(shard.shardId(), 0.0);
+                diskUsageInBytes -= shardLoads.getShardSize(shard, 0L);
+            }
         }
 
         @Override
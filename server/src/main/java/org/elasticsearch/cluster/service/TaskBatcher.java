@@ -22,6 +22,7 @@ import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -35,7 +36,7 @@ public abstract class TaskBatcher {
     private final Logger logger;
     private final PrioritizedEsThreadPoolExecutor threadExecutor;
     // package visible for tests
-    final Map<Object, LinkedHashSet<BatchedTask>> tasksPerBatchingKey = new HashMap<>();
+    final Map<Object, PendingTasks> tasksPerBatchingKey = new HashMap<>();
 
     public TaskBatcher(Logger logger, PrioritizedEsThreadPoolExecutor threadExecutor) {
         this.logger = logger;
@@ -49,25 +50,25 @@ public abstract class TaskBatcher {
         final BatchedTask firstTask = tasks.get(0);
         assert tasks.stream().allMatch(t -> t.batchingKey == firstTask.batchingKey) :
             "tasks submitted in a batch should share the same batching key: " + tasks;
-        // convert to an identity map to check for dups based on task identity
-        final Map<Object, BatchedTask> tasksIdentity = tasks.stream().collect(Collectors.toMap(
+        // convert to an identity map to check for dups within the submitted tasks based on task identity
+        tasks.stream().collect(Collectors.toMap(
             BatchedTask::getTask,
             Function.identity(),
             (a, b) -> { throw new IllegalStateException("cannot add duplicate task: " + a); },
             IdentityHashMap::new));
 
         synchronized (tasksPerBatchingKey) {
-            LinkedHashSet<BatchedTask> existingTasks = tasksPerBatchingKey.computeIfAbsent(firstTask.batchingKey,
-                k -> new LinkedHashSet<>(tasks.size()));
-            for (BatchedTask existing : existingTasks) {
+            PendingTasks existingTasks = tasksPerBatchingKey.computeIfAbsent(firstTask.batchingKey, k -> new PendingTasks());
+            for (BatchedTask duplicateTask : tasks) {
                 // check that there won't be two tasks with the same identity for the same batching key
-                BatchedTask duplicateTask = tasksIdentity.get(existing.getTask());
-                if (duplicateTask != null) {
+                if (existingTasks.taskIdentities.contains(duplicateTask.getTask())) {
                     throw new IllegalStateException("task [" + duplicateTask.describeTasks(
-                        Collections.singletonList(existing)) + "] with source [" + duplicateTask.source + "] is already queued");
+                        Collections.singletonList(duplicateTask)) + "] with source [" + duplicateTask.source + "] is already queued");
                 }
             }
-            existingTasks.addAll(tasks);
+            for (BatchedTask task : tasks) {
+                existingTasks.add(task);
+            }
         }
 
         if (timeout != null) {
@@ -91,9 +92,11 @@ public abstract class TaskBatcher {
             assert tasks.stream().allMatch(t -> t.batchingKey == batchingKey) :
                 "tasks submitted in a batch should share the same batching key: " + tasks;
             synchronized (tasksPerBatchingKey) {
-                LinkedHashSet<BatchedTask> existingTasks = tasksPerBatchingKey.get(batchingKey);
+                PendingTasks existingTasks = tasksPerBatchingKey.get(batchingKey);
                 if (existingTasks != null) {
-                    existingTasks.removeAll(toRemove);
+                    for (BatchedTask task : toRemove) {
+                        existingTasks.remove(task);
+                    }
                     if (existingTasks.isEmpty()) {
                         tasksPerBatchingKey.remove(batchingKey);
                     }
@@ -116,9 +119,9 @@ public abstract class TaskBatcher {
             final List<BatchedTask> toExecute = new ArrayList<>();
             final Map<String, List<BatchedTask>> processTasksBySource = new HashMap<>();
             synchronized (tasksPerBatchingKey) {
-                LinkedHashSet<BatchedTask> pending = tasksPerBatchingKey.remove(updateTask.batchingKey);
+                PendingTasks pending = tasksPerBatchingKey.remove(updateTask.batchingKey);
                 if (pending != null) {
-                    for (BatchedTask task : pending) {
+                    for (BatchedTask task : pending.tasks) {
                         if (task.processed.getAndSet(true) == false) {
                             logger.trace("will process {}", task);
                             toExecute.add(task);
@@ -131,10 +134,11 @@ public abstract class TaskBatcher {
             }
 
             if (toExecute.isEmpty() == false) {
+                // joined in one pass since batches of tasks with distinct sources, e.g. shard-started tasks, can be very large
                 final String tasksSummary = processTasksBySource.entrySet().stream().map(entry -> {
                     String tasks = updateTask.describeTasks(entry.getValue());
                     return tasks.isEmpty() ? entry.getKey() : entry.getKey() + "[" + tasks + "]";
-                }).reduce((s1, s2) -> s1 + ", " + s2).orElse("");
+                }).collect(Collectors.joining(", "));
 
                 run(updateTask.batchingKey, toExecute, tasksSummary);
             }
@@ -147,6 +151,35 @@ public abstract class TaskBatcher {
      */
     protected abstract void run(Object batchingKey, List<? extends BatchedTask> tasks, String tasksSummary);
 
+    /**
+     * The pending tasks of a batching key in submission order, along with the identities of the tasks they wrap so that duplicate
+     * submissions are detected without going through all the pending tasks.
+     */
+    static class PendingTasks {
+        private final LinkedHashSet<BatchedTask> tasks = new LinkedHashSet<>();
+        private final Set<Object> taskIdentities = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        void add(BatchedTask task) {
+            tasks.add(task);
+            taskIdentities.add(task.getTask());
+        }
+
+        void remove(BatchedTask task) {
+            if (tasks.remove(task)) {
+                taskIdentities.remove(task.getTask());
+            }
+        }
+
+        boolean isEmpty() {
+            return tasks.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return tasks.toString();
+        }
+    }
+
     /**
      * Represents a runnable task that supports batching.
      * Implementors of TaskBatcher can subclass this to add a payload to the task.
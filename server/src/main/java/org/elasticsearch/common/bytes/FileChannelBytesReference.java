@@ -0,0 +1,124 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.bytes;
+
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.Nullable;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Objects;
+
+/**
+ * A reference to a region of a file. The bytes are not held on heap, they are read from the file on access, which lets channels that
+ * support it send the region to the network straight from the file system cache, see {@link #getChannel()} and {@link #getPosition()}.
+ * <p>
+ * The file must not be modified, nor the channel closed, while the reference is in use. Failures to read the file are rethrown as
+ * {@link UncheckedIOException}s since {@link BytesReference}s do not do IO otherwise.
+ */
+public final class FileChannelBytesReference extends AbstractBytesReference {
+
+    private static final long SHALLOW_SIZE = RamUsageEstimator.shallowSizeOfInstance(FileChannelBytesReference.class);
+
+    private final FileChannel channel;
+    private final long position;
+    private final int length;
+
+    public FileChannelBytesReference(FileChannel channel, long position, int length) {
+        if (position < 0 || length < 0) {
+            throw new IllegalArgumentException("invalid file region: position [" + position + "], length [" + length + "]");
+        }
+        this.channel = Objects.requireNonNull(channel);
+        this.position = position;
+        this.length = length;
+    }
+
+    /**
+     * Returns the given reference as a file region if it is one, possibly wrapped in a {@link ReleasableBytesReference}, and
+     * {@code null} otherwise.
+     */
+    @Nullable
+    public static FileChannelBytesReference unwrap(BytesReference reference) {
+        if (reference instanceof ReleasableBytesReference) {
+            return unwrap(((ReleasableBytesReference) reference).delegate());
+        } else if (reference instanceof FileChannelBytesReference) {
+            return (FileChannelBytesReference) reference;
+        }
+        return null;
+    }
+
+    public FileChannel getChannel() {
+        return channel;
+    }
+
+    /**
+     * Returns the position in the file of the first byte of this reference.
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    @Override
+    public byte get(int index) {
+        Objects.checkIndex(index, length);
+        final ByteBuffer buffer = ByteBuffer.allocate(1);
+        readFully(buffer, index);
+        return buffer.get(0);
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public BytesReference slice(int from, int length) {
+        if (from == 0 && this.length == length) {
+            return this;
+        }
+        Objects.checkFromIndexSize(from, length, this.length);
+        return new FileChannelBytesReference(channel, position + from, length);
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        return SHALLOW_SIZE;
+    }
+
+    @Override
+    public BytesRef toBytesRef() {
+        final byte[] bytes = new byte[length];
+        readFully(ByteBuffer.wrap(bytes), 0);
+        return new BytesRef(bytes);
+    }
+
+    private void readFully(ByteBuffer buffer, int offset) {
+        try {
+            long readPosition = position + offset;
+            while (buffer.hasRemaining()) {
+                final int read = channel.read(buffer, readPosition);
+                if (read < 0) {
+                    throw new EOFException("read past EOF at position [" + readPosition + "] of file region [" + this + "]");
+                }
+                readPosition += read;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FileChannelBytesReference{position=" + position + ", length=" + length + '}';
+    }
+}
@@ -71,6 +71,13 @@ public final class ReleasableBytesReference implements RefCounted, Releasable, B
         return refCounted.decRef();
     }
 
+    /**
+     * Returns the reference that this instance wraps.
+     */
+    BytesReference delegate() {
+        return delegate;
+    }
+
     public ReleasableBytesReference retain() {
         refCounted.incRef();
         return this;
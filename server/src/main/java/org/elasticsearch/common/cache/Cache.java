@@ -53,6 +53,12 @@ import java.util.function.ToLongBiFunction;
  * <p>
  * Evictions only occur after a mutation to the cache (meaning an entry promotion, a cache insertion, or a manual
  * invalidation) or an explicit call to {@link #refresh()}.
+ * <p>
+ * Weight-bounded caches can optionally use frequency based admission (see {@link CacheBuilder#frequencyBasedAdmission}),
+ * modelled after W-TinyLFU. The LRU list is then split in two regions: new entries are linked into a small admission window at
+ * the head of the list, and once they fall out of that window they are only kept if a {@link FrequencySketch} estimates that
+ * they are accessed more often than the entry they would push out of the main region at the tail of the list. This protects
+ * frequently used entries from being flushed out by bursts of entries that are only accessed once.
  *
  * @param <K> The type of the keys
  * @param <V> The type of the values
@@ -83,6 +89,15 @@ public class Cache<K, V> {
     // the weigher of entries
     private ToLongBiFunction<K, V> weigher = (k, v) -> 1;
 
+    // the access frequency estimates used to admit entries into the main region, null if admission is disabled
+    private FrequencySketch sketch;
+
+    // the maximum weight of the admission window
+    private long maximumWindowWeight = -1;
+
+    // the weight of the entries in the admission window
+    private long windowWeight = 0;
+
     // the removal callback
     private RemovalListener<K, V> removalListener = notification -> {
     };
@@ -134,6 +149,22 @@ public class Cache<K, V> {
         this.removalListener = removalListener;
     }
 
+    void setFrequencyBasedAdmission(int expectedEntries, double windowRatio) {
+        if (maximumWeight == -1) {
+            throw new IllegalStateException("frequency based admission requires a maximum weight");
+        }
+        if (windowRatio <= 0 || windowRatio >= 1) {
+            throw new IllegalArgumentException("windowRatio must be in (0, 1)");
+        }
+        this.sketch = new FrequencySketch(expectedEntries);
+        this.maximumWindowWeight = Math.max(1, (long) (maximumWeight * windowRatio));
+    }
+
+    // pkg-private for testing
+    long getMaximumWindowWeight() {
+        return maximumWindowWeight;
+    }
+
     /**
      * The relative time used to track time-based evictions.
      *
@@ -158,6 +189,8 @@ public class Cache<K, V> {
         Entry<K, V> before;
         Entry<K, V> after;
         State state = State.NEW;
+        // true if this entry is in the admission window, only used with frequency based admission
+        boolean inWindow;
 
         Entry(K key, V value, long writeTime) {
             this.key = key;
@@ -337,6 +370,9 @@ public class Cache<K, V> {
 
     Entry<K, V> head;
     Entry<K, V> tail;
+    // the last entry of the admission window, null if the window is empty or admission is disabled. All entries between the head
+    // and this entry are in the window.
+    Entry<K, V> windowTail;
 
     // lock protecting mutations to the LRU list
     private final ReleasableLock lruLock = new ReleasableLock(new ReentrantLock());
@@ -539,9 +575,10 @@ public class Cache<K, V> {
                     current.state = State.DELETED;
                     current = current.after;
                 }
-                head = tail = null;
+                head = tail = windowTail = null;
                 count = 0;
                 weight = 0;
+                windowWeight = 0;
             }
         } finally {
             for (int i = NUMBER_OF_SEGMENTS - 1; i >= 0; i--) {
@@ -745,6 +782,9 @@ public class Cache<K, V> {
     private boolean promote(Entry<K, V> entry, long now) {
         boolean promoted = true;
         try (ReleasableLock ignored = lruLock.acquire()) {
+            if (sketch != null) {
+                sketch.increment(entry.key);
+            }
             switch (entry.state) {
                 case DELETED:
                     promoted = false;
@@ -766,11 +806,40 @@ public class Cache<K, V> {
     private void evict(long now) {
         assert lruLock.isHeldByCurrentThread();
 
+        if (sketch != null) {
+            admitFromWindow();
+        }
         while (tail != null && shouldPrune(tail, now)) {
             evictEntry(tail);
         }
     }
 
+    /**
+     * Moves the entries that overflow the admission window into the main region. When the cache is over its maximum weight, each
+     * of these candidates competes with the least recently used entries of the main region and whichever is estimated to be
+     * accessed less frequently is evicted.
+     */
+    private void admitFromWindow() {
+        assert lruLock.isHeldByCurrentThread();
+
+        while (windowTail != null && windowWeight > maximumWindowWeight) {
+            final Entry<K, V> candidate = windowTail;
+            // the candidate does not need to be moved, it becomes the head of the main region by shrinking the window
+            windowTail = candidate.before;
+            candidate.inWindow = false;
+            windowWeight -= weigher.applyAsLong(candidate.key, candidate.value);
+            while (exceedsWeight() && tail != candidate) {
+                final Entry<K, V> victim = tail;
+                if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+                    evictEntry(victim);
+                } else {
+                    evictEntry(candidate);
+                    break;
+                }
+            }
+        }
+    }
+
     private void evictEntry(Entry<K, V> entry) {
         assert lruLock.isHeldByCurrentThread();
 
@@ -809,6 +878,9 @@ public class Cache<K, V> {
             final Entry<K, V> before = entry.before;
             final Entry<K, V> after = entry.after;
 
+            if (windowTail == entry) {
+                windowTail = before;
+            }
             if (before == null) {
                 // removing the head
                 assert head == entry;
@@ -836,7 +908,12 @@ public class Cache<K, V> {
             }
 
             count--;
-            weight -= weigher.applyAsLong(entry.key, entry.value);
+            final long entryWeight = weigher.applyAsLong(entry.key, entry.value);
+            weight -= entryWeight;
+            if (entry.inWindow) {
+                windowWeight -= entryWeight;
+                entry.inWindow = false;
+            }
             entry.state = State.DELETED;
             return true;
         } else {
@@ -857,15 +934,64 @@ public class Cache<K, V> {
             h.before = entry;
         }
 
+        count++;
+        final long entryWeight = weigher.applyAsLong(entry.key, entry.value);
+        weight += entryWeight;
+        entry.state = State.EXISTING;
+        if (sketch != null) {
+            entry.inWindow = true;
+            windowWeight += entryWeight;
+            if (windowTail == null) {
+                windowTail = entry;
+            }
+        }
+    }
+
+    private void linkAfterWindow(Entry<K, V> entry) {
+        assert lruLock.isHeldByCurrentThread();
+        assert sketch != null;
+
+        final Entry<K, V> before = windowTail;
+        if (before == null) {
+            // the window is empty, so the head of the main region is the head of the list
+            final Entry<K, V> h = head;
+            entry.before = null;
+            entry.after = h;
+            head = entry;
+            if (h == null) {
+                tail = entry;
+            } else {
+                h.before = entry;
+            }
+        } else {
+            final Entry<K, V> after = before.after;
+            entry.before = before;
+            entry.after = after;
+            before.after = entry;
+            if (after == null) {
+                tail = entry;
+            } else {
+                after.before = entry;
+            }
+        }
+
         count++;
         weight += weigher.applyAsLong(entry.key, entry.value);
         entry.state = State.EXISTING;
+        entry.inWindow = false;
     }
 
     private void relinkAtHead(Entry<K, V> entry) {
         assert lruLock.isHeldByCurrentThread();
 
-        if (head != entry) {
+        if (sketch != null && entry.inWindow == false) {
+            // entries of the main region are promoted to the head of the main region rather than back into the window
+            final Entry<K, V> mainHead = windowTail == null ? head : windowTail.after;
+            if (mainHead != entry) {
+                unlink(entry);
+                linkAfterWindow(entry);
+            }
+        } else if (head != entry) {
             unlink(entry);
             linkAtHead(entry);
         }
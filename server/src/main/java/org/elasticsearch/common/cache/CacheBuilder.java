@@ -14,11 +14,15 @@ import java.util.Objects;
 import java.util.function.ToLongBiFunction;
 
 public class CacheBuilder<K, V> {
+    // the share of the maximum weight that is reserved for the admission window, as recommended for W-TinyLFU
+    private static final double ADMISSION_WINDOW_RATIO = 0.01;
+
     private long maximumWeight = -1;
     private long expireAfterAccessNanos = -1;
     private long expireAfterWriteNanos = -1;
     private ToLongBiFunction<K, V> weigher;
     private RemovalListener<K, V> removalListener;
+    private int admissionExpectedEntries = -1;
 
     public static <K, V> CacheBuilder<K, V> builder() {
         return new CacheBuilder<>();
@@ -73,6 +77,22 @@ public class CacheBuilder<K, V> {
         return this;
     }
 
+    /**
+     * Enables frequency based admission, modelled after W-TinyLFU. New entries first enter an admission window that holds 1% of the
+     * maximum weight, and entries that leave that window are only admitted into the rest of the cache if they are estimated to be
+     * accessed more frequently than the entries they would evict. Requires a maximum weight.
+     *
+     * @param expectedEntries An estimate of the number of entries that the cache will hold, used to size the frequency sketch. Must be
+     *                        greater than 0.
+     */
+    public CacheBuilder<K, V> frequencyBasedAdmission(int expectedEntries) {
+        if (expectedEntries <= 0) {
+            throw new IllegalArgumentException("expectedEntries <= 0");
+        }
+        this.admissionExpectedEntries = expectedEntries;
+        return this;
+    }
+
     public CacheBuilder<K, V> removalListener(RemovalListener<K, V> removalListener) {
         Objects.requireNonNull(removalListener);
         this.removalListener = removalListener;
@@ -96,6 +116,9 @@ public class CacheBuilder<K, V> {
         if (removalListener != null) {
             cache.setRemovalListener(removalListener);
         }
+        if (admissionExpectedEntries != -1) {
+            cache.setFrequencyBasedAdmission(admissionExpectedEntries, ADMISSION_WINDOW_RATIO);
+        }
         return cache;
     }
 }
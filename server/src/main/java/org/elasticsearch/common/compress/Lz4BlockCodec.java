@@ -0,0 +1,210 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.compress;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A pure Java implementation of the LZ4 block format. Compression uses a single-probe hash table which favours speed over
+ * compression ratio, much like the "fast" mode of the reference implementation. Blocks produced here can be read by any
+ * LZ4 block decompressor and vice versa.
+ */
+public final class Lz4BlockCodec {
+
+    private static final int MIN_MATCH = 4;
+    // the last match must start at least 12 bytes before the end of the block
+    private static final int MF_LIMIT = 12;
+    // the last 5 bytes of a block are always literals
+    private static final int LAST_LITERALS = 5;
+    private static final int MIN_LENGTH = MF_LIMIT + 1;
+    private static final int MAX_DISTANCE = (1 << 16) - 1;
+    private static final int RUN_MASK = 0x0F;
+    private static final int HASH_LOG = 12;
+
+    /**
+     * The number of entries of the hash table that has to be passed to {@link #compress}.
+     */
+    public static final int HASH_TABLE_SIZE = 1 << HASH_LOG;
+
+    private Lz4BlockCodec() {}
+
+    /**
+     * Returns the maximum number of bytes that compressing {@code length} bytes may produce.
+     */
+    public static int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    /**
+     * Compresses {@code srcLen} bytes of {@code src} into {@code dest}, which must have at least {@link #maxCompressedLength}
+     * bytes of room, and returns the number of bytes written. {@code hashTable} is scratch space of {@link #HASH_TABLE_SIZE}
+     * entries that is reset on every call so that it can be reused across blocks.
+     */
+    public static int compress(byte[] src, int srcOff, int srcLen, byte[] dest, int destOff, int[] hashTable) {
+        assert hashTable.length == HASH_TABLE_SIZE;
+        final int srcEnd = srcOff + srcLen;
+        int dOff = destOff;
+        int anchor = srcOff;
+
+        if (srcLen >= MIN_LENGTH) {
+            Arrays.fill(hashTable, -1);
+            final int mfLimit = srcEnd - MF_LIMIT;
+            final int matchLimit = srcEnd - LAST_LITERALS;
+            int sOff = srcOff;
+            while (sOff < mfLimit) {
+                final int sequence = readInt(src, sOff);
+                final int h = hash(sequence);
+                int ref = hashTable[h];
+                hashTable[h] = sOff;
+                if (ref < 0 || sOff - ref > MAX_DISTANCE || readInt(src, ref) != sequence) {
+                    ++sOff;
+                    continue;
+                }
+
+                // extend the match backwards into the pending literals
+                while (sOff > anchor && ref > srcOff && src[sOff - 1] == src[ref - 1]) {
+                    --sOff;
+                    --ref;
+                }
+                int matchLen = MIN_MATCH;
+                while (sOff + matchLen < matchLimit && src[ref + matchLen] == src[sOff + matchLen]) {
+                    ++matchLen;
+                }
+
+                final int literalLen = sOff - anchor;
+                final int tokenOff = dOff++;
+                int token = Math.min(literalLen, RUN_MASK) << 4;
+                dOff = writeLength(dest, dOff, literalLen);
+                System.arraycopy(src, anchor, dest, dOff, literalLen);
+                dOff += literalLen;
+
+                final int distance = sOff - ref;
+                dest[dOff++] = (byte) distance;
+                dest[dOff++] = (byte) (distance >>> 8);
+
+                token |= Math.min(matchLen - MIN_MATCH, RUN_MASK);
+                dOff = writeLength(dest, dOff, matchLen - MIN_MATCH);
+                dest[tokenOff] = (byte) token;
+
+                sOff += matchLen;
+                anchor = sOff;
+            }
+        }
+
+        final int literalLen = srcEnd - anchor;
+        dest[dOff++] = (byte) (Math.min(literalLen, RUN_MASK) << 4);
+        dOff = writeLength(dest, dOff, literalLen);
+        System.arraycopy(src, anchor, dest, dOff, literalLen);
+        dOff += literalLen;
+        return dOff - destOff;
+    }
+
+    /**
+     * Decompresses the block of {@code srcLen} bytes in {@code src} into exactly {@code destLen} bytes of {@code dest}.
+     *
+     * @throws IOException if the block is malformed or does not decompress to {@code destLen} bytes
+     */
+    public static void decompress(byte[] src, int srcOff, int srcLen, byte[] dest, int destOff, int destLen) throws IOException {
+        final int srcEnd = srcOff + srcLen;
+        final int destEnd = destOff + destLen;
+        int sOff = srcOff;
+        int dOff = destOff;
+        while (true) {
+            if (sOff >= srcEnd) {
+                throw new IOException("malformed LZ4 block: missing token at offset [" + (sOff - srcOff) + "]");
+            }
+            final int token = src[sOff++] & 0xFF;
+
+            int literalLen = token >>> 4;
+            if (literalLen == RUN_MASK) {
+                int b;
+                do {
+                    if (sOff >= srcEnd) {
+                        throw new IOException("malformed LZ4 block: truncated literal length");
+                    }
+                    b = src[sOff++] & 0xFF;
+                    literalLen += b;
+                } while (b == 0xFF);
+            }
+            if (literalLen > srcEnd - sOff || literalLen > destEnd - dOff) {
+                throw new IOException("malformed LZ4 block: literal run of [" + literalLen + "] bytes is out of bounds");
+            }
+            System.arraycopy(src, sOff, dest, dOff, literalLen);
+            sOff += literalLen;
+            dOff += literalLen;
+
+            if (sOff == srcEnd) {
+                // the last sequence of a block only carries literals
+                break;
+            }
+
+            if (srcEnd - sOff < 2) {
+                throw new IOException("malformed LZ4 block: truncated match offset");
+            }
+            final int distance = (src[sOff] & 0xFF) | ((src[sOff + 1] & 0xFF) << 8);
+            sOff += 2;
+            if (distance == 0 || distance > dOff - destOff) {
+                throw new IOException("malformed LZ4 block: invalid match offset [" + distance + "]");
+            }
+
+            int matchLen = token & RUN_MASK;
+            if (matchLen == RUN_MASK) {
+                int b;
+                do {
+                    if (sOff >= srcEnd) {
+                        throw new IOException("malformed LZ4 block: truncated match length");
+                    }
+                    b = src[sOff++] & 0xFF;
+                    matchLen += b;
+                } while (b == 0xFF);
+            }
+            matchLen += MIN_MATCH;
+            if (matchLen > destEnd - dOff) {
+                throw new IOException("malformed LZ4 block: match of [" + matchLen + "] bytes is out of bounds");
+            }
+
+            final int ref = dOff - distance;
+            if (distance >= matchLen) {
+                System.arraycopy(dest, ref, dest, dOff, matchLen);
+            } else {
+                // overlapping copy, the match repeats bytes that it is itself producing
+                for (int i = 0; i < matchLen; ++i) {
+                    dest[dOff + i] = dest[ref + i];
+                }
+            }
+            dOff += matchLen;
+        }
+
+        if (dOff != destEnd) {
+            throw new IOException("malformed LZ4 block: expected [" + destLen + "] decompressed bytes but got [" + (dOff - destOff) + "]");
+        }
+    }
+
+    private static int writeLength(byte[] dest, int dOff, int length) {
+        if (length >= RUN_MASK) {
+            length -= RUN_MASK;
+            while (length >= 0xFF) {
+                dest[dOff++] = (byte) 0xFF;
+                length -= 0xFF;
+            }
+            dest[dOff++] = (byte) length;
+        }
+        return dOff;
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) | ((bytes[offset + 1] & 0xFF) << 8) | ((bytes[offset + 2] & 0xFF) << 16)
+            | ((bytes[offset + 3] & 0xFF) << 24);
+    }
+
+    private static int hash(int sequence) {
+        return (sequence * -1640531535) >>> (32 - HASH_LOG);
+    }
+}
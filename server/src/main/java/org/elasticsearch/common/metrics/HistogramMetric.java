@@ -0,0 +1,71 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link HistogramMetric} counts recorded values in buckets whose bounds are powers of two: the first bucket counts the values
+ * below {@code 1}, bucket {@code i} counts the values in {@code [2^(i-1), 2^i)} and the last bucket also counts all the values that
+ * are larger than that.
+ */
+public final class HistogramMetric {
+
+    private final LongAdder[] buckets;
+
+    public HistogramMetric(int numberOfBuckets) {
+        if (numberOfBuckets < 2 || numberOfBuckets >= Long.SIZE) {
+            throw new IllegalArgumentException("numberOfBuckets must be in [2, " + (Long.SIZE - 1) + "] but was [" + numberOfBuckets + "]");
+        }
+        buckets = new LongAdder[numberOfBuckets];
+        for (int i = 0; i < numberOfBuckets; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void inc(long value) {
+        buckets[bucket(value, buckets.length)].increment();
+    }
+
+    /**
+     * Returns the number of values recorded in each bucket. Like {@link CounterMetric#count()} the returned counts are not an atomic
+     * snapshot if values are recorded concurrently.
+     */
+    public long[] counts() {
+        final long[] counts = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the index of the bucket that the given value falls into.
+     */
+    public static int bucket(long value, int numberOfBuckets) {
+        if (value <= 0) {
+            return 0;
+        }
+        return Math.min(Long.SIZE - Long.numberOfLeadingZeros(value), numberOfBuckets - 1);
+    }
+
+    /**
+     * Returns the inclusive lower bound of the values that the given bucket counts.
+     */
+    public static long lowerBound(int bucket) {
+        return bucket == 0 ? 0L : 1L << (bucket - 1);
+    }
+
+    /**
+     * Returns the exclusive upper bound of the values that the given bucket counts, ignoring the fact that the last bucket is unbounded.
+     */
+    public static long upperBound(int bucket) {
+        return 1L << bucket;
+    }
+}
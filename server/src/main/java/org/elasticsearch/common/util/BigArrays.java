@@ -356,6 +356,7 @@ public class BigArrays {
     private final boolean checkBreaker;
     private final BigArrays circuitBreakingInstance;
     private final String breakerName;
+    private final boolean offHeap;
 
     public BigArrays(PageCacheRecycler recycler, @Nullable final CircuitBreakerService breakerService, String breakerName) {
         // Checking the breaker is disabled if not specified
@@ -364,14 +365,21 @@ public class BigArrays {
 
     protected BigArrays(PageCacheRecycler recycler, @Nullable final CircuitBreakerService breakerService, String breakerName,
                         boolean checkBreaker) {
+        this(recycler, breakerService, breakerName, checkBreaker, false);
+    }
+
+    private BigArrays(PageCacheRecycler recycler, @Nullable final CircuitBreakerService breakerService, String breakerName,
+                      boolean checkBreaker, boolean offHeap) {
+        assert offHeap == false || recycler.isOffHeapEnabled();
         this.checkBreaker = checkBreaker;
         this.recycler = recycler;
         this.breakerService = breakerService;
         this.breakerName = breakerName;
+        this.offHeap = offHeap;
         if (checkBreaker) {
             this.circuitBreakingInstance = this;
         } else {
-            this.circuitBreakingInstance = new BigArrays(recycler, breakerService, breakerName, true);
+            this.circuitBreakingInstance = new BigArrays(recycler, breakerService, breakerName, true, offHeap);
         }
     }
 
@@ -425,7 +433,27 @@ public class BigArrays {
      * {@link CircuitBreakerService}. Use with {@link PreallocatedCircuitBreakerService}.
      */
     public BigArrays withBreakerService(CircuitBreakerService breakerService) {
-        return new BigArrays(recycler, breakerService, breakerName, checkBreaker);
+        return new BigArrays(recycler, breakerService, breakerName, checkBreaker, offHeap);
+    }
+
+    /**
+     * Return an instance of this BigArrays class that backs the pages of large {@link ByteArray}s, {@link IntArray}s,
+     * {@link LongArray}s and {@link DoubleArray}s with memory outside of the Java heap if the {@link PageCacheRecycler} has
+     * {@link PageCacheRecycler#OFF_HEAP_ENABLED_SETTING off-heap pages enabled}, or this instance otherwise. Off-heap arrays are
+     * accounted against the circuit breaker like on-heap arrays but do not contribute to the heap usage of the node.
+     */
+    public BigArrays withOffHeapPages() {
+        if (offHeap || recycler == null || recycler.isOffHeapEnabled() == false) {
+            return this;
+        }
+        return new BigArrays(recycler, breakerService, breakerName, checkBreaker, true);
+    }
+
+    /**
+     * Whether large arrays allocated by this instance live outside of the Java heap, see {@link #withOffHeapPages()}.
+     */
+    public boolean isOffHeap() {
+        return offHeap;
     }
 
     public CircuitBreakerService breakerService() {   // TODO this feels like it is for tests but it has escaped
@@ -467,6 +495,9 @@ public class BigArrays {
             // when allocating big arrays, we want to first ensure we have the capacity by
             // checking with the circuit breaker before attempting to allocate
             adjustBreaker(BigByteArray.estimateRamBytes(size), false);
+            if (offHeap) {
+                return new OffHeapByteArray(size, this, clearOnResize);
+            }
             return new BigByteArray(size, this, clearOnResize);
         } else if (size >= PageCacheRecycler.BYTE_PAGE_SIZE / 2 && recycler != null) {
             final Recycler.V<byte[]> page = recycler.bytePage(clearOnResize);
@@ -488,6 +519,8 @@ public class BigArrays {
     public ByteArray resize(ByteArray array, long size) {
         if (array instanceof BigByteArray) {
             return resizeInPlace((BigByteArray) array, size);
+        } else if (array instanceof OffHeapByteArray) {
+            return resizeInPlace((OffHeapByteArray) array, size);
         } else {
             AbstractArray arr = (AbstractArray) array;
             final ByteArray newArray = newByteArray(size, arr.clearOnResize);
@@ -551,6 +584,9 @@ public class BigArrays {
             // when allocating big arrays, we want to first ensure we have the capacity by
             // checking with the circuit breaker before attempting to allocate
             adjustBreaker(BigIntArray.estimateRamBytes(size), false);
+            if (offHeap) {
+                return new OffHeapIntArray(size, this, clearOnResize);
+            }
             return new BigIntArray(size, this, clearOnResize);
         } else if (size >= PageCacheRecycler.INT_PAGE_SIZE / 2 && recycler != null) {
             final Recycler.V<int[]> page = recycler.intPage(clearOnResize);
@@ -572,6 +608,8 @@ public class BigArrays {
     public IntArray resize(IntArray array, long size) {
         if (array instanceof BigIntArray) {
             return resizeInPlace((BigIntArray) array, size);
+        } else if (array instanceof OffHeapIntArray) {
+            return resizeInPlace((OffHeapIntArray) array, size);
         } else {
             AbstractArray arr = (AbstractArray) array;
             final IntArray newArray = newIntArray(size, arr.clearOnResize);
@@ -603,6 +641,9 @@ public class BigArrays {
             // when allocating big arrays, we want to first ensure we have the capacity by
             // checking with the circuit breaker before attempting to allocate
             adjustBreaker(BigLongArray.estimateRamBytes(size), false);
+            if (offHeap) {
+                return new OffHeapLongArray(size, this, clearOnResize);
+            }
             return new BigLongArray(size, this, clearOnResize);
         } else if (size >= PageCacheRecycler.LONG_PAGE_SIZE / 2 && recycler != null) {
             final Recycler.V<long[]> page = recycler.longPage(clearOnResize);
@@ -624,6 +665,8 @@ public class BigArrays {
     public LongArray resize(LongArray array, long size) {
         if (array instanceof BigLongArray) {
             return resizeInPlace((BigLongArray) array, size);
+        } else if (array instanceof OffHeapLongArray) {
+            return resizeInPlace((OffHeapLongArray) array, size);
         } else {
             AbstractArray arr = (AbstractArray) array;
             final LongArray newArray = newLongArray(size, arr.clearOnResize);
@@ -655,6 +698,9 @@ public class BigArrays {
             // when allocating big arrays, we want to first ensure we have the capacity by
             // checking with the circuit breaker before attempting to allocate
             adjustBreaker(BigDoubleArray.estimateRamBytes(size), false);
+            if (offHeap) {
+                return new OffHeapDoubleArray(size, this, clearOnResize);
+            }
             return new BigDoubleArray(size, this, clearOnResize);
         } else if (size >= PageCacheRecycler.LONG_PAGE_SIZE / 2 && recycler != null) {
             final Recycler.V<long[]> page = recycler.longPage(clearOnResize);
@@ -673,6 +719,8 @@ public class BigArrays {
     public DoubleArray resize(DoubleArray array, long size) {
         if (array instanceof BigDoubleArray) {
             return resizeInPlace((BigDoubleArray) array, size);
+        } else if (array instanceof OffHeapDoubleArray) {
+            return resizeInPlace((OffHeapDoubleArray) array, size);
         } else {
             AbstractArray arr = (AbstractArray) array;
             final DoubleArray newArray = newDoubleArray(size, arr.clearOnResize);
@@ -0,0 +1,120 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.util;
+
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+
+import java.nio.ByteBuffer;
+
+import static org.elasticsearch.common.util.PageCacheRecycler.BYTE_PAGE_SIZE;
+
+/**
+ * Byte array abstraction able to support more than 2B values whose pages live outside of the Java heap. Since there is no
+ * {@code byte[]} to point to, {@link #get(long, int, BytesRef)} always materializes the requested slice into a buffer that this array
+ * owns. It never writes into the bytes of the given {@link BytesRef}, which may point into a page that belongs to another array by now.
+ */
+final class OffHeapByteArray extends AbstractOffHeapBigArray implements ByteArray {
+
+    /**
+     * The buffer that the last call to {@link #get(long, int, BytesRef)} materialized its slice into. It is reused if the same reference
+     * asks again, like the spare reference of {@link BytesRefHash} does on every probe, and replaced otherwise, so that the slices of
+     * other references stay untouched.
+     */
+    private byte[] scratch = BytesRef.EMPTY_BYTES;
+
+    OffHeapByteArray(long size, BigArrays bigArrays, boolean clearOnResize) {
+        super(BYTE_PAGE_SIZE, size, bigArrays, clearOnResize);
+    }
+
+    @Override
+    public byte get(long index) {
+        return pages[pageIndex(index)].get(indexInPage(index));
+    }
+
+    @Override
+    public byte set(long index, byte value) {
+        final ByteBuffer page = pages[pageIndex(index)];
+        final int indexInPage = indexInPage(index);
+        final byte ret = page.get(indexInPage);
+        page.put(indexInPage, value);
+        return ret;
+    }
+
+    @Override
+    public boolean get(long index, int len, BytesRef ref) {
+        assert index + len <= size();
+        if (ref.bytes != scratch || scratch.length < len) {
+            scratch = new byte[ArrayUtil.oversize(len, Byte.BYTES)];
+            ref.bytes = scratch;
+        }
+        ref.offset = 0;
+        ref.length = len;
+        int pageIndex = pageIndex(index);
+        int indexInPage = indexInPage(index);
+        int copied = 0;
+        while (copied < len) {
+            final int copyLength = Math.min(pageSize() - indexInPage, len - copied);
+            final ByteBuffer page = pages[pageIndex].duplicate();
+            page.position(indexInPage);
+            page.get(ref.bytes, copied, copyLength);
+            copied += copyLength;
+            ++pageIndex;
+            indexInPage = 0;
+        }
+        return true;
+    }
+
+    @Override
+    public void set(long index, byte[] buf, int offset, int len) {
+        assert index + len <= size();
+        int pageIndex = pageIndex(index);
+        int indexInPage = indexInPage(index);
+        int copied = 0;
+        while (copied < len) {
+            final int copyLength = Math.min(pageSize() - indexInPage, len - copied);
+            final ByteBuffer page = pages[pageIndex].duplicate();
+            page.position(indexInPage);
+            page.put(buf, offset + copied, copyLength);
+            copied += copyLength;
+            ++pageIndex;
+            indexInPage = 0;
+        }
+    }
+
+    @Override
+    public void fill(long fromIndex, long toIndex, byte value) {
+        checkFillRange(fromIndex, toIndex);
+        for (long index = fromIndex; index < toIndex; ) {
+            final ByteBuffer page = pages[pageIndex(index)];
+            final int start = indexInPage(index);
+            final int end = (int) Math.min(pageSize(), start + (toIndex - index));
+            for (int i = start; i < end; ++i) {
+                page.put(i, value);
+            }
+            index += end - start;
+        }
+    }
+
+    @Override
+    public boolean hasArray() {
+        return false;
+    }
+
+    @Override
+    public byte[] array() {
+        assert false;
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected int numBytesPerElement() {
+        return 1;
+    }
+}
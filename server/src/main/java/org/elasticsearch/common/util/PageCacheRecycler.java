@@ -9,6 +9,7 @@
 package org.elasticsearch.common.util;
 
 import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.recycler.AbstractRecyclerC;
 import org.elasticsearch.common.recycler.Recycler;
 import org.elasticsearch.common.settings.Setting;
@@ -17,6 +18,8 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
 import java.util.Locale;
 
@@ -41,6 +44,10 @@ public class PageCacheRecycler {
     // object pages are less useful to us so we give them a lower weight by default
     public static final Setting<Double> WEIGHT_OBJECTS_SETTING  =
         Setting.doubleSetting("cache.recycler.page.weight.objects", 0.1d, 0d, Property.NodeScope);
+    public static final Setting<Boolean> OFF_HEAP_ENABLED_SETTING =
+        Setting.boolSetting("cache.recycler.page.off_heap.enabled", false, Property.NodeScope);
+    public static final Setting<ByteSizeValue> LIMIT_OFF_HEAP_SETTING =
+        Setting.memorySizeSetting("cache.recycler.page.limit.off_heap", "10%", Property.NodeScope);
 
     /** Page size in bytes: 16KB */
     public static final int PAGE_SIZE_IN_BYTES = 1 << 14;
@@ -49,10 +56,14 @@ public class PageCacheRecycler {
     public static final int INT_PAGE_SIZE = PAGE_SIZE_IN_BYTES / Integer.BYTES;
     public static final int BYTE_PAGE_SIZE = PAGE_SIZE_IN_BYTES;
 
+    private static final byte[] ZERO_PAGE = new byte[PAGE_SIZE_IN_BYTES];
+
     private final Recycler<byte[]> bytePage;
     private final Recycler<int[]> intPage;
     private final Recycler<long[]> longPage;
     private final Recycler<Object[]> objectPage;
+    @Nullable
+    private final Recycler<ByteBuffer> directPage;
 
     public static final PageCacheRecycler NON_RECYCLING_INSTANCE;
 
@@ -135,6 +146,24 @@ public class PageCacheRecycler {
         });
 
         assert PAGE_SIZE_IN_BYTES * (maxBytePageCount + maxIntPageCount + maxLongPageCount + maxObjectPageCount) <= limit;
+
+        if (OFF_HEAP_ENABLED_SETTING.get(settings)) {
+            // direct pages are only released when they get garbage collected so we try hard to reuse them
+            final int maxDirectPageCount = (int) Math.min(Integer.MAX_VALUE,
+                LIMIT_OFF_HEAP_SETTING.get(settings).getBytes() / PAGE_SIZE_IN_BYTES);
+            directPage = build(type, maxDirectPageCount, allocatedProcessors, new AbstractRecyclerC<ByteBuffer>() {
+                @Override
+                public ByteBuffer newInstance() {
+                    return ByteBuffer.allocateDirect(PAGE_SIZE_IN_BYTES).order(ByteOrder.nativeOrder());
+                }
+                @Override
+                public void recycle(ByteBuffer value) {
+                    // nothing to do
+                }
+            });
+        } else {
+            directPage = null;
+        }
     }
 
     public Recycler.V<byte[]> bytePage(boolean clear) {
@@ -166,6 +195,30 @@ public class PageCacheRecycler {
         return objectPage.obtain();
     }
 
+    /**
+     * Whether this recycler can hand out pages that live outside of the Java heap, see {@link #directPage(boolean)}.
+     */
+    public boolean isOffHeapEnabled() {
+        return directPage != null;
+    }
+
+    /**
+     * Obtain a direct {@link ByteBuffer} page of {@link #PAGE_SIZE_IN_BYTES} bytes in native byte order. This may only be called
+     * if {@link #isOffHeapEnabled()} returns {@code true}. Callers must only use absolute accessors on the returned buffer.
+     */
+    public Recycler.V<ByteBuffer> directPage(boolean clear) {
+        if (directPage == null) {
+            throw new IllegalStateException("off-heap pages are disabled, see [" + OFF_HEAP_ENABLED_SETTING.getKey() + "]");
+        }
+        final Recycler.V<ByteBuffer> v = directPage.obtain();
+        if (v.isRecycled() && clear) {
+            final ByteBuffer page = v.v().duplicate();
+            page.clear();
+            page.put(ZERO_PAGE);
+        }
+        return v;
+    }
+
     private static <T> Recycler<T> build(Type type, int limit, int availableProcessors, Recycler.C<T> c) {
         final Recycler<T> recycler;
         if (limit == 0) {
@@ -81,6 +81,7 @@ public abstract class AsyncIOProcessor<Item> {
     private void drainAndProcessAndRelease(List<Tuple<Item, Consumer<Exception>>> candidates) {
         Exception exception;
         try {
+            beforeDrain();
             queue.drainTo(candidates);
             exception = processList(candidates);
         } finally {
@@ -124,6 +125,13 @@ public abstract class AsyncIOProcessor<Item> {
         };
     }
 
+    /**
+     * Called by the processing caller right before it drains the queued items. Implementations may block here for a short time to
+     * let more items queue up so that they are processed in a single {@link #write(List)} call.
+     */
+    protected void beforeDrain() {
+    }
+
     /**
      * Writes or processes the items out or to disk.
      */
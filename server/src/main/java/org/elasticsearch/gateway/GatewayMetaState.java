@@ -18,6 +18,7 @@ import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.ClusterName;
 import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.coordination.ClusterStatePersistenceStats;
 import org.elasticsearch.cluster.coordination.CoordinationMetadata;
 import org.elasticsearch.cluster.coordination.CoordinationState.PersistedState;
 import org.elasticsearch.cluster.coordination.InMemoryPersistedState;
@@ -366,6 +367,11 @@ public class GatewayMetaState implements Closeable {
                 .coordinationMetadata(newCoordinationMetadata).build()).build();
         }
 
+        @Override
+        public ClusterStatePersistenceStats getStats() {
+            return persistedState.getStats();
+        }
+
         @Override
         public void close() throws IOException {
             try {
@@ -456,15 +462,11 @@ public class GatewayMetaState implements Closeable {
                     getWriterSafe().writeFullStateAndCommit(currentTerm, clusterState);
                     writeNextStateFully = false;
                 } else {
-                    if (clusterState.term() != lastAcceptedState.term()) {
-                        assert clusterState.term() > lastAcceptedState.term() : clusterState.term() + " vs " + lastAcceptedState.term();
-                        // In a new currentTerm, we cannot compare the persisted metadata's lastAcceptedVersion to those in the new state,
-                        // so it's simplest to write everything again.
-                        getWriterSafe().writeFullStateAndCommit(currentTerm, clusterState);
-                    } else {
-                        // Within the same currentTerm, we _can_ use metadata versions to skip unnecessary writing.
-                        getWriterSafe().writeIncrementalStateAndCommit(currentTerm, lastAcceptedState, clusterState);
-                    }
+                    assert clusterState.term() >= lastAcceptedState.term() : clusterState.term() + " vs " + lastAcceptedState.term();
+                    // Within the same currentTerm we can use metadata versions to skip unnecessary writing. In a new currentTerm we can
+                    // still skip the index metadata instances that the new state shares with the last accepted one, so there is no need
+                    // to write everything again.
+                    getWriterSafe().writeIncrementalStateAndCommit(currentTerm, lastAcceptedState, clusterState);
                 }
             } catch (Exception e) {
                 handleExceptionOnWrite(e);
@@ -501,6 +503,11 @@ public class GatewayMetaState implements Closeable {
             throw ExceptionsHelper.convertToRuntime(e);
         }
 
+        @Override
+        public ClusterStatePersistenceStats getStats() {
+            return persistedClusterStateService.getStats();
+        }
+
         @Override
         public void close() throws IOException {
             IOUtils.close(persistenceWriter.getAndSet(null));
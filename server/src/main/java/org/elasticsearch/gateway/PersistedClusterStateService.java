@@ -8,6 +8,7 @@
 package org.elasticsearch.gateway;
 
 import com.carrotsearch.hppc.cursors.ObjectCursor;
+import com.carrotsearch.hppc.cursors.ObjectObjectCursor;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.message.ParameterizedMessage;
@@ -39,17 +40,22 @@ import org.apache.lucene.util.BytesRefIterator;
 import org.apache.lucene.util.SetOnce;
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.coordination.ClusterStatePersistenceStats;
 import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.cluster.metadata.MappingMetadata;
 import org.elasticsearch.cluster.metadata.Metadata;
 import org.elasticsearch.common.CheckedConsumer;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.bytes.RecyclingBytesStreamOutput;
+import org.elasticsearch.common.collect.ImmutableOpenMap;
+import org.elasticsearch.common.compress.CompressedXContent;
 import org.elasticsearch.common.io.Streams;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.unit.TimeValue;
@@ -61,6 +67,8 @@ import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentParserUtils;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.env.NodeEnvironment;
@@ -88,12 +96,19 @@ import java.util.function.Supplier;
  * to record the last-accepted cluster state during publication. The metadata is written incrementally where possible, leaving alone any
  * documents that have not changed. The index has the following fields:
  *
- * +------------------------------+-----------------------------+----------------------------------------------+
- * | "type" (string field)        | "index_uuid" (string field) | "data" (stored binary field in SMILE format) |
- * +------------------------------+-----------------------------+----------------------------------------------+
- * | GLOBAL_TYPE_NAME == "global" | (omitted)                   | Global metadata                              |
- * | INDEX_TYPE_NAME  == "index"  | Index UUID                  | Index metadata                               |
- * +------------------------------+-----------------------------+----------------------------------------------+
+ * +--------------------------------+-----------------------------+----------------------------------------------+
+ * | "type" (string field)          | "index_uuid" (string field) | "data" (stored binary field in SMILE format) |
+ * +--------------------------------+-----------------------------+----------------------------------------------+
+ * | GLOBAL_TYPE_NAME  == "global"  | (omitted)                   | Global metadata                              |
+ * | INDEX_TYPE_NAME   == "index"   | Index UUID                  | Index metadata                               |
+ * | MAPPING_TYPE_NAME == "mapping" | (omitted)                   | Mapping shared by one or more indices        |
+ * +--------------------------------+-----------------------------+----------------------------------------------+
+ *
+ * The index metadata documents refer to their mapping by its hash, which the mapping documents hold in a "mapping_hash" string field,
+ * so that identical mappings are only written and parsed once.
+ *
+ * The whole index is only rewritten by a new {@link Writer}, to bring it to the current format, or after a failed write. Otherwise, even
+ * when the term changes, only the documents whose content may differ from the previously written ones are rewritten.
  *
  * Additionally each commit has the following user data:
  *
@@ -119,6 +134,9 @@ public class PersistedClusterStateService {
     private static final String GLOBAL_TYPE_NAME = "global";
     private static final String INDEX_TYPE_NAME = "index";
     private static final String INDEX_UUID_FIELD_NAME = "index_uuid";
+    private static final String MAPPING_TYPE_NAME = "mapping";
+    private static final String MAPPING_HASH_FIELD_NAME = "mapping_hash";
+    private static final String MAPPING_CONTENT_FIELD_NAME = "content";
     private static final int COMMIT_DATA_SIZE = 4;
 
     public static final String METADATA_DIRECTORY_NAME = MetadataStateFormat.STATE_DIR_NAME;
@@ -134,6 +152,8 @@ public class PersistedClusterStateService {
 
     private volatile TimeValue slowWriteLoggingThreshold;
 
+    private final WriteStatsTracker writeStatsTracker = new WriteStatsTracker();
+
     public PersistedClusterStateService(NodeEnvironment nodeEnvironment, NamedXContentRegistry namedXContentRegistry, BigArrays bigArrays,
                                         ClusterSettings clusterSettings, LongSupplier relativeTimeMillisSupplier) {
         this(nodeEnvironment.nodeDataPath(), nodeEnvironment.nodeId(), namedXContentRegistry, bigArrays, clusterSettings,
@@ -159,6 +179,13 @@ public class PersistedClusterStateService {
         return nodeId;
     }
 
+    /**
+     * Returns stats about the writes of the cluster state by the writers of this service since the node started.
+     */
+    public ClusterStatePersistenceStats getStats() {
+        return writeStatsTracker.stats();
+    }
+
     /**
      * Creates a new disk-based writer for cluster states
      */
@@ -179,7 +206,8 @@ public class PersistedClusterStateService {
                 IOUtils.closeWhileHandlingException(closeables);
             }
         }
-        return new Writer(metadataIndexWriters, nodeId, bigArrays, relativeTimeMillisSupplier, () -> slowWriteLoggingThreshold);
+        return new Writer(metadataIndexWriters, nodeId, bigArrays, relativeTimeMillisSupplier, () -> slowWriteLoggingThreshold,
+            writeStatsTracker);
     }
 
     private static IndexWriter createIndexWriter(Directory directory, boolean openExisting) throws IOException {
@@ -332,12 +360,23 @@ public class PersistedClusterStateService {
             throw new IllegalStateException("no global metadata found in [" + dataPath + "]");
         }
 
-        logger.trace("got global metadata, now reading index metadata");
+        logger.trace("got global metadata, now reading mappings");
+        final Map<String, MappingMetadata> mappingsByHash = new HashMap<>();
+        consumeFromType(searcher, MAPPING_TYPE_NAME, bytes ->
+        {
+            try (XContentParser parser = XContentFactory.xContent(XContentType.SMILE)
+                .createParser(namedXContentRegistry, LoggingDeprecationHandler.INSTANCE, bytes.bytes, bytes.offset, bytes.length)) {
+                parseMapping(parser, mappingsByHash);
+            }
+        });
+
+        logger.trace("got [{}] mappings, now reading index metadata", mappingsByHash.size());
         final Set<String> indexUUIDs = new HashSet<>();
         consumeFromType(searcher, INDEX_TYPE_NAME, bytes ->
         {
-            final IndexMetadata indexMetadata = IndexMetadata.fromXContent(XContentFactory.xContent(XContentType.SMILE)
-                .createParser(namedXContentRegistry, LoggingDeprecationHandler.INSTANCE, bytes.bytes, bytes.offset, bytes.length));
+            final IndexMetadata indexMetadata = IndexMetadata.Builder.fromXContent(XContentFactory.xContent(XContentType.SMILE)
+                .createParser(namedXContentRegistry, LoggingDeprecationHandler.INSTANCE, bytes.bytes, bytes.offset, bytes.length),
+                mappingsByHash::get);
             logger.trace("found index metadata for {}", indexMetadata.getIndex());
             if (indexUUIDs.add(indexMetadata.getIndexUUID()) == false) {
                 throw new IllegalStateException("duplicate metadata found for " + indexMetadata.getIndex() + " in [" + dataPath + "]");
@@ -356,6 +395,30 @@ public class PersistedClusterStateService {
             Long.parseLong(userData.get(LAST_ACCEPTED_VERSION_KEY)), builder.build());
     }
 
+    private static void parseMapping(XContentParser parser, Map<String, MappingMetadata> mappingsByHash) throws IOException {
+        String hash = null;
+        byte[] content = null;
+        XContentParserUtils.ensureExpectedToken(XContentParser.Token.START_OBJECT, parser.nextToken(), parser);
+        while (parser.nextToken() == XContentParser.Token.FIELD_NAME) {
+            final String fieldName = parser.currentName();
+            parser.nextToken();
+            if (MAPPING_HASH_FIELD_NAME.equals(fieldName)) {
+                hash = parser.text();
+            } else if (MAPPING_CONTENT_FIELD_NAME.equals(fieldName)) {
+                content = parser.binaryValue();
+            } else {
+                throw new IllegalArgumentException("unexpected field [" + fieldName + "] in mapping document");
+            }
+        }
+        if (hash == null || content == null) {
+            throw new IllegalStateException("incomplete mapping document with hash [" + hash + "]");
+        }
+        logger.trace("found mapping with hash [{}]", hash);
+        if (mappingsByHash.put(hash, new MappingMetadata(new CompressedXContent(content))) != null) {
+            throw new IllegalStateException("duplicate mapping found with hash [" + hash + "]");
+        }
+    }
+
     private static void consumeFromType(IndexSearcher indexSearcher, String type,
                                         CheckedConsumer<BytesRef, IOException> bytesRefConsumer) throws IOException {
 
@@ -384,9 +447,10 @@ public class PersistedClusterStateService {
     private static final ToXContent.Params FORMAT_PARAMS;
 
     static {
-        Map<String, String> params = new HashMap<>(2);
+        Map<String, String> params = new HashMap<>(3);
         params.put("binary", "true");
         params.put(Metadata.CONTEXT_MODE_PARAM, Metadata.CONTEXT_MODE_GATEWAY);
+        params.put(Metadata.DEDUPLICATED_MAPPINGS_PARAM, "true");
         FORMAT_PARAMS = new ToXContent.MapParams(params);
     }
 
@@ -421,6 +485,16 @@ public class PersistedClusterStateService {
             indexWriter.updateDocument(new Term(TYPE_FIELD_NAME, GLOBAL_TYPE_NAME), globalMetadataDocument);
         }
 
+        void updateMappingMetadata(Document mappingMetadataDocument, String hash) throws IOException {
+            this.logger.trace("updating mapping with hash [{}]", hash);
+            indexWriter.updateDocument(new Term(MAPPING_HASH_FIELD_NAME, hash), mappingMetadataDocument);
+        }
+
+        void deleteMappingMetadata(String hash) throws IOException {
+            this.logger.trace("removing mapping with hash [{}]", hash);
+            indexWriter.deleteDocuments(new Term(MAPPING_HASH_FIELD_NAME, hash));
+        }
+
         void deleteIndexMetadata(String indexUUID) throws IOException {
             this.logger.trace("removing metadata for [{}]", indexUUID);
             indexWriter.deleteDocuments(new Term(INDEX_UUID_FIELD_NAME, indexUUID));
@@ -458,6 +532,7 @@ public class PersistedClusterStateService {
         private final BigArrays bigArrays;
         private final LongSupplier relativeTimeMillisSupplier;
         private final Supplier<TimeValue> slowWriteLoggingThresholdSupplier;
+        private final WriteStatsTracker writeStatsTracker;
 
         boolean fullStateWritten = false;
         private final AtomicBoolean closed = new AtomicBoolean();
@@ -467,12 +542,14 @@ public class PersistedClusterStateService {
         private int documentBufferUsed;
 
         private Writer(List<MetadataIndexWriter> metadataIndexWriters, String nodeId, BigArrays bigArrays,
-                       LongSupplier relativeTimeMillisSupplier, Supplier<TimeValue> slowWriteLoggingThresholdSupplier) {
+                       LongSupplier relativeTimeMillisSupplier, Supplier<TimeValue> slowWriteLoggingThresholdSupplier,
+                       WriteStatsTracker writeStatsTracker) {
             this.metadataIndexWriters = metadataIndexWriters;
             this.nodeId = nodeId;
             this.bigArrays = bigArrays;
             this.relativeTimeMillisSupplier = relativeTimeMillisSupplier;
             this.slowWriteLoggingThresholdSupplier = slowWriteLoggingThresholdSupplier;
+            this.writeStatsTracker = writeStatsTracker;
         }
 
         private void ensureOpen() {
@@ -507,6 +584,7 @@ public class PersistedClusterStateService {
                 commit(currentTerm, clusterState.version());
                 fullStateWritten = true;
                 final long durationMillis = relativeTimeMillisSupplier.getAsLong() - startTimeMillis;
+                writeStatsTracker.recordFullWrite(durationMillis, stats);
                 final TimeValue finalSlowWriteLoggingThreshold = slowWriteLoggingThresholdSupplier.get();
                 if (durationMillis >= finalSlowWriteLoggingThreshold.getMillis()) {
                     logger.warn("writing cluster state took [{}ms] which is above the warn threshold of [{}]; " +
@@ -523,7 +601,8 @@ public class PersistedClusterStateService {
         }
 
         /**
-         * Updates and commits the given cluster state update
+         * Updates and commits the given cluster state update. The previous cluster state must be the one that was last written, but it
+         * may be from an earlier term.
          */
         void writeIncrementalStateAndCommit(long currentTerm, ClusterState previousClusterState,
                                             ClusterState clusterState) throws IOException {
@@ -535,6 +614,7 @@ public class PersistedClusterStateService {
                 final WriterStats stats = updateMetadata(previousClusterState.metadata(), clusterState.metadata());
                 commit(currentTerm, clusterState.version());
                 final long durationMillis = relativeTimeMillisSupplier.getAsLong() - startTimeMillis;
+                writeStatsTracker.recordIncrementalWrite(durationMillis, stats);
                 final TimeValue finalSlowWriteLoggingThreshold = slowWriteLoggingThresholdSupplier.get();
                 if (durationMillis >= finalSlowWriteLoggingThreshold.getMillis()) {
                     logger.warn("writing cluster state took [{}ms] which is above the warn threshold of [{}]; " +
@@ -565,9 +645,10 @@ public class PersistedClusterStateService {
          * updated documents.
          */
         private WriterStats updateMetadata(Metadata previouslyWrittenMetadata, Metadata metadata) throws IOException {
-            assert previouslyWrittenMetadata.coordinationMetadata().term() == metadata.coordinationMetadata().term();
-            logger.trace("currentTerm [{}] matches previous currentTerm, writing changes only",
-                metadata.coordinationMetadata().term());
+            final boolean sameTerm = previouslyWrittenMetadata.coordinationMetadata().term() == metadata.coordinationMetadata().term();
+            assert previouslyWrittenMetadata.coordinationMetadata().term() <= metadata.coordinationMetadata().term();
+            logger.trace("writing changes only, currentTerm [{}], previous currentTerm [{}]",
+                metadata.coordinationMetadata().term(), previouslyWrittenMetadata.coordinationMetadata().term());
 
             try (DocumentBuffer documentBuffer = allocateBuffer()) {
 
@@ -579,11 +660,28 @@ public class PersistedClusterStateService {
                     }
                 }
 
-                final Map<String, Long> indexMetadataVersionByUUID = new HashMap<>(previouslyWrittenMetadata.indices().size());
+                // mappings are immutable once hashed, so only the added and removed ones need writing
+                final ImmutableOpenMap<String, MappingMetadata> previousMappingsByHash = previouslyWrittenMetadata.getMappingsByHash();
+                for (ObjectObjectCursor<String, MappingMetadata> cursor : metadata.getMappingsByHash()) {
+                    if (previousMappingsByHash.containsKey(cursor.key) == false) {
+                        final Document mappingMetadataDocument = makeMappingMetadataDocument(cursor.value, documentBuffer);
+                        for (MetadataIndexWriter metadataIndexWriter : metadataIndexWriters) {
+                            metadataIndexWriter.updateMappingMetadata(mappingMetadataDocument, cursor.key);
+                        }
+                    }
+                }
+                for (ObjectCursor<String> hash : previousMappingsByHash.keys()) {
+                    if (metadata.getMappingsByHash().containsKey(hash.value) == false) {
+                        for (MetadataIndexWriter metadataIndexWriter : metadataIndexWriters) {
+                            metadataIndexWriter.deleteMappingMetadata(hash.value);
+                        }
+                    }
+                }
+
+                final Map<String, IndexMetadata> indexMetadataByUUID = new HashMap<>(previouslyWrittenMetadata.indices().size());
                 for (ObjectCursor<IndexMetadata> cursor : previouslyWrittenMetadata.indices().values()) {
                     final IndexMetadata indexMetadata = cursor.value;
-                    final Long previousValue
-                            = indexMetadataVersionByUUID.putIfAbsent(indexMetadata.getIndexUUID(), indexMetadata.getVersion());
+                    final IndexMetadata previousValue = indexMetadataByUUID.putIfAbsent(indexMetadata.getIndexUUID(), indexMetadata);
                     assert previousValue == null : indexMetadata.getIndexUUID() + " already mapped to " + previousValue;
                 }
 
@@ -591,10 +689,10 @@ public class PersistedClusterStateService {
                 int numIndicesUnchanged = 0;
                 for (ObjectCursor<IndexMetadata> cursor : metadata.indices().values()) {
                     final IndexMetadata indexMetadata = cursor.value;
-                    final Long previousVersion = indexMetadataVersionByUUID.get(indexMetadata.getIndexUUID());
-                    if (previousVersion == null || indexMetadata.getVersion() != previousVersion) {
-                        logger.trace("updating metadata for [{}], changing version from [{}] to [{}]",
-                                indexMetadata.getIndex(), previousVersion, indexMetadata.getVersion());
+                    final IndexMetadata previousIndexMetadata = indexMetadataByUUID.get(indexMetadata.getIndexUUID());
+                    if (indexMetadataChanged(previousIndexMetadata, indexMetadata, sameTerm)) {
+                        logger.trace("updating metadata for [{}], changing version from [{}] to [{}]", indexMetadata.getIndex(),
+                            previousIndexMetadata == null ? null : previousIndexMetadata.getVersion(), indexMetadata.getVersion());
                         numIndicesUpdated++;
                         final Document indexMetadataDocument = makeIndexMetadataDocument(indexMetadata, documentBuffer);
                         for (MetadataIndexWriter metadataIndexWriter : metadataIndexWriters) {
@@ -604,12 +702,12 @@ public class PersistedClusterStateService {
                         numIndicesUnchanged++;
                         logger.trace("no action required for [{}]", indexMetadata.getIndex());
                     }
-                    indexMetadataVersionByUUID.remove(indexMetadata.getIndexUUID());
+                    indexMetadataByUUID.remove(indexMetadata.getIndexUUID());
                 }
 
                 documentBufferUsed = documentBuffer.getMaxUsed();
 
-                for (String removedIndexUUID : indexMetadataVersionByUUID.keySet()) {
+                for (String removedIndexUUID : indexMetadataByUUID.keySet()) {
                     for (MetadataIndexWriter metadataIndexWriter : metadataIndexWriters) {
                         metadataIndexWriter.deleteIndexMetadata(removedIndexUUID);
                     }
@@ -625,6 +723,22 @@ public class PersistedClusterStateService {
             }
         }
 
+        /**
+         * Within a term, index metadata with the same version has the same content, so it does not need to be written again. Across terms
+         * a different master may have published a different index metadata with the same version, so only the very instance that was
+         * written is known to be unchanged; applying a cluster state diff keeps the instances of the indices it does not touch.
+         */
+        private static boolean indexMetadataChanged(@Nullable IndexMetadata previousIndexMetadata, IndexMetadata indexMetadata,
+                                                    boolean sameTerm) {
+            if (previousIndexMetadata == null) {
+                return true;
+            } else if (sameTerm) {
+                return previousIndexMetadata.getVersion() != indexMetadata.getVersion();
+            } else {
+                return previousIndexMetadata != indexMetadata;
+            }
+        }
+
         /**
          * Update the persisted metadata to match the given cluster state by removing all existing documents and then adding new documents.
          */
@@ -646,6 +760,13 @@ public class PersistedClusterStateService {
                     metadataIndexWriter.updateGlobalMetadata(globalMetadataDocument);
                 }
 
+                for (ObjectObjectCursor<String, MappingMetadata> cursor : metadata.getMappingsByHash()) {
+                    final Document mappingMetadataDocument = makeMappingMetadataDocument(cursor.value, documentBuffer);
+                    for (MetadataIndexWriter metadataIndexWriter : metadataIndexWriters) {
+                        metadataIndexWriter.updateMappingMetadata(mappingMetadataDocument, cursor.key);
+                    }
+                }
+
                 for (ObjectCursor<IndexMetadata> cursor : metadata.indices().values()) {
                     final IndexMetadata indexMetadata = cursor.value;
                     final Document indexMetadataDocument = makeIndexMetadataDocument(indexMetadata, documentBuffer);
@@ -677,7 +798,9 @@ public class PersistedClusterStateService {
         public void writeIncrementalTermUpdateAndCommit(long currentTerm, long lastAcceptedVersion) throws IOException {
             ensureOpen();
             ensureFullStateWritten();
+            final long startTimeMillis = relativeTimeMillisSupplier.getAsLong();
             commit(currentTerm, lastAcceptedVersion);
+            writeStatsTracker.recordIncrementalWrite(relativeTimeMillisSupplier.getAsLong() - startTimeMillis, WriterStats.EMPTY);
         }
 
         void commit(long currentTerm, long lastAcceptedVersion) throws IOException {
@@ -725,6 +848,8 @@ public class PersistedClusterStateService {
         }
 
         static class WriterStats {
+            static final WriterStats EMPTY = new WriterStats(false, 0, 0);
+
             final boolean globalMetaUpdated;
             final long numIndicesUpdated;
             final long numIndicesUnchanged;
@@ -748,6 +873,17 @@ public class PersistedClusterStateService {
             return makeDocument(GLOBAL_TYPE_NAME, metadata, documentBuffer);
         }
 
+        private Document makeMappingMetadataDocument(MappingMetadata mappingMetadata, DocumentBuffer documentBuffer) throws IOException {
+            final String hash = mappingMetadata.getSha256();
+            final Document mappingMetadataDocument = makeDocument(MAPPING_TYPE_NAME, (builder, params) -> {
+                builder.field(MAPPING_HASH_FIELD_NAME, hash);
+                builder.field(MAPPING_CONTENT_FIELD_NAME, mappingMetadata.source().compressed());
+                return builder;
+            }, documentBuffer);
+            mappingMetadataDocument.add(new StringField(MAPPING_HASH_FIELD_NAME, hash, Field.Store.NO));
+            return mappingMetadataDocument;
+        }
+
         private Document makeDocument(String typeName, ToXContent metadata, DocumentBuffer documentBuffer) throws IOException {
             final Document document = new Document();
             document.add(new StringField(TYPE_FIELD_NAME, typeName, Field.Store.NO));
@@ -766,6 +902,36 @@ public class PersistedClusterStateService {
         }
     }
 
+    /**
+     * Accumulates the durations of the writes of all the writers of this service, since a new writer is created whenever a write fails.
+     */
+    private static class WriteStatsTracker {
+        private final CounterMetric fullWriteCount = new CounterMetric();
+        private final CounterMetric fullWriteTimeMillis = new CounterMetric();
+        private final CounterMetric incrementalWriteCount = new CounterMetric();
+        private final CounterMetric incrementalWriteTimeMillis = new CounterMetric();
+        private final CounterMetric indicesWritten = new CounterMetric();
+        private final CounterMetric indicesSkipped = new CounterMetric();
+
+        void recordFullWrite(long durationMillis, Writer.WriterStats writerStats) {
+            fullWriteCount.inc();
+            fullWriteTimeMillis.inc(durationMillis);
+            indicesWritten.inc(writerStats.numIndicesUpdated);
+        }
+
+        void recordIncrementalWrite(long durationMillis, Writer.WriterStats writerStats) {
+            incrementalWriteCount.inc();
+            incrementalWriteTimeMillis.inc(durationMillis);
+            indicesWritten.inc(writerStats.numIndicesUpdated);
+            indicesSkipped.inc(writerStats.numIndicesUnchanged);
+        }
+
+        ClusterStatePersistenceStats stats() {
+            return new ClusterStatePersistenceStats(fullWriteCount.count(), fullWriteTimeMillis.count(), incrementalWriteCount.count(),
+                incrementalWriteTimeMillis.count(), indicesWritten.count(), indicesSkipped.count());
+        }
+    }
+
     /**
      * Holds the current buffer, keeping track of new allocations as it grows.
      */
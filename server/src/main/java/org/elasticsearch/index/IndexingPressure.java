@@ -49,6 +49,9 @@ public class IndexingPressure {
     private final AtomicLong primaryRejections = new AtomicLong(0);
     private final AtomicLong replicaRejections = new AtomicLong(0);
 
+    private final AtomicLong coalescedShardRequests = new AtomicLong(0);
+    private final AtomicLong coalescedShardRequestBatches = new AtomicLong(0);
+
     private final long primaryAndCoordinatingLimits;
     private final long replicaLimits;
 
@@ -156,11 +159,20 @@ public class IndexingPressure {
         });
     }
 
+    /**
+     * Records that the given number of shard requests of the coordinating stage were merged into a single shard request.
+     */
+    public void markShardRequestsCoalesced(int shardRequests) {
+        coalescedShardRequests.getAndAdd(shardRequests);
+        coalescedShardRequestBatches.getAndIncrement();
+    }
+
     public IndexingPressureStats stats() {
         return new IndexingPressureStats(totalCombinedCoordinatingAndPrimaryBytes.get(), totalCoordinatingBytes.get(),
             totalPrimaryBytes.get(), totalReplicaBytes.get(), currentCombinedCoordinatingAndPrimaryBytes.get(),
             currentCoordinatingBytes.get(), currentPrimaryBytes.get(), currentReplicaBytes.get(), coordinatingRejections.get(),
             primaryRejections.get(), replicaRejections.get(), primaryAndCoordinatingLimits, totalCoordinatingOps.get(),
-            totalPrimaryOps.get(), totalReplicaOps.get(), currentCoordinatingOps.get(), currentPrimaryOps.get(), currentReplicaOps.get());
+            totalPrimaryOps.get(), totalReplicaOps.get(), currentCoordinatingOps.get(), currentPrimaryOps.get(), currentReplicaOps.get(),
+            coalescedShardRequests.get(), coalescedShardRequestBatches.get());
     }
 }
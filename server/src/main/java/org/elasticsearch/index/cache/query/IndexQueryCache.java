@@ -11,6 +11,7 @@ package org.elasticsearch.index.cache.query;
 import org.apache.lucene.search.QueryCachingPolicy;
 import org.apache.lucene.search.Weight;
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.index.AbstractIndexComponent;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.indices.IndicesQueryCache;
@@ -22,10 +23,20 @@ import org.elasticsearch.indices.IndicesQueryCache;
 public class IndexQueryCache extends AbstractIndexComponent implements QueryCache {
 
     final IndicesQueryCache indicesQueryCache;
+    // segments of indices that do not accept writes are long-lived, so their doc id sets are worth persisting
+    private volatile boolean persistent;
 
     public IndexQueryCache(IndexSettings indexSettings, IndicesQueryCache indicesQueryCache) {
         super(indexSettings);
         this.indicesQueryCache = indicesQueryCache;
+        setBlocks(IndexMetadata.INDEX_READ_ONLY_SETTING.get(indexSettings.getSettings()),
+            IndexMetadata.INDEX_BLOCKS_WRITE_SETTING.get(indexSettings.getSettings()));
+        indexSettings.getScopedSettings().addSettingsUpdateConsumer(IndexMetadata.INDEX_READ_ONLY_SETTING,
+            IndexMetadata.INDEX_BLOCKS_WRITE_SETTING, this::setBlocks);
+    }
+
+    private void setBlocks(boolean readOnly, boolean writeBlock) {
+        this.persistent = readOnly || writeBlock;
     }
 
     @Override
@@ -41,7 +52,7 @@ public class IndexQueryCache extends AbstractIndexComponent implements QueryCach
 
     @Override
     public Weight doCache(Weight weight, QueryCachingPolicy policy) {
-        return indicesQueryCache.doCache(weight, policy);
+        return indicesQueryCache.doCache(weight, policy, persistent);
     }
 
 }
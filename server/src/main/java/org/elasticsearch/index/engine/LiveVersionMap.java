@@ -19,23 +19,57 @@ import org.elasticsearch.common.util.concurrent.KeyedLock;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
-/** Maps _uid value to its version information. */
+/**
+ * Maps _uid value to its version information. The uids are hashed into a fixed number of stripes, each stripe has an open-addressing
+ * {@link VersionValueTable} per version lookup, so that tracking the version of a uid doesn't allocate a map entry. The lock of a stripe
+ * only guards the accesses to its tables, the engine serializes the operations on the same uid with the per-uid {@link #acquireLock}
+ * so that operations on different uids of the same stripe never wait for each other while they index into Lucene.
+ */
 final class LiveVersionMap implements ReferenceManager.RefreshListener, Accountable {
 
+    /** the number of bits of the hash of a uid that select its stripe */
+    private static final int STRIPE_BITS = 7;
+    private static final int STRIPES = 1 << STRIPE_BITS;
+
     private final KeyedLock<BytesRef> keyedLock = new KeyedLock<>();
 
+    private final ReentrantLock[] stripeLocks = newStripeLocks();
+
+    private static ReentrantLock[] newStripeLocks() {
+        final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+
+    private static int stripe(int hash) {
+        // the tables use the low bits of the hash to pick a slot, so the stripe is taken from the high bits
+        return hash >>> (Integer.SIZE - STRIPE_BITS);
+    }
+
     private static final class VersionLookup {
 
         /** Tracks bytes used by current map, i.e. what is freed on refresh. For deletes, which are also added to tombstones,
-         *  we only account for the CHM entry here, and account for BytesRef/VersionValue against the tombstones, since refresh would not
-         *  clear this RAM. */
+         *  we only account for the table entry here, and account for BytesRef/VersionValue against the tombstones, since refresh would
+         *  not clear this RAM. */
         final AtomicLong ramBytesUsed = new AtomicLong();
 
-        private static final VersionLookup EMPTY = new VersionLookup(Collections.emptyMap());
-        private final Map<BytesRef, VersionValue> map;
+        private static final VersionLookup EMPTY = new VersionLookup(new int[STRIPES], newStripeLocks());
+
+        // the locks of the stripes, shared by all the lookups of a version map and only held while a table is accessed
+        private final ReentrantLock[] locks;
+        // the table of each stripe, created on the first put into the stripe and only accessed under the lock of the stripe
+        private final VersionValueTable[] tables = new VersionValueTable[STRIPES];
+        // the expected number of entries per stripe, sized after the previous lookup so that the tables don't grow entry by entry
+        private final int[] expectedSizes;
+        private final AtomicInteger size = new AtomicInteger();
 
         // each version map has a notion of safe / unsafe which allows us to apply certain optimization in the auto-generated ID usecase
         // where we know that documents can't have any duplicates so we can skip the version map entirely. This reduces
@@ -53,24 +87,77 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
         // the tombstone
         private final AtomicLong minDeleteTimestamp = new AtomicLong(Long.MAX_VALUE);
 
-        private VersionLookup(Map<BytesRef, VersionValue> map) {
-            this.map = map;
+        private VersionLookup(int[] expectedSizes, ReentrantLock[] locks) {
+            this.expectedSizes = expectedSizes;
+            this.locks = locks;
         }
 
         VersionValue get(BytesRef key) {
-            return map.get(key);
+            final int hash = key.hashCode();
+            final int stripe = stripe(hash);
+            locks[stripe].lock();
+            try {
+                final VersionValueTable table = tables[stripe];
+                return table == null ? null : table.get(key, hash);
+            } finally {
+                locks[stripe].unlock();
+            }
         }
 
         VersionValue put(BytesRef key, VersionValue value) {
-            return map.put(key, value);
+            final int hash = key.hashCode();
+            final int stripe = stripe(hash);
+            final VersionValue previous;
+            locks[stripe].lock();
+            try {
+                VersionValueTable table = tables[stripe];
+                if (table == null) {
+                    assert this != EMPTY : "the empty lookup must not be modified";
+                    table = tables[stripe] = new VersionValueTable(expectedSizes[stripe]);
+                }
+                previous = table.put(key, hash, value);
+            } finally {
+                locks[stripe].unlock();
+            }
+            if (previous == null) {
+                size.incrementAndGet();
+            }
+            return previous;
         }
 
         boolean isEmpty() {
-            return map.isEmpty();
+            return size.get() == 0;
         }
 
         int size() {
-            return map.size();
+            return size.get();
+        }
+
+        /**
+         * Returns the number of entries of each stripe. The stripes are read without their locks, so the sizes are only a hint.
+         */
+        int[] sizePerStripe() {
+            final int[] sizes = new int[STRIPES];
+            for (int i = 0; i < STRIPES; i++) {
+                final VersionValueTable table = tables[i];
+                sizes[i] = table == null ? 0 : table.size();
+            }
+            return sizes;
+        }
+
+        void forEach(Map<BytesRef, VersionValue> into) {
+            for (int i = 0; i < STRIPES; i++) {
+                // lock one stripe at a time so that this never waits for a lock while holding another one
+                locks[i].lock();
+                try {
+                    final VersionValueTable table = tables[i];
+                    if (table != null) {
+                        table.forEach(into::put);
+                    }
+                } finally {
+                    locks[i].unlock();
+                }
+            }
         }
 
         boolean isUnsafe() {
@@ -82,7 +169,20 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
         }
 
         public VersionValue remove(BytesRef uid) {
-            return map.remove(uid);
+            final int hash = uid.hashCode();
+            final int stripe = stripe(hash);
+            final VersionValue previous;
+            locks[stripe].lock();
+            try {
+                final VersionValueTable table = tables[stripe];
+                previous = table == null ? null : table.remove(uid, hash);
+            } finally {
+                locks[stripe].unlock();
+            }
+            if (previous != null) {
+                size.decrementAndGet();
+            }
+            return previous;
         }
 
         public void updateMinDeletedTimestamp(DeleteVersionValue delete) {
@@ -112,9 +212,8 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
             this.previousMapsNeededSafeAccess = previousMapsNeededSafeAccess;
         }
 
-        Maps() {
-            this(new VersionLookup(ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency()),
-                VersionLookup.EMPTY, false);
+        Maps(ReentrantLock[] locks) {
+            this(new VersionLookup(new int[STRIPES], locks), VersionLookup.EMPTY, false);
         }
 
         boolean isSafeAccessMode() {
@@ -132,8 +231,7 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
          * Builds a new map for the refresh transition this should be called in beforeRefresh()
          */
         Maps buildTransitionMap() {
-            return new Maps(new VersionLookup(ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency(current.size())), current,
-                shouldInheritSafeAccess());
+            return new Maps(new VersionLookup(current.sizePerStripe(), current.locks), current, shouldInheritSafeAccess());
         }
 
         /**
@@ -145,9 +243,10 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
 
         void put(BytesRef uid, VersionValue version) {
             long uidRAMBytesUsed = BASE_BYTES_PER_BYTESREF + uid.bytes.length;
-            long ramAccounting = BASE_BYTES_PER_CHM_ENTRY + version.ramBytesUsed() + uidRAMBytesUsed;
+            long ramAccounting = VersionValueTable.BYTES_PER_ENTRY + version.ramBytesUsed() + uidRAMBytesUsed;
             VersionValue previousValue = current.put(uid, version);
-            ramAccounting += previousValue == null ? 0 : -(BASE_BYTES_PER_CHM_ENTRY + previousValue.ramBytesUsed() + uidRAMBytesUsed);
+            ramAccounting += previousValue == null ? 0 :
+                -(VersionValueTable.BYTES_PER_ENTRY + previousValue.ramBytesUsed() + uidRAMBytesUsed);
             adjustRam(ramAccounting);
         }
 
@@ -163,7 +262,7 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
             current.updateMinDeletedTimestamp(deleted);
             if (previousValue != null) {
                 long uidRAMBytesUsed = BASE_BYTES_PER_BYTESREF + uid.bytes.length;
-                adjustRam(-(BASE_BYTES_PER_CHM_ENTRY + previousValue.ramBytesUsed() + uidRAMBytesUsed));
+                adjustRam(-(VersionValueTable.BYTES_PER_ENTRY + previousValue.ramBytesUsed() + uidRAMBytesUsed));
             }
             if (old != VersionLookup.EMPTY) {
                 // we also need to remove it from the old map here to make sure we don't read this stale value while
@@ -180,10 +279,10 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
     // All deletes also go here, and delete "tombstones" are retained after refresh:
     private final Map<BytesRef, DeleteVersionValue> tombstones = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
 
-    private volatile Maps maps = new Maps();
+    private volatile Maps maps = new Maps(stripeLocks);
     // we maintain a second map that only receives the updates that we skip on the actual map (unsafe ops)
     // this map is only maintained if assertions are enabled
-    private volatile Maps unsafeKeysMap = new Maps();
+    private volatile Maps unsafeKeysMap = new Maps(stripeLocks);
 
     /**
      * Bytes consumed for each BytesRef UID:
@@ -204,12 +303,12 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
             3;
 
     /**
-     * Bytes used by having CHM point to a key/value.
+     * Bytes used by having the CHM of the tombstones point to a key/value.
      */
     private static final long BASE_BYTES_PER_CHM_ENTRY;
 
     static {
-        // use the same impl as the Maps does
+        // use the same impl as the tombstones do
         Map<Integer, Integer> map = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
         map.put(0, 0);
         long chmEntryShallowSize = RamUsageEstimator.shallowSizeOf(map.entrySet().iterator().next());
@@ -404,7 +503,7 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
      * Called when this index is closed.
      */
     synchronized void clear() {
-        maps = new Maps();
+        maps = new Maps(stripeLocks);
         tombstones.clear();
         // NOTE: we can't zero this here, because a refresh thread could be calling InternalEngine.pruneDeletedTombstones at the same time,
         // and this will lead to an assert trip.  Presumably it's fine if our ramBytesUsedTombstones is non-zero after clear since the
@@ -440,10 +539,12 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
     }
 
     /**
-     * Returns the current internal versions as a point in time snapshot
+     * Returns a copy of the current internal versions, each stripe is copied at a different point in time
      */
     Map<BytesRef, VersionValue> getAllCurrent() {
-        return maps.current.map;
+        final Map<BytesRef, VersionValue> current = new HashMap<>();
+        maps.current.forEach(current);
+        return current;
     }
 
     /** Iterates over all deleted versions, including new ones (not yet exposed via reader) and old ones
@@ -456,6 +557,8 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
      * Acquires a releaseable lock for the given uId. All *UnderLock methods require
      * this lock to be hold by the caller otherwise the visibility guarantees of this version
      * map are broken. We assert on this lock to be hold when calling these methods.
+     * The lock is per uid, unlike the locks of the stripes that are only held while a table is accessed, so that
+     * the engine can hold it while it indexes into Lucene without blocking the operations on other uids.
      * @see KeyedLock
      */
     Releasable acquireLock(BytesRef uid) {
@@ -0,0 +1,164 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+
+import java.util.function.BiConsumer;
+
+/**
+ * An open-addressing hash table from _id bytes to {@link VersionValue}s with linear probing. The hashes of the keys are kept in a
+ * primitive array so that probing only compares ints and only dereferences the key on a hash match, and entries live in parallel
+ * arrays rather than in a node object per entry. Removals shift the following entries back rather than leaving tombstones behind.
+ * <p>
+ * The table is not thread-safe, {@link LiveVersionMap} only accesses it under the lock of the stripe that the table belongs to.
+ */
+final class VersionValueTable {
+
+    /**
+     * Bytes used by the table for each entry: the hash, the key reference and the value reference. We assume a load factor of 50%
+     * since the table doubles once it is half full, so we account for the slot of the entry and for a free slot.
+     */
+    static final long BYTES_PER_ENTRY = 2 * (Integer.BYTES + 2 * RamUsageEstimator.NUM_BYTES_OBJECT_REF);
+
+    private static final int MIN_CAPACITY = 8;
+
+    private int[] hashes;
+    private BytesRef[] keys;
+    private VersionValue[] values;
+    private int mask;
+    private int size;
+
+    VersionValueTable(int expectedSize) {
+        final int capacity = capacityFor(expectedSize);
+        hashes = new int[capacity];
+        keys = new BytesRef[capacity];
+        values = new VersionValue[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        // keep the load factor at or below 50%
+        final long capacity = Math.max(MIN_CAPACITY, (long) expectedSize * 2);
+        if (capacity > ArrayUtil.MAX_ARRAY_LENGTH / 2) {
+            throw new IllegalArgumentException("too many entries for a version table [" + expectedSize + "]");
+        }
+        return Integer.highestOneBit((int) capacity - 1) << 1;
+    }
+
+    /**
+     * Returns the value of the given key, {@code null} if there is none.
+     *
+     * @param hash the hash of the key, it must be the same for all the calls with equal keys
+     */
+    VersionValue get(BytesRef key, int hash) {
+        final int slot = find(key, hash);
+        return slot < 0 ? null : values[slot];
+    }
+
+    /**
+     * Associates the given value with the given key and returns the value that the key was associated with, if any.
+     */
+    VersionValue put(BytesRef key, int hash, VersionValue value) {
+        int slot = hash & mask;
+        while (keys[slot] != null) {
+            if (hashes[slot] == hash && keys[slot].bytesEquals(key)) {
+                final VersionValue previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        hashes[slot] = hash;
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+        return null;
+    }
+
+    /**
+     * Removes the given key and returns the value that it was associated with, if any.
+     */
+    VersionValue remove(BytesRef key, int hash) {
+        int slot = find(key, hash);
+        if (slot < 0) {
+            return null;
+        }
+        final VersionValue previous = values[slot];
+        size--;
+        // shift back the entries that follow the freed slot and that would not be reachable from their ideal slot otherwise
+        int next = (slot + 1) & mask;
+        while (keys[next] != null) {
+            final int ideal = hashes[next] & mask;
+            if (((next - ideal) & mask) >= ((next - slot) & mask)) {
+                hashes[slot] = hashes[next];
+                keys[slot] = keys[next];
+                values[slot] = values[next];
+                slot = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[slot] = null;
+        values[slot] = null;
+        return previous;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void forEach(BiConsumer<BytesRef, VersionValue> consumer) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != null) {
+                consumer.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    private int find(BytesRef key, int hash) {
+        int slot = hash & mask;
+        while (keys[slot] != null) {
+            if (hashes[slot] == hash && keys[slot].bytesEquals(key)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void grow() {
+        final int[] oldHashes = hashes;
+        final BytesRef[] oldKeys = keys;
+        final VersionValue[] oldValues = values;
+        final int capacity = oldKeys.length << 1;
+        hashes = new int[capacity];
+        keys = new BytesRef[capacity];
+        values = new VersionValue[capacity];
+        mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = oldHashes[i] & mask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                hashes[slot] = oldHashes[i];
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -11,6 +11,8 @@ package org.elasticsearch.index.fielddata;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.util.Accountable;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinalMap;
 import org.elasticsearch.index.shard.ShardId;
 
 /**
@@ -33,6 +35,21 @@ public interface IndexFieldDataCache {
      */
     void clear(String fieldName);
 
+    /**
+     * Returns the global ordinal map that was last built for the given shard, which can be reused to build the global ordinals
+     * of a newer reader incrementally, or {@code null} if there is none.
+     */
+    @Nullable
+    default GlobalOrdinalMap getLastGlobalOrdinalMap(ShardId shardId) {
+        return null;
+    }
+
+    /**
+     * Drops what is kept for the given shard beyond the lifetime of its readers, called once the shard is closed.
+     */
+    default void onShardClose(ShardId shardId) {
+    }
+
     interface Listener {
 
         /**
@@ -11,7 +11,8 @@ package org.elasticsearch.index.fielddata;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.OrdinalMap;
-
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinalMap;
 
 /**
  * Specialization of {@link IndexFieldData} for data that is indexed with ordinals.
@@ -37,6 +38,18 @@ public interface IndexOrdinalsFieldData extends IndexFieldData.Global<LeafOrdina
      */
     OrdinalMap getOrdinalMap();
 
+    /**
+     * Returns the mapping between global and segment ordinals for this fielddata
+     * or null if global ordinals are not needed (constant value or single segment).
+     * Unlike {@link #getOrdinalMap()}, this may return a map that was built
+     * incrementally from the global ordinals of an older reader.
+     */
+    @Nullable
+    default GlobalOrdinalMap getGlobalOrdinalMap() {
+        final OrdinalMap ordinalMap = getOrdinalMap();
+        return ordinalMap == null ? null : GlobalOrdinalMap.wrap(ordinalMap);
+    }
+
     /**
      * Whether this field data is able to provide a mapping between global and segment ordinals,
      * by returning the underlying {@link OrdinalMap}. If this method returns false, then calling
@@ -0,0 +1,160 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.fielddata.ordinals;
+
+import org.apache.lucene.index.OrdinalMap;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.LongValues;
+import org.elasticsearch.common.Nullable;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Maps the ordinals of the segments of a reader to global ordinals and back, like Lucene's {@link OrdinalMap}, which is the
+ * implementation used when global ordinals are built from scratch. Unlike an {@link OrdinalMap}, a {@link GlobalOrdinalMap} knows the
+ * segments it was built for, which allows {@link IncrementalGlobalOrdinalMap} to build the map of a newer reader of the same shard by
+ * only merging the terms of the segments that were added since.
+ */
+public abstract class GlobalOrdinalMap implements Accountable {
+
+    // the core cache keys and the number of unique terms of the segments, if known
+    @Nullable
+    private final Object[] segmentKeys;
+    @Nullable
+    private final long[] segmentValueCounts;
+
+    GlobalOrdinalMap(@Nullable Object[] segmentKeys, @Nullable long[] segmentValueCounts) {
+        assert (segmentKeys == null) == (segmentValueCounts == null);
+        assert segmentKeys == null || segmentKeys.length == segmentValueCounts.length;
+        this.segmentKeys = segmentKeys;
+        this.segmentValueCounts = segmentValueCounts;
+    }
+
+    /**
+     * Wraps a Lucene {@link OrdinalMap}.
+     */
+    public static GlobalOrdinalMap wrap(OrdinalMap ordinalMap) {
+        return new LuceneGlobalOrdinalMap(ordinalMap, null, null);
+    }
+
+    /**
+     * Wraps a Lucene {@link OrdinalMap} that was built for segments with the given core cache keys and numbers of unique terms, so
+     * that it can be reused to build the map of a newer reader incrementally.
+     */
+    static GlobalOrdinalMap wrap(OrdinalMap ordinalMap, Object[] segmentKeys, long[] segmentValueCounts) {
+        return new LuceneGlobalOrdinalMap(ordinalMap, segmentKeys, segmentValueCounts);
+    }
+
+    /**
+     * Returns the total number of unique terms in the global ord space.
+     */
+    public abstract long getValueCount();
+
+    /**
+     * Returns the mapping from the ordinals of the given segment to global ordinals.
+     */
+    public abstract LongValues getGlobalOrds(int segmentIndex);
+
+    /**
+     * Returns the ordinal of the given global ordinal in the segment returned by {@link #getFirstSegmentNumber(long)}.
+     */
+    public abstract long getFirstSegmentOrd(long globalOrd);
+
+    /**
+     * Returns the index of a segment that contains the given global ordinal.
+     */
+    public abstract int getFirstSegmentNumber(long globalOrd);
+
+    /**
+     * Returns the underlying Lucene {@link OrdinalMap} if this map wraps one, or {@code null} otherwise.
+     */
+    @Nullable
+    public OrdinalMap getLuceneOrdinalMap() {
+        return null;
+    }
+
+    /**
+     * Whether the segments this map was built for are known, which is required to reuse it for a newer reader.
+     */
+    boolean hasSegmentKeys() {
+        return segmentKeys != null;
+    }
+
+    /**
+     * Returns the number of segments this map was built for, only available if {@link #hasSegmentKeys()}.
+     */
+    int getSegmentCount() {
+        return segmentKeys.length;
+    }
+
+    /**
+     * Returns the core cache key of the segment at the given index, only available if {@link #hasSegmentKeys()}.
+     */
+    Object getSegmentKey(int segmentIndex) {
+        return segmentKeys[segmentIndex];
+    }
+
+    /**
+     * Returns the number of unique terms of the segment at the given index, only available if {@link #hasSegmentKeys()}.
+     */
+    long getSegmentValueCount(int segmentIndex) {
+        return segmentValueCounts[segmentIndex];
+    }
+
+    @Override
+    public Collection<Accountable> getChildResources() {
+        return Collections.emptyList();
+    }
+
+    private static final class LuceneGlobalOrdinalMap extends GlobalOrdinalMap {
+
+        private final OrdinalMap ordinalMap;
+
+        LuceneGlobalOrdinalMap(OrdinalMap ordinalMap, @Nullable Object[] segmentKeys, @Nullable long[] segmentValueCounts) {
+            super(segmentKeys, segmentValueCounts);
+            this.ordinalMap = ordinalMap;
+        }
+
+        @Override
+        public long getValueCount() {
+            return ordinalMap.getValueCount();
+        }
+
+        @Override
+        public LongValues getGlobalOrds(int segmentIndex) {
+            return ordinalMap.getGlobalOrds(segmentIndex);
+        }
+
+        @Override
+        public long getFirstSegmentOrd(long globalOrd) {
+            return ordinalMap.getFirstSegmentOrd(globalOrd);
+        }
+
+        @Override
+        public int getFirstSegmentNumber(long globalOrd) {
+            return ordinalMap.getFirstSegmentNumber(globalOrd);
+        }
+
+        @Override
+        public OrdinalMap getLuceneOrdinalMap() {
+            return ordinalMap;
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            return ordinalMap.ramBytesUsed();
+        }
+
+        @Override
+        public Collection<Accountable> getChildResources() {
+            return ordinalMap.getChildResources();
+        }
+    }
+}
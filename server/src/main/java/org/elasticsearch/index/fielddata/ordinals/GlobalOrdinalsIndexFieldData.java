@@ -14,6 +14,7 @@ import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.search.SortField;
 import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.packed.PackedInts;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.index.fielddata.IndexFieldData.XFieldComparatorSource.Nested;
@@ -48,22 +49,31 @@ public final class GlobalOrdinalsIndexFieldData implements IndexOrdinalsFieldDat
     private final ValuesSourceType valuesSourceType;
     private final long memorySizeInBytes;
 
-    private final OrdinalMap ordinalMap;
+    private final GlobalOrdinalMap ordinalMap;
     private final LeafOrdinalsFieldData[] segmentAfd;
     private final Function<SortedSetDocValues, ScriptDocValues<?>> scriptFunction;
+    private final long buildTimeInNanos;
+    private final boolean incrementalBuild;
+
+    // only built on demand for Lucene APIs that need an OrdinalMap, if the global ordinals were built incrementally
+    private OrdinalMap luceneOrdinalMap;
 
     protected GlobalOrdinalsIndexFieldData(String fieldName,
                                            ValuesSourceType valuesSourceType,
                                            LeafOrdinalsFieldData[] segmentAfd,
-                                           OrdinalMap ordinalMap,
+                                           GlobalOrdinalMap ordinalMap,
                                            long memorySizeInBytes,
-                                           Function<SortedSetDocValues, ScriptDocValues<?>> scriptFunction) {
+                                           Function<SortedSetDocValues, ScriptDocValues<?>> scriptFunction,
+                                           long buildTimeInNanos,
+                                           boolean incrementalBuild) {
         this.fieldName = fieldName;
         this.valuesSourceType = valuesSourceType;
         this.memorySizeInBytes = memorySizeInBytes;
         this.ordinalMap = ordinalMap;
         this.segmentAfd = segmentAfd;
         this.scriptFunction = scriptFunction;
+        this.buildTimeInNanos = buildTimeInNanos;
+        this.incrementalBuild = incrementalBuild;
     }
 
     public IndexOrdinalsFieldData newConsumer(DirectoryReader source) {
@@ -122,8 +132,34 @@ public final class GlobalOrdinalsIndexFieldData implements IndexOrdinalsFieldDat
         throw new IllegalStateException("load(LeafReaderContext) should not be called in this context");
     }
 
+    /**
+     * Returns a Lucene {@link OrdinalMap} for these global ordinals. Prefer {@link #getGlobalOrdinalMap()}: if the global ordinals
+     * were built incrementally, the {@link OrdinalMap} is built from scratch on the first call, which is only worth it for Lucene
+     * APIs that require one. The global ordinals of both maps are the same.
+     */
     @Override
     public OrdinalMap getOrdinalMap() {
+        final OrdinalMap wrapped = ordinalMap.getLuceneOrdinalMap();
+        return wrapped != null ? wrapped : getOrBuildLuceneOrdinalMap();
+    }
+
+    private synchronized OrdinalMap getOrBuildLuceneOrdinalMap() {
+        if (luceneOrdinalMap == null) {
+            final SortedSetDocValues[] subs = new SortedSetDocValues[segmentAfd.length];
+            for (int i = 0; i < segmentAfd.length; i++) {
+                subs[i] = segmentAfd[i].getOrdinalsValues();
+            }
+            try {
+                luceneOrdinalMap = OrdinalMap.build(null, subs, PackedInts.DEFAULT);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to build ordinal map", e);
+            }
+        }
+        return luceneOrdinalMap;
+    }
+
+    @Override
+    public GlobalOrdinalMap getGlobalOrdinalMap() {
         return ordinalMap;
     }
 
@@ -132,6 +168,20 @@ public final class GlobalOrdinalsIndexFieldData implements IndexOrdinalsFieldDat
         return true;
     }
 
+    /**
+     * Returns how long it took to build these global ordinals, in nanoseconds.
+     */
+    public long getBuildTimeInNanos() {
+        return buildTimeInNanos;
+    }
+
+    /**
+     * Whether these global ordinals were built by reusing the global ordinals of an older reader of the same shard.
+     */
+    public boolean isIncrementalBuild() {
+        return incrementalBuild;
+    }
+
     /**
      * A non-thread safe {@link IndexOrdinalsFieldData} for global ordinals that creates the {@link TermsEnum} of each
      * segment once and use them to provide a single lookup per segment.
@@ -251,6 +301,11 @@ public final class GlobalOrdinalsIndexFieldData implements IndexOrdinalsFieldDat
 
         @Override
         public OrdinalMap getOrdinalMap() {
+            return GlobalOrdinalsIndexFieldData.this.getOrdinalMap();
+        }
+
+        @Override
+        public GlobalOrdinalMap getGlobalOrdinalMap() {
             return ordinalMap;
         }
 
@@ -0,0 +1,293 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.fielddata.ordinals;
+
+import org.apache.lucene.index.OrdinalMap;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.LongBitSet;
+import org.apache.lucene.util.LongValues;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.packed.PackedInts;
+import org.apache.lucene.util.packed.PackedLongValues;
+import org.apache.lucene.util.packed.PagedGrowableWriter;
+import org.elasticsearch.common.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link GlobalOrdinalMap} that is built from the map of an older reader of the same shard. The terms of the segments that both
+ * readers share are already in global order in the older map, so only the terms of the segments that were added since need to be
+ * merged in: each of them is looked up in the shared segments to find out whether it already has a global ordinal or where it has to
+ * be inserted. Removed segments are accounted for by dropping the global ordinals that no shared segment contains anymore. Shared
+ * segments whose terms all sort before the first term that was inserted or dropped keep their global ordinals, and their mappings are
+ * reused rather than remapped.
+ */
+final class IncrementalGlobalOrdinalMap extends GlobalOrdinalMap {
+
+    private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(IncrementalGlobalOrdinalMap.class);
+    private static final int PAGE_SIZE = 1 << 15;
+
+    private final long valueCount;
+    private final LongValues[] segmentToGlobalOrds;
+    // the first segment that contains each global ordinal, and the difference between the global and the segment ordinal
+    private final PackedLongValues firstSegments;
+    private final PackedLongValues globalOrdDeltas;
+    private final long ramBytesUsed;
+
+    private IncrementalGlobalOrdinalMap(Object[] segmentKeys, long[] segmentValueCounts, long valueCount,
+                                        LongValues[] segmentToGlobalOrds, PackedLongValues firstSegments,
+                                        PackedLongValues globalOrdDeltas) {
+        super(segmentKeys, segmentValueCounts);
+        this.valueCount = valueCount;
+        this.segmentToGlobalOrds = segmentToGlobalOrds;
+        this.firstSegments = firstSegments;
+        this.globalOrdDeltas = globalOrdDeltas;
+        long ramBytesUsed = BASE_RAM_BYTES_USED + RamUsageEstimator.sizeOf(segmentKeys) + RamUsageEstimator.sizeOf(segmentValueCounts)
+            + RamUsageEstimator.shallowSizeOf(segmentToGlobalOrds) + firstSegments.ramBytesUsed() + globalOrdDeltas.ramBytesUsed();
+        for (LongValues mapping : segmentToGlobalOrds) {
+            if (mapping instanceof PackedLongValues) {
+                ramBytesUsed += ((PackedLongValues) mapping).ramBytesUsed();
+            }
+        }
+        this.ramBytesUsed = ramBytesUsed;
+    }
+
+    /**
+     * Builds the map of the segments with the given core cache keys and doc values by reusing the map of an older reader of the same
+     * shard. Returns {@code null} if the older map cannot be reused or if so many terms were added that building the map from scratch
+     * is cheaper, in which case the caller should build a new {@link OrdinalMap}.
+     */
+    @Nullable
+    static IncrementalGlobalOrdinalMap build(GlobalOrdinalMap previous, Object[] segmentKeys,
+                                             SortedSetDocValues[] subs) throws IOException {
+        assert segmentKeys.length == subs.length;
+        if (previous.hasSegmentKeys() == false) {
+            return null;
+        }
+        final Map<Object, Integer> previousSegments = new HashMap<>();
+        for (int i = 0; i < previous.getSegmentCount(); i++) {
+            if (previous.getSegmentKey(i) != null) {
+                previousSegments.put(previous.getSegmentKey(i), i);
+            }
+        }
+
+        // find out which segments are shared with the previous reader
+        final long[] segmentValueCounts = new long[subs.length];
+        final int[] previousIndices = new int[subs.length];
+        final int[] newIndices = new int[previous.getSegmentCount()];
+        Arrays.fill(newIndices, -1);
+        final List<Integer> addedSegments = new ArrayList<>();
+        long addedValueCount = 0;
+        long totalValueCount = 0;
+        for (int i = 0; i < subs.length; i++) {
+            segmentValueCounts[i] = subs[i].getValueCount();
+            totalValueCount += segmentValueCounts[i];
+            final Integer previousIndex = segmentKeys[i] == null ? null : previousSegments.get(segmentKeys[i]);
+            if (previousIndex != null && previous.getSegmentValueCount(previousIndex) == segmentValueCounts[i]) {
+                previousIndices[i] = previousIndex;
+                newIndices[previousIndex] = i;
+            } else {
+                previousIndices[i] = -1;
+                addedSegments.add(i);
+                addedValueCount += segmentValueCounts[i];
+            }
+        }
+        final int sharedSegmentCount = subs.length - addedSegments.size();
+        // every added term is looked up in each shared segment, while a full build iterates over the terms of all segments once
+        if (sharedSegmentCount == 0 || addedValueCount * (sharedSegmentCount + 1) > totalValueCount) {
+            return null;
+        }
+
+        // if segments were removed, find out which of the previous global ordinals are still used and by which segment
+        final long previousValueCount = previous.getValueCount();
+        LongBitSet usedPreviousOrds = null;
+        PagedGrowableWriter replacementSegments = null;
+        PagedGrowableWriter replacementSegmentOrds = null;
+        if (sharedSegmentCount < previous.getSegmentCount() && previousValueCount > 0) {
+            usedPreviousOrds = new LongBitSet(previousValueCount);
+            replacementSegments = new PagedGrowableWriter(previousValueCount, PAGE_SIZE, 1, PackedInts.COMPACT);
+            replacementSegmentOrds = new PagedGrowableWriter(previousValueCount, PAGE_SIZE, 1, PackedInts.COMPACT);
+            for (int i = 0; i < subs.length; i++) {
+                if (previousIndices[i] >= 0) {
+                    final LongValues mapping = previous.getGlobalOrds(previousIndices[i]);
+                    for (long ord = 0; ord < segmentValueCounts[i]; ord++) {
+                        final long previousOrd = mapping.get(ord);
+                        if (usedPreviousOrds.getAndSet(previousOrd) == false) {
+                            replacementSegments.set(previousOrd, i);
+                            replacementSegmentOrds.set(previousOrd, ord);
+                        }
+                    }
+                }
+            }
+        }
+
+        // merge the terms of the added segments, and find for each of them the previous global ordinal of the same term or, if the
+        // term is new, the previous global ordinal it has to be inserted before
+        final SortedSetDocValues[] addedSubs = new SortedSetDocValues[addedSegments.size()];
+        for (int i = 0; i < addedSubs.length; i++) {
+            addedSubs[i] = subs[addedSegments.get(i)];
+        }
+        final OrdinalMap addedTerms = addedSubs.length == 0 ? null : OrdinalMap.build(null, addedSubs, PackedInts.DEFAULT);
+        final long addedTermCount = addedTerms == null ? 0 : addedTerms.getValueCount();
+        final PagedGrowableWriter addedTermPositions =
+            new PagedGrowableWriter(Math.max(1, addedTermCount), PAGE_SIZE, 1, PackedInts.COMPACT);
+        final LongBitSet addedTermIsShared = new LongBitSet(Math.max(1, addedTermCount));
+        if (addedTermCount > 0) {
+            final TermsEnum[] addedEnums = new TermsEnum[addedSubs.length];
+            for (int i = 0; i < addedSubs.length; i++) {
+                addedEnums[i] = addedSubs[i].termsEnum();
+            }
+            final TermsEnum[] sharedEnums = new TermsEnum[subs.length];
+            final LongValues[] sharedMappings = new LongValues[subs.length];
+            for (int i = 0; i < subs.length; i++) {
+                if (previousIndices[i] >= 0) {
+                    sharedEnums[i] = subs[i].termsEnum();
+                    sharedMappings[i] = previous.getGlobalOrds(previousIndices[i]);
+                }
+            }
+            for (long addedOrd = 0; addedOrd < addedTermCount; addedOrd++) {
+                final TermsEnum addedEnum = addedEnums[addedTerms.getFirstSegmentNumber(addedOrd)];
+                addedEnum.seekExact(addedTerms.getFirstSegmentOrd(addedOrd));
+                final BytesRef term = addedEnum.term();
+                long position = previousValueCount;
+                for (int i = 0; i < subs.length; i++) {
+                    if (sharedEnums[i] == null) {
+                        continue;
+                    }
+                    final TermsEnum.SeekStatus status = sharedEnums[i].seekCeil(term);
+                    if (status == TermsEnum.SeekStatus.END) {
+                        continue;
+                    }
+                    final long previousOrd = sharedMappings[i].get(sharedEnums[i].ord());
+                    if (status == TermsEnum.SeekStatus.FOUND) {
+                        position = previousOrd;
+                        addedTermIsShared.set(addedOrd);
+                        break;
+                    }
+                    position = Math.min(position, previousOrd);
+                }
+                addedTermPositions.set(addedOrd, position);
+            }
+        }
+
+        // assign the global ordinals in term order by interleaving the new terms with the previous terms that are still used
+        final PackedLongValues.Builder previousToGlobalOrdsBuilder = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+        final PackedLongValues.Builder addedToGlobalOrdsBuilder = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+        final PackedLongValues.Builder firstSegments = PackedLongValues.packedBuilder(PackedInts.COMPACT);
+        final PackedLongValues.Builder globalOrdDeltas = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+        long globalOrd = 0;
+        long addedOrd = 0;
+        // the global ordinals of the previous terms before this one did not change
+        long firstShiftedPreviousOrd = previousValueCount;
+        for (long previousOrd = 0; previousOrd <= previousValueCount; previousOrd++) {
+            while (addedOrd < addedTermCount && addedTermPositions.get(addedOrd) == previousOrd
+                    && addedTermIsShared.get(addedOrd) == false) {
+                firstSegments.add(addedSegments.get(addedTerms.getFirstSegmentNumber(addedOrd)));
+                globalOrdDeltas.add(globalOrd - addedTerms.getFirstSegmentOrd(addedOrd));
+                addedToGlobalOrdsBuilder.add(globalOrd);
+                globalOrd++;
+                addedOrd++;
+            }
+            if (previousOrd == previousValueCount) {
+                break;
+            }
+            // unused previous ordinals still get an entry so that the mapping can be looked up by previous ordinal
+            previousToGlobalOrdsBuilder.add(globalOrd);
+            if (globalOrd != previousOrd && firstShiftedPreviousOrd == previousValueCount) {
+                firstShiftedPreviousOrd = previousOrd;
+            }
+            if (usedPreviousOrds == null || usedPreviousOrds.get(previousOrd)) {
+                int firstSegment = newIndices[previous.getFirstSegmentNumber(previousOrd)];
+                final long firstSegmentOrd;
+                if (firstSegment >= 0) {
+                    firstSegmentOrd = previous.getFirstSegmentOrd(previousOrd);
+                } else {
+                    firstSegment = (int) replacementSegments.get(previousOrd);
+                    firstSegmentOrd = replacementSegmentOrds.get(previousOrd);
+                }
+                firstSegments.add(firstSegment);
+                globalOrdDeltas.add(globalOrd - firstSegmentOrd);
+                if (addedOrd < addedTermCount && addedTermPositions.get(addedOrd) == previousOrd) {
+                    assert addedTermIsShared.get(addedOrd);
+                    addedToGlobalOrdsBuilder.add(globalOrd);
+                    addedOrd++;
+                }
+                globalOrd++;
+            }
+        }
+        assert addedOrd == addedTermCount;
+        final long valueCount = globalOrd;
+
+        // and finally map the ordinals of every segment
+        final PackedLongValues previousToGlobalOrds = previousToGlobalOrdsBuilder.build();
+        final PackedLongValues addedToGlobalOrds = addedToGlobalOrdsBuilder.build();
+        final LongValues[] segmentToGlobalOrds = new LongValues[subs.length];
+        for (int i = 0; i < subs.length; i++) {
+            if (segmentValueCounts[i] == valueCount) {
+                segmentToGlobalOrds[i] = LongValues.IDENTITY;
+                continue;
+            }
+            final LongValues mapping;
+            final PackedLongValues globalOrds;
+            if (previousIndices[i] >= 0) {
+                mapping = previous.getGlobalOrds(previousIndices[i]);
+                // global ordinals follow the term order, so the last term of the segment has its largest global ordinal. Only the
+                // mappings that this class built are reused, the ones of a Lucene OrdinalMap are views that would keep it around.
+                if ((mapping instanceof PackedLongValues || mapping == LongValues.IDENTITY)
+                        && (segmentValueCounts[i] == 0 || mapping.get(segmentValueCounts[i] - 1) < firstShiftedPreviousOrd)) {
+                    segmentToGlobalOrds[i] = mapping;
+                    continue;
+                }
+                globalOrds = previousToGlobalOrds;
+            } else {
+                mapping = addedTerms.getGlobalOrds(addedSegments.indexOf(i));
+                globalOrds = addedToGlobalOrds;
+            }
+            final PackedLongValues.Builder builder = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+            for (long ord = 0; ord < segmentValueCounts[i]; ord++) {
+                builder.add(globalOrds.get(mapping.get(ord)));
+            }
+            segmentToGlobalOrds[i] = builder.build();
+        }
+        return new IncrementalGlobalOrdinalMap(segmentKeys, segmentValueCounts, valueCount, segmentToGlobalOrds,
+            firstSegments.build(), globalOrdDeltas.build());
+    }
+
+    @Override
+    public long getValueCount() {
+        return valueCount;
+    }
+
+    @Override
+    public LongValues getGlobalOrds(int segmentIndex) {
+        return segmentToGlobalOrds[segmentIndex];
+    }
+
+    @Override
+    public long getFirstSegmentOrd(long globalOrd) {
+        return globalOrd - globalOrdDeltas.get(globalOrd);
+    }
+
+    @Override
+    public int getFirstSegmentNumber(long globalOrd) {
+        return (int) firstSegments.get(globalOrd);
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        return ramBytesUsed;
+    }
+}
@@ -34,6 +34,8 @@ public class IndexingPressureStats implements Writeable, ToXContentFragment {
     private final long primaryRejections;
     private final long replicaRejections;
     private final long memoryLimit;
+    private final long coalescedShardRequests;
+    private final long coalescedShardRequestBatches;
 
     // These fields will be used for additional back-pressure and metrics in the future
     private final long totalCoordinatingOps;
@@ -64,6 +66,14 @@ public class IndexingPressureStats implements Writeable, ToXContentFragment {
             memoryLimit = -1L;
         }
 
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            coalescedShardRequests = in.readVLong();
+            coalescedShardRequestBatches = in.readVLong();
+        } else {
+            coalescedShardRequests = 0;
+            coalescedShardRequestBatches = 0;
+        }
+
         // These are not currently propagated across the network yet
         this.totalCoordinatingOps = 0;
         this.totalPrimaryOps = 0;
@@ -77,7 +87,8 @@ public class IndexingPressureStats implements Writeable, ToXContentFragment {
                                  long totalReplicaBytes, long currentCombinedCoordinatingAndPrimaryBytes, long currentCoordinatingBytes,
                                  long currentPrimaryBytes, long currentReplicaBytes, long coordinatingRejections, long primaryRejections,
                                  long replicaRejections, long memoryLimit, long totalCoordinatingOps, long totalPrimaryOps,
-                                 long totalReplicaOps, long currentCoordinatingOps, long currentPrimaryOps, long currentReplicaOps) {
+                                 long totalReplicaOps, long currentCoordinatingOps, long currentPrimaryOps, long currentReplicaOps,
+                                 long coalescedShardRequests, long coalescedShardRequestBatches) {
         this.totalCombinedCoordinatingAndPrimaryBytes = totalCombinedCoordinatingAndPrimaryBytes;
         this.totalCoordinatingBytes = totalCoordinatingBytes;
         this.totalPrimaryBytes = totalPrimaryBytes;
@@ -90,6 +101,8 @@ public class IndexingPressureStats implements Writeable, ToXContentFragment {
         this.primaryRejections = primaryRejections;
         this.replicaRejections = replicaRejections;
         this.memoryLimit = memoryLimit;
+        this.coalescedShardRequests = coalescedShardRequests;
+        this.coalescedShardRequestBatches = coalescedShardRequestBatches;
 
         this.totalCoordinatingOps = totalCoordinatingOps;
         this.totalPrimaryOps = totalPrimaryOps;
@@ -118,6 +131,11 @@ public class IndexingPressureStats implements Writeable, ToXContentFragment {
         if (out.getVersion().onOrAfter(Version.V_7_10_0)) {
             out.writeVLong(memoryLimit);
         }
+
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeVLong(coalescedShardRequests);
+            out.writeVLong(coalescedShardRequestBatches);
+        }
     }
 
     public long getTotalCombinedCoordinatingAndPrimaryBytes() {
@@ -164,6 +182,20 @@ public class IndexingPressureStats implements Writeable, ToXContentFragment {
         return replicaRejections;
     }
 
+    /**
+     * The number of shard requests of the coordinating stage that were merged with other requests to the same shard.
+     */
+    public long getCoalescedShardRequests() {
+        return coalescedShardRequests;
+    }
+
+    /**
+     * The number of shard requests that the coalesced shard requests were merged into.
+     */
+    public long getCoalescedShardRequestBatches() {
+        return coalescedShardRequestBatches;
+    }
+
     public long getTotalCoordinatingOps() {
         return totalCoordinatingOps;
     }
@@ -203,6 +235,8 @@ public class IndexingPressureStats implements Writeable, ToXContentFragment {
     private static final String REPLICA_REJECTIONS = "replica_rejections";
     private static final String LIMIT = "limit";
     private static final String LIMIT_IN_BYTES = "limit_in_bytes";
+    private static final String SHARD_REQUESTS = "shard_requests";
+    private static final String BATCHES = "batches";
 
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
@@ -227,6 +261,10 @@ public class IndexingPressureStats implements Writeable, ToXContentFragment {
         builder.endObject();
         builder.humanReadableField(LIMIT_IN_BYTES, LIMIT, new ByteSizeValue(memoryLimit));
         builder.endObject();
+        builder.startObject("coalescing");
+        builder.field(SHARD_REQUESTS, coalescedShardRequests);
+        builder.field(BATCHES, coalescedShardRequestBatches);
+        builder.endObject();
         return builder.endObject();
     }
 }
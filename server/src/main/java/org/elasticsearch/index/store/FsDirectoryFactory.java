@@ -20,6 +20,7 @@ import org.apache.lucene.store.NIOFSDirectory;
 import org.apache.lucene.store.NativeFSLockFactory;
 import org.apache.lucene.store.SimpleFSDirectory;
 import org.apache.lucene.store.SimpleFSLockFactory;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.core.internal.io.IOUtils;
@@ -109,6 +110,20 @@ public class FsDirectoryFactory implements IndexStorePlugin.DirectoryFactory {
         return unwrap instanceof HybridDirectory;
     }
 
+    /**
+     * Returns the path of the given file if the directory is one of the file system directories that this factory creates, which read
+     * files as they are stored on disk, and {@code null} otherwise, e.g. if the directory was wrapped to transform the bytes of files.
+     */
+    @Nullable
+    public static Path getFilePath(Directory directory, String name) {
+        final Class<? extends Directory> directoryClass = directory.getClass();
+        if (directoryClass == HybridDirectory.class || directoryClass == PreLoadMMapDirectory.class || directoryClass == MMapDirectory.class
+            || directoryClass == NIOFSDirectory.class || directoryClass == SimpleFSDirectory.class) {
+            return ((FSDirectory) directory).getDirectory().resolve(name);
+        }
+        return null;
+    }
+
     static final class HybridDirectory extends NIOFSDirectory {
         private final MMapDirectory delegate;
 
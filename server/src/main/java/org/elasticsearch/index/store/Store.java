@@ -39,6 +39,7 @@ import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefBuilder;
 import org.apache.lucene.util.Version;
 import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.Streams;
@@ -168,6 +169,18 @@ public class Store extends AbstractIndexShardComponent implements Closeable, Ref
         return directory;
     }
 
+    /**
+     * Returns the path of the given file on the file system if the directory of this store reads files as they are stored on disk,
+     * see {@link FsDirectoryFactory#getFilePath(Directory, String)}, and {@code null} otherwise.
+     */
+    @Nullable
+    public Path getFilePath(String name) {
+        ensureOpen();
+        final Directory sizeCachingDirectory = directory.getDelegate();
+        assert sizeCachingDirectory instanceof ByteSizeCachingDirectory : sizeCachingDirectory;
+        return FsDirectoryFactory.getFilePath(((ByteSizeCachingDirectory) sizeCachingDirectory).getDelegate(), name);
+    }
+
     /**
      * Returns the last committed segments info for this store
      *
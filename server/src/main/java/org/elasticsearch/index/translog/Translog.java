@@ -23,6 +23,8 @@ import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.lucene.uid.Versions;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.metrics.HistogramMetric;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.ReleasableLock;
 import org.elasticsearch.core.internal.io.IOUtils;
@@ -51,8 +53,8 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -123,6 +125,10 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
     private final String translogUUID;
     private final TranslogDeletionPolicy deletionPolicy;
     private final LongConsumer persistedSequenceNumberConsumer;
+    private final CounterMetric syncs = new CounterMetric();
+    private final CounterMetric syncTimeInNanos = new CounterMetric();
+    private final HistogramMetric syncLatencyMicros = new HistogramMetric(TranslogSyncStats.LATENCY_BUCKETS);
+    private final HistogramMetric syncBatchSize = new HistogramMetric(TranslogSyncStats.BATCH_SIZE_BUCKETS);
 
     /**
      * Creates a new Translog instance. This method will create a new transaction log unless the given {@link TranslogGeneration} is
@@ -789,19 +795,32 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
     /**
      * Ensures that all locations in the given stream have been synced / written to the underlying storage.
      * This method allows for internal optimization to minimize the amount of fsync operations if multiple
-     * locations must be synced.
+     * locations must be synced. The latency of the call and the number of locations are recorded in the {@link TranslogSyncStats}.
      *
      * @return Returns <code>true</code> iff this call caused an actual sync operation otherwise <code>false</code>
      */
     public boolean ensureSynced(Stream<Location> locations) throws IOException {
-        final Optional<Location> max = locations.max(Location::compareTo);
+        Location max = null;
+        int batchSize = 0;
+        for (Iterator<Location> iterator = locations.iterator(); iterator.hasNext(); batchSize++) {
+            final Location location = iterator.next();
+            if (max == null || location.compareTo(max) > 0) {
+                max = location;
+            }
+        }
         // we only need to sync the max location since it will sync all other
         // locations implicitly
-        if (max.isPresent()) {
-            return ensureSynced(max.get());
-        } else {
+        if (max == null) {
             return false;
         }
+        final long startTimeNanos = System.nanoTime();
+        final boolean synced = ensureSynced(max);
+        final long tookInNanos = System.nanoTime() - startTimeNanos;
+        syncs.inc();
+        syncTimeInNanos.inc(tookInNanos);
+        syncLatencyMicros.inc(TimeUnit.NANOSECONDS.toMicros(tookInNanos));
+        syncBatchSize.inc(batchSize);
+        return synced;
     }
 
     /**
@@ -834,12 +853,16 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
     /**
      * return stats
      */
+    private TranslogSyncStats syncStats() {
+        return new TranslogSyncStats(syncs.count(), syncTimeInNanos.count(), syncLatencyMicros.counts(), syncBatchSize.counts());
+    }
+
     public TranslogStats stats() {
         // acquire lock to make the two numbers roughly consistent (no file change half way)
         try (ReleasableLock lock = readLock.acquire()) {
             final long uncommittedGen = minGenerationForSeqNo(deletionPolicy.getLocalCheckpointOfSafeCommit() + 1, current, readers);
             return new TranslogStats(totalOperations(), sizeInBytes(), totalOperationsByMinGen(uncommittedGen),
-                sizeInBytesByMinGen(uncommittedGen), earliestLastModifiedAge());
+                sizeInBytesByMinGen(uncommittedGen), earliestLastModifiedAge(), syncStats());
         }
     }
 
@@ -0,0 +1,201 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.index.translog;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.common.CheckedConsumer;
+import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.AsyncIOProcessor;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Coordinates the translog syncs that requests with {@link Translog.Durability#REQUEST} durability wait for across all the shards
+ * of a node that live on the same data path. Rather than each shard draining its own queue of pending locations, all pending
+ * locations of a data path are queued together and the caller that ends up processing the queue syncs every shard of the batch
+ * once, which turns many small concurrent fsyncs on the same device into waves. When a window is configured the processing caller
+ * additionally waits for that long before draining the queue so that more requests join the wave.
+ * <p>
+ * The shards of a wave are synced concurrently, the processing caller syncing some of them while the given executor syncs the others,
+ * and the requests of a shard are notified as soon as the translog of that shard is synced. A slow fsync therefore only holds up the
+ * requests of its own shard and the start of the next wave of its data path.
+ * <p>
+ * The coordinator is disabled by default in which case shards keep syncing their translog on their own.
+ */
+public final class TranslogSyncCoordinator {
+
+    private static final Logger logger = LogManager.getLogger(TranslogSyncCoordinator.class);
+
+    public static final Setting<Boolean> GROUP_COMMIT_ENABLED_SETTING =
+        Setting.boolSetting("indices.translog.group_commit.enabled", false, Property.NodeScope);
+
+    public static final Setting<TimeValue> GROUP_COMMIT_WINDOW_SETTING =
+        Setting.timeSetting("indices.translog.group_commit.window", TimeValue.ZERO, TimeValue.ZERO, Property.NodeScope);
+
+    /**
+     * A coordinator that is disabled, shards that are given this coordinator sync their translog on their own.
+     */
+    public static final TranslogSyncCoordinator DISABLED = new TranslogSyncCoordinator(false, TimeValue.ZERO, null, null);
+
+    // the shards of a data path share a single queue so it is larger than the queue of a single shard
+    private static final int QUEUE_SIZE = 4096;
+
+    private final boolean enabled;
+    private final long windowInNanos;
+    private final ThreadContext threadContext;
+    private final Executor executor;
+    private final Map<Path, DataPathProcessor> processors = ConcurrentCollections.newConcurrentMap();
+
+    /**
+     * @param executor the executor that syncs the shards of a wave concurrently with the processing caller, it must not be an
+     *                 executor whose threads may be blocked waiting for a translog sync
+     */
+    public TranslogSyncCoordinator(Settings settings, ThreadContext threadContext, Executor executor) {
+        this(GROUP_COMMIT_ENABLED_SETTING.get(settings), GROUP_COMMIT_WINDOW_SETTING.get(settings), threadContext, executor);
+    }
+
+    private TranslogSyncCoordinator(boolean enabled, TimeValue window, ThreadContext threadContext, Executor executor) {
+        this.enabled = enabled;
+        this.windowInNanos = window.nanos();
+        this.threadContext = threadContext;
+        this.executor = executor;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Syncs the given location of a shard together with the pending locations of the other shards on the same data path. The listener
+     * is notified once the location is synced, or with the exception that prevented syncing the translog of this shard.
+     *
+     * @param dataPath the root data path of the shard, see {@link org.elasticsearch.index.shard.ShardPath#getRootDataPath()}
+     * @param syncer   syncs a batch of locations of the shard, it must be the same instance for all the calls of a shard
+     */
+    public void sync(Path dataPath, CheckedConsumer<Stream<Translog.Location>, IOException> syncer, Translog.Location location,
+                     Consumer<Exception> listener) {
+        assert enabled : "translog group commit is disabled";
+        final PendingSync pendingSync = new PendingSync(syncer, location, threadContext.newRestorableContext(false), listener);
+        // the listener is notified once the translog of the shard is synced, the processor only notifies it if it failed to process it
+        processors.computeIfAbsent(dataPath, path -> new DataPathProcessor()).put(pendingSync, e -> {
+            if (e != null) {
+                pendingSync.notifyListener(e);
+            }
+        });
+    }
+
+    private static final class PendingSync {
+        private final CheckedConsumer<Stream<Translog.Location>, IOException> syncer;
+        private final Translog.Location location;
+        private final Supplier<ThreadContext.StoredContext> context;
+        private final Consumer<Exception> listener;
+        private final AtomicBoolean notified = new AtomicBoolean();
+
+        private PendingSync(CheckedConsumer<Stream<Translog.Location>, IOException> syncer, Translog.Location location,
+                            Supplier<ThreadContext.StoredContext> context, Consumer<Exception> listener) {
+            this.syncer = syncer;
+            this.location = location;
+            this.context = context;
+            this.listener = listener;
+        }
+
+        void notifyListener(Exception failure) {
+            if (notified.compareAndSet(false, true)) {
+                try (ThreadContext.StoredContext ignore = context.get()) {
+                    listener.accept(failure);
+                } catch (Exception e) {
+                    logger.warn("failed to notify callback", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Syncs the shards of a wave until none is left, notifying the requests of each shard once its translog is synced.
+     */
+    private static void syncShards(Queue<List<PendingSync>> shardSyncs, CountDownLatch shardsSynced) {
+        List<PendingSync> pendingSyncs;
+        while ((pendingSyncs = shardSyncs.poll()) != null) {
+            Exception failure = null;
+            try {
+                pendingSyncs.get(0).syncer.accept(pendingSyncs.stream().map(pendingSync -> pendingSync.location));
+            } catch (Exception e) {
+                // a failure to sync the translog of a shard must not fail the requests of the other shards of the batch
+                logger.debug("failed to sync translog", e);
+                failure = e;
+            }
+            for (PendingSync pendingSync : pendingSyncs) {
+                pendingSync.notifyListener(failure);
+            }
+            shardsSynced.countDown();
+        }
+    }
+
+    private final class DataPathProcessor extends AsyncIOProcessor<PendingSync> {
+
+        DataPathProcessor() {
+            super(logger, QUEUE_SIZE, threadContext);
+        }
+
+        @Override
+        protected void beforeDrain() {
+            if (windowInNanos > 0) {
+                LockSupport.parkNanos(windowInNanos);
+            }
+        }
+
+        @Override
+        protected void write(List<Tuple<PendingSync, Consumer<Exception>>> candidates) {
+            final Map<CheckedConsumer<Stream<Translog.Location>, IOException>, List<PendingSync>> syncsPerShard =
+                new IdentityHashMap<>();
+            for (Tuple<PendingSync, Consumer<Exception>> candidate : candidates) {
+                syncsPerShard.computeIfAbsent(candidate.v1().syncer, syncer -> new ArrayList<>()).add(candidate.v1());
+            }
+            final Queue<List<PendingSync>> shardSyncs = new ConcurrentLinkedQueue<>(syncsPerShard.values());
+            final CountDownLatch shardsSynced = new CountDownLatch(syncsPerShard.size());
+            for (int i = 1; i < syncsPerShard.size(); i++) {
+                try {
+                    executor.execute(() -> syncShards(shardSyncs, shardsSynced));
+                } catch (RejectedExecutionException e) {
+                    // the processing caller syncs the shards that the executor does not take
+                    logger.debug("failed to fork translog sync", e);
+                    break;
+                }
+            }
+            syncShards(shardSyncs, shardsSynced);
+            // wait for the shards synced by the executor, so that the next wave does not sync them concurrently
+            try {
+                shardsSynced.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
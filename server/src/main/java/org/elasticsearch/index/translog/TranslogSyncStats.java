@@ -0,0 +1,133 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.index.translog;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.metrics.HistogramMetric;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Statistics about the requests to sync translog locations, see {@link Translog#ensureSynced(java.util.stream.Stream)}. Each request
+ * covers a batch of locations that were coalesced into a single sync. The latency histogram is in microseconds, both histograms use
+ * the power of two buckets of {@link HistogramMetric}.
+ */
+public class TranslogSyncStats implements Writeable, ToXContentFragment {
+
+    static final int LATENCY_BUCKETS = 24;
+    static final int BATCH_SIZE_BUCKETS = 12;
+
+    private long syncs;
+    private long totalTimeInNanos;
+    private long[] latencyHistogram;
+    private long[] batchSizeHistogram;
+
+    public TranslogSyncStats() {
+        this(0, 0, new long[LATENCY_BUCKETS], new long[BATCH_SIZE_BUCKETS]);
+    }
+
+    public TranslogSyncStats(long syncs, long totalTimeInNanos, long[] latencyHistogram, long[] batchSizeHistogram) {
+        if (syncs < 0) {
+            throw new IllegalArgumentException("syncs must be >= 0");
+        }
+        if (totalTimeInNanos < 0) {
+            throw new IllegalArgumentException("totalTimeInNanos must be >= 0");
+        }
+        this.syncs = syncs;
+        this.totalTimeInNanos = totalTimeInNanos;
+        this.latencyHistogram = latencyHistogram;
+        this.batchSizeHistogram = batchSizeHistogram;
+    }
+
+    public TranslogSyncStats(StreamInput in) throws IOException {
+        syncs = in.readVLong();
+        totalTimeInNanos = in.readVLong();
+        latencyHistogram = in.readVLongArray();
+        batchSizeHistogram = in.readVLongArray();
+    }
+
+    public void add(TranslogSyncStats other) {
+        if (other == null) {
+            return;
+        }
+        syncs += other.syncs;
+        totalTimeInNanos += other.totalTimeInNanos;
+        latencyHistogram = addHistograms(latencyHistogram, other.latencyHistogram);
+        batchSizeHistogram = addHistograms(batchSizeHistogram, other.batchSizeHistogram);
+    }
+
+    private static long[] addHistograms(long[] histogram, long[] other) {
+        final long[] sum = Arrays.copyOf(histogram, Math.max(histogram.length, other.length));
+        for (int i = 0; i < other.length; i++) {
+            sum[i] += other[i];
+        }
+        return sum;
+    }
+
+    /** the number of requests to sync a batch of translog locations */
+    public long getSyncs() {
+        return syncs;
+    }
+
+    public TimeValue getTotalTime() {
+        return TimeValue.timeValueNanos(totalTimeInNanos);
+    }
+
+    /** the number of syncs per latency bucket, see {@link HistogramMetric} for the bounds of the buckets */
+    public long[] getLatencyHistogram() {
+        return latencyHistogram;
+    }
+
+    /** the number of syncs per batch size bucket, see {@link HistogramMetric} for the bounds of the buckets */
+    public long[] getBatchSizeHistogram() {
+        return batchSizeHistogram;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject("sync");
+        builder.field("total", syncs);
+        builder.humanReadableField("total_time_in_millis", "total_time", getTotalTime());
+        histogramToXContent(builder, "latency_histogram", "_micros", latencyHistogram);
+        histogramToXContent(builder, "batch_size_histogram", "", batchSizeHistogram);
+        builder.endObject();
+        return builder;
+    }
+
+    private static void histogramToXContent(XContentBuilder builder, String name, String unitSuffix, long[] histogram)
+        throws IOException {
+        builder.startArray(name);
+        for (int i = 0; i < histogram.length; i++) {
+            if (histogram[i] == 0) {
+                continue;
+            }
+            builder.startObject();
+            builder.field("ge" + unitSuffix, HistogramMetric.lowerBound(i));
+            if (i < histogram.length - 1) {
+                builder.field("lt" + unitSuffix, HistogramMetric.upperBound(i));
+            }
+            builder.field("count", histogram[i]);
+            builder.endObject();
+        }
+        builder.endArray();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(syncs);
+        out.writeVLong(totalTimeInNanos);
+        out.writeVLongArray(latencyHistogram);
+        out.writeVLongArray(batchSizeHistogram);
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.cache.RemovalListener;
+import org.elasticsearch.common.cache.RemovalNotification;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caches the background frequencies of the terms of {@code significant_terms} and {@code significant_text} aggregations in
+ * single segments, so that requests with the same background filter only need to count the matches of a term in the segments
+ * that were added since the term was last looked up. Entries are keyed by the reader cache key of a segment, which changes when
+ * documents of the segment are deleted, and are removed once their segment is closed.
+ * <p>
+ * The memory used by the entries is accounted on the {@link CircuitBreaker#FIELDDATA} breaker, like other caches whose
+ * entries are bound to the lifetime of segments. Entries that would trip the breaker are not cached.
+ */
+public final class IndicesBackgroundFrequencyCache implements RemovalListener<IndicesBackgroundFrequencyCache.Key, Long>, Closeable {
+
+    public static final Setting<ByteSizeValue> INDICES_BACKGROUND_FREQUENCY_CACHE_SIZE =
+        Setting.memorySizeSetting("indices.aggregations.background_frequency_cache.size", "1%", Property.NodeScope);
+
+    private final ConcurrentMap<CleanupKey, Boolean> registeredClosedListeners = ConcurrentCollections.newConcurrentMap();
+    private final Set<CleanupKey> keysToClean = ConcurrentCollections.newConcurrentSet();
+    private final CircuitBreaker breaker;
+    private final Cache<Key, Long> cache;
+
+    IndicesBackgroundFrequencyCache(Settings settings, CircuitBreaker breaker) {
+        this.breaker = breaker;
+        this.cache = CacheBuilder.<Key, Long>builder()
+            .setMaximumWeight(INDICES_BACKGROUND_FREQUENCY_CACHE_SIZE.get(settings).getBytes())
+            .weigher((k, v) -> k.ramBytesUsed())
+            .removalListener(this)
+            .build();
+    }
+
+    @Override
+    public void close() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void onRemoval(RemovalNotification<Key, Long> notification) {
+        breaker.addWithoutBreaking(-notification.getKey().ramBytesUsed());
+    }
+
+    /**
+     * Returns the cached number of documents of the given segment that match both queries, or {@code -1} if it is not cached.
+     *
+     * @param shardIdentity    identifies the shard of the segment, used to clear the entries of a shard
+     * @param segmentCacheKey  the reader cache key of the segment
+     * @param termQuery        the query that matches the documents that contain the term
+     * @param backgroundFilter the background filter of the aggregation, {@code null} if the background is the whole segment
+     */
+    long get(Object shardIdentity, IndexReader.CacheKey segmentCacheKey, Query termQuery, @Nullable Query backgroundFilter) {
+        final Long freq = cache.get(new Key(shardIdentity, segmentCacheKey, termQuery, backgroundFilter));
+        return freq == null ? -1 : freq;
+    }
+
+    /**
+     * Caches the background frequency of a term in the given segment until the segment is closed or the entry is evicted.
+     */
+    void put(Object shardIdentity, IndexReader.CacheHelper segmentCacheHelper, Query termQuery, @Nullable Query backgroundFilter,
+             long freq) {
+        final IndexReader.CacheKey segmentCacheKey = segmentCacheHelper.getKey();
+        final Key key = new Key(shardIdentity, segmentCacheKey, termQuery, backgroundFilter);
+        try {
+            breaker.addEstimateBytesAndMaybeBreak(key.ramBytesUsed(), "background_frequencies");
+        } catch (CircuitBreakingException e) {
+            // the frequency is cheap to compute again compared to failing the request
+            return;
+        }
+        cache.put(key, freq);
+        // see if its the first time we see this segment, and make sure to register a cleanup key
+        final CleanupKey cleanupKey = new CleanupKey(shardIdentity, segmentCacheKey);
+        if (registeredClosedListeners.containsKey(cleanupKey) == false) {
+            Boolean previous = registeredClosedListeners.putIfAbsent(cleanupKey, Boolean.TRUE);
+            if (previous == null) {
+                segmentCacheHelper.addClosedListener(cleanupKey);
+            }
+        }
+    }
+
+    /**
+     * Removes all the entries of the given shard.
+     */
+    void clear(Object shardIdentity) {
+        keysToClean.add(new CleanupKey(shardIdentity, null));
+        cleanCache();
+    }
+
+    synchronized void cleanCache() {
+        final Set<CleanupKey> currentKeysToClean = new HashSet<>();
+        final Set<Object> currentFullClean = new HashSet<>();
+        for (Iterator<CleanupKey> iterator = keysToClean.iterator(); iterator.hasNext(); ) {
+            CleanupKey cleanupKey = iterator.next();
+            iterator.remove();
+            if (cleanupKey.segmentCacheKey == null) {
+                // null indicates full cleanup of the shard
+                currentFullClean.add(cleanupKey.shardIdentity);
+            } else {
+                currentKeysToClean.add(cleanupKey);
+            }
+        }
+        if (currentKeysToClean.isEmpty() == false || currentFullClean.isEmpty() == false) {
+            for (Iterator<Key> iterator = cache.keys().iterator(); iterator.hasNext(); ) {
+                Key key = iterator.next();
+                if (currentFullClean.contains(key.shardIdentity)
+                    || currentKeysToClean.contains(new CleanupKey(key.shardIdentity, key.segmentCacheKey))) {
+                    iterator.remove();
+                }
+            }
+        }
+        cache.refresh();
+    }
+
+    /**
+     * Returns the current number of entries of the cache
+     */
+    int count() {
+        return cache.count();
+    }
+
+    int numRegisteredCloseListeners() { // for testing
+        return registeredClosedListeners.size();
+    }
+
+    static class Key implements Accountable {
+        private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(Key.class)
+            + RamUsageEstimator.shallowSizeOfInstance(Long.class);
+        // the same default as Lucene's query cache uses for queries that don't report their memory usage
+        private static final long DEFAULT_QUERY_RAM_BYTES_USED = 1024;
+
+        final Object shardIdentity; // use as identity equality
+        final IndexReader.CacheKey segmentCacheKey;
+        final Query termQuery;
+        // shared by all the entries of a request so it is not accounted
+        final Query backgroundFilter;
+
+        Key(Object shardIdentity, IndexReader.CacheKey segmentCacheKey, Query termQuery, @Nullable Query backgroundFilter) {
+            this.shardIdentity = Objects.requireNonNull(shardIdentity);
+            this.segmentCacheKey = Objects.requireNonNull(segmentCacheKey);
+            this.termQuery = Objects.requireNonNull(termQuery);
+            this.backgroundFilter = backgroundFilter;
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            if (termQuery instanceof TermQuery) {
+                final Term term = ((TermQuery) termQuery).getTerm();
+                return BASE_RAM_BYTES_USED + RamUsageEstimator.shallowSizeOfInstance(TermQuery.class)
+                    + RamUsageEstimator.shallowSizeOfInstance(Term.class) + term.bytes().length;
+            }
+            return BASE_RAM_BYTES_USED + DEFAULT_QUERY_RAM_BYTES_USED;
+        }
+
+        @Override
+        public Collection<Accountable> getChildResources() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return shardIdentity == key.shardIdentity
+                && segmentCacheKey.equals(key.segmentCacheKey)
+                && termQuery.equals(key.termQuery)
+                && Objects.equals(backgroundFilter, key.backgroundFilter);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = System.identityHashCode(shardIdentity);
+            result = 31 * result + segmentCacheKey.hashCode();
+            result = 31 * result + termQuery.hashCode();
+            result = 31 * result + Objects.hashCode(backgroundFilter);
+            return result;
+        }
+    }
+
+    private class CleanupKey implements IndexReader.ClosedListener {
+        final Object shardIdentity;
+        final IndexReader.CacheKey segmentCacheKey;
+
+        private CleanupKey(Object shardIdentity, IndexReader.CacheKey segmentCacheKey) {
+            this.shardIdentity = shardIdentity;
+            this.segmentCacheKey = segmentCacheKey;
+        }
+
+        @Override
+        public void onClose(IndexReader.CacheKey cacheKey) {
+            Boolean remove = registeredClosedListeners.remove(this);
+            if (remove != null) {
+                keysToClean.add(this);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            CleanupKey that = (CleanupKey) o;
+            return shardIdentity == that.shardIdentity && Objects.equals(segmentCacheKey, that.segmentCacheKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(shardIdentity) + Objects.hashCode(segmentCacheKey);
+        }
+    }
+}
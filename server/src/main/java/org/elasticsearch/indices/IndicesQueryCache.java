@@ -21,6 +21,7 @@ import org.apache.lucene.search.QueryCachingPolicy;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.ScorerSupplier;
 import org.apache.lucene.search.Weight;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.lucene.ShardCoreKeyMap;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
@@ -31,6 +32,7 @@ import org.elasticsearch.index.shard.ShardId;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
@@ -54,6 +56,8 @@ public class IndicesQueryCache implements QueryCache, Closeable {
             Setting.boolSetting("indices.queries.cache.all_segments", false, Property.NodeScope);
 
     private final LRUQueryCache cache;
+    @Nullable
+    private final PersistentQueryCache persistentCache;
     private final ShardCoreKeyMap shardKeyMap = new ShardCoreKeyMap();
     private final Map<ShardId, Stats> shardStats = new ConcurrentHashMap<>();
     private volatile long sharedRamBytesUsed;
@@ -64,6 +68,10 @@ public class IndicesQueryCache implements QueryCache, Closeable {
     private final Map<Object, StatsAndCount> stats2 = Collections.synchronizedMap(new IdentityHashMap<>());
 
     public IndicesQueryCache(Settings settings) {
+        this(settings, null);
+    }
+
+    public IndicesQueryCache(Settings settings, @Nullable PersistentQueryCache persistentCache) {
         final ByteSizeValue size = INDICES_CACHE_QUERY_SIZE_SETTING.get(settings);
         final int count = INDICES_CACHE_QUERY_COUNT_SETTING.get(settings);
         logger.debug("using [node] query cache with size [{}] max filter count [{}]",
@@ -74,6 +82,7 @@ public class IndicesQueryCache implements QueryCache, Closeable {
             cache = new ElasticsearchLRUQueryCache(count, size.getBytes());
         }
         sharedRamBytesUsed = 0;
+        this.persistentCache = persistentCache;
     }
 
     /** Get usage statistics for the given shard. */
@@ -110,22 +119,37 @@ public class IndicesQueryCache implements QueryCache, Closeable {
 
     @Override
     public Weight doCache(Weight weight, QueryCachingPolicy policy) {
+        return doCache(weight, policy, false);
+    }
+
+    /**
+     * Same as {@link #doCache(Weight, QueryCachingPolicy)}, but also backs the cached doc id sets with the
+     * {@link PersistentQueryCache persistent tier} if {@code persistent} is set and the tier is enabled on this node.
+     */
+    public Weight doCache(Weight weight, QueryCachingPolicy policy, boolean persistent) {
         while (weight instanceof CachingWeightWrapper) {
-            weight = ((CachingWeightWrapper) weight).in;
+            weight = ((CachingWeightWrapper) weight).uncached;
+        }
+        final Weight uncached = weight;
+        if (persistent && persistentCache != null) {
+            // the persistent tier sits behind the on-heap cache which only asks it for doc id sets on misses
+            weight = persistentCache.doCache(weight, policy);
         }
         final Weight in = cache.doCache(weight, policy);
         // We wrap the weight to track the readers it sees and map them with
         // the shards they belong to
-        return new CachingWeightWrapper(in);
+        return new CachingWeightWrapper(in, uncached);
     }
 
     private class CachingWeightWrapper extends Weight {
 
         private final Weight in;
+        private final Weight uncached;
 
-        protected CachingWeightWrapper(Weight in) {
+        protected CachingWeightWrapper(Weight in, Weight uncached) {
             super(in.getQuery());
             this.in = in;
+            this.uncached = uncached;
         }
 
         @Override
@@ -189,6 +213,14 @@ public class IndicesQueryCache implements QueryCache, Closeable {
         // we only know that there are no more doc id sets, but we still track
         // recently used queries, which we want to reclaim.
         cache.clear();
+
+        if (persistentCache != null) {
+            try {
+                persistentCache.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
     }
 
     private static class Stats implements Cloneable {
@@ -68,6 +68,16 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
         Setting.memorySizeSetting("indices.requests.cache.size", "1%", Property.NodeScope);
     public static final Setting<TimeValue> INDICES_CACHE_QUERY_EXPIRE =
         Setting.positiveTimeSetting("indices.requests.cache.expire", new TimeValue(0), Property.NodeScope);
+    /**
+     * A setting to only admit new entries into the cache if they are requested more frequently than the entries they would evict,
+     * which prevents one-off expensive requests from flushing out entries that are requested over and over again.
+     */
+    public static final Setting<Boolean> INDICES_CACHE_QUERY_FREQUENCY_ADMISSION =
+        Setting.boolSetting("indices.requests.cache.frequency_admission", false, Property.NodeScope);
+
+    // the assumed average size of a cache entry, used to size the access frequency estimates of the cache
+    private static final long ESTIMATED_ENTRY_SIZE_IN_BYTES = 4096;
+    private static final long MAX_ESTIMATED_ENTRIES = 1 << 20;
 
     private final ConcurrentMap<CleanupKey, Boolean> registeredClosedListeners = ConcurrentCollections.newConcurrentMap();
     private final Set<CleanupKey> keysToClean = ConcurrentCollections.newConcurrentSet();
@@ -84,6 +94,10 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
         if (expire != null) {
             cacheBuilder.setExpireAfterAccess(expire);
         }
+        if (INDICES_CACHE_QUERY_FREQUENCY_ADMISSION.get(settings)) {
+            long estimatedEntries = Math.max(1, Math.min(MAX_ESTIMATED_ENTRIES, sizeInBytes / ESTIMATED_ENTRY_SIZE_IN_BYTES));
+            cacheBuilder.frequencyBasedAdmission(Math.toIntExact(estimatedEntries));
+        }
         cache = cacheBuilder.build();
     }
 
@@ -0,0 +1,219 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.mapper.MappingLookup;
+
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caches the partial aggregation results of single segments, so that the aggregations of a shard only need to collect the
+ * segments that were added since the last time the same request was executed. Unlike the {@link IndicesRequestCache}, whose
+ * entries are invalidated by any refresh of the shard, the entries of this cache are keyed by the reader cache key of a segment,
+ * which only changes when the segment is merged away or when documents of the segment are deleted.
+ * <p>
+ * Entries are removed once their segment is closed, through an {@link IndexReader.ClosedListener} that is registered on the
+ * segment the first time it is cached, and by size based eviction.
+ */
+public final class IndicesSegmentAggregationCache implements Closeable {
+
+    /**
+     * A setting to enable or disable the caching of per-segment aggregation results on an index level.
+     */
+    public static final Setting<Boolean> INDEX_SEGMENT_AGGREGATION_CACHE_ENABLED_SETTING =
+        Setting.boolSetting("index.aggregations.segment_cache.enable", false, Property.Dynamic, Property.IndexScope);
+    public static final Setting<ByteSizeValue> INDICES_SEGMENT_AGGREGATION_CACHE_SIZE =
+        Setting.memorySizeSetting("indices.aggregations.segment_cache.size", "1%", Property.NodeScope);
+
+    private final ConcurrentMap<CleanupKey, Boolean> registeredClosedListeners = ConcurrentCollections.newConcurrentMap();
+    private final Set<CleanupKey> keysToClean = ConcurrentCollections.newConcurrentSet();
+    private final Cache<Key, BytesReference> cache;
+
+    IndicesSegmentAggregationCache(Settings settings) {
+        cache = CacheBuilder.<Key, BytesReference>builder()
+            .setMaximumWeight(INDICES_SEGMENT_AGGREGATION_CACHE_SIZE.get(settings).getBytes())
+            .weigher((k, v) -> k.ramBytesUsed() + v.ramBytesUsed())
+            .build();
+    }
+
+    @Override
+    public void close() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Returns the cached partial aggregation results of the given segment, or {@code null} if they are not cached.
+     *
+     * @param shardIdentity    identifies the shard of the segment, used to clear the entries of a shard
+     * @param mappingCacheKey  the mapping that the request was executed with
+     * @param segmentCacheKey  the reader cache key of the segment
+     * @param requestCacheKey  the request that the aggregations are part of
+     */
+    BytesReference get(Object shardIdentity, MappingLookup.CacheKey mappingCacheKey, IndexReader.CacheKey segmentCacheKey,
+                       BytesReference requestCacheKey) {
+        return cache.get(new Key(shardIdentity, mappingCacheKey, segmentCacheKey, requestCacheKey));
+    }
+
+    /**
+     * Caches the partial aggregation results of the given segment until the segment is closed or the entry is evicted.
+     */
+    void put(Object shardIdentity, MappingLookup.CacheKey mappingCacheKey, IndexReader.CacheHelper segmentCacheHelper,
+             BytesReference requestCacheKey, BytesReference value) {
+        final IndexReader.CacheKey segmentCacheKey = segmentCacheHelper.getKey();
+        cache.put(new Key(shardIdentity, mappingCacheKey, segmentCacheKey, requestCacheKey), value);
+        // see if its the first time we see this segment, and make sure to register a cleanup key
+        final CleanupKey cleanupKey = new CleanupKey(shardIdentity, segmentCacheKey);
+        if (registeredClosedListeners.containsKey(cleanupKey) == false) {
+            Boolean previous = registeredClosedListeners.putIfAbsent(cleanupKey, Boolean.TRUE);
+            if (previous == null) {
+                segmentCacheHelper.addClosedListener(cleanupKey);
+            }
+        }
+    }
+
+    /**
+     * Removes all the entries of the given shard.
+     */
+    void clear(Object shardIdentity) {
+        keysToClean.add(new CleanupKey(shardIdentity, null));
+        cleanCache();
+    }
+
+    synchronized void cleanCache() {
+        final Set<CleanupKey> currentKeysToClean = new HashSet<>();
+        final Set<Object> currentFullClean = new HashSet<>();
+        for (Iterator<CleanupKey> iterator = keysToClean.iterator(); iterator.hasNext(); ) {
+            CleanupKey cleanupKey = iterator.next();
+            iterator.remove();
+            if (cleanupKey.segmentCacheKey == null) {
+                // null indicates full cleanup of the shard
+                currentFullClean.add(cleanupKey.shardIdentity);
+            } else {
+                currentKeysToClean.add(cleanupKey);
+            }
+        }
+        if (currentKeysToClean.isEmpty() == false || currentFullClean.isEmpty() == false) {
+            for (Iterator<Key> iterator = cache.keys().iterator(); iterator.hasNext(); ) {
+                Key key = iterator.next();
+                if (currentFullClean.contains(key.shardIdentity)
+                    || currentKeysToClean.contains(new CleanupKey(key.shardIdentity, key.segmentCacheKey))) {
+                    iterator.remove();
+                }
+            }
+        }
+        cache.refresh();
+    }
+
+    /**
+     * Returns the current number of entries of the cache
+     */
+    int count() {
+        return cache.count();
+    }
+
+    int numRegisteredCloseListeners() { // for testing
+        return registeredClosedListeners.size();
+    }
+
+    static class Key implements Accountable {
+        private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(Key.class);
+
+        final Object shardIdentity; // use as identity equality
+        final MappingLookup.CacheKey mappingCacheKey;
+        final IndexReader.CacheKey segmentCacheKey;
+        final BytesReference requestCacheKey;
+
+        Key(Object shardIdentity, MappingLookup.CacheKey mappingCacheKey, IndexReader.CacheKey segmentCacheKey,
+            BytesReference requestCacheKey) {
+            this.shardIdentity = Objects.requireNonNull(shardIdentity);
+            this.mappingCacheKey = Objects.requireNonNull(mappingCacheKey);
+            this.segmentCacheKey = Objects.requireNonNull(segmentCacheKey);
+            this.requestCacheKey = Objects.requireNonNull(requestCacheKey);
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            return BASE_RAM_BYTES_USED + requestCacheKey.length();
+        }
+
+        @Override
+        public Collection<Accountable> getChildResources() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return shardIdentity == key.shardIdentity
+                && mappingCacheKey.equals(key.mappingCacheKey)
+                && segmentCacheKey.equals(key.segmentCacheKey)
+                && requestCacheKey.equals(key.requestCacheKey);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = System.identityHashCode(shardIdentity);
+            result = 31 * result + mappingCacheKey.hashCode();
+            result = 31 * result + segmentCacheKey.hashCode();
+            result = 31 * result + requestCacheKey.hashCode();
+            return result;
+        }
+    }
+
+    private class CleanupKey implements IndexReader.ClosedListener {
+        final Object shardIdentity;
+        final IndexReader.CacheKey segmentCacheKey;
+
+        private CleanupKey(Object shardIdentity, IndexReader.CacheKey segmentCacheKey) {
+            this.shardIdentity = shardIdentity;
+            this.segmentCacheKey = segmentCacheKey;
+        }
+
+        @Override
+        public void onClose(IndexReader.CacheKey cacheKey) {
+            Boolean remove = registeredClosedListeners.remove(this);
+            if (remove != null) {
+                keysToClean.add(this);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            CleanupKey that = (CleanupKey) o;
+            return shardIdentity == that.shardIdentity && Objects.equals(segmentCacheKey, that.segmentCacheKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(shardIdentity) + Objects.hashCode(segmentCacheKey);
+        }
+    }
+}
@@ -13,6 +13,8 @@ import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.message.ParameterizedMessage;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader.CacheHelper;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.Query;
 import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.util.CollectionUtil;
 import org.apache.lucene.util.RamUsageEstimator;
@@ -109,6 +111,7 @@ import org.elasticsearch.index.shard.IndexShardState;
 import org.elasticsearch.index.shard.IndexingOperationListener;
 import org.elasticsearch.index.shard.IndexingStats;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.translog.TranslogSyncCoordinator;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.indices.cluster.IndicesClusterStateService;
 import org.elasticsearch.indices.fielddata.cache.IndicesFieldDataCache;
@@ -120,6 +123,9 @@ import org.elasticsearch.plugins.IndexStorePlugin;
 import org.elasticsearch.plugins.PluginsService;
 import org.elasticsearch.repositories.RepositoriesService;
 import org.elasticsearch.script.ScriptService;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.SegmentAggregationCache;
+import org.elasticsearch.search.aggregations.bucket.terms.BackgroundFrequencyCache;
 import org.elasticsearch.search.aggregations.support.ValuesSourceRegistry;
 import org.elasticsearch.search.internal.AliasFilter;
 import org.elasticsearch.search.internal.SearchContext;
@@ -210,7 +216,10 @@ public class IndicesService extends AbstractLifecycleComponent
     private final IndexingMemoryController indexingMemoryController;
     private final TimeValue cleanInterval;
     final IndicesRequestCache indicesRequestCache; // pkg-private for testing
+    final IndicesSegmentAggregationCache indicesSegmentAggregationCache; // pkg-private for testing
+    final IndicesBackgroundFrequencyCache indicesBackgroundFrequencyCache; // pkg-private for testing
     private final IndicesQueryCache indicesQueryCache;
+    private final TranslogSyncCoordinator translogSyncCoordinator;
     private final MetaStateService metaStateService;
     private final Collection<Function<IndexSettings, Optional<EngineFactory>>> engineFactoryProviders;
     private final Map<String, IndexStorePlugin.DirectoryFactory> directoryFactories;
@@ -257,7 +266,9 @@ public class IndicesService extends AbstractLifecycleComponent
         this.analysisRegistry = analysisRegistry;
         this.indexNameExpressionResolver = indexNameExpressionResolver;
         this.indicesRequestCache = new IndicesRequestCache(settings);
-        this.indicesQueryCache = new IndicesQueryCache(settings);
+        this.indicesSegmentAggregationCache = new IndicesSegmentAggregationCache(settings);
+        this.indicesQueryCache = new IndicesQueryCache(settings, PersistentQueryCache.create(settings, nodeEnv, threadPool.generic()));
+        this.translogSyncCoordinator = new TranslogSyncCoordinator(settings, threadPool.getThreadContext(), threadPool.generic());
         this.mapperRegistry = mapperRegistry;
         this.namedWriteableRegistry = namedWriteableRegistry;
         indexingMemoryController = new IndexingMemoryController(settings, threadPool,
@@ -265,6 +276,8 @@ public class IndicesService extends AbstractLifecycleComponent
                                                                 () -> Iterables.flatten(this).iterator());
         this.indexScopedSettings = indexScopedSettings;
         this.circuitBreakerService = circuitBreakerService;
+        this.indicesBackgroundFrequencyCache =
+            new IndicesBackgroundFrequencyCache(settings, circuitBreakerService.getBreaker(CircuitBreaker.FIELDDATA));
         this.bigArrays = bigArrays;
         this.scriptService = scriptService;
         this.clusterService = clusterService;
@@ -280,7 +293,8 @@ public class IndicesService extends AbstractLifecycleComponent
             }
         });
         this.cleanInterval = INDICES_CACHE_CLEAN_INTERVAL_SETTING.get(settings);
-        this.cacheCleaner = new CacheCleaner(indicesFieldDataCache, indicesRequestCache,  logger, threadPool, this.cleanInterval);
+        this.cacheCleaner = new CacheCleaner(indicesFieldDataCache, indicesRequestCache, indicesSegmentAggregationCache,
+            indicesBackgroundFrequencyCache, logger, threadPool, this.cleanInterval);
         this.metaStateService = metaStateService;
         this.engineFactoryProviders = engineFactoryProviders;
 
@@ -310,6 +324,8 @@ public class IndicesService extends AbstractLifecycleComponent
                             indicesFieldDataCache,
                             cacheCleaner,
                             indicesRequestCache,
+                            indicesSegmentAggregationCache,
+                            indicesBackgroundFrequencyCache,
                             indicesQueryCache);
                 } catch (IOException e) {
                     throw new UncheckedIOException(e);
@@ -674,7 +690,8 @@ public class IndicesService extends AbstractLifecycleComponent
                 this::isIdFieldDataEnabled,
                 valuesSourceRegistry,
                 indexFoldersDeletionListeners,
-                snapshotCommitSuppliers
+                snapshotCommitSuppliers,
+                translogSyncCoordinator
         );
     }
 
@@ -1291,14 +1308,20 @@ public class IndicesService extends AbstractLifecycleComponent
         private final TimeValue interval;
         private final AtomicBoolean closed = new AtomicBoolean(false);
         private final IndicesRequestCache requestCache;
+        private final IndicesSegmentAggregationCache segmentAggregationCache;
+        private final IndicesBackgroundFrequencyCache backgroundFrequencyCache;
 
         CacheCleaner(IndicesFieldDataCache cache,
                      IndicesRequestCache requestCache,
+                     IndicesSegmentAggregationCache segmentAggregationCache,
+                     IndicesBackgroundFrequencyCache backgroundFrequencyCache,
                      Logger logger,
                      ThreadPool threadPool,
                      TimeValue interval) {
             this.cache = cache;
             this.requestCache = requestCache;
+            this.segmentAggregationCache = segmentAggregationCache;
+            this.backgroundFrequencyCache = backgroundFrequencyCache;
             this.logger = logger;
             this.threadPool = threadPool;
             this.interval = interval;
@@ -1325,6 +1348,18 @@ public class IndicesService extends AbstractLifecycleComponent
             } catch (Exception e) {
                 logger.warn("Exception during periodic request cache cleanup:", e);
             }
+
+            try {
+                this.segmentAggregationCache.cleanCache();
+            } catch (Exception e) {
+                logger.warn("Exception during periodic segment aggregation cache cleanup:", e);
+            }
+
+            try {
+                this.backgroundFrequencyCache.cleanCache();
+            } catch (Exception e) {
+                logger.warn("Exception during periodic background frequency cache cleanup:", e);
+            }
             // Reschedule itself to run again if not closed
             if (closed.get() == false) {
                 threadPool.scheduleUnlessShuttingDown(interval, ThreadPool.Names.SAME, this);
@@ -1439,6 +1474,111 @@ public class IndicesService extends AbstractLifecycleComponent
         }
     }
 
+    /**
+     * Returns the cache of the results of the aggregations of the request on single segments, or {@code null} if the
+     * aggregations of the request cannot be cached per segment.
+     */
+    @Nullable
+    public SegmentAggregationCache segmentAggregationCache(ShardSearchRequest request, SearchContext context) {
+        if (context.aggregations() == null
+            || request.source() == null
+            || request.source().aggregations() == null
+            || SegmentAggregationCache.canCache(request.source().aggregations().getAggregatorFactories()) == false) {
+            return null;
+        }
+        if (context.indexShard().indexSettings().getValue(
+            IndicesSegmentAggregationCache.INDEX_SEGMENT_AGGREGATION_CACHE_ENABLED_SETTING) == false) {
+            return null;
+        }
+        // same restrictions as the request cache, including an explicit opt-out of the request
+        if (request.scroll() != null
+            || SearchType.QUERY_THEN_FETCH != context.searchType()
+            || request.source().profile()
+            || Boolean.FALSE.equals(request.requestCache())
+            || context.getSearchExecutionContext().isCacheable() == false) {
+            return null;
+        }
+        // the collection of a segment must not depend on the other segments
+        if (context.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER || request.source().slice() != null) {
+            return null;
+        }
+        return new ShardSegmentAggregationCache(context.indexShard(), context.getSearchExecutionContext().mappingCacheKey(),
+            request.cacheKey());
+    }
+
+    private class ShardSegmentAggregationCache implements SegmentAggregationCache {
+        private final IndexShard shard;
+        private final MappingLookup.CacheKey mappingCacheKey;
+        private final BytesReference requestCacheKey;
+
+        ShardSegmentAggregationCache(IndexShard shard, MappingLookup.CacheKey mappingCacheKey, BytesReference requestCacheKey) {
+            this.shard = shard;
+            this.mappingCacheKey = mappingCacheKey;
+            this.requestCacheKey = requestCacheKey;
+        }
+
+        @Override
+        public InternalAggregations get(LeafReaderContext leaf) throws IOException {
+            final CacheHelper cacheHelper = leaf.reader().getReaderCacheHelper();
+            if (cacheHelper == null) {
+                return null;
+            }
+            final BytesReference value =
+                indicesSegmentAggregationCache.get(shard, mappingCacheKey, cacheHelper.getKey(), requestCacheKey);
+            if (value == null) {
+                return null;
+            }
+            try (StreamInput in = new NamedWriteableAwareStreamInput(value.streamInput(), namedWriteableRegistry)) {
+                return InternalAggregations.readFrom(in);
+            }
+        }
+
+        @Override
+        public void put(LeafReaderContext leaf, InternalAggregations aggregations) throws IOException {
+            final CacheHelper cacheHelper = leaf.reader().getReaderCacheHelper();
+            if (cacheHelper == null) {
+                return;
+            }
+            // see cacheShardLevelResult for the expected size
+            try (BytesStreamOutput out = new BytesStreamOutput(512)) {
+                aggregations.writeTo(out);
+                indicesSegmentAggregationCache.put(shard, mappingCacheKey, cacheHelper, requestCacheKey, out.bytes());
+            }
+        }
+    }
+
+    /**
+     * Returns the cache of the background frequencies of terms in the segments of the given shard.
+     */
+    public BackgroundFrequencyCache backgroundFrequencyCache(IndexShard shard) {
+        return new ShardBackgroundFrequencyCache(shard);
+    }
+
+    private class ShardBackgroundFrequencyCache implements BackgroundFrequencyCache {
+        private final IndexShard shard;
+
+        ShardBackgroundFrequencyCache(IndexShard shard) {
+            this.shard = shard;
+        }
+
+        @Override
+        public long get(LeafReaderContext leaf, Query termQuery, Query backgroundFilter) {
+            final CacheHelper cacheHelper = leaf.reader().getReaderCacheHelper();
+            if (cacheHelper == null) {
+                return -1;
+            }
+            return indicesBackgroundFrequencyCache.get(shard, cacheHelper.getKey(), termQuery, backgroundFilter);
+        }
+
+        @Override
+        public void put(LeafReaderContext leaf, Query termQuery, Query backgroundFilter, long freq) {
+            final CacheHelper cacheHelper = leaf.reader().getReaderCacheHelper();
+            if (cacheHelper != null) {
+                indicesBackgroundFrequencyCache.put(shard, cacheHelper, termQuery, backgroundFilter, freq);
+            }
+        }
+    }
+
     public ByteSizeValue getTotalIndexingBufferBytes() {
         return indexingMemoryController.indexingBufferSize();
     }
@@ -1560,6 +1700,8 @@ public class IndicesService extends AbstractLifecycleComponent
             final boolean clearedAtLeastOne = service.clearCaches(queryCache, fieldDataCache, fields);
             if ((requestCache || (clearedAtLeastOne == false && fields.length == 0)) && shard != null) {
                 indicesRequestCache.clear(new IndexShardCacheEntity(shard));
+                indicesSegmentAggregationCache.clear(shard);
+                indicesBackgroundFrequencyCache.clear(shard);
             }
         }
     }
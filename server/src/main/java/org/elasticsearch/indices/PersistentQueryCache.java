@@ -0,0 +1,616 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.index.FilterCodecReader;
+import org.apache.lucene.index.FilterLeafReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PrefixCodedTerms;
+import org.apache.lucene.index.SegmentReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.BulkScorer;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.ConstantScoreScorer;
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.DocValuesFieldExistsQuery;
+import org.apache.lucene.search.Explanation;
+import org.apache.lucene.search.IndexOrDocValuesQuery;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.NormsFieldExistsQuery;
+import org.apache.lucene.search.PointInSetQuery;
+import org.apache.lucene.search.PointRangeQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryCachingPolicy;
+import org.apache.lucene.search.Scorable;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.ScorerSupplier;
+import org.apache.lucene.search.TermInSetQuery;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.util.BitDocIdSet;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.StringHelper;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.hash.MessageDigests;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.env.NodeEnvironment;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An on-disk tier for the {@link IndicesQueryCache}. The doc id sets of cached filters are written to files under the node's data path,
+ * keyed by the id of the segment they were computed on and a serialized form of the filter, so that they outlive evictions from the
+ * on-heap cache as well as node restarts. Segments are immutable and their ids survive restarts, so the files remain valid for as long
+ * as the segment exists, no matter which index or shard copy opens it.
+ * <p>
+ * Only filters made of well-known queries whose matches are fully described by their state can be persisted, see
+ * {@link #queryKey(Query)}, and the tier is only used for indices that do not accept writes anymore, since segments of other indices
+ * are likely to be merged away before the files are ever read again. A file is read the first time the on-heap cache misses its filter
+ * on a segment, into a bit set of {@code maxDoc / 8} bytes on the heap, which is the same amount of memory that the on-heap cache
+ * allocates when it computes a dense doc id set itself and which is only held until the on-heap cache copied it or the segment was
+ * scored. Like the on-heap cache, a filter is only computed and written on a segment when it leads the iteration or when it is not much
+ * more costly than the clauses that lead it. Files are written and synced on the {@code executor}, not on the searching thread, and the
+ * least recently used ones are deleted once the tier grows larger than {@link #INDICES_QUERIES_CACHE_PERSISTENT_SIZE_SETTING}.
+ */
+public final class PersistentQueryCache implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger(PersistentQueryCache.class);
+
+    public static final Setting<Boolean> INDICES_QUERIES_CACHE_PERSISTENT_ENABLED_SETTING =
+        Setting.boolSetting("indices.queries.cache.persistent.enabled", false, Property.NodeScope);
+    public static final Setting<ByteSizeValue> INDICES_QUERIES_CACHE_PERSISTENT_SIZE_SETTING =
+        Setting.byteSizeSetting("indices.queries.cache.persistent.size", new ByteSizeValue(1, ByteSizeUnit.GB), Property.NodeScope);
+
+    static final String FOLDER_NAME = "query_cache";
+    static final String CODEC_NAME = "es_query_cache";
+    static final int VERSION = 0;
+    static final String FILE_EXTENSION = ".qc";
+
+    // segments smaller than this are not worth a file, mirrors the minimum segment size of the on-heap cache
+    static final int MIN_SEGMENT_DOCS = 10_000;
+
+    private static final byte MATCH_ALL = 0;
+    private static final byte MATCH_NONE = 1;
+    private static final byte TERM = 2;
+    private static final byte TERM_IN_SET = 3;
+    private static final byte POINT_RANGE = 4;
+    private static final byte POINT_IN_SET = 5;
+    private static final byte DOC_VALUES_EXISTS = 6;
+    private static final byte NORMS_EXISTS = 7;
+    private static final byte BOOLEAN = 8;
+
+    // bounds the bit sets that wait to be written, writes are skipped rather than queued beyond that
+    static final int MAX_PENDING_WRITES = 16;
+
+    private final Directory directory;
+    private final long maxSizeInBytes;
+    private final int minSegmentDocs;
+    private final float skipCacheFactor;
+    private final Executor executor;
+    private final Set<String> pendingWrites = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong sizeInBytes = new AtomicLong();
+    // logical clock to order entries by last access
+    private final AtomicLong accessClock = new AtomicLong();
+    private final Object evictionMutex = new Object();
+
+    PersistentQueryCache(Path path, long maxSizeInBytes, int minSegmentDocs, float skipCacheFactor, Executor executor) throws IOException {
+        Files.createDirectories(path);
+        this.directory = FSDirectory.open(path);
+        this.maxSizeInBytes = maxSizeInBytes;
+        this.minSegmentDocs = minSegmentDocs;
+        this.skipCacheFactor = skipCacheFactor;
+        this.executor = executor;
+        for (String name : directory.listAll()) {
+            if (name.endsWith(FILE_EXTENSION)) {
+                // files of previous runs all count as least recently used
+                final Entry entry = new Entry(name, directory.fileLength(name), 0L);
+                entries.put(name, entry);
+                sizeInBytes.addAndGet(entry.length);
+            } else {
+                // leftover of an interrupted write
+                deleteFile(name);
+            }
+        }
+        logger.debug("using persistent query cache at [{}] with size [{}], found [{}] entries using [{}]",
+            path, new ByteSizeValue(maxSizeInBytes), entries.size(), new ByteSizeValue(sizeInBytes.get()));
+        maybeEvict();
+    }
+
+    /**
+     * Creates the persistent tier of the query cache if it is enabled on this node, or returns {@code null} otherwise.
+     *
+     * @param executor the executor that writes and syncs the files of the cache
+     */
+    @Nullable
+    public static PersistentQueryCache create(Settings settings, NodeEnvironment nodeEnvironment, Executor executor) {
+        if (INDICES_QUERIES_CACHE_PERSISTENT_ENABLED_SETTING.get(settings) == false || nodeEnvironment.hasNodeFile() == false) {
+            return null;
+        }
+        // same segments and skip factor as the on-heap cache
+        final boolean allSegments = IndicesQueryCache.INDICES_QUERIES_CACHE_ALL_SEGMENTS_SETTING.get(settings);
+        final int minSegmentDocs = allSegments ? 0 : MIN_SEGMENT_DOCS;
+        final float skipCacheFactor = allSegments ? 1f : 10f;
+        try {
+            return new PersistentQueryCache(nodeEnvironment.nodeDataPath().resolve(FOLDER_NAME),
+                INDICES_QUERIES_CACHE_PERSISTENT_SIZE_SETTING.get(settings).getBytes(), minSegmentDocs, skipCacheFactor, executor);
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to open persistent query cache", e);
+        }
+    }
+
+    /**
+     * Wraps the given weight so that its doc id sets are read from and written to this cache. Returns the weight as-is if its query
+     * cannot be persisted.
+     */
+    Weight doCache(Weight weight, QueryCachingPolicy policy) {
+        while (weight instanceof PersistentCachingWeight) {
+            weight = ((PersistentCachingWeight) weight).in;
+        }
+        final BytesRef queryKey = queryKey(weight.getQuery());
+        if (queryKey == null) {
+            return weight;
+        }
+        return new PersistentCachingWeight(weight, queryKey, policy);
+    }
+
+    /** Returns the number of doc id sets in this cache. */
+    int count() {
+        return entries.size();
+    }
+
+    /** Returns the size of the files of this cache in bytes. */
+    long sizeInBytes() {
+        return sizeInBytes.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        directory.close();
+    }
+
+    private class PersistentCachingWeight extends Weight {
+
+        private final Weight in;
+        private final BytesRef queryKey;
+        private final String queryHash;
+        private final QueryCachingPolicy policy;
+
+        PersistentCachingWeight(Weight in, BytesRef queryKey, QueryCachingPolicy policy) {
+            super(in.getQuery());
+            this.in = in;
+            this.queryKey = queryKey;
+            final MessageDigest digest = MessageDigests.sha256();
+            digest.update(queryKey.bytes, queryKey.offset, queryKey.length);
+            this.queryHash = MessageDigests.toHexString(digest.digest());
+            this.policy = policy;
+        }
+
+        @Override
+        public void extractTerms(Set<Term> terms) {
+            in.extractTerms(terms);
+        }
+
+        @Override
+        public Explanation explain(LeafReaderContext context, int doc) throws IOException {
+            return in.explain(context, doc);
+        }
+
+        @Override
+        public boolean isCacheable(LeafReaderContext ctx) {
+            return in.isCacheable(ctx);
+        }
+
+        @Override
+        public Scorer scorer(LeafReaderContext context) throws IOException {
+            final ScorerSupplier scorerSupplier = scorerSupplier(context);
+            return scorerSupplier == null ? null : scorerSupplier.get(Long.MAX_VALUE);
+        }
+
+        @Override
+        public ScorerSupplier scorerSupplier(LeafReaderContext context) throws IOException {
+            final String fileName = fileName(context);
+            if (fileName == null) {
+                return in.scorerSupplier(context);
+            }
+            final DocIdSet cached = get(fileName, queryKey, context.reader().maxDoc());
+            if (cached != null) {
+                final DocIdSetIterator iterator = cached.iterator();
+                if (iterator == null) {
+                    return null;
+                }
+                return new ScorerSupplier() {
+                    @Override
+                    public Scorer get(long leadCost) {
+                        return new ConstantScoreScorer(PersistentCachingWeight.this, 0f, ScoreMode.COMPLETE_NO_SCORES, iterator);
+                    }
+
+                    @Override
+                    public long cost() {
+                        return iterator.cost();
+                    }
+                };
+            }
+            if (policy.shouldCache(getQuery()) == false) {
+                return in.scorerSupplier(context);
+            }
+            final ScorerSupplier supplier = in.scorerSupplier(context);
+            if (supplier == null) {
+                return null;
+            }
+            return new ScorerSupplier() {
+                @Override
+                public Scorer get(long leadCost) throws IOException {
+                    // like the on-heap cache, don't compute the doc id set on the whole segment if the filter is much more
+                    // costly than the clauses that lead the iteration
+                    final double costFactor = (double) supplier.cost() / leadCost;
+                    if (costFactor >= skipCacheFactor) {
+                        return supplier.get(leadCost);
+                    }
+                    final DocIdSetIterator iterator = compute(context, fileName).iterator();
+                    return new ConstantScoreScorer(PersistentCachingWeight.this, 0f, ScoreMode.COMPLETE_NO_SCORES, iterator);
+                }
+
+                @Override
+                public long cost() {
+                    return supplier.cost();
+                }
+            };
+        }
+
+        @Override
+        public BulkScorer bulkScorer(LeafReaderContext context) throws IOException {
+            // bulk scorers visit all the matches of the segment, so computing the doc id set costs nothing more
+            final String fileName = fileName(context);
+            if (fileName == null) {
+                return in.bulkScorer(context);
+            }
+            DocIdSet docIdSet = get(fileName, queryKey, context.reader().maxDoc());
+            if (docIdSet == null) {
+                if (policy.shouldCache(getQuery()) == false) {
+                    return in.bulkScorer(context);
+                }
+                docIdSet = compute(context, fileName);
+            }
+            final DocIdSetIterator iterator = docIdSet.iterator();
+            if (iterator == null) {
+                return null;
+            }
+            return new DefaultBulkScorer(new ConstantScoreScorer(this, 0f, ScoreMode.COMPLETE_NO_SCORES, iterator));
+        }
+
+        /**
+         * Returns the name of the file of the doc id set of the query on the given segment, or {@code null} if the segment is not
+         * eligible.
+         */
+        @Nullable
+        private String fileName(LeafReaderContext context) {
+            if (context.reader().maxDoc() < minSegmentDocs || in.isCacheable(context) == false) {
+                return null;
+            }
+            final String segmentId = segmentId(context.reader());
+            if (segmentId == null) {
+                return null;
+            }
+            return segmentId + "_" + queryHash + FILE_EXTENSION;
+        }
+
+        /**
+         * Computes the doc id set of the query on the given segment and schedules writing it to disk.
+         */
+        private DocIdSet compute(LeafReaderContext context, String fileName) throws IOException {
+            final FixedBitSet bits = new FixedBitSet(context.reader().maxDoc());
+            final BulkScorer scorer = in.bulkScorer(context);
+            if (scorer != null) {
+                scorer.score(new LeafCollector() {
+                    @Override
+                    public void setScorer(Scorable scorer) {
+                    }
+
+                    @Override
+                    public void collect(int doc) {
+                        bits.set(doc);
+                    }
+                }, null);
+            }
+            final int cardinality = bits.cardinality();
+            put(fileName, queryKey, bits);
+            // the bits are not modified anymore, they are shared with the pending write
+            return new BitDocIdSet(bits, cardinality);
+        }
+    }
+
+    @Nullable
+    private DocIdSet get(String fileName, BytesRef queryKey, int maxDoc) {
+        final Entry entry = entries.get(fileName);
+        if (entry == null) {
+            return null;
+        }
+        entry.lastAccess = accessClock.incrementAndGet();
+        try (IndexInput input = directory.openInput(fileName, IOContext.READONCE)) {
+            CodecUtil.checkHeader(input, CODEC_NAME, VERSION, VERSION);
+            final BytesRef storedKey = new BytesRef(input.readVInt());
+            input.readBytes(storedKey.bytes, 0, storedKey.bytes.length);
+            storedKey.length = storedKey.bytes.length;
+            if (storedKey.bytesEquals(queryKey) == false || input.readVInt() != maxDoc) {
+                // hash collision, keep the file for the query it was written for
+                return null;
+            }
+            final long[] words = new long[FixedBitSet.bits2words(maxDoc)];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = input.readLong();
+            }
+            if (input.getFilePointer() != input.length() - CodecUtil.footerLength()) {
+                throw new IOException("unexpected trailing bytes in [" + input + "]");
+            }
+            CodecUtil.retrieveChecksum(input);
+            return new BitDocIdSet(new FixedBitSet(words, maxDoc));
+        } catch (IOException e) {
+            logger.debug(new ParameterizedMessage("failed to read persistent query cache file [{}]", fileName), e);
+            invalidate(entry);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the given bits to disk in the background, unless they are already on disk or waiting to be written, or too many writes
+     * are pending already.
+     */
+    private void put(String fileName, BytesRef queryKey, FixedBitSet bits) {
+        if (entries.containsKey(fileName) || pendingWrites.size() >= MAX_PENDING_WRITES || pendingWrites.add(fileName) == false) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    write(fileName, queryKey, bits);
+                } finally {
+                    pendingWrites.remove(fileName);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingWrites.remove(fileName);
+            logger.debug(new ParameterizedMessage("failed to schedule writing persistent query cache file [{}]", fileName), e);
+        }
+    }
+
+    private void write(String fileName, BytesRef queryKey, FixedBitSet bits) {
+        if (entries.containsKey(fileName)) {
+            return;
+        }
+        String tempFileName = null;
+        try {
+            try (IndexOutput output = directory.createTempOutput(fileName, "tmp", IOContext.DEFAULT)) {
+                tempFileName = output.getName();
+                CodecUtil.writeHeader(output, CODEC_NAME, VERSION);
+                output.writeVInt(queryKey.length);
+                output.writeBytes(queryKey.bytes, queryKey.offset, queryKey.length);
+                output.writeVInt(bits.length());
+                final long[] words = bits.getBits();
+                for (int i = 0; i < FixedBitSet.bits2words(bits.length()); i++) {
+                    output.writeLong(words[i]);
+                }
+                CodecUtil.writeFooter(output);
+            }
+            directory.sync(Collections.singleton(tempFileName));
+            directory.rename(tempFileName, fileName);
+            tempFileName = null;
+            final Entry entry = new Entry(fileName, directory.fileLength(fileName), accessClock.incrementAndGet());
+            if (entries.putIfAbsent(fileName, entry) == null) {
+                sizeInBytes.addAndGet(entry.length);
+                maybeEvict();
+            }
+        } catch (IOException | AlreadyClosedException e) {
+            // the cache may have been closed while the write was pending
+            logger.debug(new ParameterizedMessage("failed to write persistent query cache file [{}]", fileName), e);
+        } finally {
+            if (tempFileName != null) {
+                deleteFile(tempFileName);
+            }
+        }
+    }
+
+    private void maybeEvict() {
+        if (sizeInBytes.get() <= maxSizeInBytes) {
+            return;
+        }
+        synchronized (evictionMutex) {
+            // evict a bit more than necessary so that the next writes do not have to sort the entries again
+            final long targetSizeInBytes = maxSizeInBytes - maxSizeInBytes / 10;
+            final List<Tuple<Long, Entry>> candidates = new ArrayList<>(entries.size());
+            for (Entry entry : entries.values()) {
+                candidates.add(Tuple.tuple(entry.lastAccess, entry));
+            }
+            candidates.sort(Comparator.comparing(Tuple::v1));
+            for (Tuple<Long, Entry> candidate : candidates) {
+                if (sizeInBytes.get() <= targetSizeInBytes) {
+                    break;
+                }
+                invalidate(candidate.v2());
+            }
+        }
+    }
+
+    private void invalidate(Entry entry) {
+        if (entries.remove(entry.fileName, entry)) {
+            sizeInBytes.addAndGet(-entry.length);
+            deleteFile(entry.fileName);
+        }
+    }
+
+    private void deleteFile(String fileName) {
+        try {
+            directory.deleteFile(fileName);
+        } catch (IOException | AlreadyClosedException e) {
+            logger.debug(new ParameterizedMessage("failed to delete persistent query cache file [{}]", fileName), e);
+        }
+    }
+
+    private static final class Entry {
+        final String fileName;
+        final long length;
+        volatile long lastAccess;
+
+        Entry(String fileName, long length, long lastAccess) {
+            this.fileName = fileName;
+            this.length = length;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    /**
+     * Returns the id of the segment the given reader reads from, or {@code null} if it is not backed by a single segment.
+     */
+    @Nullable
+    static String segmentId(LeafReader reader) {
+        while (reader instanceof FilterLeafReader || reader instanceof FilterCodecReader) {
+            if (reader instanceof FilterLeafReader) {
+                reader = ((FilterLeafReader) reader).getDelegate();
+            } else {
+                reader = ((FilterCodecReader) reader).getDelegate();
+            }
+        }
+        if (reader instanceof SegmentReader) {
+            final byte[] id = ((SegmentReader) reader).getSegmentInfo().info.getId();
+            return id == null ? null : StringHelper.idToString(id);
+        }
+        return null;
+    }
+
+    /**
+     * Returns a serialized form of the given query that fully describes the documents it matches, or {@code null} if the query is
+     * made of queries whose matches cannot be described this way. Scoring is ignored since only doc id sets are cached. Queries are
+     * expected to be rewritten already, like all queries that weights are created for.
+     */
+    @Nullable
+    static BytesRef queryKey(Query query) {
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            return writeQueryKey(query, out) ? out.bytes().toBytesRef() : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean writeQueryKey(Query query, StreamOutput out) throws IOException {
+        if (query instanceof ConstantScoreQuery) {
+            return writeQueryKey(((ConstantScoreQuery) query).getQuery(), out);
+        } else if (query instanceof BoostQuery) {
+            return writeQueryKey(((BoostQuery) query).getQuery(), out);
+        } else if (query instanceof IndexOrDocValuesQuery) {
+            // both queries match the same documents
+            return writeQueryKey(((IndexOrDocValuesQuery) query).getIndexQuery(), out);
+        } else if (query instanceof BooleanQuery) {
+            final BooleanQuery booleanQuery = (BooleanQuery) query;
+            out.writeByte(BOOLEAN);
+            out.writeVInt(booleanQuery.getMinimumNumberShouldMatch());
+            out.writeVInt(booleanQuery.clauses().size());
+            for (BooleanClause clause : booleanQuery.clauses()) {
+                out.writeEnum(clause.getOccur());
+                if (writeQueryKey(clause.getQuery(), out) == false) {
+                    return false;
+                }
+            }
+            return true;
+        } else if (query instanceof PointRangeQuery) {
+            // subclasses only differ in how they render points
+            final PointRangeQuery pointRangeQuery = (PointRangeQuery) query;
+            out.writeByte(POINT_RANGE);
+            out.writeString(pointRangeQuery.getField());
+            out.writeVInt(pointRangeQuery.getNumDims());
+            out.writeVInt(pointRangeQuery.getBytesPerDim());
+            out.writeByteArray(pointRangeQuery.getLowerPoint());
+            out.writeByteArray(pointRangeQuery.getUpperPoint());
+            return true;
+        } else if (query instanceof PointInSetQuery) {
+            // subclasses only differ in how they render points
+            final PointInSetQuery pointInSetQuery = (PointInSetQuery) query;
+            out.writeByte(POINT_IN_SET);
+            out.writeString(pointInSetQuery.getField());
+            out.writeVInt(pointInSetQuery.getNumDims());
+            out.writeVInt(pointInSetQuery.getBytesPerDim());
+            out.writeVInt(pointInSetQuery.getPackedPoints().size());
+            for (byte[] point : pointInSetQuery.getPackedPoints()) {
+                out.writeByteArray(point);
+            }
+            return true;
+        }
+
+        // exact classes only, subclasses may match differently
+        final Class<?> queryClass = query.getClass();
+        if (queryClass == MatchAllDocsQuery.class) {
+            out.writeByte(MATCH_ALL);
+        } else if (queryClass == MatchNoDocsQuery.class) {
+            out.writeByte(MATCH_NONE);
+        } else if (queryClass == TermQuery.class) {
+            final Term term = ((TermQuery) query).getTerm();
+            out.writeByte(TERM);
+            out.writeString(term.field());
+            out.writeBytesRef(term.bytes());
+        } else if (queryClass == TermInSetQuery.class) {
+            final PrefixCodedTerms terms = ((TermInSetQuery) query).getTermData();
+            out.writeByte(TERM_IN_SET);
+            out.writeVLong(terms.size());
+            final PrefixCodedTerms.TermIterator iterator = terms.iterator();
+            for (BytesRef term = iterator.next(); term != null; term = iterator.next()) {
+                out.writeString(iterator.field());
+                out.writeBytesRef(term);
+            }
+        } else if (queryClass == DocValuesFieldExistsQuery.class) {
+            out.writeByte(DOC_VALUES_EXISTS);
+            out.writeString(((DocValuesFieldExistsQuery) query).getField());
+        } else if (queryClass == NormsFieldExistsQuery.class) {
+            out.writeByte(NORMS_EXISTS);
+            out.writeString(((NormsFieldExistsQuery) query).getField());
+        } else {
+            return false;
+        }
+        return true;
+    }
+}
@@ -30,12 +30,16 @@ import org.elasticsearch.index.Index;
 import org.elasticsearch.index.fielddata.LeafFieldData;
 import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.fielddata.IndexFieldDataCache;
+import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinalMap;
+import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinalsIndexFieldData;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.shard.ShardUtils;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.ToLongBiFunction;
 
 public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCache.Key, Accountable>, Releasable{
@@ -77,11 +81,16 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
         assert key != null && key.listeners != null;
         IndexFieldCache indexCache = key.indexCache;
         final Accountable value = notification.getValue();
+        long sizeInBytes = value.ramBytesUsed();
+        if (value instanceof GlobalOrdinalsIndexFieldData) {
+            // the global ordinal map may be kept for the next reader of the shard, it is released once it is dropped
+            sizeInBytes -= indexCache.retainGlobalOrdinalMap(key.shardId, (GlobalOrdinalsIndexFieldData) value);
+        }
         for (IndexFieldDataCache.Listener listener : key.listeners) {
             try {
                 listener.onRemoval(
                     key.shardId, indexCache.fieldName,
-                    notification.getRemovalReason() == RemovalNotification.RemovalReason.EVICTED, value.ramBytesUsed()
+                    notification.getRemovalReason() == RemovalNotification.RemovalReason.EVICTED, sizeInBytes
                 );
             } catch (Exception e) {
                 // load anyway since listeners should not throw exceptions
@@ -107,6 +116,9 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
         final String fieldName;
         private final Cache<Key, Accountable> cache;
         private final Listener[] listeners;
+        // the global ordinal map of the most recent reader of each shard, which outlives the reader so that the next reader can
+        // reuse it. Its bytes stay accounted for until it is replaced or the shard or the field is cleared.
+        private final Map<ShardId, RetainedGlobalOrdinalMap> lastGlobalOrdinalMaps = new HashMap<>(); // guarded by this
 
         IndexFieldCache(Logger logger,final Cache<Key, Accountable> cache, Index index, String fieldName, Listener... listeners) {
             this.logger = logger;
@@ -157,6 +169,14 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
                 ElasticsearchDirectoryReader.addReaderCloseListener(indexReader, IndexFieldCache.this);
                 Collections.addAll(k.listeners, this.listeners);
                 final Accountable ifd = (Accountable) indexFieldData.loadGlobalDirect(indexReader);
+                if (shardId != null && ifd instanceof GlobalOrdinalsIndexFieldData) {
+                    final RetainedGlobalOrdinalMap previous;
+                    synchronized (this) {
+                        previous = lastGlobalOrdinalMaps.put(shardId,
+                            new RetainedGlobalOrdinalMap(((GlobalOrdinalsIndexFieldData) ifd).getGlobalOrdinalMap()));
+                    }
+                    release(shardId, previous);
+                }
                 for (Listener listener : k.listeners) {
                     try {
                         listener.onCache(shardId, fieldName, ifd);
@@ -170,6 +190,74 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
             return (IFD) accountable;
         }
 
+        @Override
+        public GlobalOrdinalMap getLastGlobalOrdinalMap(ShardId shardId) {
+            if (shardId == null) {
+                return null;
+            }
+            final RetainedGlobalOrdinalMap retained;
+            synchronized (this) {
+                retained = lastGlobalOrdinalMaps.get(shardId);
+            }
+            return retained == null ? null : retained.map;
+        }
+
+        /**
+         * Called when the given global ordinals are removed from the cache. If their global ordinal map is still kept for the
+         * next reader of the shard then its bytes are released once it is dropped, and the number of these bytes is returned.
+         */
+        long retainGlobalOrdinalMap(@Nullable ShardId shardId, GlobalOrdinalsIndexFieldData fieldData) {
+            if (shardId == null) {
+                return 0;
+            }
+            synchronized (this) {
+                final RetainedGlobalOrdinalMap retained = lastGlobalOrdinalMaps.get(shardId);
+                if (retained == null || retained.map != fieldData.getGlobalOrdinalMap()) {
+                    return 0;
+                }
+                assert retained.uncachedSizeInBytes == 0;
+                retained.uncachedSizeInBytes = fieldData.ramBytesUsed();
+                return retained.uncachedSizeInBytes;
+            }
+        }
+
+        @Override
+        public void onShardClose(ShardId shardId) {
+            final RetainedGlobalOrdinalMap retained;
+            synchronized (this) {
+                retained = lastGlobalOrdinalMaps.remove(shardId);
+            }
+            release(shardId, retained);
+        }
+
+        private void clearGlobalOrdinalMaps() {
+            final List<Map.Entry<ShardId, RetainedGlobalOrdinalMap>> retained;
+            synchronized (this) {
+                retained = new ArrayList<>(lastGlobalOrdinalMaps.entrySet());
+                lastGlobalOrdinalMaps.clear();
+            }
+            for (Map.Entry<ShardId, RetainedGlobalOrdinalMap> entry : retained) {
+                release(entry.getKey(), entry.getValue());
+            }
+        }
+
+        /**
+         * Releases the bytes of a dropped global ordinal map whose global ordinals were already removed from the cache.
+         */
+        private void release(ShardId shardId, @Nullable RetainedGlobalOrdinalMap retained) {
+            if (retained == null || retained.uncachedSizeInBytes == 0) {
+                return;
+            }
+            for (Listener listener : listeners) {
+                try {
+                    listener.onRemoval(shardId, fieldName, false, retained.uncachedSizeInBytes);
+                } catch (Exception e) {
+                    // release anyway since listeners should not throw exceptions
+                    logger.error("Failed to call listener on global ordinal map unloading", e);
+                }
+            }
+        }
+
         @Override
         public void onClose(CacheKey key) {
             cache.invalidate(new Key(this, key, null));
@@ -178,6 +266,7 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
 
         @Override
         public void clear() {
+            clearGlobalOrdinalMaps();
             for (Key key : cache.keys()) {
                 if (key.indexCache.index.equals(index)) {
                     cache.invalidate(key);
@@ -189,6 +278,9 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
 
         @Override
         public void clear(String fieldName) {
+            if (this.fieldName.equals(fieldName)) {
+                clearGlobalOrdinalMaps();
+            }
             for (Key key : cache.keys()) {
                 if (key.indexCache.index.equals(index)) {
                     if (key.indexCache.fieldName.equals(fieldName)) {
@@ -203,6 +295,17 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
         }
     }
 
+    private static class RetainedGlobalOrdinalMap {
+        final GlobalOrdinalMap map;
+        // the bytes that are still accounted for once the global ordinals of this map were removed from the cache, guarded by
+        // the index field cache
+        long uncachedSizeInBytes;
+
+        RetainedGlobalOrdinalMap(GlobalOrdinalMap map) {
+            this.map = map;
+        }
+    }
+
     public static class Key {
         public final IndexFieldCache indexCache;
         public final IndexReader.CacheKey readerKey;
@@ -9,17 +9,24 @@
 package org.elasticsearch.indices.recovery;
 
 import org.apache.lucene.util.Version;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.lucene.Lucene;
-import org.elasticsearch.common.util.concurrent.RefCounted;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.store.StoreFileMetadata;
+import org.elasticsearch.transport.TrailingBytesTransportRequest;
 
 import java.io.IOException;
 
-public final class RecoveryFileChunkRequest extends RecoveryTransportRequest implements RefCounted {
+public final class RecoveryFileChunkRequest extends RecoveryTransportRequest implements TrailingBytesTransportRequest {
+
+    /**
+     * The version from which on the content of the chunk is serialized last, so that it can be sent without copying it.
+     */
+    static final org.elasticsearch.Version CONTENT_LAST_VERSION = org.elasticsearch.Version.V_8_0_0;
+
     private final boolean lastChunk;
     private final long recoveryId;
     private final ShardId shardId;
@@ -38,13 +45,15 @@ public final class RecoveryFileChunkRequest extends RecoveryTransportRequest imp
         position = in.readVLong();
         long length = in.readVLong();
         String checksum = in.readString();
-        content = in.readReleasableBytesReference();
+        final boolean contentLast = in.getVersion().onOrAfter(CONTENT_LAST_VERSION);
+        final ReleasableBytesReference content = contentLast ? null : in.readReleasableBytesReference();
         Version writtenBy = Lucene.parseVersionLenient(in.readString(), null);
         assert writtenBy != null;
         metadata = new StoreFileMetadata(name, length, checksum, writtenBy);
         lastChunk = in.readBoolean();
         totalTranslogOps = in.readVInt();
         sourceThrottleTimeInNanos = in.readLong();
+        this.content = contentLast ? in.readReleasableBytesReference() : content;
     }
 
     public RecoveryFileChunkRequest(long recoveryId, final long requestSeqNo, ShardId shardId, StoreFileMetadata metadata, long position,
@@ -95,6 +104,32 @@ public final class RecoveryFileChunkRequest extends RecoveryTransportRequest imp
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
+        if (hasTrailingBytes(out.getVersion())) {
+            writeThin(out);
+            content.writeTo(out);
+        } else {
+            writeFields(out, true);
+        }
+    }
+
+    @Override
+    public boolean hasTrailingBytes(org.elasticsearch.Version version) {
+        return version.onOrAfter(CONTENT_LAST_VERSION);
+    }
+
+    @Override
+    public void writeThin(StreamOutput out) throws IOException {
+        assert hasTrailingBytes(out.getVersion());
+        writeFields(out, false);
+        out.writeVInt(content.length());
+    }
+
+    @Override
+    public BytesReference trailingBytes() {
+        return content;
+    }
+
+    private void writeFields(StreamOutput out, boolean withContent) throws IOException {
         super.writeTo(out);
         out.writeLong(recoveryId);
         shardId.writeTo(out);
@@ -102,7 +137,9 @@ public final class RecoveryFileChunkRequest extends RecoveryTransportRequest imp
         out.writeVLong(position);
         out.writeVLong(metadata.length());
         out.writeString(metadata.checksum());
-        out.writeBytesReference(content);
+        if (withContent) {
+            out.writeBytesReference(content);
+        }
         out.writeString(metadata.writtenBy().toString());
         out.writeBoolean(lastChunk);
         out.writeVInt(totalTranslogOps);
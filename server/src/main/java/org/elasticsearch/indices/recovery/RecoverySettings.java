@@ -129,6 +129,13 @@ public class RecoverySettings {
             INDICES_RECOVERY_INTERNAL_LONG_ACTION_TIMEOUT_SETTING::get, TimeValue.timeValueSeconds(0),
             Property.Dynamic, Property.NodeScope);
 
+    /**
+     * Whether the source node sends the chunks of files that are stored as they are on disk straight from the file system, without
+     * reading them onto the heap first. This only applies to connections that neither compress nor encrypt messages.
+     */
+    public static final Setting<Boolean> INDICES_RECOVERY_USE_FILE_REGIONS_SETTING =
+        Setting.boolSetting("indices.recovery.use_file_regions", true, Property.Dynamic, Property.NodeScope);
+
     public static final ByteSizeValue DEFAULT_CHUNK_SIZE = new ByteSizeValue(512, ByteSizeUnit.KB);
 
     private volatile ByteSizeValue maxBytesPerSec;
@@ -141,6 +148,7 @@ public class RecoverySettings {
     private volatile TimeValue internalActionTimeout;
     private volatile TimeValue internalActionRetryTimeout;
     private volatile TimeValue internalActionLongTimeout;
+    private volatile boolean useFileRegions;
 
     private volatile ByteSizeValue chunkSize = DEFAULT_CHUNK_SIZE;
 
@@ -157,6 +165,7 @@ public class RecoverySettings {
         this.internalActionLongTimeout = INDICES_RECOVERY_INTERNAL_LONG_ACTION_TIMEOUT_SETTING.get(settings);
 
         this.activityTimeout = INDICES_RECOVERY_ACTIVITY_TIMEOUT_SETTING.get(settings);
+        this.useFileRegions = INDICES_RECOVERY_USE_FILE_REGIONS_SETTING.get(settings);
         this.maxBytesPerSec = INDICES_RECOVERY_MAX_BYTES_PER_SEC_SETTING.get(settings);
         if (maxBytesPerSec.getBytes() <= 0) {
             rateLimiter = null;
@@ -177,6 +186,7 @@ public class RecoverySettings {
         clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_INTERNAL_LONG_ACTION_TIMEOUT_SETTING,
             this::setInternalActionLongTimeout);
         clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_ACTIVITY_TIMEOUT_SETTING, this::setActivityTimeout);
+        clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_USE_FILE_REGIONS_SETTING, this::setUseFileRegions);
     }
 
     public RateLimiter rateLimiter() {
@@ -260,6 +270,14 @@ public class RecoverySettings {
         return maxConcurrentOperations;
     }
 
+    public boolean getUseFileRegions() {
+        return useFileRegions;
+    }
+
+    private void setUseFileRegions(boolean useFileRegions) {
+        this.useFileRegions = useFileRegions;
+    }
+
     private void setMaxConcurrentOperations(int maxConcurrentOperations) {
         this.maxConcurrentOperations = maxConcurrentOperations;
     }
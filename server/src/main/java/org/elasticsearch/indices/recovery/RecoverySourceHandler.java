@@ -33,6 +33,7 @@ import org.elasticsearch.common.CheckedRunnable;
 import org.elasticsearch.common.StopWatch;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.FileChannelBytesReference;
 import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lease.Releasables;
@@ -40,6 +41,7 @@ import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.CancellableThreads;
+import org.elasticsearch.common.util.concurrent.AbstractRefCounted;
 import org.elasticsearch.common.util.concurrent.FutureUtils;
 import org.elasticsearch.common.util.concurrent.ListenableFuture;
 import org.elasticsearch.core.internal.io.IOUtils;
@@ -63,6 +65,9 @@ import org.elasticsearch.transport.Transports;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -103,6 +108,7 @@ public class RecoverySourceHandler {
     private final RecoveryTargetHandler recoveryTarget;
     private final int maxConcurrentFileChunks;
     private final int maxConcurrentOperations;
+    private final boolean useFileRegions;
     private final ThreadPool threadPool;
     private final CancellableThreads cancellableThreads = new CancellableThreads();
     private final List<Closeable> resources = new CopyOnWriteArrayList<>();
@@ -111,6 +117,16 @@ public class RecoverySourceHandler {
     public RecoverySourceHandler(IndexShard shard, RecoveryTargetHandler recoveryTarget, ThreadPool threadPool,
                                  StartRecoveryRequest request, int fileChunkSizeInBytes, int maxConcurrentFileChunks,
                                  int maxConcurrentOperations) {
+        this(shard, recoveryTarget, threadPool, request, fileChunkSizeInBytes, maxConcurrentFileChunks, maxConcurrentOperations, false);
+    }
+
+    /**
+     * @param useFileRegions whether to send the chunks of files that the store reads as they are on disk as
+     *                       {@link FileChannelBytesReference file regions} rather than reading them onto the heap first
+     */
+    public RecoverySourceHandler(IndexShard shard, RecoveryTargetHandler recoveryTarget, ThreadPool threadPool,
+                                 StartRecoveryRequest request, int fileChunkSizeInBytes, int maxConcurrentFileChunks,
+                                 int maxConcurrentOperations, boolean useFileRegions) {
         this.shard = shard;
         this.recoveryTarget = recoveryTarget;
         this.threadPool = threadPool;
@@ -120,6 +136,7 @@ public class RecoverySourceHandler {
         this.chunkSizeInBytes = fileChunkSizeInBytes;
         this.maxConcurrentFileChunks = maxConcurrentFileChunks;
         this.maxConcurrentOperations = maxConcurrentOperations;
+        this.useFileRegions = useFileRegions;
     }
 
     public StartRecoveryRequest getRequest() {
@@ -881,6 +898,29 @@ public class RecoverySourceHandler {
         }
     }
 
+    /**
+     * A file channel that stays open until the transfer moved on to the next file and all the chunks that were read from it were
+     * released, since chunks are only read when they are sent and may still be in flight after the next file was opened.
+     */
+    private static final class RefCountedFileChannel extends AbstractRefCounted implements Closeable {
+        private final FileChannel channel;
+
+        RefCountedFileChannel(FileChannel channel) {
+            super("recovery-file-channel");
+            this.channel = channel;
+        }
+
+        @Override
+        protected void closeInternal() {
+            IOUtils.closeWhileHandlingException(channel);
+        }
+
+        @Override
+        public void close() {
+            decRef();
+        }
+    }
+
     void sendFiles(Store store, StoreFileMetadata[] files, IntSupplier translogOps, ActionListener<Void> listener) {
         ArrayUtil.timSort(files, Comparator.comparingLong(StoreFileMetadata::length)); // send smallest first
         Releasable temporaryStoreRef = acquireStore(store);
@@ -891,19 +931,38 @@ public class RecoverySourceHandler {
 
                     final Deque<byte[]> buffers = new ConcurrentLinkedDeque<>();
                     IndexInput currentInput = null;
+                    RefCountedFileChannel currentFileChannel = null;
                     long offset = 0;
 
                     @Override
                     protected void onNewResource(StoreFileMetadata md) throws IOException {
                         offset = 0;
-                        IOUtils.close(currentInput);
-                        currentInput = store.directory().openInput(md.name(), IOContext.READONCE);
+                        IOUtils.close(currentInput, currentFileChannel);
+                        currentInput = null;
+                        currentFileChannel = null;
+                        final Path path = useFileRegions ? store.getFilePath(md.name()) : null;
+                        if (path != null) {
+                            currentFileChannel = new RefCountedFileChannel(FileChannel.open(path, StandardOpenOption.READ));
+                        } else {
+                            currentInput = store.directory().openInput(md.name(), IOContext.READONCE);
+                        }
                     }
 
                     @Override
                     protected FileChunk nextChunkRequest(StoreFileMetadata md) throws IOException {
                         assert Transports.assertNotTransportThread("read file chunk");
                         cancellableThreads.checkForCancel();
+                        if (currentFileChannel != null) {
+                            // the chunk is read when it is sent, which keeps the file channel open until the chunk is released
+                            final int length = Math.toIntExact(Math.min(md.length() - offset, chunkSizeInBytes));
+                            final boolean lastChunk = offset + length == md.length();
+                            final RefCountedFileChannel fileChannel = currentFileChannel;
+                            fileChannel.incRef();
+                            final FileChunk chunk = new FileChunk(md, new FileChannelBytesReference(fileChannel.channel, offset, length),
+                                offset, lastChunk, fileChannel::decRef);
+                            offset += length;
+                            return chunk;
+                        }
                         final byte[] buffer = Objects.requireNonNullElseGet(buffers.pollFirst(), () -> new byte[chunkSizeInBytes]);
                         final int toRead = Math.toIntExact(Math.min(md.length() - offset, buffer.length));
                         currentInput.readBytes(buffer, 0, toRead, false);
@@ -930,7 +989,7 @@ public class RecoverySourceHandler {
 
                     @Override
                     public void close() throws IOException {
-                        IOUtils.close(currentInput, storeRef);
+                        IOUtils.close(currentInput, currentFileChannel, storeRef);
                     }
                 };
             resources.add(multiFileSender);
@@ -359,6 +359,8 @@ public class RecoveryState implements ToXContentFragment, Writeable {
         static final String SOURCE_THROTTLE_TIME_IN_MILLIS = "source_throttle_time_in_millis";
         static final String TARGET_THROTTLE_TIME = "target_throttle_time";
         static final String TARGET_THROTTLE_TIME_IN_MILLIS = "target_throttle_time_in_millis";
+        static final String THROUGHPUT_PER_SEC = "throughput_per_sec";
+        static final String THROUGHPUT_IN_BYTES_PER_SEC = "throughput_in_bytes_per_sec";
     }
 
     public static class Timer implements Writeable {
@@ -938,6 +940,14 @@ public class RecoveryState implements ToXContentFragment, Writeable {
             return total;
         }
 
+        /**
+         * Returns the average number of bytes that were recovered per second since the recovery of the files started.
+         */
+        public synchronized long recoveredBytesPerSecond() {
+            final long timeInMillis = time();
+            return timeInMillis > 0 ? recoveredBytes() * 1000 / timeInMillis : 0;
+        }
+
         /**
          * total number of bytes recovered so far, including both existing and reused
          */
@@ -1042,6 +1052,8 @@ public class RecoveryState implements ToXContentFragment, Writeable {
             builder.humanReadableField(Fields.TOTAL_TIME_IN_MILLIS, Fields.TOTAL_TIME, new TimeValue(time()));
             builder.humanReadableField(Fields.SOURCE_THROTTLE_TIME_IN_MILLIS, Fields.SOURCE_THROTTLE_TIME, sourceThrottling());
             builder.humanReadableField(Fields.TARGET_THROTTLE_TIME_IN_MILLIS, Fields.TARGET_THROTTLE_TIME, targetThrottling());
+            builder.humanReadableField(Fields.THROUGHPUT_IN_BYTES_PER_SEC, Fields.THROUGHPUT_PER_SEC,
+                new ByteSizeValue(recoveredBytesPerSecond()));
             return builder;
         }
 
@@ -202,7 +202,9 @@ public class RemoteRecoveryTargetHandler implements RecoveryTargetHandler {
         final RecoveryFileChunkRequest request = new RecoveryFileChunkRequest(
             recoveryId, requestSeqNo, shardId, fileMetadata, position, content, lastChunk, totalTranslogOps, throttleTimeInNanos);
         final Writeable.Reader<TransportResponse.Empty> reader = in -> TransportResponse.Empty.INSTANCE;
-        executeRetryableAction(action, request, fileChunkRequestOptions, listener.map(r -> null), reader);
+        // release the reference to the content that the request acquired once no more attempts will be made to send it
+        executeRetryableAction(action, request, fileChunkRequestOptions,
+            ActionListener.runBefore(listener.map(r -> null), request::decRef), reader);
     }
 
     @Override
@@ -9,6 +9,8 @@ package org.elasticsearch.search.aggregations;
 
 import org.apache.lucene.search.Collector;
 import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.profile.query.CollectorResult;
 import org.elasticsearch.search.profile.query.InternalProfileCollector;
@@ -34,6 +36,19 @@ public class AggregationPhase {
         try {
             context.aggregations().aggregators(context.aggregations().factories().createTopLevelAggregators());
             bucketCollector = MultiBucketCollector.wrap(true, List.of(context.aggregations().aggregators()));
+            final SegmentAggregationCache segmentCache = context.aggregations().segmentCache();
+            if (segmentCache != null) {
+                // the top level aggregators only build the empty results that the results of the segments are reduced with
+                final SegmentCachingCollector segmentCollector =
+                    new SegmentCachingCollector(context.aggregations().factories(), segmentCache, bucketCollector);
+                context.aggregations().segmentCollector(segmentCollector);
+                bucketCollector = segmentCollector;
+            }
+            if (context.getProfilers() == null && bucketCollector.scoreMode().needsScores() == false) {
+                final BlockBucketCollector blockCollector = new BlockBucketCollector(bucketCollector);
+                context.aggregations().blockCollector(blockCollector);
+                bucketCollector = blockCollector;
+            }
             bucketCollector.preCollection();
         } catch (IOException e) {
             throw new AggregationInitializationException("Could not initialize aggregators", e);
@@ -54,6 +69,15 @@ public class AggregationPhase {
             return;
         }
 
+        final BlockBucketCollector blockCollector = context.aggregations().blockCollector();
+        if (blockCollector != null) {
+            try {
+                blockCollector.flush();
+            } catch (IOException e) {
+                throw new AggregationExecutionException("Failed to collect the last documents of the aggregations", e);
+            }
+        }
+
         Aggregator[] aggregators = context.aggregations().aggregators();
 
         List<InternalAggregation> aggregations = new ArrayList<>(aggregators.length);
@@ -69,10 +93,44 @@ public class AggregationPhase {
                 throw new AggregationExecutionException("Failed to build aggregation [" + aggregator.name() + "]", e);
             }
         }
-        context.queryResult().aggregations(InternalAggregations.from(aggregations));
+        final SegmentCachingCollector segmentCollector = context.aggregations().segmentCollector();
+        if (segmentCollector == null) {
+            context.queryResult().aggregations(InternalAggregations.from(aggregations));
+        } else {
+            context.queryResult().aggregations(reduceSegmentResults(context, segmentCollector, InternalAggregations.from(aggregations)));
+        }
 
         // disable aggregations so that they don't run on next pages in case of scrolling
         context.aggregations(null);
         context.queryCollectors().remove(AggregationPhase.class);
     }
+
+    private static InternalAggregations reduceSegmentResults(SearchContext context, SegmentCachingCollector segmentCollector,
+                                                             InternalAggregations emptyResults) {
+        // the results of the collected segments are incomplete if the collection was interrupted
+        final boolean complete = context.queryResult().searchTimedOut() == false
+            && Boolean.TRUE.equals(context.queryResult().terminatedEarly()) == false;
+        try {
+            segmentCollector.postCollection();
+            return reduceSegmentResults(segmentCollector, emptyResults, complete, context.aggregations().factories().context().bigArrays());
+        } catch (IOException e) {
+            throw new AggregationExecutionException("Failed to build the aggregations of the segments", e);
+        }
+    }
+
+    /**
+     * Reduces the results of the segments, cached or collected, with the results of the top level aggregators.
+     *
+     * @param emptyResults the results of the top level aggregators, which did not collect any document
+     * @param cacheResults whether the results of the collected segments are complete and may be cached
+     */
+    static InternalAggregations reduceSegmentResults(SegmentCachingCollector segmentCollector, InternalAggregations emptyResults,
+                                                     boolean cacheResults, BigArrays bigArrays) throws IOException {
+        final List<InternalAggregations> results = new ArrayList<>();
+        results.add(emptyResults);
+        results.addAll(segmentCollector.buildSegmentResults(cacheResults));
+        final InternalAggregation.ReduceContext reduceContext = InternalAggregation.ReduceContext.forPartialReduction(
+            bigArrays, null, () -> PipelineAggregator.PipelineTree.EMPTY);
+        return InternalAggregations.topLevelReduce(results, reduceContext);
+    }
 }
@@ -0,0 +1,96 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.Scorable;
+import org.apache.lucene.search.ScoreMode;
+
+import java.io.IOException;
+
+/**
+ * A {@link BucketCollector} for the top level aggregators that buffers the documents of a segment and hands them to the
+ * aggregators in blocks through {@link LeafBucketCollector#collect(int[], int, long)}. Since the documents are collected
+ * after the scorer moved past them, this collector may only wrap collectors that don't need scores.
+ * <p>
+ * The buffered documents of a segment are collected when the buffer is full, when the next segment starts and when
+ * {@link #flush()} is called after the collection of the last segment.
+ */
+final class BlockBucketCollector extends BucketCollector {
+
+    static final int BLOCK_SIZE = 128;
+
+    private final BucketCollector delegate;
+    private final int[] docs = new int[BLOCK_SIZE];
+    private int count;
+    private LeafBucketCollector pending;
+
+    BlockBucketCollector(BucketCollector delegate) {
+        assert delegate.scoreMode().needsScores() == false;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public ScoreMode scoreMode() {
+        return delegate.scoreMode();
+    }
+
+    @Override
+    public void preCollection() throws IOException {
+        delegate.preCollection();
+    }
+
+    @Override
+    public void postCollection() throws IOException {
+        flush();
+        delegate.postCollection();
+    }
+
+    /**
+     * Collects the documents that are still buffered.
+     */
+    void flush() throws IOException {
+        if (count > 0) {
+            final int count = this.count;
+            this.count = 0;
+            try {
+                pending.collect(docs, count, 0);
+            } catch (CollectionTerminatedException e) {
+                // the collection of the segment of these documents is over anyway
+            }
+        }
+    }
+
+    @Override
+    public LeafBucketCollector getLeafCollector(LeafReaderContext ctx) throws IOException {
+        flush();
+        final LeafBucketCollector leafCollector = delegate.getLeafCollector(ctx);
+        if (leafCollector.isNoop()) {
+            return leafCollector;
+        }
+        return new LeafBucketCollector() {
+            @Override
+            public void setScorer(Scorable scorer) throws IOException {
+                leafCollector.setScorer(scorer);
+            }
+
+            @Override
+            public void collect(int doc, long owningBucketOrd) throws IOException {
+                assert owningBucketOrd == 0;
+                pending = leafCollector;
+                docs[count++] = doc;
+                if (count == BLOCK_SIZE) {
+                    count = 0;
+                    leafCollector.collect(docs, BLOCK_SIZE, 0);
+                }
+            }
+        };
+    }
+}
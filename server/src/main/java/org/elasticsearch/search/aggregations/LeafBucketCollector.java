@@ -71,6 +71,24 @@ public abstract class LeafBucketCollector implements LeafCollector {
      */
     public abstract void collect(int doc, long owningBucketOrd) throws IOException;
 
+    /**
+     * Collect the first {@code count} documents of {@code docs}, in increasing
+     * order of doc id, in the bucket owned by {@code owningBucketOrd}.
+     * <p>
+     * The default implementation calls {@link #collect(int, long)} for each
+     * document. Metric aggregations whose per document work is small override
+     * it to read the values of the whole block before aggregating them in a
+     * tight loop, which saves a virtual call and a bucket lookup per document.
+     * Like {@link #collect(int, long)}, this method may throw a
+     * {@link org.apache.lucene.search.CollectionTerminatedException} after
+     * collecting only some of the documents.
+     */
+    public void collect(int[] docs, int count, long owningBucketOrd) throws IOException {
+        for (int i = 0; i < count; i++) {
+            collect(docs[i], owningBucketOrd);
+        }
+    }
+
     /**
      * Does this collector collect anything? If this returns true we can safely
      * just never call {@link #collect}.
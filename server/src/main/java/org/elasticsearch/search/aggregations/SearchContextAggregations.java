@@ -7,6 +7,8 @@
  */
 package org.elasticsearch.search.aggregations;
 
+import org.elasticsearch.common.Nullable;
+
 /**
  * The aggregation context that is part of the search context.
  */
@@ -14,6 +16,9 @@ public class SearchContextAggregations {
 
     private final AggregatorFactories factories;
     private Aggregator[] aggregators;
+    private SegmentAggregationCache segmentCache;
+    private SegmentCachingCollector segmentCollector;
+    private BlockBucketCollector blockCollector;
 
     /**
      * Creates a new aggregation context with the parsed aggregator factories
@@ -38,4 +43,35 @@ public class SearchContextAggregations {
     public void aggregators(Aggregator[] aggregators) {
         this.aggregators = aggregators;
     }
+
+    /**
+     * The cache of the results of the aggregations on single segments, or {@code null} if they are not cached.
+     */
+    @Nullable
+    public SegmentAggregationCache segmentCache() {
+        return segmentCache;
+    }
+
+    /**
+     * Sets the cache of the results of the aggregations on single segments.
+     */
+    public void segmentCache(@Nullable SegmentAggregationCache segmentCache) {
+        this.segmentCache = segmentCache;
+    }
+
+    SegmentCachingCollector segmentCollector() {
+        return segmentCollector;
+    }
+
+    void segmentCollector(SegmentCachingCollector segmentCollector) {
+        this.segmentCollector = segmentCollector;
+    }
+
+    BlockBucketCollector blockCollector() {
+        return blockCollector;
+    }
+
+    void blockCollector(BlockBucketCollector blockCollector) {
+        this.blockCollector = blockCollector;
+    }
 }
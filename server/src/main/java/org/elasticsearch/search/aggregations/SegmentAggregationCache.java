@@ -0,0 +1,71 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.histogram.HistogramAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.AvgAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.CardinalityAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.MaxAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.MinAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.StatsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.SumAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.ValueCountAggregationBuilder;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Caches the partial results of the aggregations of a request on single segments. The aggregation phase only collects the
+ * segments whose results are not cached yet, and reduces their results with the cached ones.
+ */
+public interface SegmentAggregationCache {
+
+    /**
+     * The aggregations whose results on a segment only depend on the documents of the segment, and whose partial reduction
+     * loses nothing compared to collecting all the segments at once. Aggregations that only keep their top buckets per shard,
+     * like {@code terms}, are not part of this set since keeping the top buckets of each segment is less accurate.
+     */
+    Set<String> CACHEABLE_AGGREGATIONS = Set.of(
+        DateHistogramAggregationBuilder.NAME,
+        HistogramAggregationBuilder.NAME,
+        SumAggregationBuilder.NAME,
+        MinAggregationBuilder.NAME,
+        MaxAggregationBuilder.NAME,
+        AvgAggregationBuilder.NAME,
+        StatsAggregationBuilder.NAME,
+        ValueCountAggregationBuilder.NAME,
+        CardinalityAggregationBuilder.NAME
+    );
+
+    /**
+     * Returns the cached partial results of the aggregations on the given segment, or {@code null} if they are not cached.
+     */
+    @Nullable
+    InternalAggregations get(LeafReaderContext leaf) throws IOException;
+
+    /**
+     * Caches the partial results of the aggregations on the given segment.
+     */
+    void put(LeafReaderContext leaf, InternalAggregations aggregations) throws IOException;
+
+    /**
+     * Returns whether the results of the given aggregations and all of their sub-aggregations can be cached per segment.
+     */
+    static boolean canCache(Collection<AggregationBuilder> aggregations) {
+        for (AggregationBuilder aggregation : aggregations) {
+            if (CACHEABLE_AGGREGATIONS.contains(aggregation.getType()) == false || canCache(aggregation.getSubAggregations()) == false) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.ScoreMode;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.search.aggregations.MultiBucketConsumerService.MultiBucketConsumer;
+import org.elasticsearch.search.aggregations.support.AggregationContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link BucketCollector} that skips the segments whose aggregation results are in a {@link SegmentAggregationCache} and
+ * collects every other segment with its own set of top level aggregators, so that the results of each segment can be cached.
+ */
+final class SegmentCachingCollector extends BucketCollector {
+
+    private final AggregatorFactories factories;
+    private final SegmentAggregationCache cache;
+    private final BucketCollector topLevelCollector;
+    private final List<InternalAggregations> cachedResults = new ArrayList<>();
+    private final List<LeafReaderContext> collectedLeaves = new ArrayList<>();
+    private final List<Aggregator[]> collectedAggregators = new ArrayList<>();
+
+    /**
+     * @param factories          creates the top level aggregators of each collected segment
+     * @param cache              the cache of the results of each segment
+     * @param topLevelCollector  the collector of the top level aggregators of the request, which builds the empty results
+     *                           that the results of the segments are reduced with but does not collect any document
+     */
+    SegmentCachingCollector(AggregatorFactories factories, SegmentAggregationCache cache, BucketCollector topLevelCollector) {
+        this.factories = factories;
+        this.cache = cache;
+        this.topLevelCollector = topLevelCollector;
+    }
+
+    @Override
+    public ScoreMode scoreMode() {
+        return topLevelCollector.scoreMode();
+    }
+
+    @Override
+    public void preCollection() throws IOException {
+        // the aggregators of each segment are created and pre-collected with the segment
+        topLevelCollector.preCollection();
+    }
+
+    @Override
+    public LeafBucketCollector getLeafCollector(LeafReaderContext ctx) throws IOException {
+        final InternalAggregations cached = cache.get(ctx);
+        if (cached != null) {
+            cachedResults.add(cached);
+            throw new CollectionTerminatedException();
+        }
+        final Aggregator[] aggregators = factories.createTopLevelAggregators();
+        collectedLeaves.add(ctx);
+        collectedAggregators.add(aggregators);
+        final BucketCollector collector = MultiBucketCollector.wrap(true, List.of(aggregators));
+        collector.preCollection();
+        return collector.getLeafCollector(ctx);
+    }
+
+    @Override
+    public void postCollection() throws IOException {
+        for (Aggregator[] aggregators : collectedAggregators) {
+            for (Aggregator aggregator : aggregators) {
+                aggregator.postCollection();
+            }
+        }
+    }
+
+    /**
+     * Builds the results of the collected segments and returns them along with the cached results of the other segments.
+     * The buckets of all the segments, cached or not, count against the limit of buckets of the request since they are all
+     * kept in memory until they are reduced. The aggregators of each collected segment are released as soon as its
+     * results are built.
+     *
+     * @param cacheResults whether the results of the collected segments are complete and may be cached
+     */
+    List<InternalAggregations> buildSegmentResults(boolean cacheResults) throws IOException {
+        final AggregationContext context = factories.context();
+        final List<InternalAggregations> results = new ArrayList<>(cachedResults);
+        if (context != null) {
+            final MultiBucketConsumer multiBucketConsumer = context.multiBucketConsumer();
+            for (InternalAggregations cached : cachedResults) {
+                for (Aggregation aggregation : cached) {
+                    multiBucketConsumer.accept(InternalMultiBucketAggregation.countInnerBucket(aggregation));
+                }
+            }
+        }
+        for (int i = 0; i < collectedLeaves.size(); i++) {
+            final Aggregator[] aggregators = collectedAggregators.get(i);
+            final List<InternalAggregation> aggregations = new ArrayList<>(aggregators.length);
+            for (Aggregator aggregator : aggregators) {
+                aggregations.add(aggregator.buildTopLevel());
+            }
+            if (context != null) {
+                release(context, aggregators);
+            }
+            collectedAggregators.set(i, null);
+            final InternalAggregations segmentResults = InternalAggregations.from(aggregations);
+            if (cacheResults) {
+                cache.put(collectedLeaves.get(i), segmentResults);
+            }
+            results.add(segmentResults);
+        }
+        return results;
+    }
+
+    /**
+     * Releases the given aggregators and their sub-aggregators now rather than when the search is finished.
+     */
+    private static void release(AggregationContext context, Aggregator[] aggregators) {
+        for (Aggregator aggregator : aggregators) {
+            context.removeReleasable(aggregator);
+            release(context, aggregator.subAggregators());
+        }
+        Releasables.close(aggregators);
+    }
+}
@@ -8,6 +8,7 @@
 
 package org.elasticsearch.search.aggregations.bucket.composite;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.ParseField;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -38,6 +39,7 @@ public class CompositeAggregationBuilder extends AbstractAggregationBuilder<Comp
     public static final ParseField AFTER_FIELD_NAME = new ParseField("after");
     public static final ParseField SIZE_FIELD_NAME = new ParseField("size");
     public static final ParseField SOURCES_FIELD_NAME = new ParseField("sources");
+    public static final ParseField PREFETCH_PAGES_FIELD_NAME = new ParseField("prefetch_pages");
 
     public static final ConstructingObjectParser<CompositeAggregationBuilder, String> PARSER = new ConstructingObjectParser<>(
             NAME, false, (args, name) -> {
@@ -50,6 +52,7 @@ public class CompositeAggregationBuilder extends AbstractAggregationBuilder<Comp
             (p, c) -> CompositeValuesSourceParserHelper.fromXContent(p), SOURCES_FIELD_NAME);
         PARSER.declareInt(CompositeAggregationBuilder::size, SIZE_FIELD_NAME);
         PARSER.declareObject(CompositeAggregationBuilder::aggregateAfter, (p, context) -> p.map(), AFTER_FIELD_NAME);
+        PARSER.declareInt(CompositeAggregationBuilder::prefetchPages, PREFETCH_PAGES_FIELD_NAME);
     }
 
     public static void registerAggregators(ValuesSourceRegistry.Builder builder) {
@@ -63,6 +66,7 @@ public class CompositeAggregationBuilder extends AbstractAggregationBuilder<Comp
     private List<CompositeValuesSourceBuilder<?>> sources;
     private Map<String, Object> after;
     private int size = 10;
+    private int prefetchPages = 1;
 
     public CompositeAggregationBuilder(String name, List<CompositeValuesSourceBuilder<?>> sources) {
         super(name);
@@ -76,6 +80,7 @@ public class CompositeAggregationBuilder extends AbstractAggregationBuilder<Comp
         this.sources = new ArrayList<>(clone.sources);
         this.after = clone.after;
         this.size = clone.size;
+        this.prefetchPages = clone.prefetchPages;
     }
 
     @Override
@@ -95,6 +100,9 @@ public class CompositeAggregationBuilder extends AbstractAggregationBuilder<Comp
         if (in.readBoolean()) {
             this.after = in.readMap();
         }
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            this.prefetchPages = in.readVInt();
+        }
     }
 
     @Override
@@ -108,6 +116,9 @@ public class CompositeAggregationBuilder extends AbstractAggregationBuilder<Comp
         if (after != null) {
             out.writeMap(after);
         }
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeVInt(prefetchPages);
+        }
     }
 
     @Override
@@ -146,6 +157,28 @@ public class CompositeAggregationBuilder extends AbstractAggregationBuilder<Comp
         return size;
     }
 
+    /**
+     * The number of pages of composite buckets that each shard collects at once when the request
+     * targets a point in time. The pages that are not returned yet are kept in the point in time
+     * so that the requests for the next pages don't need to collect the documents of the shard
+     * again. Defaults to {@code 1}, which collects a single page per request.
+     */
+    public CompositeAggregationBuilder prefetchPages(int prefetchPages) {
+        if (prefetchPages < 1) {
+            throw new IllegalArgumentException("[" + PREFETCH_PAGES_FIELD_NAME.getPreferredName() + "] must be greater than 0. Found ["
+                + prefetchPages + "] in [" + name + "]");
+        }
+        this.prefetchPages = prefetchPages;
+        return this;
+    }
+
+    /**
+     * @return the number of pages that each shard collects at once. Defaults to {@code 1}.
+     */
+    public int prefetchPages() {
+        return prefetchPages;
+    }
+
     @Override
     public BucketCardinality bucketCardinality() {
         /*
@@ -234,7 +267,12 @@ public class CompositeAggregationBuilder extends AbstractAggregationBuilder<Comp
         } else {
             afterKey = null;
         }
-        return new CompositeAggregationFactory(name, context, parent, subfactoriesBuilder, metadata, size, configs, afterKey);
+        // identifies the pages of this aggregation that a previous request kept in the point in time, whatever the after key
+        final Object cursorId = prefetchPages > 1 && parent == null
+            ? new CompositeAggregationBuilder(this, subfactoriesBuilder, metadata).aggregateAfter(null)
+            : null;
+        return new CompositeAggregationFactory(name, context, parent, subfactoriesBuilder, metadata, size, prefetchPages, configs,
+            afterKey, cursorId);
     }
 
 
@@ -242,6 +280,9 @@ public class CompositeAggregationBuilder extends AbstractAggregationBuilder<Comp
     protected XContentBuilder internalXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject();
         builder.field(SIZE_FIELD_NAME.getPreferredName(), size);
+        if (prefetchPages != 1) {
+            builder.field(PREFETCH_PAGES_FIELD_NAME.getPreferredName(), prefetchPages);
+        }
         builder.startArray(SOURCES_FIELD_NAME.getPreferredName());
         for (CompositeValuesSourceBuilder<?> source: sources) {
             CompositeValuesSourceParserHelper.toXContent(source, builder, params);
@@ -256,7 +297,7 @@ public class CompositeAggregationBuilder extends AbstractAggregationBuilder<Comp
 
     @Override
     public int hashCode() {
-        return Objects.hash(super.hashCode(), sources, size, after);
+        return Objects.hash(super.hashCode(), sources, size, prefetchPages, after);
     }
 
     @Override
@@ -266,6 +307,7 @@ public class CompositeAggregationBuilder extends AbstractAggregationBuilder<Comp
         if (super.equals(obj) == false) return false;
         CompositeAggregationBuilder other = (CompositeAggregationBuilder) obj;
         return size == other.size &&
+            prefetchPages == other.prefetchPages &&
             Objects.equals(sources, other.sources) &&
             Objects.equals(after, other.after);
     }
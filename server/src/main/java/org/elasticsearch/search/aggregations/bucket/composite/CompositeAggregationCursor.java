@@ -0,0 +1,138 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.composite;
+
+import org.apache.lucene.search.Query;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.search.internal.ReaderContext;
+
+import java.util.List;
+
+/**
+ * The composite buckets that a shard collected for a page and the pages that follow it, kept in the {@link ReaderContext}
+ * of a point in time. Since the reader of a point in time never changes, the requests for the next pages of the same
+ * aggregation can be answered from these buckets instead of collecting the documents of the shard again. The buckets are
+ * accounted for by the request circuit breaker until the cursor is replaced or the point in time is closed.
+ */
+final class CompositeAggregationCursor implements Releasable {
+
+    private final Object id;
+    private final Query query;
+    @Nullable
+    private final CompositeKey afterKey;
+    private final List<InternalComposite.InternalBucket> buckets;
+    private final boolean exhausted;
+    private final int[] reverseMuls;
+    private Releasable charge = () -> {};
+
+    /**
+     * @param id         identifies the aggregation, regardless of its after key
+     * @param query      the top level query of the request
+     * @param afterKey   the raw after key that the buckets were collected after
+     * @param buckets    the buckets that follow the after key, in order
+     * @param exhausted  whether the shard has no more buckets than {@code buckets}
+     */
+    CompositeAggregationCursor(Object id, Query query, @Nullable CompositeKey afterKey, List<InternalComposite.InternalBucket> buckets,
+                               boolean exhausted, int[] reverseMuls) {
+        this.id = id;
+        this.query = query;
+        this.afterKey = afterKey;
+        this.buckets = buckets;
+        this.exhausted = exhausted;
+        this.reverseMuls = reverseMuls;
+    }
+
+    /**
+     * The key of the cursor of the aggregation with the given name in the {@link ReaderContext}.
+     */
+    static String contextKey(String name) {
+        return "composite_cursor[" + name + "]";
+    }
+
+    /**
+     * Keeps the provided cursor in the reader context in place of the previous cursor of the aggregation with the given name,
+     * and charges {@code sizeInBytes} to the breaker until it is replaced or the reader context is closed. If the breaker
+     * trips then the previous cursor is kept instead.
+     *
+     * @return whether the cursor was kept
+     */
+    static boolean putInContext(ReaderContext readerContext, String name, CompositeAggregationCursor cursor,
+                                CircuitBreaker breaker, long sizeInBytes) {
+        try {
+            breaker.addEstimateBytesAndMaybeBreak(sizeInBytes, "<composite_cursor [" + name + "]>");
+        } catch (CircuitBreakingException e) {
+            // the next pages are collected again instead
+            return false;
+        }
+        cursor.charge = Releasables.releaseOnce(() -> breaker.addWithoutBreaking(-sizeInBytes));
+        final String key = contextKey(name);
+        final CompositeAggregationCursor previous = (CompositeAggregationCursor) readerContext.putInContext(key, cursor);
+        if (previous != null) {
+            previous.close();
+        } else {
+            // release whichever cursor of the aggregation is in the context once it is closed
+            readerContext.addOnClose(() -> Releasables.close((CompositeAggregationCursor) readerContext.getFromContext(key)));
+        }
+        return true;
+    }
+
+    /**
+     * Returns the page of at most {@code size} buckets that follow the provided raw after key, or {@code null} if this cursor
+     * was created for another aggregation or cannot tell which buckets follow the after key.
+     */
+    @Nullable
+    List<InternalComposite.InternalBucket> nextPage(Object id, Query query, @Nullable CompositeKey after, int size) {
+        if (this.id.equals(id) == false || this.query.equals(query) == false) {
+            return null;
+        }
+        if (afterKey != null && (after == null || compare(after, afterKey) < 0)) {
+            // the page starts before the first bucket of this cursor
+            return null;
+        }
+        int from = 0;
+        if (after != null) {
+            while (from < buckets.size() && compare(buckets.get(from).getRawKey(), after) <= 0) {
+                from++;
+            }
+        }
+        if (buckets.size() - from >= size) {
+            return buckets.subList(from, from + size);
+        }
+        // the shard may have more buckets after the last one of this cursor
+        return exhausted ? buckets.subList(from, buckets.size()) : null;
+    }
+
+    @Override
+    public void close() {
+        charge.close();
+    }
+
+    private int compare(CompositeKey key, CompositeKey other) {
+        for (int i = 0; i < key.size(); i++) {
+            if (key.get(i) == null) {
+                if (other.get(i) == null) {
+                    continue;
+                }
+                return -1 * reverseMuls[i];
+            } else if (other.get(i) == null) {
+                return reverseMuls[i];
+            }
+            @SuppressWarnings("unchecked")
+            int cmp = key.get(i).compareTo(other.get(i)) * reverseMuls[i];
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+}
@@ -8,6 +8,7 @@
 
 package org.elasticsearch.search.aggregations.bucket.composite;
 
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.AggregatorFactories;
 import org.elasticsearch.search.aggregations.AggregatorFactory;
@@ -19,21 +20,26 @@ import java.util.Map;
 
 class CompositeAggregationFactory extends AggregatorFactory {
     private final int size;
+    private final int prefetchPages;
     private final CompositeValuesSourceConfig[] sources;
     private final CompositeKey afterKey;
+    private final Object cursorId;
 
     CompositeAggregationFactory(String name, AggregationContext context, AggregatorFactory parent,
                                 AggregatorFactories.Builder subFactoriesBuilder, Map<String, Object> metadata,
-                                int size, CompositeValuesSourceConfig[] sources, CompositeKey afterKey) throws IOException {
+                                int size, int prefetchPages, CompositeValuesSourceConfig[] sources, CompositeKey afterKey,
+                                @Nullable Object cursorId) throws IOException {
         super(name, context, parent, subFactoriesBuilder, metadata);
         this.size = size;
+        this.prefetchPages = prefetchPages;
         this.sources = sources;
         this.afterKey = afterKey;
+        this.cursorId = cursorId;
     }
 
     @Override
     protected Aggregator createInternal(Aggregator parent, CardinalityUpperBound cardinality, Map<String, Object> metadata)
         throws IOException {
-        return new CompositeAggregator(name, factories, context, parent, metadata, size, sources, afterKey);
+        return new CompositeAggregator(name, factories, context, parent, metadata, size, prefetchPages, sources, afterKey, cursorId);
     }
 }
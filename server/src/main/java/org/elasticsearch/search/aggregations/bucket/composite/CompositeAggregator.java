@@ -33,6 +33,8 @@ import org.apache.lucene.search.comparators.LongComparator;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.RoaringDocIdSet;
 import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.io.stream.DelayableWriteable;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.index.IndexSortConfig;
 import org.elasticsearch.search.DocValueFormat;
@@ -47,6 +49,7 @@ import org.elasticsearch.search.aggregations.MultiBucketCollector;
 import org.elasticsearch.search.aggregations.MultiBucketConsumerService;
 import org.elasticsearch.search.aggregations.bucket.BucketsAggregator;
 import org.elasticsearch.search.aggregations.support.AggregationContext;
+import org.elasticsearch.search.internal.ReaderContext;
 import org.elasticsearch.search.searchafter.SearchAfterBuilder;
 import org.elasticsearch.search.sort.SortAndFormats;
 
@@ -63,6 +66,8 @@ import static org.elasticsearch.search.aggregations.MultiBucketConsumerService.M
 
 final class CompositeAggregator extends BucketsAggregator {
     private final int size;
+    // the number of buckets that are collected at once, more than size if the next pages are kept in a cursor
+    private final int capacity;
     private final List<String> sourceNames;
     private final int[] reverseMuls;
     private final List<DocValueFormat> formats;
@@ -71,6 +76,9 @@ final class CompositeAggregator extends BucketsAggregator {
     private final CompositeValuesSourceConfig[] sourceConfigs;
     private final SingleDimensionValuesSource<?>[] sources;
     private final CompositeValuesCollectorQueue queue;
+    private final Object cursorId;
+    private final ReaderContext cursorContext;
+    private List<InternalComposite.InternalBucket> cursorPage;
 
     private final List<Entry> entries = new ArrayList<>();
     private LeafReaderContext currentLeaf;
@@ -81,7 +89,8 @@ final class CompositeAggregator extends BucketsAggregator {
 
     CompositeAggregator(String name, AggregatorFactories factories, AggregationContext context, Aggregator parent,
                         Map<String, Object> metadata,
-                        int size, CompositeValuesSourceConfig[] sourceConfigs, CompositeKey rawAfterKey) throws IOException {
+                        int size, int prefetchPages, CompositeValuesSourceConfig[] sourceConfigs, CompositeKey rawAfterKey,
+                        @Nullable Object cursorId) throws IOException {
         super(name, factories, context, parent, CardinalityUpperBound.MANY, metadata);
         this.size = size;
         this.sourceNames = Arrays.stream(sourceConfigs).map(CompositeValuesSourceConfig::name).collect(Collectors.toList());
@@ -95,6 +104,10 @@ final class CompositeAggregator extends BucketsAggregator {
                 " to: [" + bucketLimit + "] but was [" + size + "]. This limit can be set by changing the [" + MAX_BUCKET_SETTING.getKey() +
                 "] cluster level setting.", bucketLimit);
         }
+        this.cursorContext = cursorId != null ? context.pointInTimeReaderContext() : null;
+        this.cursorId = cursorId;
+        // prefetch as many pages as the bucket limit allows
+        this.capacity = cursorContext != null ? (int) Math.min((long) size * prefetchPages, bucketLimit) : size;
         this.sourceConfigs = sourceConfigs;
         for (int i = 0; i < sourceConfigs.length; i++) {
             this.sources[i] = sourceConfigs[i].createValuesSource(
@@ -104,7 +117,7 @@ final class CompositeAggregator extends BucketsAggregator {
                 this::addRequestCircuitBreakerBytes
             );
         }
-        this.queue = new CompositeValuesCollectorQueue(context.bigArrays(), sources, size);
+        this.queue = new CompositeValuesCollectorQueue(context.bigArrays(), sources, capacity);
         if (rawAfterKey != null) {
             try {
                 this.queue.setAfterKey(rawAfterKey);
@@ -127,6 +140,12 @@ final class CompositeAggregator extends BucketsAggregator {
 
     @Override
     protected void doPreCollection() throws IOException {
+        if (cursorContext != null) {
+            final CompositeAggregationCursor cursor = cursorContext.getFromContext(CompositeAggregationCursor.contextKey(name));
+            if (cursor != null) {
+                cursorPage = cursor.nextPage(cursorId, topLevelQuery(), rawAfterKeyFromSources(), size);
+            }
+        }
         deferredCollectors = MultiBucketCollector.wrap(false, Arrays.asList(subAggregators));
         collectableSubAggregators = BucketCollector.NO_OP_COLLECTOR;
     }
@@ -140,13 +159,21 @@ final class CompositeAggregator extends BucketsAggregator {
     public InternalAggregation[] buildAggregations(long[] owningBucketOrds) throws IOException {
         // Composite aggregator must be at the top of the aggregation tree
         assert owningBucketOrds.length == 1 && owningBucketOrds[0] == 0L;
+        if (cursorPage != null) {
+            // The page was collected by a previous request on this point in time.
+            CompositeKey lastBucket = cursorPage.isEmpty() ? null : cursorPage.get(cursorPage.size() - 1).getRawKey();
+            return new InternalAggregation[] {
+                new InternalComposite(name, size, sourceNames, formats, cursorPage, lastBucket, reverseMuls, false, metadata())
+            };
+        }
         if (deferredCollectors != NO_OP_COLLECTOR) {
             // Replay all documents that contain at least one top bucket (collected during the first pass).
             runDeferredCollections();
         }
 
         int num = Math.min(size, queue.size());
-        final InternalComposite.InternalBucket[] buckets = new InternalComposite.InternalBucket[num];
+        final InternalComposite.InternalBucket[] buckets = new InternalComposite.InternalBucket[queue.size()];
+        final boolean exhausted = queue.size() < capacity;
         long[] bucketOrdsToCollect = new long[queue.size()];
         for (int i = 0; i < queue.size(); i++) {
             bucketOrdsToCollect[i] = i;
@@ -159,9 +186,18 @@ final class CompositeAggregator extends BucketsAggregator {
             long docCount = queue.getDocCount(slot);
             buckets[queue.size()] = new InternalComposite.InternalBucket(sourceNames, formats, key, reverseMuls, docCount, aggs);
         }
+        if (cursorContext != null && context.isCollectionIncomplete() == false) {
+            // Keep the buckets of the next pages for the next requests on this point in time, unless some documents were not
+            // collected, in which case the buckets may be missing or have wrong counts and the next requests must collect again.
+            final InternalComposite prefetched = new InternalComposite(name, size, sourceNames, formats, Arrays.asList(buckets), null,
+                reverseMuls, false, metadata());
+            CompositeAggregationCursor.putInContext(cursorContext, name, new CompositeAggregationCursor(cursorId, topLevelQuery(),
+                rawAfterKeyFromSources(), Arrays.asList(buckets), exhausted, reverseMuls), context.pointInTimeBreaker(),
+                DelayableWriteable.getSerializedSize(prefetched));
+        }
         CompositeKey lastBucket = num > 0 ? buckets[num-1].getRawKey() : null;
         return new InternalAggregation[] {
-            new InternalComposite(name, size, sourceNames, formats, Arrays.asList(buckets), lastBucket, reverseMuls,
+            new InternalComposite(name, size, sourceNames, formats, Arrays.asList(buckets).subList(0, num), lastBucket, reverseMuls,
                     earlyTerminated, metadata())
         };
     }
@@ -172,6 +208,20 @@ final class CompositeAggregator extends BucketsAggregator {
             false, metadata());
     }
 
+    /**
+     * Returns the after key in the same form as the keys of the buckets, or null if there is no after key.
+     */
+    private CompositeKey rawAfterKeyFromSources() {
+        if (rawAfterKey == null) {
+            return null;
+        }
+        final Comparable[] values = new Comparable[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            values[i] = sources[i].getAfter();
+        }
+        return new CompositeKey(values);
+    }
+
     private void finishLeaf() {
         if (currentLeaf != null) {
             DocIdSet docIdSet = docIdSetBuilder.build();
@@ -376,6 +426,10 @@ final class CompositeAggregator extends BucketsAggregator {
     @Override
     protected LeafBucketCollector getLeafCollector(LeafReaderContext ctx, LeafBucketCollector sub) throws IOException {
         finishLeaf();
+        if (cursorPage != null) {
+            // the buckets are already known, nothing to collect
+            return LeafBucketCollector.NO_OP_COLLECTOR;
+        }
 
         boolean fillDocIdSet = deferredCollectors != NO_OP_COLLECTOR;
 
@@ -287,17 +287,20 @@ public final class InternalDateHistogram extends InternalMultiBucketAggregation<
                 return a.current().key < b.current().key;
             }
         };
+        // the reduced result usually holds at least as many buckets as the largest input so we size the list upfront
+        int maxBuckets = 0;
         for (InternalAggregation aggregation : aggregations) {
             InternalDateHistogram histogram = (InternalDateHistogram) aggregation;
             if (histogram.buckets.isEmpty() == false) {
                 pq.add(new IteratorAndCurrent<Bucket>(histogram.buckets.iterator()));
+                maxBuckets = Math.max(maxBuckets, histogram.buckets.size());
             }
         }
 
-        List<Bucket> reducedBuckets = new ArrayList<>();
+        List<Bucket> reducedBuckets = new ArrayList<>(maxBuckets);
         if (pq.size() > 0) {
             // list of buckets coming from different shards that have the same key
-            List<Bucket> currentBuckets = new ArrayList<>();
+            List<Bucket> currentBuckets = new ArrayList<>(pq.size());
             double key = pq.top().current().key;
 
             do {
@@ -161,16 +161,19 @@ public abstract class AbstractInternalTerms<
                 return cmp.compare(a.current(), b.current()) < 0;
             }
         };
+        // the reduced result holds at least as many buckets as the largest input so we size the list upfront
+        int maxBuckets = 0;
         for (InternalAggregation aggregation : aggregations) {
             @SuppressWarnings("unchecked")
             A terms = (A) aggregation;
             if (terms.getBuckets().isEmpty() == false) {
                 pq.add(new IteratorAndCurrent<>(terms.getBuckets().iterator()));
+                maxBuckets = Math.max(maxBuckets, terms.getBuckets().size());
             }
         }
-        List<B> reducedBuckets = new ArrayList<>();
+        List<B> reducedBuckets = new ArrayList<>(maxBuckets);
         // list of buckets coming from different shards that have the same key
-        List<B> currentBuckets = new ArrayList<>();
+        List<B> currentBuckets = new ArrayList<>(pq.size());
         B lastBucket = null;
         while (pq.size() > 0) {
             final IteratorAndCurrent<B> top = pq.top();
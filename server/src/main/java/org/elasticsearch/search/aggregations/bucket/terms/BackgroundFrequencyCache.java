@@ -0,0 +1,32 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.terms;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.Query;
+import org.elasticsearch.common.Nullable;
+
+/**
+ * Caches the background frequencies of terms in the segments of a shard for the {@code significant_terms} and
+ * {@code significant_text} aggregations. Since segments never change, the frequency of a term in a segment only needs to be
+ * computed once for a given background filter, and the frequency in a shard is the sum of the frequencies in its segments.
+ */
+public interface BackgroundFrequencyCache {
+
+    /**
+     * Returns the cached number of documents of the segment that match {@code termQuery} and {@code backgroundFilter}, or
+     * {@code -1} if it is not cached.
+     */
+    long get(LeafReaderContext leaf, Query termQuery, @Nullable Query backgroundFilter);
+
+    /**
+     * Caches the number of documents of the segment that match {@code termQuery} and {@code backgroundFilter}.
+     */
+    void put(LeafReaderContext leaf, Query termQuery, @Nullable Query backgroundFilter, long freq);
+}
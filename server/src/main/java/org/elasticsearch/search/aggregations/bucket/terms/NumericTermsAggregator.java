@@ -31,6 +31,7 @@ import org.elasticsearch.search.aggregations.bucket.terms.LongKeyedBucketOrds.Bu
 import org.elasticsearch.search.aggregations.bucket.terms.SignificanceLookup.BackgroundFrequencyForLong;
 import org.elasticsearch.search.aggregations.bucket.terms.heuristic.SignificanceHeuristic;
 import org.elasticsearch.search.aggregations.support.AggregationContext;
+import org.elasticsearch.search.aggregations.support.DocValuesBlock;
 import org.elasticsearch.search.aggregations.support.ValuesSource;
 
 import java.io.IOException;
@@ -84,6 +85,7 @@ public class NumericTermsAggregator extends TermsAggregator {
     @Override
     public LeafBucketCollector getLeafCollector(LeafReaderContext ctx, LeafBucketCollector sub) throws IOException {
         SortedNumericDocValues values = resultStrategy.getValues(ctx);
+        DocValuesBlock block = new DocValuesBlock();
         return resultStrategy.wrapCollector(new LeafBucketCollectorBase(sub, values) {
             @Override
             public void collect(int doc, long owningBucketOrd) throws IOException {
@@ -109,6 +111,35 @@ public class NumericTermsAggregator extends TermsAggregator {
                     }
                 }
             }
+
+            @Override
+            public void collect(int[] docs, int count, long owningBucketOrd) throws IOException {
+                int valuesCount = block.readLongs(values, docs, count);
+                long[] blockValues = block.longs();
+                int[] docIndices = block.docIndices();
+
+                long previous = Long.MAX_VALUE;
+                int previousDocIndex = -1;
+                for (int i = 0; i < valuesCount; ++i) {
+                    long val = blockValues[i];
+                    int docIndex = docIndices[i];
+                    // values of a document are sorted, so only consecutive values of the same document can be duplicates
+                    if (previous != val || previousDocIndex != docIndex) {
+                        if ((longFilter == null) || (longFilter.accept(val))) {
+                            long bucketOrdinal = bucketOrds.add(owningBucketOrd, val);
+                            if (bucketOrdinal < 0) { // already seen
+                                bucketOrdinal = -1 - bucketOrdinal;
+                                collectExistingBucket(sub, docs[docIndex], bucketOrdinal);
+                            } else {
+                                collectBucket(sub, docs[docIndex], bucketOrdinal);
+                            }
+                        }
+
+                        previous = val;
+                        previousDocIndex = docIndex;
+                    }
+                }
+            }
         });
     }
 
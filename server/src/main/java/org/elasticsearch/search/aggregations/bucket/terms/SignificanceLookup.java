@@ -9,14 +9,20 @@
 package org.elasticsearch.search.aggregations.bucket.terms;
 
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.PostingsEnum;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.search.BooleanClause.Occur;
 import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lease.Releasables;
@@ -34,6 +40,7 @@ import org.elasticsearch.search.aggregations.bucket.terms.heuristic.Significance
 import org.elasticsearch.search.aggregations.support.AggregationContext;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * Looks up values used for {@link SignificanceHeuristic}s.
@@ -58,7 +65,9 @@ class SignificanceLookup {
     private final DocValueFormat format;
     private final Query backgroundFilter;
     private final int supersetNumDocs;
+    private final BackgroundFrequencyCache cache;
     private TermsEnum termsEnum;
+    private TermsEnum[] leafTermsEnums;
 
     SignificanceLookup(AggregationContext context, MappedFieldType fieldType, DocValueFormat format, QueryBuilder backgroundFilter)
         throws IOException {
@@ -73,6 +82,11 @@ class SignificanceLookup {
          */
         IndexSearcher searcher = context.searcher();
         supersetNumDocs = backgroundFilter == null ? searcher.getIndexReader().maxDoc() : searcher.count(this.backgroundFilter);
+        /*
+         * Without a background filter the frequencies are read from the terms dictionary, which is as cheap as a cache lookup,
+         * and a background filter that depends on the time of the request can't be cached.
+         */
+        cache = this.backgroundFilter != null && context.isCacheable() ? context.backgroundFrequencyCache() : null;
     }
 
     /**
@@ -173,6 +187,9 @@ class SignificanceLookup {
     }
 
     private long getBackgroundFrequency(Query query) throws IOException {
+        if (cache != null) {
+            return getCachedBackgroundFrequency(query);
+        }
         if (query instanceof TermQuery) {
             // for types that use the inverted index, we prefer using a terms
             // enum that will do a better job at reusing index inputs
@@ -190,6 +207,71 @@ class SignificanceLookup {
         return context.searcher().count(query);
     }
 
+    /**
+     * Sums the background frequencies of a term in each segment, only computing the ones that are not cached yet.
+     */
+    private long getCachedBackgroundFrequency(Query query) throws IOException {
+        List<LeafReaderContext> leaves = context.searcher().getIndexReader().leaves();
+        long freq = 0;
+        Weight weight = null;
+        for (LeafReaderContext leaf : leaves) {
+            long leafFreq = cache.get(leaf, query, backgroundFilter);
+            if (leafFreq < 0) {
+                if (query instanceof TermQuery) {
+                    Term term = ((TermQuery) query).getTerm();
+                    TermsEnum leafTermsEnum = getLeafTermsEnum(leaves, leaf, term.field());
+                    leafFreq = leafTermsEnum.seekExact(term.bytes()) ? leafTermsEnum.docFreq() : 0;
+                } else {
+                    if (weight == null) {
+                        weight = createCountWeight(query);
+                    }
+                    leafFreq = count(weight, leaf);
+                }
+                cache.put(leaf, query, backgroundFilter, leafFreq);
+            }
+            freq += leafFreq;
+        }
+        return freq;
+    }
+
+    private TermsEnum getLeafTermsEnum(List<LeafReaderContext> leaves, LeafReaderContext leaf, String field) throws IOException {
+        if (leafTermsEnums == null) {
+            leafTermsEnums = new TermsEnum[leaves.size()];
+        }
+        if (leafTermsEnums[leaf.ord] == null) {
+            // same as getTermsEnum but only applies the background filter to the segments whose frequencies are not cached
+            leafTermsEnums[leaf.ord] = new FilterableTermsEnum(leaf.reader(), field, PostingsEnum.NONE, backgroundFilter);
+        }
+        return leafTermsEnums[leaf.ord];
+    }
+
+    private Weight createCountWeight(Query query) throws IOException {
+        if (backgroundFilter != null) {
+            query = new BooleanQuery.Builder().add(query, Occur.FILTER).add(backgroundFilter, Occur.FILTER).build();
+        }
+        IndexSearcher searcher = context.searcher();
+        return searcher.createWeight(searcher.rewrite(query), ScoreMode.COMPLETE_NO_SCORES, 1f);
+    }
+
+    /**
+     * Counts the live documents of the segment that match the weight, like {@link IndexSearcher#count} does for all segments.
+     */
+    private static long count(Weight weight, LeafReaderContext leaf) throws IOException {
+        Scorer scorer = weight.scorer(leaf);
+        if (scorer == null) {
+            return 0;
+        }
+        Bits liveDocs = leaf.reader().getLiveDocs();
+        DocIdSetIterator iterator = scorer.iterator();
+        long count = 0;
+        for (int doc = iterator.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = iterator.nextDoc()) {
+            if (liveDocs == null || liveDocs.get(doc)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     private TermsEnum getTermsEnum(String field) throws IOException {
         // TODO this method helps because of asMultiBucketAggregator. Once we remove it we can move this logic into the aggregators.
         if (termsEnum != null) {
@@ -8,6 +8,7 @@
 
 package org.elasticsearch.search.aggregations.metrics;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.lease.Releasable;
@@ -105,8 +106,27 @@ public abstract class AbstractHyperLogLogPlusPlus extends AbstractCardinalityAlg
         } else {
             out.writeBoolean(HYPERLOGLOG);
             AbstractHyperLogLog.RunLenIterator iterator = getHyperLogLog(bucket);
-            while (iterator.next()){
-                out.writeByte(iterator.value());
+            if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+                // registers are packed using six bits per register, in the same layout as PackedRunLens
+                long word = 0;
+                int bits = 0;
+                while (iterator.next()) {
+                    final long runLen = iterator.value();
+                    word |= runLen << bits;
+                    bits += PackedRunLens.BITS_PER_REGISTER;
+                    if (bits >= Long.SIZE) {
+                        out.writeLong(word);
+                        bits -= Long.SIZE;
+                        word = runLen >>> (PackedRunLens.BITS_PER_REGISTER - bits);
+                    }
+                }
+                if (bits > 0) {
+                    out.writeLong(word);
+                }
+            } else {
+                while (iterator.next()) {
+                    out.writeByte(iterator.value());
+                }
             }
         }
     }
@@ -125,9 +145,13 @@ public abstract class AbstractHyperLogLogPlusPlus extends AbstractCardinalityAlg
             return counts;
         } else {
             HyperLogLogPlusPlus counts = new HyperLogLogPlusPlus(precision, bigArrays, 1);
-            final int registers = 1 << precision;
-            for (int i = 0; i < registers; ++i) {
-                counts.addRunLen(0, i, in.readByte());
+            if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+                counts.readPackedRunLens(0, in);
+            } else {
+                final int registers = 1 << precision;
+                for (int i = 0; i < registers; ++i) {
+                    counts.addRunLen(0, i, in.readByte());
+                }
             }
             return counts;
         }
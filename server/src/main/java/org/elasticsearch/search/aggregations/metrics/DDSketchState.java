@@ -0,0 +1,368 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.metrics;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.LongArray;
+
+import java.io.IOException;
+
+/**
+ * A quantile sketch with relative-error guarantees, implemented based on
+ * <a href="https://arxiv.org/abs/1908.10693">DDSketch: A Fast and Fully-Mergeable Quantile Sketch with Relative-Error Guarantees</a>.
+ *
+ * Values are counted in logarithmically sized bins so that any value of a bin is within the configured relative accuracy of the
+ * value that represents the bin. Adding a value only increments the count of its bin, and two sketches with the same relative
+ * accuracy are merged exactly by adding the counts of their bins. The counts of the bins are stored in {@link BigArrays} and their
+ * number grows with the logarithm of the range of the values.
+ */
+public final class DDSketchState implements Releasable {
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+    private final double minIndexableValue;
+    private final Bins positives;
+    private final Bins negatives;
+    private long zeroCount;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public DDSketchState(double relativeAccuracy, BigArrays bigArrays) {
+        if ((relativeAccuracy > 0 && relativeAccuracy < 1) == false) {
+            throw new IllegalArgumentException(
+                "[relative_accuracy] must be greater than 0 and less than 1. Found [" + relativeAccuracy + "]");
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+        this.minIndexableValue = Double.MIN_NORMAL * gamma;
+        this.positives = new Bins(bigArrays);
+        this.negatives = new Bins(bigArrays);
+    }
+
+    public double relativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    /**
+     * Returns the number of values in the sketch.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    /**
+     * Adds {@code valueCount} times the given value. {@code NaN} values can't be ranked and are ignored. Infinite values are
+     * counted in the bin of the largest finite value of the same sign, and are still reported by {@link #getMin()} and
+     * {@link #getMax()}.
+     */
+    public void add(double value, long valueCount) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        final double binValue = Math.max(-Double.MAX_VALUE, Math.min(Double.MAX_VALUE, value));
+        if (binValue >= minIndexableValue) {
+            positives.add(index(binValue), valueCount);
+        } else if (binValue <= -minIndexableValue) {
+            negatives.add(index(-binValue), valueCount);
+        } else {
+            zeroCount += valueCount;
+        }
+        count += valueCount;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds the values of another sketch with the same relative accuracy to this sketch.
+     */
+    public void add(DDSketchState other) {
+        if (relativeAccuracy != other.relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge sketches with different relative accuracies [" + relativeAccuracy + "] and ["
+                + other.relativeAccuracy + "]");
+        }
+        positives.add(other.positives);
+        negatives.add(other.negatives);
+        zeroCount += other.zeroCount;
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Returns an estimate of the value at the given quantile, between {@code 0} and {@code 1}, or {@link Double#NaN} if the
+     * sketch is empty.
+     */
+    public double quantile(double quantile) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        final double rank = quantile * (count - 1);
+        long n = 0;
+        // the largest negative indices are the smallest values
+        for (int index = negatives.maxIndex; index >= negatives.minIndex; --index) {
+            n += negatives.get(index);
+            if (n > rank) {
+                return clamp(-value(index));
+            }
+        }
+        n += zeroCount;
+        if (n > rank) {
+            return clamp(0);
+        }
+        for (int index = positives.minIndex; index <= positives.maxIndex; ++index) {
+            n += positives.get(index);
+            if (n > rank) {
+                return clamp(value(index));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Returns an estimate of the fraction of the values that are less than or equal to the given value, or {@link Double#NaN} if
+     * the sketch is empty.
+     */
+    public double cdf(double value) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (value < min) {
+            return 0;
+        }
+        if (value >= max) {
+            return 1;
+        }
+        long n = 0;
+        if (value <= -minIndexableValue) {
+            final int valueIndex = index(-value);
+            for (int index = negatives.maxIndex; index >= Math.max(valueIndex, negatives.minIndex); --index) {
+                n += negatives.get(index);
+            }
+        } else {
+            n += negatives.total + zeroCount;
+            if (value >= minIndexableValue) {
+                final int valueIndex = index(value);
+                for (int index = positives.minIndex; index <= Math.min(valueIndex, positives.maxIndex); ++index) {
+                    n += positives.get(index);
+                }
+            }
+        }
+        return (double) n / count;
+    }
+
+    private int index(double value) {
+        return (int) Math.ceil(Math.log(value) / logGamma);
+    }
+
+    /**
+     * The value that represents all values of a bin, which is within the relative accuracy of both bounds of the bin.
+     */
+    private double value(int index) {
+        return Math.exp(index * logGamma) * 2 / (1 + gamma);
+    }
+
+    private double clamp(double value) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    public static void write(DDSketchState state, StreamOutput out) throws IOException {
+        out.writeDouble(state.relativeAccuracy);
+        out.writeVLong(state.count);
+        out.writeVLong(state.zeroCount);
+        out.writeDouble(state.min);
+        out.writeDouble(state.max);
+        state.positives.writeTo(out);
+        state.negatives.writeTo(out);
+    }
+
+    public static DDSketchState read(StreamInput in, BigArrays bigArrays) throws IOException {
+        final DDSketchState state = new DDSketchState(in.readDouble(), bigArrays);
+        boolean success = false;
+        try {
+            state.count = in.readVLong();
+            state.zeroCount = in.readVLong();
+            state.min = in.readDouble();
+            state.max = in.readDouble();
+            state.positives.readFrom(in);
+            state.negatives.readFrom(in);
+            success = true;
+        } finally {
+            if (success == false) {
+                state.close();
+            }
+        }
+        return state;
+    }
+
+    @Override
+    public void close() {
+        Releasables.close(positives, negatives);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == null || obj instanceof DDSketchState == false) {
+            return false;
+        }
+        DDSketchState that = (DDSketchState) obj;
+        return relativeAccuracy == that.relativeAccuracy
+            && count == that.count
+            && zeroCount == that.zeroCount
+            && Double.compare(min, that.min) == 0
+            && Double.compare(max, that.max) == 0
+            && positives.sameBins(that.positives)
+            && negatives.sameBins(that.negatives);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = getClass().hashCode();
+        h = 31 * h + Double.hashCode(relativeAccuracy);
+        h = 31 * h + Long.hashCode(count);
+        h = 31 * h + Long.hashCode(zeroCount);
+        h = 31 * h + Double.hashCode(min);
+        h = 31 * h + Double.hashCode(max);
+        return h;
+    }
+
+    /**
+     * The counts of contiguous bins, stored in a {@link LongArray} whose first element is the count of the bin at {@code offset}.
+     */
+    private static final class Bins implements Releasable {
+
+        // the minimum number of bins to add when growing, so that adding values in increasing or decreasing order stays cheap
+        private static final int MIN_GROWTH = 32;
+
+        private final BigArrays bigArrays;
+        private LongArray counts;
+        private int offset;
+        // the range of bins with a non-zero count, empty if minIndex > maxIndex
+        private int minIndex = Integer.MAX_VALUE;
+        private int maxIndex = Integer.MIN_VALUE;
+        private long total;
+
+        Bins(BigArrays bigArrays) {
+            this.bigArrays = bigArrays;
+        }
+
+        long get(int index) {
+            final long i = (long) index - offset;
+            return counts == null || i < 0 || i >= counts.size() ? 0 : counts.get(i);
+        }
+
+        void add(int index, long count) {
+            ensureRange(index, index);
+            counts.increment((long) index - offset, count);
+            minIndex = Math.min(minIndex, index);
+            maxIndex = Math.max(maxIndex, index);
+            total += count;
+        }
+
+        void add(Bins other) {
+            if (other.total == 0) {
+                return;
+            }
+            ensureRange(other.minIndex, other.maxIndex);
+            for (int index = other.minIndex; index <= other.maxIndex; ++index) {
+                final long count = other.get(index);
+                if (count != 0) {
+                    counts.increment((long) index - offset, count);
+                }
+            }
+            minIndex = Math.min(minIndex, other.minIndex);
+            maxIndex = Math.max(maxIndex, other.maxIndex);
+            total += other.total;
+        }
+
+        private void ensureRange(int from, int to) {
+            if (counts == null) {
+                counts = bigArrays.newLongArray((long) to - from + 1 + MIN_GROWTH);
+                offset = from - MIN_GROWTH / 2;
+                return;
+            }
+            final long size = counts.size();
+            if (from >= offset && to < offset + size) {
+                return;
+            }
+            // grow on the side that is out of range, by at least half of the current size
+            final long growth = Math.max(MIN_GROWTH, size / 2);
+            final long newFrom = from < offset ? Math.min(from, offset - growth) : offset;
+            final long newTo = to >= offset + size ? Math.max(to, offset + size - 1 + growth) : offset + size - 1;
+            final LongArray newCounts = bigArrays.newLongArray(newTo - newFrom + 1);
+            for (long i = 0; i < size; ++i) {
+                newCounts.set(offset - newFrom + i, counts.get(i));
+            }
+            counts.close();
+            counts = newCounts;
+            offset = Math.toIntExact(newFrom);
+        }
+
+        void writeTo(StreamOutput out) throws IOException {
+            if (total == 0) {
+                out.writeVInt(0);
+                return;
+            }
+            out.writeVInt(maxIndex - minIndex + 1);
+            out.writeZLong(minIndex);
+            for (int index = minIndex; index <= maxIndex; ++index) {
+                out.writeVLong(get(index));
+            }
+        }
+
+        void readFrom(StreamInput in) throws IOException {
+            final int numBins = in.readVInt();
+            if (numBins == 0) {
+                return;
+            }
+            final int from = Math.toIntExact(in.readZLong());
+            for (int index = from; index < from + numBins; ++index) {
+                final long count = in.readVLong();
+                if (count != 0) {
+                    add(index, count);
+                }
+            }
+        }
+
+        boolean sameBins(Bins other) {
+            if (total != other.total || minIndex != other.minIndex || maxIndex != other.maxIndex) {
+                return false;
+            }
+            for (int index = minIndex; index <= maxIndex; ++index) {
+                if (get(index) != other.get(index)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void close() {
+            Releasables.close(counts);
+        }
+    }
+}
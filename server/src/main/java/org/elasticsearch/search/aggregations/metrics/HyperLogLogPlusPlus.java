@@ -8,18 +8,17 @@
 
 package org.elasticsearch.search.aggregations.metrics;
 
-import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.packed.PackedInts;
+import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.BitArray;
-import org.elasticsearch.common.util.ByteArray;
-import org.elasticsearch.common.util.ByteUtils;
 import org.elasticsearch.common.util.IntArray;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.common.util.ObjectArray;
 
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
+import java.io.IOException;
 
 /**
  * Hyperloglog++ counter, implemented based on pseudo code from
@@ -35,7 +34,10 @@ import java.nio.ByteOrder;
  * data structure are processed using the linear counting until a threshold defined by the precision is reached where the data is replayed
  * to the HyperLogLog algorithm and then this is used.
  *
- * It supports storing several HyperLogLogPlusPlus structures which are identified by a bucket number.
+ * It supports storing several HyperLogLogPlusPlus structures which are identified by a bucket number. The memory of a bucket is only
+ * allocated once a value is collected in it: the hash table of linear counting grows with the number of values. The registers of the
+ * HyperLogLog algorithm are packed using six bits per register (see {@link PackedRunLens}) in a single array that is shared by all
+ * buckets, and that grows up to the largest bucket that uses the HyperLogLog algorithm.
  */
 public final class HyperLogLogPlusPlus extends AbstractHyperLogLogPlusPlus {
 
@@ -62,7 +64,7 @@ public final class HyperLogLogPlusPlus extends AbstractHyperLogLogPlusPlus {
      * Return the expected per-bucket memory usage for the given precision.
      */
     public static long memoryUsage(int precision) {
-        return 1L << precision;
+        return (long) PackedRunLens.words(precision) * Long.BYTES;
     }
 
     public HyperLogLogPlusPlus(int precision, BigArrays bigArrays, long initialBucketCount) {
@@ -73,7 +75,7 @@ public final class HyperLogLogPlusPlus extends AbstractHyperLogLogPlusPlus {
         boolean success = false;
         try {
             hll = new HyperLogLog(bigArrays, initialBucketCount, precision);
-            lc = new LinearCounting(bigArrays, initialBucketCount, precision, hll);
+            lc = new LinearCounting(bigArrays, initialBucketCount, precision);
             algorithm = new BitArray(1, bigArrays);
             success = true;
         } finally {
@@ -137,30 +139,37 @@ public final class HyperLogLogPlusPlus extends AbstractHyperLogLogPlusPlus {
         if (algorithm.get(bucketOrd) == LINEAR_COUNTING) {
             upgradeToHll(bucketOrd);
         }
-        hll.addRunLen(0, register, runLen);
+        hll.addRunLen(bucketOrd, register, runLen);
+    }
+
+    /**
+     * Reads the registers of the given bucket as written by {@link AbstractHyperLogLogPlusPlus#writeTo}, six
+     * bits per register.
+     */
+    void readPackedRunLens(long bucketOrd, StreamInput in) throws IOException {
+        hll.ensureCapacity(bucketOrd + 1);
+        if (algorithm.get(bucketOrd) == LINEAR_COUNTING) {
+            upgradeToHll(bucketOrd);
+        }
+        final long offset = hll.offset(bucketOrd);
+        for (long i = 0; i < hll.words; ++i) {
+            hll.runLens.set(offset + i, in.readLong());
+        }
     }
 
     void upgradeToHll(long bucketOrd) {
         hll.ensureCapacity(bucketOrd + 1);
+        // the registers are stored separately from the hash table of linear counting so the hashes can be replayed directly
         final AbstractLinearCounting.HashesIterator hashes = lc.values(bucketOrd);
-        // We need to copy values into an arrays as we will override
-        // the values on the buffer
-        final IntArray values = lc.bigArrays.newIntArray(hashes.size());
-        try {
-            int i = 0;
-            while (hashes.next()) {
-                values.set(i++, hashes.value());
-            }
-            assert i == hashes.size();
-            hll.reset(bucketOrd);
-            for (long j = 0; j < values.size(); ++j) {
-                final int encoded = values.get(j);
-                hll.collectEncoded(bucketOrd, encoded);
-            }
-            algorithm.set(bucketOrd);
-        } finally {
-            Releasables.close(values);
-        }
+        final long offset = hll.offset(bucketOrd);
+        while (hashes.next()) {
+            final int encoded = hashes.value();
+            final int runLen = AbstractHyperLogLog.decodeRunLen(encoded, p);
+            final int index = AbstractHyperLogLog.decodeIndex(encoded, p);
+            PackedRunLens.max(hll.runLens, offset, index, runLen);
+        }
+        lc.release(bucketOrd);
+        algorithm.set(bucketOrd);
     }
 
     public void merge(long thisBucket, AbstractHyperLogLogPlusPlus other, long otherBucket) {
@@ -170,6 +179,15 @@ public final class HyperLogLogPlusPlus extends AbstractHyperLogLogPlusPlus {
         hll.ensureCapacity(thisBucket + 1);
         if (other.getAlgorithm(otherBucket) == LINEAR_COUNTING) {
             merge(thisBucket, other.getLinearCounting(otherBucket));
+        } else if (other instanceof HyperLogLogPlusPlus) {
+            if (algorithm.get(thisBucket) != HYPERLOGLOG) {
+                upgradeToHll(thisBucket);
+            }
+            // both sides have packed registers, merge them a word at a time
+            final HyperLogLog otherHll = ((HyperLogLogPlusPlus) other).hll;
+            final long offset = hll.offset(thisBucket);
+            final long otherOffset = otherHll.offset(otherBucket);
+            PackedRunLens.merge(hll.runLens, offset, otherHll.runLens, otherOffset, hll.m);
         } else {
             merge(thisBucket, other.getHyperLogLog(otherBucket));
         }
@@ -201,40 +219,53 @@ public final class HyperLogLogPlusPlus extends AbstractHyperLogLogPlusPlus {
 
     private static class HyperLogLog extends AbstractHyperLogLog implements Releasable {
         private final BigArrays bigArrays;
-        private final HyperLogLogIterator iterator;
-        // array for holding the runlens.
-        private ByteArray runLens;
-
+        private final PackedRunLens.Iterator iterator;
+        private final int words;
+        private long maxOrd;
+        // the packed registers of all buckets, the ones of a bucket start at the word bucketOrd * words
+        private LongArray runLens;
 
         HyperLogLog(BigArrays bigArrays, long initialBucketCount, int precision) {
             super(precision);
-            this.runLens =  bigArrays.newByteArray(initialBucketCount << precision);
             this.bigArrays = bigArrays;
-            this.iterator = new HyperLogLogIterator(this, precision, m);
+            this.words = PackedRunLens.words(precision);
+            this.iterator = new PackedRunLens.Iterator(m);
+            // the registers are only allocated once buckets are upgraded to HyperLogLog
+            this.runLens = bigArrays.newLongArray(0);
+            this.maxOrd = initialBucketCount;
         }
 
         public long maxOrd() {
-            return runLens.size() >>> precision();
+            return maxOrd;
         }
 
         @Override
         protected void addRunLen(long bucketOrd, int register, int encoded) {
-            final long bucketIndex = (bucketOrd << p) + register;
-            runLens.set(bucketIndex, (byte) Math.max(encoded, runLens.get(bucketIndex)));
+            final long offset = offset(bucketOrd);
+            PackedRunLens.max(runLens, offset, register, encoded);
         }
 
         @Override
         protected RunLenIterator getRunLens(long bucketOrd) {
-            iterator.reset(bucketOrd);
+            final long offset = offset(bucketOrd);
+            iterator.reset(runLens, offset);
             return iterator;
         }
 
-        protected void reset(long bucketOrd) {
-            runLens.fill(bucketOrd << p, (bucketOrd << p) + m, (byte) 0);
+        /**
+         * Returns the first word of the registers of the given bucket, growing the array if needed. The array may be replaced
+         * so {@link #runLens} must be read after calling this method.
+         */
+        long offset(long bucketOrd) {
+            final long offset = bucketOrd * words;
+            if (runLens.size() < offset + words) {
+                runLens = bigArrays.grow(runLens, offset + words);
+            }
+            return offset;
         }
 
         protected void ensureCapacity(long numBuckets) {
-            runLens = bigArrays.grow(runLens, numBuckets << p);
+            maxOrd = Math.max(maxOrd, numBuckets);
         }
 
         @Override
@@ -243,81 +274,105 @@ public final class HyperLogLogPlusPlus extends AbstractHyperLogLogPlusPlus {
         }
     }
 
-    private static class HyperLogLogIterator implements AbstractHyperLogLog.RunLenIterator {
-
-        private final HyperLogLog hll;
-        private final int m, p;
-        int pos;
-        long start;
-        private byte value;
-
-        HyperLogLogIterator(HyperLogLog hll, int p, int m) {
-            this.hll = hll;
-            this.m = m;
-            this.p = p;
-        }
-
-        void reset(long bucket) {
-            pos = 0;
-            start = bucket << p;
-        }
-
-        @Override
-        public boolean next() {
-            if (pos < m) {
-                value = hll.runLens.get(start + pos);
-                pos++;
-                return true;
-            }
-            return false;
-        }
-
-        @Override
-        public byte value() {
-            return value;
-        }
-    }
-
     private static class LinearCounting extends AbstractLinearCounting implements Releasable {
 
+        // the initial number of slots of the hash table of a bucket
+        private static final int INITIAL_CAPACITY = 16;
+
         protected final int threshold;
-        private final int mask;
-        private final BytesRef readSpare;
-        private final ByteBuffer writeSpare;
+        private final int maxCapacity;
         private final BigArrays bigArrays;
         private final LinearCountingIterator iterator;
-        // We are actually using HyperLogLog's runLens array but interpreting it as a hash set for linear counting.
-        private final HyperLogLog hll;
+        // the hash table of each bucket, null until a value is added to the bucket
+        private ObjectArray<IntArray> hashes;
         // Number of elements stored.
         private IntArray sizes;
 
-        LinearCounting(BigArrays bigArrays, long initialBucketCount, int p, HyperLogLog hll) {
+        LinearCounting(BigArrays bigArrays, long initialBucketCount, int p) {
             super(p);
             this.bigArrays = bigArrays;
-            this.hll = hll;
-            final int capacity = (1 << p) / 4; // because ints take 4 bytes
-            threshold = (int) (capacity * MAX_LOAD_FACTOR);
-            mask = capacity - 1;
-            sizes = bigArrays.newIntArray(initialBucketCount);
-            readSpare = new BytesRef();
-            writeSpare = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
-            iterator = new LinearCountingIterator(this, capacity);
+            // the hash table is as large as the registers of the HyperLogLog would be with one byte per register
+            maxCapacity = (1 << p) / 4; // because ints take 4 bytes
+            threshold = (int) (maxCapacity * MAX_LOAD_FACTOR);
+            ObjectArray<IntArray> hashes = null;
+            IntArray sizes = null;
+            boolean success = false;
+            try {
+                hashes = bigArrays.newObjectArray(initialBucketCount);
+                sizes = bigArrays.newIntArray(initialBucketCount);
+                success = true;
+            } finally {
+                if (success == false) {
+                    Releasables.close(hashes, sizes);
+                }
+            }
+            this.hashes = hashes;
+            this.sizes = sizes;
+            iterator = new LinearCountingIterator();
         }
 
         @Override
         protected int addEncoded(long bucketOrd, int encoded) {
+            hashes = bigArrays.grow(hashes, bucketOrd + 1);
             sizes = bigArrays.grow(sizes, bucketOrd + 1);
             assert encoded != 0;
+            IntArray table = hashes.get(bucketOrd);
+            if (table == null) {
+                table = bigArrays.newIntArray(Math.min(INITIAL_CAPACITY, maxCapacity));
+                hashes.set(bucketOrd, table);
+            }
+            if (insert(table, encoded) == false) {
+                // k is already in the set
+                return -1;
+            }
+            final int size = sizes.increment(bucketOrd, 1);
+            if (size > table.size() * MAX_LOAD_FACTOR && table.size() < maxCapacity) {
+                grow(bucketOrd, table);
+            }
+            return size;
+        }
+
+        private static boolean insert(IntArray table, int encoded) {
+            final int mask = (int) table.size() - 1;
             for (int i = (encoded & mask);; i = (i + 1) & mask) {
-                final int v = get(bucketOrd, i);
+                final int v = table.get(i);
                 if (v == 0) {
                     // means unused, take it!
-                    set(bucketOrd, i, encoded);
-                    return sizes.increment(bucketOrd, 1);
+                    table.set(i, encoded);
+                    return true;
                 } else if (v == encoded) {
-                    // k is already in the set
-                    return -1;
+                    return false;
+                }
+            }
+        }
+
+        private void grow(long bucketOrd, IntArray table) {
+            final IntArray newTable = bigArrays.newIntArray(table.size() * 2);
+            boolean success = false;
+            try {
+                for (long i = 0; i < table.size(); ++i) {
+                    final int v = table.get(i);
+                    if (v != 0) {
+                        insert(newTable, v);
+                    }
                 }
+                success = true;
+            } finally {
+                if (success == false) {
+                    Releasables.close(newTable);
+                }
+            }
+            hashes.set(bucketOrd, newTable);
+            Releasables.close(table);
+        }
+
+        /**
+         * Releases the hash table of a bucket that was upgraded to HyperLogLog.
+         */
+        void release(long bucketOrd) {
+            if (bucketOrd < hashes.size()) {
+                Releasables.close(hashes.set(bucketOrd, null));
+                sizes.set(bucketOrd, 0);
             }
         }
 
@@ -333,32 +388,18 @@ public final class HyperLogLogPlusPlus extends AbstractHyperLogLogPlusPlus {
 
         @Override
         protected HashesIterator values(long bucketOrd) {
-            iterator.reset(bucketOrd, size(bucketOrd));
+            iterator.reset(bucketOrd < hashes.size() ? hashes.get(bucketOrd) : null, size(bucketOrd));
             return iterator;
         }
 
-        private long index(long bucketOrd, int index) {
-            return (bucketOrd << p) + (index << 2);
-        }
-
-        private int get(long bucketOrd, int index) {
-            hll.runLens.get(index(bucketOrd, index), 4, readSpare);
-            return ByteUtils.readIntLE(readSpare.bytes, readSpare.offset);
-        }
-
-        private void set(long bucketOrd, int index, int value) {
-            writeSpare.putInt(0, value);
-            hll.runLens.set(index(bucketOrd, index), writeSpare.array(), 0, 4);
-        }
-
         private int recomputedSize(long bucketOrd) {
-            if (bucketOrd >= hll.maxOrd()) {
+            if (bucketOrd >= hashes.size() || hashes.get(bucketOrd) == null) {
                 return 0;
             }
+            final IntArray table = hashes.get(bucketOrd);
             int size = 0;
-            for (int i = 0; i <= mask; ++i) {
-                final int v = get(bucketOrd, i);
-                if (v != 0) {
+            for (long i = 0; i < table.size(); ++i) {
+                if (table.get(i) != 0) {
                     ++size;
                 }
             }
@@ -367,27 +408,24 @@ public final class HyperLogLogPlusPlus extends AbstractHyperLogLogPlusPlus {
 
         @Override
         public void close() {
-            Releasables.close(sizes);
+            for (long i = 0; i < hashes.size(); ++i) {
+                Releasables.close(hashes.get(i));
+            }
+            Releasables.close(hashes, sizes);
         }
     }
 
     private static class LinearCountingIterator implements AbstractLinearCounting.HashesIterator {
 
-        private final LinearCounting lc;
-        private final int capacity;
-        private int pos, size;
-        private long bucketOrd;
+        private IntArray table;
+        private long pos;
+        private int size;
         private int value;
 
-        LinearCountingIterator(LinearCounting lc, int capacity) {
-            this.lc = lc;
-            this.capacity = capacity;
-        }
-
-        void reset(long bucketOrd, int size) {
-            this.bucketOrd = bucketOrd;
+        void reset(IntArray table, int size) {
+            this.table = table;
             this.size = size;
-            this.pos = size == 0 ? capacity : 0;
+            this.pos = 0;
         }
 
         @Override
@@ -397,11 +435,10 @@ public final class HyperLogLogPlusPlus extends AbstractHyperLogLogPlusPlus {
 
         @Override
         public boolean next() {
-            if (pos < capacity) {
-                for (; pos < capacity; ++pos) {
-                    final int k = lc.get(bucketOrd, pos);
+            if (table != null) {
+                while (pos < table.size()) {
+                    final int k = table.get(pos++);
                     if (k != 0) {
-                        ++pos;
                         value = k;
                         return true;
                     }
@@ -24,6 +24,7 @@ import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.LeafBucketCollector;
 import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
 import org.elasticsearch.search.aggregations.support.AggregationContext;
+import org.elasticsearch.search.aggregations.support.DocValuesBlock;
 import org.elasticsearch.search.aggregations.support.ValuesSource;
 import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
 
@@ -89,6 +90,7 @@ class MaxAggregator extends NumericMetricsAggregator.SingleValue {
         }
         final SortedNumericDoubleValues allValues = valuesSource.doubleValues(ctx);
         final NumericDoubleValues values = MultiValueMode.MAX.select(allValues);
+        final DocValuesBlock block = new DocValuesBlock();
         return new LeafBucketCollectorBase(sub, allValues) {
 
             @Override
@@ -106,6 +108,24 @@ class MaxAggregator extends NumericMetricsAggregator.SingleValue {
                 }
             }
 
+            @Override
+            public void collect(int[] docs, int count, long bucket) throws IOException {
+                if (bucket >= maxes.size()) {
+                    long from = maxes.size();
+                    maxes = bigArrays().grow(maxes, bucket + 1);
+                    maxes.fill(from, maxes.size(), Double.NEGATIVE_INFINITY);
+                }
+                final int valueCount = block.readDoubles(values, docs, count);
+                if (valueCount > 0) {
+                    final double[] blockValues = block.doubles();
+                    double max = maxes.get(bucket);
+                    for (int i = 0; i < valueCount; i++) {
+                        max = Math.max(max, blockValues[i]);
+                    }
+                    maxes.set(bucket, max);
+                }
+            }
+
         };
     }
 
@@ -34,8 +34,12 @@ public abstract class MetricsAggregator extends AggregatorBase {
      */
     public abstract InternalAggregation buildAggregation(long owningBucketOrd) throws IOException;
 
+    /**
+     * Builds the aggregations of each bucket with {@link #buildAggregation(long)}. Aggregators
+     * that can share work between buckets may override it to build all buckets at once.
+     */
     @Override
-    public final InternalAggregation[] buildAggregations(long[] owningBucketOrds) throws IOException {
+    public InternalAggregation[] buildAggregations(long[] owningBucketOrds) throws IOException {
         InternalAggregation[] results = new InternalAggregation[owningBucketOrds.length];
         for (int ordIdx = 0; ordIdx < owningBucketOrds.length; ordIdx++) {
             results[ordIdx] = buildAggregation(owningBucketOrds[ordIdx]);
@@ -0,0 +1,186 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.metrics;
+
+import org.elasticsearch.common.util.LongArray;
+
+/**
+ * Utility methods to read and write the registers of a HyperLogLog packed in a {@link LongArray} using six bits per register.
+ * Run lengths are at most {@code 65 - precision} so six bits are always enough.
+ *
+ * The registers of a HyperLogLog start at a word {@code offset} of the array, so that the registers of many HyperLogLogs can share
+ * a single array. Register {@code i} is stored in the bits {@code [6 * i, 6 * i + 6)} that follow the offset, so some registers
+ * straddle two words. Every
+ * block of three words holds exactly 32 registers, ten of them fully contained in each word and two that straddle two words of
+ * the block, which allows merging registers a word at a time.
+ */
+final class PackedRunLens {
+
+    static final int BITS_PER_REGISTER = 6;
+    private static final long REGISTER_MASK = (1L << BITS_PER_REGISTER) - 1;
+    private static final int WORDS_PER_BLOCK = 3;
+    private static final int REGISTERS_PER_BLOCK = WORDS_PER_BLOCK * Long.SIZE / BITS_PER_REGISTER;
+
+    // the ten registers that are fully contained in a word once shifted to the lowest bit, split into even and odd registers so
+    // that each register has a free bit above it to detect which of two registers is the largest
+    private static final long EVEN_LANES = 0x3FL | 0x3FL << 12 | 0x3FL << 24 | 0x3FL << 36 | 0x3FL << 48;
+    private static final long ODD_LANES = EVEN_LANES << BITS_PER_REGISTER;
+    private static final long FULL_LANES = EVEN_LANES | ODD_LANES;
+    private static final long EVEN_GUARDS = 1L << 6 | 1L << 18 | 1L << 30 | 1L << 42 | 1L << 54;
+    private static final long ODD_GUARDS = EVEN_GUARDS << BITS_PER_REGISTER;
+
+    private PackedRunLens() {}
+
+    /**
+     * Returns the number of words that are needed to store the registers of a HyperLogLog with the given precision.
+     */
+    static int words(int precision) {
+        return (int) ((((long) BITS_PER_REGISTER << precision) + Long.SIZE - 1) / Long.SIZE);
+    }
+
+    static int get(LongArray runLens, long offset, int register) {
+        final long bit = (long) register * BITS_PER_REGISTER;
+        final long word = offset + (bit >>> 6);
+        final int shift = (int) (bit & 63);
+        long value = runLens.get(word) >>> shift;
+        if (shift > Long.SIZE - BITS_PER_REGISTER) {
+            value |= runLens.get(word + 1) << (Long.SIZE - shift);
+        }
+        return (int) (value & REGISTER_MASK);
+    }
+
+    static void set(LongArray runLens, long offset, int register, int runLen) {
+        assert runLen >= 0 && runLen <= REGISTER_MASK : runLen;
+        final long bit = (long) register * BITS_PER_REGISTER;
+        final long word = offset + (bit >>> 6);
+        final int shift = (int) (bit & 63);
+        runLens.set(word, (runLens.get(word) & ~(REGISTER_MASK << shift)) | ((long) runLen << shift));
+        if (shift > Long.SIZE - BITS_PER_REGISTER) {
+            final int lowBits = Long.SIZE - shift;
+            runLens.set(word + 1, (runLens.get(word + 1) & ~(REGISTER_MASK >>> lowBits)) | ((long) runLen >>> lowBits));
+        }
+    }
+
+    /**
+     * Sets the given register to the maximum of its current value and {@code runLen}.
+     */
+    static void max(LongArray runLens, long offset, int register, int runLen) {
+        if (runLen > get(runLens, offset, register)) {
+            set(runLens, offset, register, runLen);
+        }
+    }
+
+    /**
+     * Sets every register that starts at {@code offset} in {@code runLens} to the maximum of its current value and the value of
+     * the same register that starts at {@code otherOffset} in {@code other}, for a HyperLogLog with {@code m} registers.
+     */
+    static void merge(LongArray runLens, long offset, LongArray other, long otherOffset, int m) {
+        final int blocks = m / REGISTERS_PER_BLOCK;
+        for (long i = 0; i < (long) blocks * WORDS_PER_BLOCK; i += WORDS_PER_BLOCK) {
+            final long word = offset + i;
+            final long otherWord = otherOffset + i;
+            final long a0 = runLens.get(word), a1 = runLens.get(word + 1), a2 = runLens.get(word + 2);
+            final long b0 = other.get(otherWord), b1 = other.get(otherWord + 1), b2 = other.get(otherWord + 2);
+            long r0 = maxWord(a0, b0, 0);
+            long r1 = maxWord(a1, b1, 2);
+            long r2 = maxWord(a2, b2, 4);
+            // the 11th register of the block uses the 4 highest bits of the first word and the 2 lowest bits of the second one
+            final long v10 = Math.max((a0 >>> 60) | ((a1 & 0x3L) << 4), (b0 >>> 60) | ((b1 & 0x3L) << 4));
+            r0 = (r0 & ~(0xFL << 60)) | (v10 << 60);
+            r1 = (r1 & ~0x3L) | (v10 >>> 4);
+            // the 22nd register of the block uses the 2 highest bits of the second word and the 4 lowest bits of the third one
+            final long v21 = Math.max((a1 >>> 62) | ((a2 & 0xFL) << 2), (b1 >>> 62) | ((b2 & 0xFL) << 2));
+            r1 = (r1 & ~(0x3L << 62)) | (v21 << 62);
+            r2 = (r2 & ~0xFL) | (v21 >>> 2);
+            if (r0 != a0) {
+                runLens.set(word, r0);
+            }
+            if (r1 != a1) {
+                runLens.set(word + 1, r1);
+            }
+            if (r2 != a2) {
+                runLens.set(word + 2, r2);
+            }
+        }
+        // only the lowest precision has registers that do not fill a whole block
+        for (int register = blocks * REGISTERS_PER_BLOCK; register < m; ++register) {
+            max(runLens, offset, register, get(other, otherOffset, register));
+        }
+    }
+
+    /**
+     * Returns a word whose registers that start at {@code shift} and are fully contained in the word are the maximum of the
+     * registers of {@code a} and {@code b}, and whose other bits are the ones of {@code a}.
+     */
+    private static long maxWord(long a, long b, int shift) {
+        final long lanes = FULL_LANES << shift;
+        return (maxLanes(a >>> shift, b >>> shift) << shift) | (a & ~lanes);
+    }
+
+    private static long maxLanes(long a, long b) {
+        return maxLanes(a & EVEN_LANES, b & EVEN_LANES, EVEN_GUARDS) | maxLanes(a & ODD_LANES, b & ODD_LANES, ODD_GUARDS);
+    }
+
+    private static long maxLanes(long a, long b, long guards) {
+        // the guard bit above a register stays set if and only if the register of a is greater than or equal to the one of b
+        final long greaterOrEqual = ((a | guards) - b) & guards;
+        final long mask = greaterOrEqual - (greaterOrEqual >>> BITS_PER_REGISTER);
+        return (a & mask) | (b & ~mask);
+    }
+
+    /**
+     * Iterates over the registers of a HyperLogLog, reading each word only once.
+     */
+    static final class Iterator implements AbstractHyperLogLog.RunLenIterator {
+
+        private final int m;
+        private LongArray runLens;
+        private int pos;
+        private long word;
+        private long bits;
+        private int availableBits;
+        private byte value;
+
+        Iterator(int m) {
+            this.m = m;
+        }
+
+        void reset(LongArray runLens, long offset) {
+            this.runLens = runLens;
+            this.pos = 0;
+            this.word = offset;
+            this.bits = 0;
+            this.availableBits = 0;
+        }
+
+        @Override
+        public boolean next() {
+            if (pos == m) {
+                return false;
+            }
+            if (availableBits >= BITS_PER_REGISTER) {
+                value = (byte) (bits & REGISTER_MASK);
+                bits >>>= BITS_PER_REGISTER;
+                availableBits -= BITS_PER_REGISTER;
+            } else {
+                final long next = runLens.get(word++);
+                value = (byte) ((bits | (next << availableBits)) & REGISTER_MASK);
+                bits = next >>> (BITS_PER_REGISTER - availableBits);
+                availableBits += Long.SIZE - BITS_PER_REGISTER;
+            }
+            pos++;
+            return true;
+        }
+
+        @Override
+        public byte value() {
+            return value;
+        }
+    }
+}
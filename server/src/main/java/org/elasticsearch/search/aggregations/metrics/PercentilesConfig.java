@@ -244,4 +244,79 @@ public abstract class PercentilesConfig implements ToXContent, Writeable {
             return Objects.hash(super.hashCode(), numberOfSignificantValueDigits);
         }
     }
+
+    public static class DDSketch extends PercentilesConfig {
+        static final double DEFAULT_RELATIVE_ACCURACY = 0.01;
+        private double relativeAccuracy;
+
+        public DDSketch() {
+            this(DEFAULT_RELATIVE_ACCURACY);
+        }
+
+        public DDSketch(double relativeAccuracy) {
+            super(PercentilesMethod.DDSKETCH);
+            setRelativeAccuracy(relativeAccuracy);
+        }
+
+        DDSketch(StreamInput in) throws IOException {
+            this(in.readDouble());
+        }
+
+        public void setRelativeAccuracy(double relativeAccuracy) {
+            if ((relativeAccuracy > 0 && relativeAccuracy < 1) == false) {
+                throw new IllegalArgumentException(
+                    "[relative_accuracy] must be greater than 0 and less than 1. Found [" + relativeAccuracy + "]");
+            }
+            this.relativeAccuracy = relativeAccuracy;
+        }
+
+        public double getRelativeAccuracy() {
+            return relativeAccuracy;
+        }
+
+        @Override
+        public Aggregator createPercentilesAggregator(String name, ValuesSource valuesSource, AggregationContext context, Aggregator parent,
+                                                      double[] values, boolean keyed, DocValueFormat formatter,
+                                                      Map<String, Object> metadata) throws IOException {
+            return new DDSketchPercentilesAggregator(name, valuesSource, context, parent, values, relativeAccuracy, keyed,
+                formatter, metadata);
+        }
+
+        @Override
+        Aggregator createPercentileRanksAggregator(String name, ValuesSource valuesSource, AggregationContext context, Aggregator parent,
+                                                   double[] values, boolean keyed, DocValueFormat formatter,
+                                                   Map<String, Object> metadata) throws IOException {
+            return new DDSketchPercentileRanksAggregator(name, valuesSource, context, parent, values, relativeAccuracy, keyed,
+                formatter, metadata);
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeDouble(relativeAccuracy);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject(getMethod().toString());
+            builder.field(PercentilesMethod.RELATIVE_ACCURACY_FIELD.getPreferredName(), relativeAccuracy);
+            builder.endObject();
+            return builder;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (obj == null || getClass() != obj.getClass()) return false;
+            if (super.equals(obj) == false) return false;
+
+            DDSketch other = (DDSketch) obj;
+            return relativeAccuracy == other.getRelativeAccuracy();
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(super.hashCode(), relativeAccuracy);
+        }
+    }
 }
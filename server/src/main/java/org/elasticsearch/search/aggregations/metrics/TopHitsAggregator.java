@@ -38,7 +38,6 @@ import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.LeafBucketCollector;
 import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
 import org.elasticsearch.search.aggregations.support.AggregationContext;
-import org.elasticsearch.search.fetch.FetchSearchResult;
 import org.elasticsearch.search.internal.SubSearchContext;
 import org.elasticsearch.search.rescore.RescoreContext;
 import org.elasticsearch.search.sort.SortAndFormats;
@@ -145,10 +144,72 @@ class TopHitsAggregator extends MetricsAggregator {
 
     @Override
     public InternalAggregation buildAggregation(long owningBucketOrdinal) throws IOException {
-        Collectors collectors = topDocsCollectors.get(owningBucketOrdinal);
-        if (collectors == null) {
-            return buildEmptyAggregation();
+        return buildAggregations(new long[] { owningBucketOrdinal })[0];
+    }
+
+    /**
+     * Builds the top hits of all the buckets at once so that the hits of all buckets are fetched
+     * in a single pass of the fetch phase, which loads them in doc id order, rather than setting
+     * up the fetch phase again for each bucket.
+     */
+    @Override
+    public InternalAggregation[] buildAggregations(long[] owningBucketOrds) throws IOException {
+        TopDocsAndMaxScore[] topDocsPerOrd = new TopDocsAndMaxScore[owningBucketOrds.length];
+        int numDocIdsToLoad = 0;
+        for (int ordIdx = 0; ordIdx < owningBucketOrds.length; ordIdx++) {
+            Collectors collectors = topDocsCollectors.get(owningBucketOrds[ordIdx]);
+            if (collectors != null) {
+                topDocsPerOrd[ordIdx] = topDocs(collectors);
+                numDocIdsToLoad += topDocsPerOrd[ordIdx].topDocs.scoreDocs.length;
+            }
+        }
+
+        int[] docIdsToLoad = new int[numDocIdsToLoad];
+        int docIdx = 0;
+        for (TopDocsAndMaxScore topDocsAndMaxScore : topDocsPerOrd) {
+            if (topDocsAndMaxScore != null) {
+                for (ScoreDoc scoreDoc : topDocsAndMaxScore.topDocs.scoreDocs) {
+                    docIdsToLoad[docIdx++] = scoreDoc.doc;
+                }
+            }
         }
+        SearchHit[] internalHits = new SearchHit[0];
+        if (numDocIdsToLoad > 0) {
+            subSearchContext.docIdsToLoad(docIdsToLoad, docIdsToLoad.length);
+            subSearchContext.fetchPhase().execute(subSearchContext);
+            internalHits = subSearchContext.fetchResult().fetchResult().hits().getHits();
+        }
+
+        InternalAggregation[] results = new InternalAggregation[owningBucketOrds.length];
+        int offset = 0;
+        for (int ordIdx = 0; ordIdx < owningBucketOrds.length; ordIdx++) {
+            TopDocsAndMaxScore topDocsAndMaxScore = topDocsPerOrd[ordIdx];
+            if (topDocsAndMaxScore == null) {
+                results[ordIdx] = buildEmptyAggregation();
+                continue;
+            }
+            ScoreDoc[] scoreDocs = topDocsAndMaxScore.topDocs.scoreDocs;
+            SearchHit[] hits = new SearchHit[scoreDocs.length];
+            for (int i = 0; i < scoreDocs.length; i++) {
+                ScoreDoc scoreDoc = scoreDocs[i];
+                SearchHit searchHitFields = internalHits[offset + i];
+                searchHitFields.shard(subSearchContext.shardTarget());
+                searchHitFields.score(scoreDoc.score);
+                if (scoreDoc instanceof FieldDoc) {
+                    FieldDoc fieldDoc = (FieldDoc) scoreDoc;
+                    searchHitFields.sortValues(fieldDoc.fields, subSearchContext.sort().formats);
+                }
+                hits[i] = searchHitFields;
+            }
+            offset += scoreDocs.length;
+            SearchHits searchHits = new SearchHits(hits, topDocsAndMaxScore.topDocs.totalHits, topDocsAndMaxScore.maxScore);
+            results[ordIdx] = new InternalTopHits(name, subSearchContext.from(), subSearchContext.size(), topDocsAndMaxScore,
+                    searchHits, metadata());
+        }
+        return results;
+    }
+
+    private TopDocsAndMaxScore topDocs(Collectors collectors) throws IOException {
         TopDocsCollector<?> topDocsCollector = collectors.topDocsCollector;
         TopDocs topDocs = topDocsCollector.topDocs();
         float maxScore = Float.NaN;
@@ -167,29 +228,7 @@ class TopHitsAggregator extends MetricsAggregator {
             TopFieldCollector.populateScores(topDocs.scoreDocs, subSearchContext.searcher(), subSearchContext.query());
             maxScore = collectors.maxScoreCollector.getMaxScore();
         }
-        final TopDocsAndMaxScore topDocsAndMaxScore = new TopDocsAndMaxScore(topDocs, maxScore);
-        subSearchContext.queryResult().topDocs(topDocsAndMaxScore,
-                subSearchContext.sort() == null ? null : subSearchContext.sort().formats);
-        int[] docIdsToLoad = new int[topDocs.scoreDocs.length];
-        for (int i = 0; i < topDocs.scoreDocs.length; i++) {
-            docIdsToLoad[i] = topDocs.scoreDocs[i].doc;
-        }
-        subSearchContext.docIdsToLoad(docIdsToLoad, docIdsToLoad.length);
-        subSearchContext.fetchPhase().execute(subSearchContext);
-        FetchSearchResult fetchResult = subSearchContext.fetchResult();
-        SearchHit[] internalHits = fetchResult.fetchResult().hits().getHits();
-        for (int i = 0; i < internalHits.length; i++) {
-            ScoreDoc scoreDoc = topDocs.scoreDocs[i];
-            SearchHit searchHitFields = internalHits[i];
-            searchHitFields.shard(subSearchContext.shardTarget());
-            searchHitFields.score(scoreDoc.score);
-            if (scoreDoc instanceof FieldDoc) {
-                FieldDoc fieldDoc = (FieldDoc) scoreDoc;
-                searchHitFields.sortValues(fieldDoc.fields, subSearchContext.sort().formats);
-            }
-        }
-        return new InternalTopHits(name, subSearchContext.from(), subSearchContext.size(), topDocsAndMaxScore, fetchResult.hits(),
-                metadata());
+        return new TopDocsAndMaxScore(topDocs, maxScore);
     }
 
     @Override
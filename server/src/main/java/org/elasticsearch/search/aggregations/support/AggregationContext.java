@@ -31,6 +31,8 @@ import org.elasticsearch.script.Script;
 import org.elasticsearch.script.ScriptContext;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.MultiBucketConsumerService.MultiBucketConsumer;
+import org.elasticsearch.search.aggregations.bucket.terms.BackgroundFrequencyCache;
+import org.elasticsearch.search.internal.ReaderContext;
 import org.elasticsearch.search.internal.SubSearchContext;
 import org.elasticsearch.search.lookup.SearchLookup;
 import org.elasticsearch.search.profile.aggregation.AggregationProfiler;
@@ -197,6 +199,12 @@ public abstract class AggregationContext implements Releasable {
      */
     public abstract void addReleasable(Aggregator aggregator);
 
+    /**
+     * Stop releasing this aggregation when the search is finished because
+     * the caller released it already.
+     */
+    public abstract void removeReleasable(Aggregator aggregator);
+
     public abstract MultiBucketConsumer multiBucketConsumer();
 
     /**
@@ -244,6 +252,43 @@ public abstract class AggregationContext implements Releasable {
      */
     public abstract boolean isCacheable();
 
+    /**
+     * The reader context of the point in time this request runs against, or {@code null}
+     * if the reader is only kept open for this request. Aggregations may keep state in it
+     * to resume their work when the same point in time is searched again.
+     */
+    @Nullable
+    public ReaderContext pointInTimeReaderContext() {
+        return null;
+    }
+
+    /**
+     * The circuit breaker used to account for the state that aggregations keep in the
+     * {@link #pointInTimeReaderContext()}, which outlives this request.
+     */
+    public CircuitBreaker pointInTimeBreaker() {
+        return breaker();
+    }
+
+    /**
+     * Did the collection stop before all the documents matching the query were collected,
+     * because the search timed out or reached its {@code terminate_after}? The aggregations
+     * are still built in that case, but they must not keep their partial results for later
+     * requests. Only known once the collection is over.
+     */
+    public boolean isCollectionIncomplete() {
+        return false;
+    }
+
+    /**
+     * The cache of the background frequencies of terms in the segments of the shard,
+     * or {@code null} if they should not be cached.
+     */
+    @Nullable
+    public BackgroundFrequencyCache backgroundFrequencyCache() {
+        return null;
+    }
+
     /**
      * Implementation of {@linkplain AggregationContext} for production usage
      * that wraps our ubiquitous {@link SearchExecutionContext} and anything else
@@ -254,6 +299,7 @@ public abstract class AggregationContext implements Releasable {
     public static class ProductionAggregationContext extends AggregationContext {
         private final SearchExecutionContext context;
         private final PreallocatedCircuitBreakerService preallocatedBreakerService;
+        private final CircuitBreaker pointInTimeBreaker;
         private final BigArrays bigArrays;
         private final Supplier<Query> topLevelQuery;
         private final AggregationProfiler profiler;
@@ -263,7 +309,10 @@ public abstract class AggregationContext implements Releasable {
         private final int randomSeed;
         private final LongSupplier relativeTimeInMillis;
         private final Supplier<Boolean> isCancelled;
+        private final Supplier<Boolean> isCollectionIncomplete;
         private final Function<Query, Query> filterQuery;
+        private final ReaderContext pointInTimeReaderContext;
+        private final BackgroundFrequencyCache backgroundFrequencyCache;
 
         private final List<Aggregator> releaseMe = new ArrayList<>();
 
@@ -279,9 +328,14 @@ public abstract class AggregationContext implements Releasable {
             int randomSeed,
             LongSupplier relativeTimeInMillis,
             Supplier<Boolean> isCancelled,
-            Function<Query, Query> filterQuery
+            Supplier<Boolean> isCollectionIncomplete,
+            Function<Query, Query> filterQuery,
+            @Nullable ReaderContext pointInTimeReaderContext,
+            @Nullable BackgroundFrequencyCache backgroundFrequencyCache
         ) {
             this.context = context;
+            // the preallocated breaker is closed at the end of the request
+            this.pointInTimeBreaker = bigArrays.breakerService().getBreaker(CircuitBreaker.REQUEST);
             if (bytesToPreallocate == 0) {
                 /*
                  * Its possible if a bit strange for the aggregations to ask
@@ -291,7 +345,7 @@ public abstract class AggregationContext implements Releasable {
                  * cause us to skip it when we close this context.
                  */
                 this.preallocatedBreakerService = null;
-                this.bigArrays = bigArrays.withCircuitBreaking();
+                this.bigArrays = bigArrays.withCircuitBreaking().withOffHeapPages();
             } else {
                 this.preallocatedBreakerService = new PreallocatedCircuitBreakerService(
                     bigArrays.breakerService(),
@@ -299,7 +353,7 @@ public abstract class AggregationContext implements Releasable {
                     bytesToPreallocate,
                     "aggregations"
                 );
-                this.bigArrays = bigArrays.withBreakerService(preallocatedBreakerService).withCircuitBreaking();
+                this.bigArrays = bigArrays.withBreakerService(preallocatedBreakerService).withCircuitBreaking().withOffHeapPages();
             }
             this.topLevelQuery = topLevelQuery;
             this.profiler = profiler;
@@ -309,7 +363,10 @@ public abstract class AggregationContext implements Releasable {
             this.randomSeed = randomSeed;
             this.relativeTimeInMillis = relativeTimeInMillis;
             this.isCancelled = isCancelled;
+            this.isCollectionIncomplete = isCollectionIncomplete;
             this.filterQuery = filterQuery;
+            this.pointInTimeReaderContext = pointInTimeReaderContext;
+            this.backgroundFrequencyCache = backgroundFrequencyCache;
         }
 
         @Override
@@ -420,6 +477,11 @@ public abstract class AggregationContext implements Releasable {
             releaseMe.add(aggregator);
         }
 
+        @Override
+        public void removeReleasable(Aggregator aggregator) {
+            releaseMe.remove(aggregator);
+        }
+
         @Override
         public MultiBucketConsumer multiBucketConsumer() {
             return multiBucketConsumer;
@@ -466,6 +528,26 @@ public abstract class AggregationContext implements Releasable {
             return context.isCacheable();
         }
 
+        @Override
+        public ReaderContext pointInTimeReaderContext() {
+            return pointInTimeReaderContext;
+        }
+
+        @Override
+        public CircuitBreaker pointInTimeBreaker() {
+            return pointInTimeBreaker;
+        }
+
+        @Override
+        public boolean isCollectionIncomplete() {
+            return isCollectionIncomplete.get();
+        }
+
+        @Override
+        public BackgroundFrequencyCache backgroundFrequencyCache() {
+            return backgroundFrequencyCache;
+        }
+
         @Override
         public void close() {
             /*
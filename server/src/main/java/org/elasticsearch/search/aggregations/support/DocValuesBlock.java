@@ -0,0 +1,116 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.support;
+
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.util.ArrayUtil;
+import org.elasticsearch.index.fielddata.NumericDoubleValues;
+import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
+import org.elasticsearch.search.aggregations.LeafBucketCollector;
+
+import java.io.IOException;
+
+/**
+ * Reads the values of a block of documents into reusable arrays, so that
+ * {@link LeafBucketCollector#collect(int[], int, long)} implementations
+ * can aggregate them in a tight loop instead of advancing the doc values
+ * and updating the state of the bucket for each document.
+ */
+public final class DocValuesBlock {
+
+    private double[] doubles = new double[0];
+    private long[] longs = new long[0];
+    private int[] docIndices = new int[0];
+
+    /**
+     * Reads all the values of the given documents, which must be in
+     * increasing order, into {@link #doubles()} and returns the number of
+     * values that were read.
+     */
+    public int readDoubles(SortedNumericDoubleValues values, int[] docs, int count) throws IOException {
+        int numValues = 0;
+        for (int i = 0; i < count; i++) {
+            if (values.advanceExact(docs[i])) {
+                final int docValueCount = values.docValueCount();
+                if (numValues + docValueCount > doubles.length) {
+                    doubles = ArrayUtil.grow(doubles, numValues + docValueCount);
+                }
+                for (int j = 0; j < docValueCount; j++) {
+                    doubles[numValues++] = values.nextValue();
+                }
+            }
+        }
+        return numValues;
+    }
+
+    /**
+     * Reads the value of the given documents, which must be in increasing
+     * order, into {@link #doubles()} and returns the number of values that
+     * were read.
+     */
+    public int readDoubles(NumericDoubleValues values, int[] docs, int count) throws IOException {
+        if (count > doubles.length) {
+            doubles = ArrayUtil.grow(doubles, count);
+        }
+        int numValues = 0;
+        for (int i = 0; i < count; i++) {
+            if (values.advanceExact(docs[i])) {
+                doubles[numValues++] = values.doubleValue();
+            }
+        }
+        return numValues;
+    }
+
+    /**
+     * Reads all the values of the given documents, which must be in
+     * increasing order, into {@link #longs()} and returns the number of
+     * values that were read. The index in {@code docs} of the document of
+     * each value is read into {@link #docIndices()}.
+     */
+    public int readLongs(SortedNumericDocValues values, int[] docs, int count) throws IOException {
+        int numValues = 0;
+        for (int i = 0; i < count; i++) {
+            if (values.advanceExact(docs[i])) {
+                final int docValueCount = values.docValueCount();
+                if (numValues + docValueCount > longs.length) {
+                    longs = ArrayUtil.grow(longs, numValues + docValueCount);
+                    docIndices = ArrayUtil.grow(docIndices, longs.length);
+                }
+                for (int j = 0; j < docValueCount; j++) {
+                    docIndices[numValues] = i;
+                    longs[numValues++] = values.nextValue();
+                }
+            }
+        }
+        return numValues;
+    }
+
+    /**
+     * The values read by the last call to one of the {@code readDoubles}
+     * methods.
+     */
+    public double[] doubles() {
+        return doubles;
+    }
+
+    /**
+     * The values read by the last call to {@link #readLongs}.
+     */
+    public long[] longs() {
+        return longs;
+    }
+
+    /**
+     * The index in the block of the document of each value read by the
+     * last call to {@link #readLongs}.
+     */
+    public int[] docIndices() {
+        return docIndices;
+    }
+}
@@ -16,6 +16,7 @@ import org.apache.lucene.search.BulkScorer;
 import org.apache.lucene.search.CollectionStatistics;
 import org.apache.lucene.search.CollectionTerminatedException;
 import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.CollectorManager;
 import org.apache.lucene.search.ConjunctionDISI;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.Explanation;
@@ -34,6 +35,8 @@ import org.apache.lucene.util.BitSetIterator;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.CombinedBitSet;
 import org.apache.lucene.util.SparseFixedBitSet;
+import org.apache.lucene.util.ThreadInterruptedException;
+import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.search.dfs.AggregatedDfs;
 import org.elasticsearch.search.profile.Timer;
@@ -43,11 +46,17 @@ import org.elasticsearch.search.profile.query.QueryProfiler;
 import org.elasticsearch.search.profile.query.QueryTimingType;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Context-aware extension of {@link IndexSearcher}.
@@ -59,9 +68,17 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
      */
     private static int CHECK_CANCELLED_SCORER_INTERVAL = 1 << 11;
 
+    /**
+     * The minimum number of documents of a slice of a concurrent search, smaller slices are not worth the cost of a task.
+     */
+    static final int MIN_DOCS_PER_SLICE = 250_000;
+
     private AggregatedDfs aggregatedDfs;
     private QueryProfiler profiler;
     private MutableQueryTimeout cancellable;
+    private Executor concurrentSearchExecutor;
+    private int maxConcurrentSlices = 1;
+    private int minDocsPerSlice = MIN_DOCS_PER_SLICE;
 
     public ContextIndexSearcher(IndexReader reader, Similarity similarity,
                                 QueryCache queryCache, QueryCachingPolicy queryCachingPolicy,
@@ -113,6 +130,33 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         return this.cancellable.isEnabled();
     }
 
+    /**
+     * Allows {@link #searchConcurrently} to collect up to <code>maxSlices</code> slices of the documents of this searcher
+     * in parallel on the given executor.
+     */
+    public void setConcurrentSearchExecutor(Executor executor, int maxSlices) {
+        setConcurrentSearchExecutor(executor, maxSlices, MIN_DOCS_PER_SLICE);
+    }
+
+    /**
+     * Same as {@link #setConcurrentSearchExecutor(Executor, int)} but also sets the minimum number of documents per slice, for tests.
+     */
+    public void setConcurrentSearchExecutor(Executor executor, int maxSlices, int minDocsPerSlice) {
+        if (maxSlices < 1) {
+            throw new IllegalArgumentException("maxSlices must be >= 1 but was [" + maxSlices + "]");
+        }
+        this.concurrentSearchExecutor = Objects.requireNonNull(executor);
+        this.maxConcurrentSlices = maxSlices;
+        this.minDocsPerSlice = minDocsPerSlice;
+    }
+
+    /**
+     * Returns whether this searcher can split a search in more than one slice, see {@link #searchConcurrently}.
+     */
+    public boolean hasConcurrentSearchExecutor() {
+        return concurrentSearchExecutor != null && maxConcurrentSlices > 1;
+    }
+
     public void setAggregatedDfs(AggregatedDfs aggregatedDfs) {
         this.aggregatedDfs = aggregatedDfs;
     }
@@ -157,7 +201,126 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
     @Override
     public void search(List<LeafReaderContext> leaves, Weight weight, Collector collector) throws IOException {
         for (LeafReaderContext ctx : leaves) { // search each subreader
-            searchLeaf(ctx, weight, collector);
+            searchLeaf(ctx, 0, DocIdSetIterator.NO_MORE_DOCS, weight, collector);
+        }
+    }
+
+    /**
+     * Searches the provided query with one collector of the <code>collectorManager</code> per slice of documents and
+     * reduces the collectors once all slices are collected. The slices are contiguous ranges of doc ids, a single segment
+     * can be split across slices, so that force-merged shards benefit too. The calling thread collects the last slice
+     * while the other slices are collected on the executor set with {@link #setConcurrentSearchExecutor}.
+     */
+    public <C extends Collector, T> T searchConcurrently(Query query, CollectorManager<C, T> collectorManager) throws IOException {
+        final List<List<LeafRange>> slices = slices(getIndexReader().leaves(), maxConcurrentSlices, minDocsPerSlice);
+        final List<C> collectors = new ArrayList<>(slices.size());
+        for (int i = 0; i < slices.size(); i++) {
+            collectors.add(collectorManager.newCollector());
+        }
+        final Weight weight = createWeight(rewrite(query), collectors.get(0).scoreMode(), 1f);
+        final List<FutureTask<Void>> tasks = new ArrayList<>(slices.size() - 1);
+        Exception failure = null;
+        try {
+            for (int i = 0; i < slices.size() - 1; i++) {
+                final List<LeafRange> slice = slices.get(i);
+                final C collector = collectors.get(i);
+                final FutureTask<Void> task = new FutureTask<>(() -> {
+                    searchSlice(slice, weight, collector);
+                    return null;
+                });
+                tasks.add(task);
+                try {
+                    concurrentSearchExecutor.execute(task);
+                } catch (RejectedExecutionException e) {
+                    task.run();
+                }
+            }
+            searchSlice(slices.get(slices.size() - 1), weight, collectors.get(slices.size() - 1));
+        } catch (Exception e) {
+            failure = e;
+        }
+        // always wait for all slices, they must not outlive the search
+        for (FutureTask<Void> task : tasks) {
+            try {
+                task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ThreadInterruptedException(e);
+            } catch (ExecutionException e) {
+                failure = ExceptionsHelper.useOrSuppress(failure, unwrapSliceFailure(e.getCause()));
+            }
+        }
+        if (failure != null) {
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            }
+            throw (RuntimeException) failure;
+        }
+        return collectorManager.reduce(collectors);
+    }
+
+    private static Exception unwrapSliceFailure(Throwable cause) {
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        } else if (cause instanceof IOException || cause instanceof RuntimeException) {
+            return (Exception) cause;
+        } else {
+            return new UncheckedIOException(new IOException(cause));
+        }
+    }
+
+    private void searchSlice(List<LeafRange> slice, Weight weight, Collector collector) throws IOException {
+        for (LeafRange range : slice) {
+            searchLeaf(range.leaf, range.minDoc, range.maxDoc, weight, collector);
+        }
+    }
+
+    /**
+     * Splits the provided leaves in at most <code>maxSlices</code> slices of contiguous doc ids that hold the same
+     * number of documents, but at least <code>minDocsPerSlice</code>.
+     */
+    static List<List<LeafRange>> slices(List<LeafReaderContext> leaves, int maxSlices, int minDocsPerSlice) {
+        long totalDocs = 0;
+        for (LeafReaderContext leaf : leaves) {
+            totalDocs += leaf.reader().maxDoc();
+        }
+        final int numSlices = (int) Math.max(1, Math.min(maxSlices, totalDocs / Math.max(1, minDocsPerSlice)));
+        final long docsPerSlice = Math.max(1, (totalDocs + numSlices - 1) / numSlices);
+        final List<List<LeafRange>> slices = new ArrayList<>(numSlices);
+        List<LeafRange> slice = new ArrayList<>();
+        long remaining = docsPerSlice;
+        for (LeafReaderContext leaf : leaves) {
+            final int maxDoc = leaf.reader().maxDoc();
+            int minDoc = 0;
+            while (minDoc < maxDoc) {
+                if (remaining == 0) {
+                    slices.add(slice);
+                    slice = new ArrayList<>();
+                    remaining = docsPerSlice;
+                }
+                final int end = (int) Math.min(maxDoc, minDoc + remaining);
+                slice.add(new LeafRange(leaf, minDoc, end));
+                remaining -= end - minDoc;
+                minDoc = end;
+            }
+        }
+        slices.add(slice);
+        assert slices.size() <= numSlices : slices.size() + " > " + numSlices;
+        return slices;
+    }
+
+    /**
+     * A range of doc ids of a leaf, <code>minDoc</code> is inclusive and <code>maxDoc</code> is exclusive.
+     */
+    static final class LeafRange {
+        final LeafReaderContext leaf;
+        final int minDoc;
+        final int maxDoc;
+
+        LeafRange(LeafReaderContext leaf, int minDoc, int maxDoc) {
+            this.leaf = leaf;
+            this.minDoc = minDoc;
+            this.maxDoc = maxDoc;
         }
     }
 
@@ -165,9 +328,9 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
      * Lower-level search API.
      *
      * {@link LeafCollector#collect(int)} is called for every matching document in
-     * the provided <code>ctx</code>.
+     * the provided <code>ctx</code> between <code>minDoc</code> (inclusive) and <code>maxDoc</code> (exclusive).
      */
-    private void searchLeaf(LeafReaderContext ctx, Weight weight, Collector collector) throws IOException {
+    private void searchLeaf(LeafReaderContext ctx, int minDoc, int maxDoc, Weight weight, Collector collector) throws IOException {
         cancellable.checkCancelled();
         weight = wrapWeight(weight);
         final LeafCollector leafCollector;
@@ -184,7 +347,7 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
             BulkScorer bulkScorer = weight.bulkScorer(ctx);
             if (bulkScorer != null) {
                 try {
-                    bulkScorer.score(leafCollector, liveDocs);
+                    bulkScorer.score(leafCollector, liveDocs, minDoc, maxDoc);
                 } catch (CollectionTerminatedException e) {
                     // collection was terminated prematurely
                     // continue with the following leaf
@@ -195,7 +358,7 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
             Scorer scorer = weight.scorer(ctx);
             if (scorer != null) {
                 try {
-                    intersectScorerAndBitSet(scorer, liveDocsBitSet, leafCollector,
+                    intersectScorerAndBitSet(scorer, liveDocsBitSet, leafCollector, minDoc, maxDoc,
                             this.cancellable.isEnabled() ? cancellable::checkCancelled: () -> {});
                 } catch (CollectionTerminatedException e) {
                     // collection was terminated prematurely
@@ -259,6 +422,11 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
 
     static void intersectScorerAndBitSet(Scorer scorer, BitSet acceptDocs,
                                          LeafCollector collector, Runnable checkCancelled) throws IOException {
+        intersectScorerAndBitSet(scorer, acceptDocs, collector, 0, DocIdSetIterator.NO_MORE_DOCS, checkCancelled);
+    }
+
+    static void intersectScorerAndBitSet(Scorer scorer, BitSet acceptDocs, LeafCollector collector,
+                                         int minDoc, int maxDoc, Runnable checkCancelled) throws IOException {
         collector.setScorer(scorer);
         // ConjunctionDISI uses the DocIdSetIterator#cost() to order the iterators, so if roleBits has the lowest cardinality it should
         // be used first:
@@ -266,7 +434,7 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
             acceptDocs.approximateCardinality()), scorer.iterator()));
         int seen = 0;
         checkCancelled.run();
-        for (int docId = iterator.nextDoc(); docId < DocIdSetIterator.NO_MORE_DOCS; docId = iterator.nextDoc()) {
+        for (int docId = iterator.advance(minDoc); docId < maxDoc; docId = iterator.nextDoc()) {
             if (++seen % CHECK_CANCELLED_SCORER_INTERVAL == 0) {
                 checkCancelled.run();
             }
@@ -177,18 +177,18 @@ public class ReaderContext implements Releasable {
      * value in the context
      */
     @SuppressWarnings("unchecked") // (T)object
-    public <T> T getFromContext(String key) {
+    public synchronized <T> T getFromContext(String key) {
         return context != null ? (T) context.get(key) : null;
     }
 
     /**
-     * Puts the object into the context
+     * Puts the object into the context and returns the previous value of the given key, or <code>null</code> if it did not have one
      */
-    public void putInContext(String key, Object value) {
+    public synchronized Object putInContext(String key, Object value) {
         if (context == null) {
             context = new HashMap<>();
         }
-        context.put(key, value);
+        return context.put(key, value);
     }
 
     public long getStartTimeInNano() {
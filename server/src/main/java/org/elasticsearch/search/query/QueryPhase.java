@@ -32,6 +32,7 @@ import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TopFieldCollector;
 import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.search.TopScoreDocCollector;
 import org.apache.lucene.search.TotalHits;
 import org.apache.lucene.search.Weight;
 import org.elasticsearch.action.search.SearchShardTask;
@@ -65,6 +66,7 @@ import org.elasticsearch.threadpool.ThreadPool;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.LinkedList;
@@ -76,6 +78,7 @@ import static org.elasticsearch.search.query.QueryCollectorContext.createFiltere
 import static org.elasticsearch.search.query.QueryCollectorContext.createMinScoreCollectorContext;
 import static org.elasticsearch.search.query.QueryCollectorContext.createMultiCollectorContext;
 import static org.elasticsearch.search.query.TopDocsCollectorContext.createTopDocsCollectorContext;
+import static org.elasticsearch.search.query.TopDocsCollectorContext.hasInfMaxScore;
 import static org.elasticsearch.search.query.TopDocsCollectorContext.shortcutTotalHitCount;
 
 
@@ -283,6 +286,8 @@ public class QueryPhase {
                 // if we are optimizing sort and there are no other collectors
                 if (sortAndFormatsForRewrittenNumericSort != null && collectors.size() == 0 && searchContext.getProfilers() == null) {
                     shouldRescore = searchWithCollectorManager(searchContext, searcher, query, leafSorter, timeoutSet);
+                } else if (canSearchConcurrently(searchContext, searcher, collectors)) {
+                    shouldRescore = searchConcurrently(searchContext, searcher, query, timeoutSet);
                 } else {
                     shouldRescore = searchWithCollector(searchContext, searcher, query, collectors, hasFilterCollector, timeoutSet);
                 }
@@ -425,6 +430,119 @@ public class QueryPhase {
         return false; // no rescoring when sorting by field
     }
 
+    /*
+     * Intra-shard concurrency is only used to collect top docs: aggregations, post filters, terminate_after, min_score,
+     * field collapsing, rescoring, scrolls and profiling all rely on collectors that cannot be split across threads.
+     */
+    private static boolean canSearchConcurrently(SearchContext searchContext, ContextIndexSearcher searcher,
+                                                 List<QueryCollectorContext> collectors) {
+        return searcher.hasConcurrentSearchExecutor()
+            && collectors.isEmpty()
+            && searchContext.getProfilers() == null
+            && searchContext.scrollContext() == null
+            && searchContext.collapse() == null
+            && searchContext.rescore().isEmpty()
+            && searchContext.size() > 0
+            && (searchContext.sort() == null
+                ? searchContext.searchAfter() == null
+                : searchContext.trackScores() == false);
+    }
+
+    private static boolean searchConcurrently(SearchContext searchContext,
+                                              ContextIndexSearcher searcher,
+                                              Query query,
+                                              boolean timeoutSet) throws IOException {
+        final QuerySearchResult queryResult = searchContext.queryResult();
+        final IndexReader reader = searcher.getIndexReader();
+        final int numHits = Math.min(searchContext.from() + searchContext.size(), Math.max(1, reader.numDocs()));
+        final SortAndFormats sortAndFormats = searchContext.sort();
+
+        int totalHitsThreshold;
+        final TotalHits totalHits;
+        if (sortAndFormats == null && hasInfMaxScore(query)) {
+            // disable max score optimization since we have a mandatory clause
+            // that doesn't track the maximum score
+            totalHitsThreshold = Integer.MAX_VALUE;
+            totalHits = null;
+        } else if (searchContext.trackTotalHitsUpTo() == SearchContext.TRACK_TOTAL_HITS_DISABLED) {
+            totalHitsThreshold = 1;
+            totalHits = new TotalHits(0, TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO);
+        } else {
+            int hitCount = shortcutTotalHitCount(reader, query);
+            if (hitCount == -1) {
+                totalHitsThreshold = searchContext.trackTotalHitsUpTo();
+                totalHits = null; // will be computed via the collectors
+            } else {
+                totalHitsThreshold = 1;
+                totalHits = new TotalHits(hitCount, TotalHits.Relation.EQUAL_TO); // don't compute hit counts via the collectors
+            }
+        }
+
+        final SliceCollectorManager<?, ? extends TopDocs> manager;
+        if (sortAndFormats == null) {
+            manager = new SliceCollectorManager<>(TopScoreDocCollector.createSharedManager(numHits, null, totalHitsThreshold));
+        } else {
+            manager = new SliceCollectorManager<>(TopFieldCollector.createSharedManager(sortAndFormats.sort, numHits,
+                searchContext.searchAfter(), totalHitsThreshold));
+        }
+
+        TopDocs topDocs;
+        try {
+            topDocs = searcher.searchConcurrently(query, manager);
+        } catch (TimeExceededException e) {
+            assert timeoutSet : "TimeExceededException thrown even though timeout wasn't set";
+            if (searchContext.request().allowPartialSearchResults() == false) {
+                // Can't rethrow TimeExceededException because not serializable
+                throw new QueryPhaseExecutionException(searchContext.shardTarget(), "Time exceeded");
+            }
+            queryResult.searchTimedOut(true);
+            // like a sequential search, return the hits that all slices collected before the search timed out
+            topDocs = manager.reduceCollected();
+        }
+        // Lucene sets shards indexes during merging of topDocs from different collectors
+        // We need to reset shard index; ES will set shard index later during reduce stage
+        for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+            scoreDoc.shardIndex = -1;
+        }
+        if (totalHits != null) {
+            topDocs = topDocs instanceof TopFieldDocs
+                ? new TopFieldDocs(totalHits, topDocs.scoreDocs, ((TopFieldDocs) topDocs).fields)
+                : new TopDocs(totalHits, topDocs.scoreDocs);
+        }
+        final float maxScore = sortAndFormats == null && topDocs.scoreDocs.length > 0 ? topDocs.scoreDocs[0].score : Float.NaN;
+        queryResult.topDocs(new TopDocsAndMaxScore(topDocs, maxScore), sortAndFormats == null ? null : sortAndFormats.formats);
+        return false;
+    }
+
+    /**
+     * Keeps track of the collectors of the slices of a concurrent search, so that the hits they collected before the search
+     * timed out can be reduced. The slices are all done by the time the search returns or fails.
+     */
+    private static final class SliceCollectorManager<C extends Collector, T> implements CollectorManager<C, T> {
+        private final CollectorManager<C, T> delegate;
+        private final List<C> collectors = new ArrayList<>();
+
+        SliceCollectorManager(CollectorManager<C, T> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public C newCollector() throws IOException {
+            final C collector = delegate.newCollector();
+            collectors.add(collector);
+            return collector;
+        }
+
+        @Override
+        public T reduce(Collection<C> collectors) throws IOException {
+            return delegate.reduce(collectors);
+        }
+
+        T reduceCollected() throws IOException {
+            return delegate.reduce(collectors);
+        }
+    }
+
     private static Query tryRewriteLongSort(SearchContext searchContext, IndexReader reader,
                                             Query query, boolean hasFilterCollector) throws IOException {
         if ((searchContext.from() + searchContext.size()) <= 0) return null;
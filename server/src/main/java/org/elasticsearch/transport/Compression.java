@@ -0,0 +1,83 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.transport;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.CompressorFactory;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * The compression schemes that can be used to compress the content of transport messages.
+ */
+public class Compression {
+
+    public enum Scheme {
+        DEFLATE,
+        LZ4;
+
+        /**
+         * The first version that is able to read transport messages compressed with {@link #LZ4}. Messages sent to nodes on older
+         * versions always fall back to {@link #DEFLATE}.
+         */
+        public static final Version LZ4_VERSION = Version.V_8_0_0;
+
+        // An arbitrary header that we use to identify LZ4 compressed transport messages. It has the same length as the DEFLATE header
+        // so that both schemes can be told apart from the same number of leading bytes.
+        static final byte[] LZ4_HEADER = new byte[]{'L', 'Z', '4', '\0'};
+        static final int HEADER_LENGTH = LZ4_HEADER.length;
+
+        /**
+         * Returns the scheme that should be used to compress a message sent with the given wire version. Versions that predate
+         * {@link #LZ4_VERSION} cannot read LZ4 so they always get {@link #DEFLATE}.
+         */
+        public static Scheme schemeForVersion(Scheme configuredScheme, Version version) {
+            if (configuredScheme == LZ4 && version.onOrAfter(LZ4_VERSION)) {
+                return LZ4;
+            }
+            return DEFLATE;
+        }
+
+        static boolean isDeflate(BytesReference bytes) {
+            return CompressorFactory.COMPRESSOR.isCompressed(bytes);
+        }
+
+        static boolean isLZ4(BytesReference bytes) {
+            if (bytes.length() < LZ4_HEADER.length) {
+                return false;
+            }
+            for (int i = 0; i < LZ4_HEADER.length; ++i) {
+                if (bytes.get(i) != LZ4_HEADER[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Wraps the given output stream in a compressing stream for this scheme. The returned stream must be closed to write the
+         * end-of-stream marker, closing it does not close the given stream.
+         */
+        public StreamOutput compressingStream(OutputStream outputStream) throws IOException {
+            final OutputStream noClose = Streams.noCloseStream(outputStream);
+            if (this == LZ4) {
+                return new OutputStreamStreamOutput(new Lz4TransportOutputStream(noClose));
+            } else {
+                return new OutputStreamStreamOutput(CompressorFactory.COMPRESSOR.threadLocalOutputStream(noClose));
+            }
+        }
+    }
+
+    private Compression() {}
+}
@@ -27,6 +27,7 @@ public class InboundDecoder implements Releasable {
     private final Version version;
     private final PageCacheRecycler recycler;
     private TransportDecompressor decompressor;
+    private boolean isCompressed = false;
     private int totalNetworkSize = -1;
     private int bytesConsumed = 0;
     private boolean isClosed = false;
@@ -64,7 +65,7 @@ public class InboundDecoder implements Releasable {
                     Header header = readHeader(version, messageLength, reference);
                     bytesConsumed += headerBytesToRead;
                     if (header.isCompressed()) {
-                        decompressor = new TransportDecompressor(recycler);
+                        isCompressed = true;
                     }
                     fragmentConsumer.accept(header);
 
@@ -75,9 +76,14 @@ public class InboundDecoder implements Releasable {
                 }
             }
         } else {
-            // There are a minimum number of bytes required to start decompression
-            if (decompressor != null && decompressor.canDecompress(reference.length()) == false) {
-                return 0;
+            if (isCompressed && decompressor == null) {
+                // Attempt to initialize decompressor
+                TransportDecompressor decompressor = initDecompressor(reference);
+                if (decompressor == null) {
+                    // There are a minimum number of bytes required to identify the compression scheme
+                    return 0;
+                }
+                this.decompressor = decompressor;
             }
             int bytesToConsume = Math.min(reference.length(), totalNetworkSize - bytesConsumed);
             bytesConsumed += bytesToConsume;
@@ -119,12 +125,20 @@ public class InboundDecoder implements Releasable {
         try {
             Releasables.closeExpectNoException(decompressor);
         } finally {
+            isCompressed = false;
             decompressor = null;
             totalNetworkSize = -1;
             bytesConsumed = 0;
         }
     }
 
+    private TransportDecompressor initDecompressor(BytesReference reference) {
+        if (reference.length() < Compression.Scheme.HEADER_LENGTH) {
+            return null;
+        }
+        return TransportDecompressor.getDecompressor(recycler, reference);
+    }
+
     private void decompress(ReleasableBytesReference content) throws IOException {
         try (content) {
             int consumed = decompressor.decompress(content);
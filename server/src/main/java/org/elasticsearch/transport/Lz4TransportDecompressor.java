@@ -0,0 +1,164 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.transport;
+
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefIterator;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.compress.Lz4BlockCodec;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.recycler.Recycler;
+import org.elasticsearch.common.util.PageCacheRecycler;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+
+import static org.elasticsearch.transport.Lz4TransportOutputStream.BLOCK_HEADER_LENGTH;
+import static org.elasticsearch.transport.Lz4TransportOutputStream.BLOCK_SIZE;
+import static org.elasticsearch.transport.Lz4TransportOutputStream.COMPRESSED_BLOCK;
+import static org.elasticsearch.transport.Lz4TransportOutputStream.END_OF_STREAM;
+import static org.elasticsearch.transport.Lz4TransportOutputStream.RAW_BLOCK;
+
+/**
+ * Decompresses transport messages written by {@link Lz4TransportOutputStream}. Since a block never exceeds a page once decompressed,
+ * both the stored bytes of the block that is currently being received and its decompressed content live in recycled pages.
+ */
+public class Lz4TransportDecompressor implements TransportDecompressor {
+
+    private final PageCacheRecycler recycler;
+    private final ArrayDeque<ReleasableBytesReference> pages;
+    private final byte[] blockHeader = new byte[BLOCK_HEADER_LENGTH];
+    private int blockHeaderOffset = 0;
+    private byte blockType;
+    private int uncompressedLength;
+    private int storedLength;
+    private Recycler.V<byte[]> storedPage;
+    private int storedOffset;
+    private boolean hasReadHeader = false;
+    private boolean isEOS = false;
+
+    public Lz4TransportDecompressor(PageCacheRecycler recycler) {
+        this.recycler = recycler;
+        pages = new ArrayDeque<>(4);
+    }
+
+    @Override
+    public int decompress(BytesReference bytesReference) throws IOException {
+        int bytesConsumed = 0;
+        if (hasReadHeader == false) {
+            if (Compression.Scheme.isLZ4(bytesReference) == false) {
+                throw new IllegalStateException("stream marked as LZ4 compressed, but is missing the LZ4 header");
+            }
+            hasReadHeader = true;
+            int headerLength = Compression.Scheme.HEADER_LENGTH;
+            bytesReference = bytesReference.slice(headerLength, bytesReference.length() - headerLength);
+            bytesConsumed += headerLength;
+        }
+
+        BytesRefIterator refIterator = bytesReference.iterator();
+        BytesRef ref;
+        while (isEOS == false && (ref = refIterator.next()) != null) {
+            int offset = ref.offset;
+            final int end = ref.offset + ref.length;
+            while (isEOS == false && offset < end) {
+                offset += consume(ref.bytes, offset, end - offset);
+            }
+            bytesConsumed += offset - ref.offset;
+        }
+        return bytesConsumed;
+    }
+
+    private int consume(byte[] bytes, int offset, int length) throws IOException {
+        if (blockHeaderOffset < BLOCK_HEADER_LENGTH) {
+            final int toCopy = Math.min(length, BLOCK_HEADER_LENGTH - blockHeaderOffset);
+            System.arraycopy(bytes, offset, blockHeader, blockHeaderOffset, toCopy);
+            blockHeaderOffset += toCopy;
+            if (blockHeaderOffset == BLOCK_HEADER_LENGTH) {
+                startBlock();
+            }
+            return toCopy;
+        }
+        final int toCopy = Math.min(length, storedLength - storedOffset);
+        System.arraycopy(bytes, offset, storedPage.v(), storedOffset, toCopy);
+        storedOffset += toCopy;
+        if (storedOffset == storedLength) {
+            finishBlock();
+        }
+        return toCopy;
+    }
+
+    private void startBlock() throws IOException {
+        blockType = blockHeader[0];
+        uncompressedLength = Lz4TransportOutputStream.readInt(blockHeader, 1);
+        storedLength = Lz4TransportOutputStream.readInt(blockHeader, 1 + Integer.BYTES);
+        if (blockType == END_OF_STREAM) {
+            if (uncompressedLength != 0 || storedLength != 0) {
+                throw new IOException("invalid LZ4 end of stream marker with lengths [" + uncompressedLength + "][" + storedLength + "]");
+            }
+            isEOS = true;
+            return;
+        }
+        if (blockType != COMPRESSED_BLOCK && blockType != RAW_BLOCK) {
+            throw new IOException("unknown LZ4 block type [" + blockType + "]");
+        }
+        if (uncompressedLength <= 0 || uncompressedLength > BLOCK_SIZE || storedLength <= 0 || storedLength > BLOCK_SIZE
+            || (blockType == RAW_BLOCK && storedLength != uncompressedLength)) {
+            throw new IOException("invalid LZ4 block lengths [" + uncompressedLength + "][" + storedLength + "]");
+        }
+        storedPage = recycler.bytePage(false);
+        storedOffset = 0;
+    }
+
+    private void finishBlock() throws IOException {
+        final Recycler.V<byte[]> stored = storedPage;
+        storedPage = null;
+        blockHeaderOffset = 0;
+        if (blockType == RAW_BLOCK) {
+            pages.add(new ReleasableBytesReference(new BytesArray(stored.v(), 0, storedLength), stored));
+        } else {
+            Recycler.V<byte[]> page = recycler.bytePage(false);
+            boolean success = false;
+            try {
+                Lz4BlockCodec.decompress(stored.v(), 0, storedLength, page.v(), 0, uncompressedLength);
+                pages.add(new ReleasableBytesReference(new BytesArray(page.v(), 0, uncompressedLength), page));
+                success = true;
+            } finally {
+                if (success) {
+                    stored.close();
+                } else {
+                    Releasables.closeWhileHandlingException(stored, page);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean isEOS() {
+        return isEOS;
+    }
+
+    @Override
+    public ReleasableBytesReference pollDecompressedPage() {
+        return pages.pollFirst();
+    }
+
+    @Override
+    public void close() {
+        if (storedPage != null) {
+            storedPage.close();
+            storedPage = null;
+        }
+        for (ReleasableBytesReference page : pages) {
+            page.close();
+        }
+        pages.clear();
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.transport;
+
+import org.elasticsearch.common.compress.Lz4BlockCodec;
+import org.elasticsearch.common.util.PageCacheRecycler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An output stream that compresses transport message content with LZ4. The stream starts with {@link Compression.Scheme#LZ4_HEADER}
+ * and is followed by a sequence of blocks, each of them preceded by a fixed size block header made of a block type byte, the
+ * uncompressed length and the stored length of the block. Blocks are at most {@link #BLOCK_SIZE} bytes long once decompressed so that
+ * the receiving side can decompress each of them straight into a single recycled page. Blocks that do not compress are stored raw and
+ * the stream ends with an empty {@link #END_OF_STREAM} block.
+ */
+public final class Lz4TransportOutputStream extends OutputStream {
+
+    static final int BLOCK_SIZE = PageCacheRecycler.BYTE_PAGE_SIZE;
+    static final int BLOCK_HEADER_LENGTH = 1 + Integer.BYTES + Integer.BYTES;
+
+    static final byte COMPRESSED_BLOCK = 0;
+    static final byte RAW_BLOCK = 1;
+    static final byte END_OF_STREAM = 2;
+
+    private static final ThreadLocal<Buffers> buffersRef = ThreadLocal.withInitial(Buffers::new);
+
+    // Scratch space reused across the messages that are serialized on the same thread
+    private static final class Buffers {
+        final byte[] uncompressed = new byte[BLOCK_SIZE];
+        final byte[] compressed = new byte[BLOCK_HEADER_LENGTH + Lz4BlockCodec.maxCompressedLength(BLOCK_SIZE)];
+        final int[] hashTable = new int[Lz4BlockCodec.HASH_TABLE_SIZE];
+        boolean inUse;
+    }
+
+    private final OutputStream out;
+    private final Buffers buffers;
+    private final boolean threadLocal;
+    private int bufferedBytes;
+    private boolean closed;
+
+    public Lz4TransportOutputStream(OutputStream out) throws IOException {
+        this.out = out;
+        final Buffers current = buffersRef.get();
+        if (current.inUse) {
+            // Nested compression streams should not happen but we still handle them safely by using fresh buffers
+            this.buffers = new Buffers();
+            this.threadLocal = false;
+        } else {
+            current.inUse = true;
+            this.buffers = current;
+            this.threadLocal = true;
+        }
+        out.write(Compression.Scheme.LZ4_HEADER);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        buffers.uncompressed[bufferedBytes++] = (byte) b;
+        if (bufferedBytes == BLOCK_SIZE) {
+            flushBlock();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            final int toCopy = Math.min(len, BLOCK_SIZE - bufferedBytes);
+            System.arraycopy(b, off, buffers.uncompressed, bufferedBytes, toCopy);
+            bufferedBytes += toCopy;
+            off += toCopy;
+            len -= toCopy;
+            if (bufferedBytes == BLOCK_SIZE) {
+                flushBlock();
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        if (bufferedBytes > 0) {
+            flushBlock();
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            if (bufferedBytes > 0) {
+                flushBlock();
+            }
+            final byte[] header = buffers.compressed;
+            writeBlockHeader(header, END_OF_STREAM, 0, 0);
+            out.write(header, 0, BLOCK_HEADER_LENGTH);
+            out.close();
+        } finally {
+            closed = true;
+            if (threadLocal) {
+                buffers.inUse = false;
+            }
+        }
+    }
+
+    private void flushBlock() throws IOException {
+        final byte[] compressed = buffers.compressed;
+        final int compressedLength = Lz4BlockCodec.compress(buffers.uncompressed, 0, bufferedBytes, compressed, BLOCK_HEADER_LENGTH,
+            buffers.hashTable);
+        if (compressedLength < bufferedBytes) {
+            writeBlockHeader(compressed, COMPRESSED_BLOCK, bufferedBytes, compressedLength);
+            out.write(compressed, 0, BLOCK_HEADER_LENGTH + compressedLength);
+        } else {
+            // incompressible data is sent as is so that a stored block never exceeds BLOCK_SIZE
+            writeBlockHeader(compressed, RAW_BLOCK, bufferedBytes, bufferedBytes);
+            out.write(compressed, 0, BLOCK_HEADER_LENGTH);
+            out.write(buffers.uncompressed, 0, bufferedBytes);
+        }
+        bufferedBytes = 0;
+    }
+
+    private static void writeBlockHeader(byte[] bytes, byte type, int uncompressedLength, int storedLength) {
+        bytes[0] = type;
+        writeInt(bytes, 1, uncompressedLength);
+        writeInt(bytes, 1 + Integer.BYTES, storedLength);
+    }
+
+    private static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >> 24);
+        bytes[offset + 1] = (byte) (value >> 16);
+        bytes[offset + 2] = (byte) (value >> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    static int readInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16) | ((bytes[offset + 2] & 0xFF) << 8)
+            | (bytes[offset + 3] & 0xFF);
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("stream is already closed");
+        }
+    }
+}
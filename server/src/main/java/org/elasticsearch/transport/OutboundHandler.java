@@ -16,6 +16,7 @@ import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.FileChannelBytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
 import org.elasticsearch.common.network.CloseableChannel;
@@ -37,17 +38,20 @@ final class OutboundHandler {
     private final StatsTracker statsTracker;
     private final ThreadPool threadPool;
     private final BigArrays bigArrays;
+    private final Compression.Scheme configuredCompressionScheme;
 
     private volatile long slowLogThresholdMs = Long.MAX_VALUE;
 
     private volatile TransportMessageListener messageListener = TransportMessageListener.NOOP_LISTENER;
 
-    OutboundHandler(String nodeName, Version version, StatsTracker statsTracker, ThreadPool threadPool, BigArrays bigArrays) {
+    OutboundHandler(String nodeName, Version version, StatsTracker statsTracker, ThreadPool threadPool, BigArrays bigArrays,
+                    Compression.Scheme configuredCompressionScheme) {
         this.nodeName = nodeName;
         this.version = version;
         this.statsTracker = statsTracker;
         this.threadPool = threadPool;
         this.bigArrays = bigArrays;
+        this.configuredCompressionScheme = configuredCompressionScheme;
     }
 
     void setSlowLogThreshold(TimeValue slowLogThreshold) {
@@ -66,8 +70,8 @@ final class OutboundHandler {
                      final TransportRequest request, final TransportRequestOptions options, final Version channelVersion,
                      final boolean compressRequest, final boolean isHandshake) throws IOException, TransportException {
         Version version = Version.min(this.version, channelVersion);
-        OutboundMessage.Request message =
-            new OutboundMessage.Request(threadPool.getThreadContext(), request, version, action, requestId, isHandshake, compressRequest);
+        OutboundMessage.Request message = new OutboundMessage.Request(threadPool.getThreadContext(), request, version, action, requestId,
+            isHandshake, compressRequest, Compression.Scheme.schemeForVersion(configuredCompressionScheme, version));
         ActionListener<Void> listener = ActionListener.wrap(() ->
             messageListener.onRequestSent(node, requestId, action, request, options));
         sendMessage(channel, message, listener);
@@ -83,7 +87,7 @@ final class OutboundHandler {
                       final TransportResponse response, final boolean compress, final boolean isHandshake) throws IOException {
         Version version = Version.min(this.version, nodeVersion);
         OutboundMessage.Response message = new OutboundMessage.Response(threadPool.getThreadContext(), response, version,
-            requestId, isHandshake, compress);
+            requestId, isHandshake, compress, Compression.Scheme.schemeForVersion(configuredCompressionScheme, version));
         ActionListener<Void> listener = ActionListener.wrap(() -> messageListener.onResponseSent(requestId, action, response));
         sendMessage(channel, message, listener);
     }
@@ -104,7 +108,7 @@ final class OutboundHandler {
 
     private void sendMessage(TcpChannel channel, OutboundMessage networkMessage, ActionListener<Void> listener) throws IOException {
         final BytesStreamOutput bytesStreamOutput = new ReleasableBytesStreamOutput(bigArrays);
-        final ActionListener<Void> wrappedListener = ActionListener.runBefore(listener, bytesStreamOutput::close);
+        ActionListener<Void> wrappedListener = ActionListener.runBefore(listener, bytesStreamOutput::close);
         final BytesReference message;
         try {
             message = networkMessage.serialize(bytesStreamOutput);
@@ -113,6 +117,12 @@ final class OutboundHandler {
             wrappedListener.onFailure(e);
             throw e;
         }
+        if (networkMessage.message instanceof TrailingBytesTransportRequest && networkMessage.zeroCopyBuffer().length() > 0) {
+            // the trailing bytes were not copied, the request must keep them around until they are written to the channel
+            final TrailingBytesTransportRequest request = (TrailingBytesTransportRequest) networkMessage.message;
+            request.incRef();
+            wrappedListener = ActionListener.runBefore(wrappedListener, request::decRef);
+        }
         internalSend(channel, message, networkMessage, wrappedListener);
     }
 
@@ -124,7 +134,7 @@ final class OutboundHandler {
         TransportLogger.logOutboundMessage(channel, reference);
         // stash thread context so that channel event loop is not polluted by thread context
         try (ThreadContext.StoredContext existing = threadPool.getThreadContext().stashContext()) {
-            channel.sendMessage(reference, new ActionListener<>() {
+            final ActionListener<Void> sendListener = new ActionListener<>() {
                 @Override
                 public void onResponse(Void v) {
                     statsTracker.markBytesWritten(messageSize);
@@ -153,7 +163,14 @@ final class OutboundHandler {
                         }
                     }
                 }
-            });
+            };
+            final FileChannelBytesReference fileRegion =
+                message == null ? null : FileChannelBytesReference.unwrap(message.zeroCopyBuffer());
+            if (fileRegion == null) {
+                channel.sendMessage(reference, sendListener);
+            } else {
+                channel.sendMessage(reference, fileRegion, sendListener);
+            }
         } catch (RuntimeException ex) {
             listener.onFailure(ex);
             CloseableChannel.closeChannel(channel);
@@ -12,10 +12,7 @@ import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.bytes.CompositeBytesReference;
-import org.elasticsearch.common.compress.CompressorFactory;
-import org.elasticsearch.common.io.Streams;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
-import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
@@ -25,9 +22,13 @@ import java.io.IOException;
 abstract class OutboundMessage extends NetworkMessage {
 
     protected final Writeable message;
+    private final Compression.Scheme compressionScheme;
+    private BytesReference zeroCopyBuffer = BytesArray.EMPTY;
 
-    OutboundMessage(ThreadContext threadContext, Version version, byte status, long requestId, Writeable message) {
+    OutboundMessage(ThreadContext threadContext, Version version, byte status, long requestId, Compression.Scheme compressionScheme,
+                    Writeable message) {
         super(threadContext, version, status, requestId);
+        this.compressionScheme = compressionScheme;
         this.message = message;
     }
 
@@ -57,6 +58,11 @@ abstract class OutboundMessage extends NetworkMessage {
                 BytesTransportRequest bRequest = (BytesTransportRequest) message;
                 bRequest.writeThin(stream);
                 zeroCopyBuffer = bRequest.bytes;
+            } else if (compress == false && message instanceof TrailingBytesTransportRequest
+                && ((TrailingBytesTransportRequest) message).hasTrailingBytes(version)) {
+                TrailingBytesTransportRequest tRequest = (TrailingBytesTransportRequest) message;
+                tRequest.writeThin(stream);
+                zeroCopyBuffer = tRequest.trailingBytes();
             } else if (message instanceof RemoteTransportException) {
                 stream.writeException((RemoteTransportException) message);
                 zeroCopyBuffer = BytesArray.EMPTY;
@@ -77,6 +83,7 @@ abstract class OutboundMessage extends NetworkMessage {
         } else {
             reference = CompositeBytesReference.of(message, zeroCopyBuffer);
         }
+        this.zeroCopyBuffer = zeroCopyBuffer;
 
         bytesStream.seek(0);
         final int contentSize = reference.length() - TcpHeader.headerSize(version);
@@ -84,10 +91,17 @@ abstract class OutboundMessage extends NetworkMessage {
         return reference;
     }
 
+    /**
+     * Returns the bytes at the end of the {@link #serialize serialized} message that were not copied into the serialization buffer.
+     */
+    BytesReference zeroCopyBuffer() {
+        return zeroCopyBuffer;
+    }
+
     // compressed stream wrapped bytes must be no-close wrapped since we need to close the compressed wrapper below to release
     // resources and write EOS marker bytes but must not yet release the bytes themselves
-    private OutputStreamStreamOutput wrapCompressed(BytesStreamOutput bytesStream) throws IOException {
-        return new OutputStreamStreamOutput(CompressorFactory.COMPRESSOR.threadLocalOutputStream(Streams.noCloseStream(bytesStream)));
+    private StreamOutput wrapCompressed(BytesStreamOutput bytesStream) throws IOException {
+        return compressionScheme.compressingStream(bytesStream);
     }
 
     protected void writeVariableHeader(StreamOutput stream) throws IOException {
@@ -100,7 +114,12 @@ abstract class OutboundMessage extends NetworkMessage {
 
         Request(ThreadContext threadContext, Writeable message, Version version, String action, long requestId,
                 boolean isHandshake, boolean compress) {
-            super(threadContext, version, setStatus(compress, isHandshake, message), requestId, message);
+            this(threadContext, message, version, action, requestId, isHandshake, compress, Compression.Scheme.DEFLATE);
+        }
+
+        Request(ThreadContext threadContext, Writeable message, Version version, String action, long requestId,
+                boolean isHandshake, boolean compress, Compression.Scheme compressionScheme) {
+            super(threadContext, version, setStatus(compress, isHandshake, message), requestId, compressionScheme, message);
             this.action = action;
         }
 
@@ -137,7 +156,12 @@ abstract class OutboundMessage extends NetworkMessage {
     static class Response extends OutboundMessage {
 
         Response(ThreadContext threadContext, Writeable message, Version version, long requestId, boolean isHandshake, boolean compress) {
-            super(threadContext, version, setStatus(compress, isHandshake, message), requestId, message);
+            this(threadContext, message, version, requestId, isHandshake, compress, Compression.Scheme.DEFLATE);
+        }
+
+        Response(ThreadContext threadContext, Writeable message, Version version, long requestId, boolean isHandshake, boolean compress,
+                 Compression.Scheme compressionScheme) {
+            super(threadContext, version, setStatus(compress, isHandshake, message), requestId, compressionScheme, message);
         }
 
         private static byte setStatus(boolean compress, boolean isHandshake, Writeable message) {
@@ -10,6 +10,7 @@ package org.elasticsearch.transport;
 
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.FileChannelBytesReference;
 import org.elasticsearch.common.network.CloseableChannel;
 import org.elasticsearch.common.unit.TimeValue;
 
@@ -56,6 +57,19 @@ public interface TcpChannel extends CloseableChannel {
      */
     void sendMessage(BytesReference reference, ActionListener<Void> listener);
 
+    /**
+     * Sends a tcp message that ends with the given file region to the channel. Channels that can transfer file regions to the
+     * network without reading them onto the heap first should override this method, by default the whole message is sent with
+     * {@link #sendMessage(BytesReference, ActionListener)}.
+     *
+     * @param reference to send to channel, including the bytes of the file region
+     * @param fileRegion the last bytes of the reference
+     * @param listener to execute upon send completion
+     */
+    default void sendMessage(BytesReference reference, FileChannelBytesReference fileRegion, ActionListener<Void> listener) {
+        sendMessage(reference, listener);
+    }
+
     /**
      * Adds a listener that will be executed when the channel is connected. If the channel is still
      * unconnected when this listener is added, the listener will be executed by the thread that eventually
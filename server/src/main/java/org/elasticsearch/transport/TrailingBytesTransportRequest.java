@@ -0,0 +1,41 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.transport;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.util.concurrent.RefCounted;
+
+import java.io.IOException;
+
+/**
+ * A request whose serialized form ends with a potentially large blob of bytes. Unless the message is compressed, the transport
+ * appends these bytes to the rest of the serialized request as they are instead of copying them into the serialization buffer, which
+ * also lets channels send bytes that are not on heap, like {@link org.elasticsearch.common.bytes.FileChannelBytesReference file
+ * regions}, without reading them first. The request is retained until the bytes were written to the channel.
+ */
+public interface TrailingBytesTransportRequest extends RefCounted {
+
+    /**
+     * Whether the serialized form of this request for the given wire version ends with {@link #trailingBytes()}.
+     */
+    boolean hasTrailingBytes(Version version);
+
+    /**
+     * Writes the data in a "thin" manner, including the length of the trailing bytes but without the bytes themselves, assumes the
+     * bytes will be appended right after this content.
+     */
+    void writeThin(StreamOutput out) throws IOException;
+
+    /**
+     * The bytes to append to the thin serialized form of this request.
+     */
+    BytesReference trailingBytes();
+}
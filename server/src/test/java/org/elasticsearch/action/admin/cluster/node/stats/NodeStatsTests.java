@@ -8,6 +8,8 @@
 
 package org.elasticsearch.action.admin.cluster.node.stats;
 
+import org.elasticsearch.cluster.coordination.ClusterStatePersistenceStats;
+import org.elasticsearch.cluster.coordination.ClusterStateSerializationStats;
 import org.elasticsearch.cluster.coordination.PendingClusterStateStats;
 import org.elasticsearch.cluster.coordination.PublishClusterStateStats;
 import org.elasticsearch.cluster.node.DiscoveryNode;
@@ -277,6 +279,32 @@ public class NodeStatsTests extends ESTestCase {
                         assertEquals(queueStats.getTotal(), deserializedDiscoveryStats.getQueueStats().getTotal());
                         assertEquals(queueStats.getPending(), deserializedDiscoveryStats.getQueueStats().getPending());
                     }
+                    PublishClusterStateStats publishStats = discoveryStats.getPublishStats();
+                    if (publishStats == null) {
+                        assertNull(deserializedDiscoveryStats.getPublishStats());
+                    } else {
+                        PublishClusterStateStats deserializedPublishStats = deserializedDiscoveryStats.getPublishStats();
+                        assertEquals(publishStats.getFullClusterStateReceivedCount(),
+                            deserializedPublishStats.getFullClusterStateReceivedCount());
+                        ClusterStateSerializationStats serializationStats = publishStats.getSerializationStats();
+                        ClusterStateSerializationStats deserializedSerializationStats = deserializedPublishStats.getSerializationStats();
+                        assertEquals(serializationStats.getDiffComputationTimeMillis(),
+                            deserializedSerializationStats.getDiffComputationTimeMillis());
+                        assertEquals(serializationStats.getFullStates().getCompressedBytes(),
+                            deserializedSerializationStats.getFullStates().getCompressedBytes());
+                        assertEquals(serializationStats.getDiffs().getCompressionTimeMillis(),
+                            deserializedSerializationStats.getDiffs().getCompressionTimeMillis());
+                    }
+                    ClusterStatePersistenceStats persistenceStats = discoveryStats.getPersistenceStats();
+                    if (persistenceStats == null) {
+                        assertNull(deserializedDiscoveryStats.getPersistenceStats());
+                    } else {
+                        ClusterStatePersistenceStats deserializedPersistenceStats = deserializedDiscoveryStats.getPersistenceStats();
+                        assertEquals(persistenceStats.getFullWriteCount(), deserializedPersistenceStats.getFullWriteCount());
+                        assertEquals(persistenceStats.getIncrementalWriteTimeMillis(),
+                            deserializedPersistenceStats.getIncrementalWriteTimeMillis());
+                        assertEquals(persistenceStats.getIndicesSkipped(), deserializedPersistenceStats.getIndicesSkipped());
+                    }
                 }
                 IngestStats ingestStats = nodeStats.getIngestStats();
                 IngestStats deserializedIngestStats = deserializedNodeStats.getIngestStats();
@@ -488,6 +516,20 @@ public class NodeStatsTests extends ESTestCase {
                 : null,
                 randomBoolean()
                 ? new PublishClusterStateStats(
+                    randomNonNegativeLong(),
+                    randomNonNegativeLong(),
+                    randomNonNegativeLong(),
+                    new ClusterStateSerializationStats(
+                        randomNonNegativeLong(),
+                        randomNonNegativeLong(),
+                        randomSerializedStats(),
+                        randomSerializedStats()))
+                : null,
+                randomBoolean()
+                ? new ClusterStatePersistenceStats(
+                    randomNonNegativeLong(),
+                    randomNonNegativeLong(),
+                    randomNonNegativeLong(),
                     randomNonNegativeLong(),
                     randomNonNegativeLong(),
                     randomNonNegativeLong())
@@ -558,6 +600,11 @@ public class NodeStatsTests extends ESTestCase {
                 ingestStats, adaptiveSelectionStats, null);
     }
 
+    private static ClusterStateSerializationStats.SerializedStats randomSerializedStats() {
+        return new ClusterStateSerializationStats.SerializedStats(randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(),
+            randomNonNegativeLong(), randomNonNegativeLong());
+    }
+
     private IngestStats.Stats getPipelineStats(List<IngestStats.PipelineStat> pipelineStats, String id) {
         return pipelineStats.stream().filter(p1 -> p1.getPipelineId().equals(id)).findFirst().map(p2 -> p2.getStats()).orElse(null);
     }
@@ -0,0 +1,218 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.action.bulk;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.action.support.WriteRequest.RefreshPolicy;
+import org.elasticsearch.cluster.coordination.DeterministicTaskQueue;
+import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.index.IndexingPressure;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.stats.IndexingPressureStats;
+import org.elasticsearch.tasks.TaskId;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.elasticsearch.node.Node.NODE_NAME_SETTING;
+import static org.hamcrest.Matchers.either;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class BulkShardRequestCoalescerTests extends ESTestCase {
+
+    private final ShardId shardId = new ShardId("index", "_na_", 0);
+    private final DeterministicTaskQueue taskQueue =
+        new DeterministicTaskQueue(Settings.builder().put(NODE_NAME_SETTING.getKey(), "node").build(), random());
+    private final IndexingPressure indexingPressure = new IndexingPressure(Settings.EMPTY);
+    private final List<Tuple<BulkShardRequest, ActionListener<BulkShardResponse>>> sent = new ArrayList<>();
+
+    private BulkShardRequestCoalescer coalescer(Settings settings) {
+        return new BulkShardRequestCoalescer(settings, taskQueue.getThreadPool(), indexingPressure,
+            (request, listener) -> sent.add(Tuple.tuple(request, listener)));
+    }
+
+    public void testDisabledByDefault() {
+        final BulkShardRequestCoalescer coalescer = coalescer(Settings.EMPTY);
+        assertFalse(coalescer.isEnabled());
+        final BulkShardRequest request = shardRequest(shardId, 0, 1);
+        coalescer.execute(request, 1L, ActionListener.wrap(() -> {}));
+        assertThat(sent.size(), equalTo(1));
+        assertThat(sent.get(0).v1(), sameInstance(request));
+    }
+
+    public void testMergesAndDemultiplexesResponses() {
+        final BulkShardRequestCoalescer coalescer =
+            coalescer(Settings.builder().put(BulkShardRequestCoalescer.COALESCE_WINDOW_SETTING.getKey(), "10ms").build());
+        final BulkShardRequest[] requests = new BulkShardRequest[] {
+            shardRequest(shardId, 0, 2),
+            shardRequest(shardId, 1),
+            shardRequest(shardId, 5, 7, 3) };
+        final List<AtomicReference<BulkShardResponse>> responses = new ArrayList<>();
+        for (BulkShardRequest request : requests) {
+            final AtomicReference<BulkShardResponse> response = new AtomicReference<>();
+            responses.add(response);
+            coalescer.execute(request, randomNonNegativeLong(), ActionListener.wrap(response::set, e -> { throw new AssertionError(e); }));
+        }
+        assertThat(sent.size(), equalTo(0));
+        taskQueue.advanceTime();
+        taskQueue.runAllRunnableTasks();
+
+        assertThat(sent.size(), equalTo(1));
+        final BulkShardRequest merged = sent.get(0).v1();
+        assertThat(merged.shardId(), equalTo(shardId));
+        assertThat(merged.items().length, equalTo(6));
+        final BulkItemResponse[] itemResponses = new BulkItemResponse[merged.items().length];
+        for (int i = 0; i < merged.items().length; i++) {
+            final BulkItemRequest item = merged.items()[i];
+            assertThat(item.id(), equalTo(i));
+            if (i % 2 == 0) {
+                itemResponses[i] = new BulkItemResponse(i, item.request().opType(),
+                    new IndexResponse(shardId, item.request().id(), i, 1, 1, true));
+            } else {
+                itemResponses[i] = new BulkItemResponse(i, item.request().opType(),
+                    new BulkItemResponse.Failure("index", item.request().id(), new IllegalArgumentException("item " + i)));
+            }
+        }
+        sent.get(0).v2().onResponse(new BulkShardResponse(shardId, itemResponses));
+
+        int mergedId = 0;
+        for (int i = 0; i < requests.length; i++) {
+            final BulkShardResponse response = responses.get(i).get();
+            assertThat(response.getResponses().length, equalTo(requests[i].items().length));
+            for (int j = 0; j < requests[i].items().length; j++) {
+                final BulkItemResponse itemResponse = response.getResponses()[j];
+                assertThat(itemResponse.getItemId(), equalTo(requests[i].items()[j].id()));
+                assertThat(itemResponse.getId(), equalTo(requests[i].items()[j].request().id()));
+                assertThat(itemResponse.isFailed(), equalTo(mergedId % 2 != 0));
+                mergedId++;
+            }
+        }
+
+        final IndexingPressureStats stats = indexingPressure.stats();
+        assertThat(stats.getCoalescedShardRequests(), equalTo(3L));
+        assertThat(stats.getCoalescedShardRequestBatches(), equalTo(1L));
+    }
+
+    public void testFailureFailsAllCallers() {
+        final BulkShardRequestCoalescer coalescer =
+            coalescer(Settings.builder().put(BulkShardRequestCoalescer.COALESCE_WINDOW_SETTING.getKey(), "10ms").build());
+        final int numRequests = randomIntBetween(2, 5);
+        final List<AtomicReference<Exception>> failures = new ArrayList<>();
+        for (int i = 0; i < numRequests; i++) {
+            final AtomicReference<Exception> failure = new AtomicReference<>();
+            failures.add(failure);
+            coalescer.execute(shardRequest(shardId, i), 1L, ActionListener.wrap(r -> { throw new AssertionError(); }, failure::set));
+        }
+        taskQueue.advanceTime();
+        taskQueue.runAllRunnableTasks();
+        assertThat(sent.size(), equalTo(1));
+
+        final Exception e = new IllegalStateException("simulated");
+        sent.get(0).v2().onFailure(e);
+        for (AtomicReference<Exception> failure : failures) {
+            assertThat(failure.get(), sameInstance(e));
+        }
+    }
+
+    public void testDoesNotMergeRequestsOfDifferentShardsOrHeaders() {
+        final BulkShardRequestCoalescer coalescer =
+            coalescer(Settings.builder().put(BulkShardRequestCoalescer.COALESCE_WINDOW_SETTING.getKey(), "10ms").build());
+        final ThreadContext threadContext = taskQueue.getThreadPool().getThreadContext();
+        coalescer.execute(shardRequest(shardId, 0), 1L, ActionListener.wrap(() -> {}));
+        coalescer.execute(shardRequest(new ShardId("index", "_na_", 1), 1), 1L, ActionListener.wrap(() -> {}));
+        try (ThreadContext.StoredContext ignored = threadContext.stashContext()) {
+            threadContext.putHeader("user", "other");
+            coalescer.execute(shardRequest(shardId, 2), 1L, ActionListener.wrap(() -> {}));
+        }
+        taskQueue.advanceTime();
+        taskQueue.runAllRunnableTasks();
+
+        assertThat(sent.size(), equalTo(3));
+        for (Tuple<BulkShardRequest, ActionListener<BulkShardResponse>> request : sent) {
+            assertThat(request.v1().items().length, equalTo(1));
+        }
+        assertThat(indexingPressure.stats().getCoalescedShardRequestBatches(), equalTo(0L));
+    }
+
+    public void testMergedRequestIsChildOfParentTaskOfFirstRequest() {
+        final BulkShardRequestCoalescer coalescer =
+            coalescer(Settings.builder().put(BulkShardRequestCoalescer.COALESCE_WINDOW_SETTING.getKey(), "10ms").build());
+        final BulkShardRequest first = shardRequest(shardId, 0);
+        first.setParentTask("node", 1L);
+        final BulkShardRequest second = shardRequest(shardId, 1);
+        second.setParentTask("node", 2L);
+        final BulkShardRequest otherNode = shardRequest(shardId, 2);
+        otherNode.setParentTask("other-node", 1L);
+        final BulkShardRequest noParent = shardRequest(shardId, 3);
+        coalescer.execute(first, 1L, ActionListener.wrap(() -> {}));
+        coalescer.execute(second, 1L, ActionListener.wrap(() -> {}));
+        coalescer.execute(otherNode, 1L, ActionListener.wrap(() -> {}));
+        coalescer.execute(noParent, 1L, ActionListener.wrap(() -> {}));
+        taskQueue.advanceTime();
+        taskQueue.runAllRunnableTasks();
+
+        assertThat(sent.size(), equalTo(3));
+        BulkShardRequest merged = null;
+        for (Tuple<BulkShardRequest, ActionListener<BulkShardResponse>> request : sent) {
+            if (request.v1().items().length == 2) {
+                merged = request.v1();
+            } else {
+                assertThat(request.v1(), either(sameInstance(otherNode)).or(sameInstance(noParent)));
+            }
+        }
+        assertNotNull(merged);
+        assertThat(merged.getParentTask(), equalTo(new TaskId("node", 1L)));
+        assertThat(indexingPressure.stats().getCoalescedShardRequestBatches(), equalTo(1L));
+    }
+
+    public void testFlushesOnceMaxBytesIsReached() {
+        final BulkShardRequest first = shardRequest(shardId, 0);
+        final BulkShardRequest second = shardRequest(shardId, 1);
+        final long maxBytes = first.ramBytesUsed() + second.ramBytesUsed();
+        final BulkShardRequestCoalescer coalescer = coalescer(Settings.builder()
+            .put(BulkShardRequestCoalescer.COALESCE_WINDOW_SETTING.getKey(), "1h")
+            .put(BulkShardRequestCoalescer.COALESCE_MAX_BYTES_SETTING.getKey(), maxBytes + "b")
+            .build());
+
+        coalescer.execute(first, 1L, ActionListener.wrap(() -> {}));
+        assertThat(sent.size(), equalTo(0));
+        coalescer.execute(second, 1L, ActionListener.wrap(() -> {}));
+        assertThat(sent.size(), equalTo(1));
+        assertThat(sent.get(0).v1().items().length, equalTo(2));
+
+        // the scheduled flush of the batch that was already sent is a no-op
+        taskQueue.advanceTime();
+        taskQueue.runAllRunnableTasks();
+        assertThat(sent.size(), equalTo(1));
+
+        // a request that exceeds the maximum on its own is sent right away
+        final BulkShardRequest large = shardRequest(shardId, 2, 3, 4, 5);
+        assertThat(large.ramBytesUsed(), greaterThanOrEqualTo(maxBytes));
+        coalescer.execute(large, 1L, ActionListener.wrap(() -> {}));
+        assertThat(sent.size(), equalTo(2));
+        assertThat(sent.get(1).v1(), sameInstance(large));
+        assertThat(taskQueue.hasDeferredTasks(), equalTo(false));
+    }
+
+    private static BulkShardRequest shardRequest(ShardId shardId, int... itemIds) {
+        final BulkItemRequest[] items = new BulkItemRequest[itemIds.length];
+        for (int i = 0; i < itemIds.length; i++) {
+            items[i] = new BulkItemRequest(itemIds[i], new IndexRequest("index").id("id-" + itemIds[i]).source("field", "value"));
+        }
+        return new BulkShardRequest(shardId, RefreshPolicy.NONE, items);
+    }
+}
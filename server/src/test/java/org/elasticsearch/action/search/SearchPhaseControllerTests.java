@@ -576,6 +576,43 @@ public class SearchPhaseControllerTests extends ESTestCase {
         assertNull(reduce.sortedTopDocs.collapseValues);
     }
 
+    public void testConsumerStreamsAggsWhenBufferedAggsSizeIsReached() throws Exception {
+        int expectedNumResults = randomIntBetween(1, 100);
+        SearchRequest request = randomSearchRequest();
+        request.source(new SearchSourceBuilder().aggregation(AggregationBuilders.avg("foo")).size(0));
+        // the batched reduce size is never reached, every partial reduce is triggered by the size of the buffered aggs
+        request.setBatchedReduceSize(expectedNumResults + 1);
+        AssertingCircuitBreaker circuitBreaker = new AssertingCircuitBreaker(CircuitBreaker.REQUEST);
+        QueryPhaseResultConsumer consumer = searchPhaseController.newSearchPhaseResults(fixedExecutor,
+            circuitBreaker, SearchProgressListener.NOOP, request, expectedNumResults, 0, exc -> {});
+        AtomicInteger max = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(expectedNumResults);
+        for (int i = 0; i < expectedNumResults; i++) {
+            int number = randomIntBetween(1, 1000);
+            max.updateAndGet(prev -> Math.max(prev, number));
+            QuerySearchResult result = new QuerySearchResult(new ShardSearchContextId("", i),
+                new SearchShardTarget("node", new ShardId("a", "b", i), null, OriginalIndices.NONE), null);
+            result.topDocs(new TopDocsAndMaxScore(new TopDocs(new TotalHits(1, TotalHits.Relation.EQUAL_TO), new ScoreDoc[0]), number),
+                new DocValueFormat[0]);
+            InternalAggregations aggs = InternalAggregations.from(Collections.singletonList(new InternalMax("test", (double) number,
+                DocValueFormat.RAW, Collections.emptyMap())));
+            result.aggregations(aggs);
+            result.setShardIndex(i);
+            result.size(1);
+            consumer.consumeResult(result, latch::countDown);
+        }
+        latch.await();
+
+        SearchPhaseController.ReducedQueryPhase reduce = consumer.reduce();
+        // every result but the first one triggers the reduce of the result that was buffered before it
+        assertEquals(expectedNumResults - 1, consumer.getNumReducePhases());
+        InternalMax internalMax = (InternalMax) reduce.aggregations.asList().get(0);
+        assertEquals(max.get(), internalMax.getValue(), 0.0D);
+        assertEquals(expectedNumResults, reduce.totalHits.value);
+        consumer.close();
+        assertThat(circuitBreaker.allocated, equalTo(0L));
+    }
+
     public void testConsumerOnlyHits() throws Exception {
         int expectedNumResults = randomIntBetween(1, 100);
         int bufferSize = randomIntBetween(2, 200);
@@ -13,12 +13,15 @@ import org.elasticsearch.action.admin.cluster.node.stats.NodeStats;
 import org.elasticsearch.action.admin.indices.stats.CommonStats;
 import org.elasticsearch.action.admin.indices.stats.ShardStats;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.routing.RecoverySource.EmptyStoreRecoverySource;
 import org.elasticsearch.cluster.routing.RecoverySource.PeerRecoverySource;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.ShardRoutingHelper;
 import org.elasticsearch.cluster.routing.UnassignedInfo;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.index.Index;
+import org.elasticsearch.index.search.stats.SearchStats;
+import org.elasticsearch.index.shard.IndexingStats;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.shard.ShardPath;
 import org.elasticsearch.index.store.StoreStats;
@@ -29,6 +32,7 @@ import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
@@ -133,6 +137,62 @@ public class DiskUsageTests extends ESTestCase {
         assertEquals(test1Path.getParent().getParent().getParent().toAbsolutePath().toString(), routingToPath.get(test_1));
     }
 
+    public void testBuildShardLoads() {
+        final Index index = new Index("test", "0xdeadbeef");
+        ShardRouting primary0 = ShardRouting.newUnassigned(new ShardId(index, 0), true, EmptyStoreRecoverySource.INSTANCE,
+            new UnassignedInfo(UnassignedInfo.Reason.INDEX_CREATED, "foo"));
+        primary0 = ShardRoutingHelper.moveToStarted(ShardRoutingHelper.initialize(primary0, "node1"));
+        ShardRouting replica0 = ShardRouting.newUnassigned(new ShardId(index, 0), false, PeerRecoverySource.INSTANCE,
+            new UnassignedInfo(UnassignedInfo.Reason.INDEX_CREATED, "foo"));
+        replica0 = ShardRoutingHelper.moveToStarted(ShardRoutingHelper.initialize(replica0, "node2"));
+        ShardRouting replica1 = ShardRouting.newUnassigned(new ShardId(index, 1), false, PeerRecoverySource.INSTANCE,
+            new UnassignedInfo(UnassignedInfo.Reason.INDEX_CREATED, "foo"));
+        replica1 = ShardRoutingHelper.moveToStarted(ShardRoutingHelper.initialize(replica1, "node1"));
+        ShardRouting replica2 = ShardRouting.newUnassigned(new ShardId(index, 2), false, PeerRecoverySource.INSTANCE,
+            new UnassignedInfo(UnassignedInfo.Reason.INDEX_CREATED, "foo"));
+        replica2 = ShardRoutingHelper.moveToStarted(ShardRoutingHelper.initialize(replica2, "node2"));
+
+        final Map<String, InternalClusterInfoService.ShardLoadSample> previousSamples = new HashMap<>();
+        previousSamples.put(primary0.allocationId().getId(), new InternalClusterInfoService.ShardLoadSample(1000, 0, 0));
+        previousSamples.put(replica0.allocationId().getId(), new InternalClusterInfoService.ShardLoadSample(1000, 0, 0));
+        // the stats of this copy were reset since the previous sample
+        previousSamples.put(replica2.allocationId().getId(), new InternalClusterInfoService.ShardLoadSample(1000, 500, 0));
+
+        ShardStats[] stats = new ShardStats[] {
+            shardStatsWithLoads(primary0, 1000, 200, 200),
+            shardStatsWithLoads(replica0, 800, 600, 0),
+            // this copy was not sampled by the previous refresh
+            shardStatsWithLoads(replica1, 1000, 1000, 1000),
+            shardStatsWithLoads(replica2, 100, 100, 100)
+        };
+        final Map<String, InternalClusterInfoService.ShardLoadSample> newSamples = new HashMap<>();
+        ImmutableOpenMap.Builder<ShardId, Double> shardWriteLoads = ImmutableOpenMap.builder();
+        ImmutableOpenMap.Builder<ShardId, Double> shardSearchLoads = ImmutableOpenMap.builder();
+        InternalClusterInfoService.buildShardLoads(stats, 3000, previousSamples, newSamples, shardWriteLoads, shardSearchLoads);
+
+        // the write load of a shard is the one of its busiest copy and its search load is the average of the loads of its copies
+        assertEquals(1, shardWriteLoads.size());
+        assertEquals(0.5, shardWriteLoads.get(primary0.shardId()), 0.0);
+        assertEquals(1, shardSearchLoads.size());
+        assertEquals(0.25, shardSearchLoads.get(primary0.shardId()), 0.0);
+
+        assertEquals(4, newSamples.size());
+        final InternalClusterInfoService.ShardLoadSample sample = newSamples.get(replica1.allocationId().getId());
+        assertEquals(3000L, sample.timestampMillis);
+        assertEquals(1000L, sample.indexTimeMillis);
+        assertEquals(2000L, sample.searchTimeMillis);
+    }
+
+    private ShardStats shardStatsWithLoads(ShardRouting shardRouting, long indexTimeInMillis, long queryTimeInMillis,
+                                           long fetchTimeInMillis) {
+        CommonStats commonStats = new CommonStats();
+        commonStats.indexing = new IndexingStats(new IndexingStats.Stats(0, indexTimeInMillis, 0, 0, 0, 0, 0, 0, false, 0));
+        commonStats.search = new SearchStats(new SearchStats.Stats(0, queryTimeInMillis, 0, 0, fetchTimeInMillis, 0, 0, 0, 0, 0, 0, 0),
+            0, null);
+        Path path = createTempDir().resolve("indices").resolve(shardRouting.index().getUUID()).resolve(Integer.toString(shardRouting.id()));
+        return new ShardStats(shardRouting, new ShardPath(false, path, path, shardRouting.shardId()), commonStats, null, null, null);
+    }
+
     public void testFillDiskUsage() {
         ImmutableOpenMap.Builder<String, DiskUsage> newLeastAvaiableUsages = ImmutableOpenMap.builder();
         ImmutableOpenMap.Builder<String, DiskUsage> newMostAvaiableUsages = ImmutableOpenMap.builder();
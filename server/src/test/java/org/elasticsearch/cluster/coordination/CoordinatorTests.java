@@ -840,7 +840,8 @@ public class CoordinatorTests extends AbstractCoordinatorTestCase {
             final long originalTerm = leader.coordinator.getCurrentTerm();
             follower0.coordinator.onFollowerCheckRequest(new FollowersChecker.FollowerCheckRequest(
                 originalTerm + 1,
-                leader.coordinator.getLocalNode()
+                leader.coordinator.getLocalNode(),
+                true
             ));
 
             AckCollector ackCollector = leader.submitValue(randomLong());
@@ -1024,7 +1025,7 @@ public class CoordinatorTests extends AbstractCoordinatorTestCase {
                 }
                 logger.debug("simulate follower check coming through from {} to {}", leader.getId(), nonLeader.getId());
                 expectThrows(CoordinationStateRejectedException.class, () -> nonLeader.coordinator.onFollowerCheckRequest(
-                    new FollowersChecker.FollowerCheckRequest(leader.coordinator.getCurrentTerm(), leader.getLocalNode())));
+                    new FollowersChecker.FollowerCheckRequest(leader.coordinator.getCurrentTerm(), leader.getLocalNode(), true)));
                 assertThat(nonLeader.coordinator.getMode(), equalTo(CANDIDATE));
             }).run();
             cluster.stabilise();
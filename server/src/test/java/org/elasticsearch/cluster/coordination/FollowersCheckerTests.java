@@ -44,6 +44,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -102,7 +103,7 @@ public class FollowersCheckerTests extends ESTestCase {
             assert false : fcr;
         }, (node, reason) -> {
             assert false : node;
-        }, () -> new StatusInfo(StatusInfo.Status.HEALTHY, "healthy-info"));
+        }, () -> new StatusInfo(StatusInfo.Status.HEALTHY, "healthy-info"), n -> {});
 
         followersChecker.setCurrentNodes(discoveryNodesHolder[0]);
         deterministicTaskQueue.runAllTasks();
@@ -250,7 +251,7 @@ public class FollowersCheckerTests extends ESTestCase {
         }, (node, reason) -> {
             assertTrue(nodeFailed.compareAndSet(false, true));
             assertThat(reason, equalTo("disconnected"));
-        }, () -> new StatusInfo(HEALTHY, "healthy-info"));
+        }, () -> new StatusInfo(HEALTHY, "healthy-info"), n -> {});
 
         DiscoveryNodes discoveryNodes = DiscoveryNodes.builder().add(localNode).add(otherNode).localNodeId(localNode.getId()).build();
         followersChecker.setCurrentNodes(discoveryNodes);
@@ -317,7 +318,7 @@ public class FollowersCheckerTests extends ESTestCase {
         }, (node, reason) -> {
             assertTrue(nodeFailed.compareAndSet(false, true));
             assertThat(reason, equalTo(failureReason));
-        }, nodeHealthService);
+        }, nodeHealthService, n -> {});
 
         DiscoveryNodes discoveryNodes = DiscoveryNodes.builder().add(localNode).add(otherNode).localNodeId(localNode.getId()).build();
         followersChecker.setCurrentNodes(discoveryNodes);
@@ -367,14 +368,18 @@ public class FollowersCheckerTests extends ESTestCase {
     public void testFollowerCheckRequestEqualsHashCodeSerialization() {
         // Note: the explicit cast of the CopyFunction is needed for some IDE (specifically Eclipse 4.8.0) to infer the right type
         EqualsHashCodeTestUtils.checkEqualsAndHashCode(new FollowerCheckRequest(randomNonNegativeLong(),
-                new DiscoveryNode(randomAlphaOfLength(10), buildNewFakeTransportAddress(), Version.CURRENT)),
+                new DiscoveryNode(randomAlphaOfLength(10), buildNewFakeTransportAddress(), Version.CURRENT), randomBoolean()),
             (CopyFunction<FollowerCheckRequest>) rq -> copyWriteable(rq, writableRegistry(), FollowerCheckRequest::new),
             rq -> {
-                if (randomBoolean()) {
-                    return new FollowerCheckRequest(rq.getTerm(),
-                        new DiscoveryNode(randomAlphaOfLength(10), buildNewFakeTransportAddress(), Version.CURRENT));
-                } else {
-                    return new FollowerCheckRequest(randomNonNegativeLong(), rq.getSender());
+                switch (randomInt(2)) {
+                    case 0:
+                        return new FollowerCheckRequest(rq.getTerm(),
+                            new DiscoveryNode(randomAlphaOfLength(10), buildNewFakeTransportAddress(), Version.CURRENT),
+                            rq.isSenderHealthy());
+                    case 1:
+                        return new FollowerCheckRequest(randomNonNegativeLong(), rq.getSender(), rq.isSenderHealthy());
+                    default:
+                        return new FollowerCheckRequest(rq.getTerm(), rq.getSender(), rq.isSenderHealthy() == false);
                 }
             });
     }
@@ -410,13 +415,13 @@ public class FollowersCheckerTests extends ESTestCase {
                 }
             }, (node, reason) -> {
             assert false : node;
-        }, () -> new StatusInfo(UNHEALTHY, "unhealthy-info"));
+        }, () -> new StatusInfo(UNHEALTHY, "unhealthy-info"), n -> {});
 
         final long leaderTerm = randomLongBetween(2, Long.MAX_VALUE);
         final long followerTerm = randomLongBetween(1, leaderTerm - 1);
         followersChecker.updateFastResponseState(followerTerm, Mode.FOLLOWER);
         final AtomicReference<TransportException> receivedException = new AtomicReference<>();
-        transportService.sendRequest(follower, FOLLOWER_CHECK_ACTION_NAME, new FollowerCheckRequest(leaderTerm, leader),
+        transportService.sendRequest(follower, FOLLOWER_CHECK_ACTION_NAME, new FollowerCheckRequest(leaderTerm, leader, true),
             new TransportResponseHandler.Empty() {
                 @Override
                 public void handleResponse(TransportResponse.Empty response) {
@@ -454,6 +459,7 @@ public class FollowersCheckerTests extends ESTestCase {
 
         final AtomicBoolean calledCoordinator = new AtomicBoolean();
         final AtomicReference<RuntimeException> coordinatorException = new AtomicReference<>();
+        final AtomicReference<DiscoveryNode> checkedByLeader = new AtomicReference<>();
 
         final FollowersChecker followersChecker = new FollowersChecker(settings, transportService,
             fcr -> {
@@ -464,7 +470,7 @@ public class FollowersCheckerTests extends ESTestCase {
                 }
             }, (node, reason) -> {
             assert false : node;
-        }, () -> new StatusInfo(HEALTHY, "healthy-info"));
+        }, () -> new StatusInfo(HEALTHY, "healthy-info"), checkedByLeader::set);
 
         {
             // Does not call into the coordinator in the normal case
@@ -472,10 +478,26 @@ public class FollowersCheckerTests extends ESTestCase {
             followersChecker.updateFastResponseState(term, Mode.FOLLOWER);
 
             final ExpectsSuccess expectsSuccess = new ExpectsSuccess();
-            transportService.sendRequest(follower, FOLLOWER_CHECK_ACTION_NAME, new FollowerCheckRequest(term, leader), expectsSuccess);
+            transportService.sendRequest(follower, FOLLOWER_CHECK_ACTION_NAME, new FollowerCheckRequest(term, leader, true),
+                expectsSuccess);
             deterministicTaskQueue.runAllTasks();
             assertTrue(expectsSuccess.succeeded());
             assertFalse(calledCoordinator.get());
+            assertThat(checkedByLeader.getAndSet(null), equalTo(leader));
+        }
+
+        {
+            // Does not report the check to the leader checker if the leader is unhealthy
+            final long term = randomNonNegativeLong();
+            followersChecker.updateFastResponseState(term, Mode.FOLLOWER);
+
+            final ExpectsSuccess expectsSuccess = new ExpectsSuccess();
+            transportService.sendRequest(follower, FOLLOWER_CHECK_ACTION_NAME, new FollowerCheckRequest(term, leader, false),
+                expectsSuccess);
+            deterministicTaskQueue.runAllTasks();
+            assertTrue(expectsSuccess.succeeded());
+            assertFalse(calledCoordinator.get());
+            assertThat(checkedByLeader.get(), nullValue());
         }
 
         {
@@ -485,7 +507,7 @@ public class FollowersCheckerTests extends ESTestCase {
             followersChecker.updateFastResponseState(followerTerm, Mode.FOLLOWER);
 
             final AtomicReference<TransportException> receivedException = new AtomicReference<>();
-            transportService.sendRequest(follower, FOLLOWER_CHECK_ACTION_NAME, new FollowerCheckRequest(leaderTerm, leader),
+            transportService.sendRequest(follower, FOLLOWER_CHECK_ACTION_NAME, new FollowerCheckRequest(leaderTerm, leader, true),
                 new TransportResponseHandler.Empty() {
                     @Override
                     public void handleResponse(TransportResponse.Empty response) {
@@ -501,6 +523,7 @@ public class FollowersCheckerTests extends ESTestCase {
             deterministicTaskQueue.runAllTasks();
             assertFalse(calledCoordinator.get());
             assertThat(receivedException.get(), not(nullValue()));
+            assertThat(checkedByLeader.get(), nullValue());
         }
 
         {
@@ -511,7 +534,7 @@ public class FollowersCheckerTests extends ESTestCase {
 
             final ExpectsSuccess expectsSuccess = new ExpectsSuccess();
             transportService.sendRequest(follower, FOLLOWER_CHECK_ACTION_NAME,
-                new FollowerCheckRequest(leaderTerm, leader), expectsSuccess);
+                new FollowerCheckRequest(leaderTerm, leader, true), expectsSuccess);
             deterministicTaskQueue.runAllTasks();
             assertTrue(expectsSuccess.succeeded());
             assertTrue(calledCoordinator.get());
@@ -524,7 +547,8 @@ public class FollowersCheckerTests extends ESTestCase {
             followersChecker.updateFastResponseState(term, randomFrom(Mode.LEADER, Mode.CANDIDATE));
 
             final ExpectsSuccess expectsSuccess = new ExpectsSuccess();
-            transportService.sendRequest(follower, FOLLOWER_CHECK_ACTION_NAME, new FollowerCheckRequest(term, leader), expectsSuccess);
+            transportService.sendRequest(follower, FOLLOWER_CHECK_ACTION_NAME, new FollowerCheckRequest(term, leader, true),
+                expectsSuccess);
             deterministicTaskQueue.runAllTasks();
             assertTrue(expectsSuccess.succeeded());
             assertTrue(calledCoordinator.get());
@@ -539,7 +563,7 @@ public class FollowersCheckerTests extends ESTestCase {
             coordinatorException.set(new ElasticsearchException(exceptionMessage));
 
             final AtomicReference<TransportException> receivedException = new AtomicReference<>();
-            transportService.sendRequest(follower, FOLLOWER_CHECK_ACTION_NAME, new FollowerCheckRequest(term, leader),
+            transportService.sendRequest(follower, FOLLOWER_CHECK_ACTION_NAME, new FollowerCheckRequest(term, leader, true),
                 new TransportResponseHandler.Empty() {
                     @Override
                     public void handleResponse(TransportResponse.Empty response) {
@@ -559,6 +583,55 @@ public class FollowersCheckerTests extends ESTestCase {
         }
     }
 
+    public void testChecksFollowersWhileUnhealthy() {
+        final DiscoveryNode localNode = new DiscoveryNode("local-node", buildNewFakeTransportAddress(), Version.CURRENT);
+        final DiscoveryNode otherNode = new DiscoveryNode("other-node", buildNewFakeTransportAddress(), Version.CURRENT);
+        final Settings settings = Settings.builder().put(NODE_NAME_SETTING.getKey(), localNode.getName()).build();
+        final DeterministicTaskQueue deterministicTaskQueue = new DeterministicTaskQueue(settings, random());
+        final AtomicReference<StatusInfo> nodeHealthServiceStatus = new AtomicReference<>(new StatusInfo(UNHEALTHY, "unhealthy-info"));
+        final AtomicLong checkCount = new AtomicLong();
+
+        final MockTransport mockTransport = new MockTransport() {
+            @Override
+            protected void onSendRequest(long requestId, String action, TransportRequest request, DiscoveryNode node) {
+                assertThat(action, equalTo(FOLLOWER_CHECK_ACTION_NAME));
+                assertThat(node, equalTo(otherNode));
+                // the followers go back to checking this node, and find out it is unhealthy, only if it tells them
+                assertThat(((FollowerCheckRequest) request).isSenderHealthy(),
+                    equalTo(nodeHealthServiceStatus.get().getStatus() == HEALTHY));
+                checkCount.incrementAndGet();
+                deterministicTaskQueue.scheduleNow(() -> handleResponse(requestId, Empty.INSTANCE));
+            }
+        };
+
+        final TransportService transportService = mockTransport.createTransportService(settings, deterministicTaskQueue.getThreadPool(),
+            TransportService.NOOP_TRANSPORT_INTERCEPTOR, boundTransportAddress -> localNode, null, emptySet());
+        transportService.start();
+        transportService.acceptIncomingRequests();
+
+        final FollowersChecker followersChecker = new FollowersChecker(settings, transportService, fcr -> {
+            assert false : fcr;
+        }, (node, reason) -> {
+            assert false : node;
+        }, nodeHealthServiceStatus::get, n -> {});
+        followersChecker.setCurrentNodes(DiscoveryNodes.builder().add(localNode).add(otherNode).localNodeId(localNode.getId()).build());
+
+        // an unhealthy master keeps checking its followers, so that it still removes the failed ones from the cluster
+        final long expectedCheckCount = randomLongBetween(2, 10);
+        while (checkCount.get() < expectedCheckCount) {
+            deterministicTaskQueue.advanceTime();
+            deterministicTaskQueue.runAllRunnableTasks();
+        }
+
+        nodeHealthServiceStatus.set(new StatusInfo(HEALTHY, "healthy-info"));
+        while (checkCount.get() < expectedCheckCount * 2) {
+            deterministicTaskQueue.advanceTime();
+            deterministicTaskQueue.runAllRunnableTasks();
+        }
+        followersChecker.clearCurrentNodes();
+        deterministicTaskQueue.runAllTasks();
+    }
+
    public void testPreferMasterNodes() {
         List<DiscoveryNode> nodes = randomNodes(10);
         DiscoveryNodes.Builder discoNodesBuilder = DiscoveryNodes.builder();
@@ -573,7 +646,7 @@ public class FollowersCheckerTests extends ESTestCase {
             assert false : fcr;
         }, (node, reason) -> {
             assert false : node;
-        },() -> new StatusInfo(HEALTHY, "healthy-info"));
+        },() -> new StatusInfo(HEALTHY, "healthy-info"), n -> {});
         followersChecker.setCurrentNodes(discoveryNodes);
         List<DiscoveryNode> followerTargets = Stream.of(capturingTransport.getCapturedRequestsAndClear())
             .map(cr -> cr.node).collect(Collectors.toList());
@@ -33,6 +33,8 @@ import org.elasticsearch.transport.TransportResponse.Empty;
 import org.elasticsearch.transport.TransportResponseHandler;
 import org.elasticsearch.transport.TransportService;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -50,6 +52,7 @@ import static org.elasticsearch.transport.TransportService.NOOP_TRANSPORT_INTERC
 import static org.hamcrest.Matchers.anyOf;
 import static org.hamcrest.Matchers.endsWith;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.matchesRegex;
@@ -196,6 +199,114 @@ public class LeaderCheckerTests extends ESTestCase {
         leaderChecker.updateLeader(null);
     }
 
+    public void testFollowerSkipsChecksWhileCheckedByLeader() {
+        final DiscoveryNode localNode = new DiscoveryNode("local-node", buildNewFakeTransportAddress(), Version.CURRENT);
+        final DiscoveryNode leader = new DiscoveryNode("leader", buildNewFakeTransportAddress(), Version.CURRENT);
+        final DiscoveryNode otherNode = new DiscoveryNode("other-node", buildNewFakeTransportAddress(), Version.CURRENT);
+        final int leaderCheckRetryCount = randomIntBetween(2, 5);
+        final Settings settings = Settings.builder().put(NODE_NAME_SETTING.getKey(), localNode.getId())
+            .put(LEADER_CHECK_RETRY_COUNT_SETTING.getKey(), leaderCheckRetryCount).build();
+        final long leaderCheckIntervalMillis = LEADER_CHECK_INTERVAL_SETTING.get(settings).millis();
+        final DeterministicTaskQueue deterministicTaskQueue = new DeterministicTaskQueue(settings, random());
+        final List<Long> checkTimes = new ArrayList<>();
+
+        final MockTransport mockTransport = new MockTransport() {
+            @Override
+            protected void onSendRequest(long requestId, String action, TransportRequest request, DiscoveryNode node) {
+                assertThat(action, equalTo(LEADER_CHECK_ACTION_NAME));
+                assertEquals(node, leader);
+                checkTimes.add(deterministicTaskQueue.getCurrentTimeMillis());
+                deterministicTaskQueue.scheduleNow(() -> handleResponse(requestId, Empty.INSTANCE));
+            }
+        };
+
+        final TransportService transportService = mockTransport.createTransportService(settings,
+            deterministicTaskQueue.getThreadPool(), NOOP_TRANSPORT_INTERCEPTOR, boundTransportAddress -> localNode, null, emptySet());
+        transportService.start();
+        transportService.acceptIncomingRequests();
+
+        final LeaderChecker leaderChecker = new LeaderChecker(settings, transportService, e -> fail("unexpected leader failure " + e),
+            () -> new StatusInfo(StatusInfo.Status.HEALTHY, "healthy-info"));
+
+        leaderChecker.updateLeader(leader);
+        deterministicTaskQueue.runAllRunnableTasks();
+        assertThat(checkTimes.size(), equalTo(1));
+
+        logger.info("--> receiving follower checks from another node");
+        leaderChecker.onFollowerCheckFromLeader(otherNode);
+        while (checkTimes.size() == 1) {
+            deterministicTaskQueue.advanceTime();
+            deterministicTaskQueue.runAllRunnableTasks();
+        }
+        assertThat(checkTimes.get(1) - checkTimes.get(0), equalTo(leaderCheckIntervalMillis));
+
+        logger.info("--> receiving follower checks from the leader");
+        final long stopFollowerChecksMillis = deterministicTaskQueue.getCurrentTimeMillis()
+            + randomIntBetween(1, 5) * (leaderCheckRetryCount + 1) * leaderCheckIntervalMillis;
+        while (deterministicTaskQueue.getCurrentTimeMillis() < stopFollowerChecksMillis) {
+            leaderChecker.onFollowerCheckFromLeader(leader);
+            deterministicTaskQueue.advanceTime();
+            deterministicTaskQueue.runAllRunnableTasks();
+        }
+        assertThat(checkTimes.size(), greaterThan(2));
+        for (int i = 2; i < checkTimes.size(); i++) {
+            // the leader is still checked after skipping retry_count consecutive checks
+            assertThat(checkTimes.get(i) - checkTimes.get(i - 1), equalTo((leaderCheckRetryCount + 1) * leaderCheckIntervalMillis));
+        }
+
+        leaderChecker.updateLeader(null);
+        deterministicTaskQueue.runAllTasks();
+    }
+
+    public void testFollowerDetectsUnresponsiveLeaderWhileCheckedByLeader() {
+        final DiscoveryNode localNode = new DiscoveryNode("local-node", buildNewFakeTransportAddress(), Version.CURRENT);
+        final DiscoveryNode leader = new DiscoveryNode("leader", buildNewFakeTransportAddress(), Version.CURRENT);
+        final int leaderCheckRetryCount = randomIntBetween(1, 5);
+        final Settings settings = Settings.builder().put(NODE_NAME_SETTING.getKey(), localNode.getId())
+            .put(LEADER_CHECK_RETRY_COUNT_SETTING.getKey(), leaderCheckRetryCount).build();
+        final long leaderCheckIntervalMillis = LEADER_CHECK_INTERVAL_SETTING.get(settings).millis();
+        final long leaderCheckTimeoutMillis = LEADER_CHECK_TIMEOUT_SETTING.get(settings).millis();
+        final DeterministicTaskQueue deterministicTaskQueue = new DeterministicTaskQueue(settings, random());
+        final AtomicLong checkCount = new AtomicLong();
+
+        final MockTransport mockTransport = new MockTransport() {
+            @Override
+            protected void onSendRequest(long requestId, String action, TransportRequest request, DiscoveryNode node) {
+                assertThat(action, equalTo(LEADER_CHECK_ACTION_NAME));
+                assertEquals(node, leader);
+                // the leader checks are blackholed, so they all time out
+                checkCount.incrementAndGet();
+            }
+        };
+
+        final TransportService transportService = mockTransport.createTransportService(settings,
+            deterministicTaskQueue.getThreadPool(), NOOP_TRANSPORT_INTERCEPTOR, boundTransportAddress -> localNode, null, emptySet());
+        transportService.start();
+        transportService.acceptIncomingRequests();
+
+        final AtomicBoolean leaderFailed = new AtomicBoolean();
+        final LeaderChecker leaderChecker = new LeaderChecker(settings, transportService,
+            e -> {
+                assertThat(e.getMessage(), matchesRegex("node \\[.*\\] failed \\[[1-9][0-9]*\\] consecutive checks"));
+                assertTrue(leaderFailed.compareAndSet(false, true));
+            }, () -> new StatusInfo(StatusInfo.Status.HEALTHY, "healthy-info"));
+
+        leaderChecker.updateLeader(leader);
+        final long startTime = deterministicTaskQueue.getCurrentTimeMillis();
+        while (leaderFailed.get() == false) {
+            // the follower checks from the leader keep arriving, but they do not make up for the failing leader checks
+            leaderChecker.onFollowerCheckFromLeader(leader);
+            deterministicTaskQueue.advanceTime();
+            deterministicTaskQueue.runAllRunnableTasks();
+        }
+
+        assertThat(checkCount.get(), equalTo((long) leaderCheckRetryCount));
+        // every failed check is followed by at most retry_count skipped checks
+        assertThat(deterministicTaskQueue.getCurrentTimeMillis() - startTime, lessThanOrEqualTo(
+            (leaderCheckIntervalMillis * (leaderCheckRetryCount + 1) + leaderCheckTimeoutMillis) * leaderCheckRetryCount));
+        leaderChecker.updateLeader(null);
+    }
+
     enum Response {
         SUCCESS, REMOTE_ERROR, DIRECT_ERROR
     }
@@ -465,7 +465,7 @@ public class NodeJoinTests extends ESTestCase {
                 fail();
             }
         });
-        followerCheckHandler.processMessageReceived(new FollowersChecker.FollowerCheckRequest(term, node), channel);
+        followerCheckHandler.processMessageReceived(new FollowersChecker.FollowerCheckRequest(term, node, true), channel);
         // Will throw exception if failed
         deterministicTaskQueue.runAllRunnableTasks();
         assertFalse(isLocalNodeElectedMaster());
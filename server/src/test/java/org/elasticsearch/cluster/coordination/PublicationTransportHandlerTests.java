@@ -27,24 +27,15 @@ import java.io.IOException;
 import java.util.Collections;
 
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.instanceOf;
 
 public class PublicationTransportHandlerTests extends ESTestCase {
 
     public void testDiffSerializationFailure() {
-        DeterministicTaskQueue deterministicTaskQueue =
-            new DeterministicTaskQueue(Settings.builder().put(Node.NODE_NAME_SETTING.getKey(), "test").build(), random());
-        final ClusterSettings clusterSettings = new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS);
         final DiscoveryNode localNode = new DiscoveryNode("localNode", buildNewFakeTransportAddress(), Version.CURRENT);
-        final TransportService transportService = new CapturingTransport().createTransportService(Settings.EMPTY,
-            deterministicTaskQueue.getThreadPool(),
-            TransportService.NOOP_TRANSPORT_INTERCEPTOR,
-            x -> localNode,
-            clusterSettings, Collections.emptySet());
-        final PublicationTransportHandler handler = new PublicationTransportHandler(transportService,
-            writableRegistry(), pu -> null, (pu, l) -> {});
-        transportService.start();
-        transportService.acceptIncomingRequests();
+        final PublicationTransportHandler handler = createHandler(localNode);
 
         final DiscoveryNode otherNode = new DiscoveryNode("otherNode", buildNewFakeTransportAddress(), Version.CURRENT);
         final ClusterState clusterState = CoordinationStateTests.clusterState(2L, 1L,
@@ -76,4 +67,46 @@ public class PublicationTransportHandlerTests extends ESTestCase {
         assertThat(e.getCause(), instanceOf(IOException.class));
         assertThat(e.getCause().getMessage(), containsString("Simulated failure of diff serialization"));
     }
+
+    public void testSerializationStats() {
+        final DiscoveryNode localNode = new DiscoveryNode("localNode", buildNewFakeTransportAddress(), Version.CURRENT);
+        final PublicationTransportHandler handler = createHandler(localNode);
+        assertThat(handler.stats().getSerializationStats().getDiffComputationCount(), equalTo(0L));
+
+        final DiscoveryNode otherNode = new DiscoveryNode("otherNode", buildNewFakeTransportAddress(), Version.CURRENT);
+        final DiscoveryNode newNode = new DiscoveryNode("newNode", buildNewFakeTransportAddress(), Version.CURRENT);
+        final ClusterState previousState = CoordinationStateTests.clusterState(2L, 1L,
+            DiscoveryNodes.builder().add(localNode).add(otherNode).localNodeId(localNode.getId()).build(),
+            VotingConfiguration.EMPTY_CONFIG, VotingConfiguration.EMPTY_CONFIG, 0L);
+        final ClusterState newState = CoordinationStateTests.clusterState(2L, 2L,
+            DiscoveryNodes.builder().add(localNode).add(otherNode).add(newNode).localNodeId(localNode.getId()).build(),
+            VotingConfiguration.EMPTY_CONFIG, VotingConfiguration.EMPTY_CONFIG, 1L);
+        handler.newPublicationContext(new ClusterChangedEvent("test", newState, previousState));
+
+        // the nodes that knew the previous state share a diff, the new node gets the full state
+        final ClusterStateSerializationStats stats = handler.stats().getSerializationStats();
+        assertThat(stats.getDiffComputationCount(), equalTo(1L));
+        assertThat(stats.getDiffs().getCount(), equalTo(1L));
+        assertThat(stats.getDiffs().getUncompressedBytes(), greaterThan(0L));
+        assertThat(stats.getDiffs().getCompressedBytes(), greaterThan(0L));
+        assertThat(stats.getFullStates().getCount(), equalTo(1L));
+        assertThat(stats.getFullStates().getUncompressedBytes(), greaterThan(stats.getDiffs().getUncompressedBytes()));
+        assertThat(stats.getFullStates().getCompressedBytes(), greaterThan(0L));
+    }
+
+    private PublicationTransportHandler createHandler(DiscoveryNode localNode) {
+        DeterministicTaskQueue deterministicTaskQueue =
+            new DeterministicTaskQueue(Settings.builder().put(Node.NODE_NAME_SETTING.getKey(), "test").build(), random());
+        final ClusterSettings clusterSettings = new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS);
+        final TransportService transportService = new CapturingTransport().createTransportService(Settings.EMPTY,
+            deterministicTaskQueue.getThreadPool(),
+            TransportService.NOOP_TRANSPORT_INTERCEPTOR,
+            x -> localNode,
+            clusterSettings, Collections.emptySet());
+        final PublicationTransportHandler handler = new PublicationTransportHandler(Settings.EMPTY, transportService,
+            writableRegistry(), pu -> null, (pu, l) -> {});
+        transportService.start();
+        transportService.acceptIncomingRequests();
+        return handler;
+    }
 }
@@ -1076,6 +1076,50 @@ public class MetadataTests extends ESTestCase {
         assertTrue(Metadata.isGlobalStateEquals(orig, fromStreamMeta));
     }
 
+    public void testDeduplicatesMappings() throws IOException {
+        final String mapping = "{\"_doc\":{\"properties\":{\"field\":{\"type\":\"keyword\"}}}}";
+        final Metadata metadata = Metadata.builder()
+            .put(indexWithMapping("index-1", mapping))
+            .put(indexWithMapping("index-2", mapping))
+            .put(indexWithMapping("other", "{\"_doc\":{\"properties\":{\"field\":{\"type\":\"long\"}}}}"))
+            .build();
+        assertThat(metadata.getMappingsByHash().size(), equalTo(2));
+        assertSame(metadata.index("index-1").mapping(), metadata.index("index-2").mapping());
+        assertSame(metadata.getMappingsByHash().get(metadata.index("index-1").mapping().getSha256()), metadata.index("index-1").mapping());
+
+        final NamedWriteableRegistry namedWriteableRegistry = new NamedWriteableRegistry(ClusterModule.getNamedWriteables());
+        final BytesStreamOutput out = new BytesStreamOutput();
+        metadata.writeTo(out);
+        final Metadata fromStream = Metadata.readFrom(new NamedWriteableAwareStreamInput(out.bytes().streamInput(),
+            namedWriteableRegistry));
+        assertThat(fromStream.getMappingsByHash().size(), equalTo(2));
+        assertSame(fromStream.index("index-1").mapping(), fromStream.index("index-2").mapping());
+        for (IndexMetadata indexMetadata : metadata) {
+            assertThat(fromStream.index(indexMetadata.getIndex()).mapping(), equalTo(indexMetadata.mapping()));
+        }
+
+        // an index added by a diff shares the instance of the existing indices with the same mapping
+        final Metadata withNewIndex = Metadata.builder(metadata).put(indexWithMapping("index-3", mapping)).build();
+        final BytesStreamOutput diffOut = new BytesStreamOutput();
+        withNewIndex.diff(metadata).writeTo(diffOut);
+        final Metadata fromDiff = Metadata.readDiffFrom(new NamedWriteableAwareStreamInput(diffOut.bytes().streamInput(),
+            namedWriteableRegistry)).apply(fromStream);
+        assertThat(fromDiff.getMappingsByHash().size(), equalTo(2));
+        assertSame(fromStream.index("index-1").mapping(), fromDiff.index("index-3").mapping());
+        assertSame(fromStream.index("index-1"), fromDiff.index("index-1"));
+
+        // removing the only index with a mapping removes the mapping
+        assertThat(Metadata.builder(fromDiff).remove("other").build().getMappingsByHash().size(), equalTo(1));
+    }
+
+    private static IndexMetadata.Builder indexWithMapping(String name, String mapping) {
+        return IndexMetadata.builder(name)
+            .settings(settings(Version.CURRENT).put(IndexMetadata.SETTING_INDEX_UUID, UUIDs.randomBase64UUID(random())))
+            .numberOfShards(1)
+            .numberOfReplicas(0)
+            .putMapping(mapping);
+    }
+
     public void testValidateDataStreamsNoConflicts() {
         Metadata metadata = createIndices(5, 10, "foo-datastream").metadata;
         // don't expect any exception when validating a system without indices that would conflict with future backing indices
@@ -13,6 +13,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.util.ArrayUtil;
 import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterInfo;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.ESAllocationTestCase;
 import org.elasticsearch.cluster.EmptyClusterInfoService;
@@ -27,13 +28,22 @@ import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.ShardRoutingState;
 import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator;
 import org.elasticsearch.cluster.routing.allocation.allocator.ShardsAllocator;
+import org.elasticsearch.cluster.routing.allocation.decider.AllocationDecider;
+import org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciders;
 import org.elasticsearch.cluster.routing.allocation.decider.ClusterRebalanceAllocationDecider;
+import org.elasticsearch.cluster.routing.allocation.decider.Decision;
+import org.elasticsearch.cluster.routing.allocation.decider.SameShardAllocationDecider;
+import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.snapshots.EmptySnapshotsInfoService;
 import org.elasticsearch.test.gateway.TestGatewayAllocator;
 import org.hamcrest.Matchers;
 
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import static org.elasticsearch.cluster.routing.ShardRoutingState.STARTED;
@@ -104,6 +114,113 @@ public class BalanceConfigurationTests extends ESAllocationTestCase {
             numberOfNodes + 1 - (numberOfNodes + 1) / 2, numberOfIndices, numberOfReplicas, numberOfShards, balanceThreshold);
     }
 
+    public void testWriteLoadBalance() {
+        // without the write load factor the shards that receive all the writes stay together
+        ClusterState clusterState = rebalanceHotShards(hotShardsAllocationService(Settings.EMPTY));
+        assertThat(nodeOfShard(clusterState, 0), Matchers.equalTo(nodeOfShard(clusterState, 1)));
+
+        AllocationService strategy = hotShardsAllocationService(Settings.builder()
+            .put(BalancedShardsAllocator.WRITE_LOAD_BALANCE_FACTOR_SETTING.getKey(), 1.0f).build());
+        clusterState = rebalanceHotShards(strategy);
+        assertThat(nodeOfShard(clusterState, 0), Matchers.not(Matchers.equalTo(nodeOfShard(clusterState, 1))));
+
+        // moving any shard now, hot or not, would leave the nodes further apart than they are
+        assertSame(clusterState, strategy.reroute(clusterState, "reroute"));
+    }
+
+    public void testBalancedIndicesAreSkipped() {
+        final AtomicInteger indexLevelDecisions = new AtomicInteger();
+        final AllocationDecider countingDecider = new AllocationDecider() {
+            @Override
+            public Decision canAllocate(IndexMetadata indexMetadata, RoutingNode node, RoutingAllocation allocation) {
+                indexLevelDecisions.incrementAndGet();
+                return Decision.YES;
+            }
+        };
+        final ClusterSettings clusterSettings = new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS);
+        final AllocationService strategy = new MockAllocationService(
+            new AllocationDeciders(List.of(new SameShardAllocationDecider(Settings.EMPTY, clusterSettings), countingDecider)),
+            new TestGatewayAllocator(), new BalancedShardsAllocator(Settings.EMPTY), EmptyClusterInfoService.INSTANCE,
+            SNAPSHOT_INFO_SERVICE_WITH_NO_SHARD_SIZES);
+
+        Metadata.Builder metadataBuilder = Metadata.builder();
+        RoutingTable.Builder routingTableBuilder = RoutingTable.builder();
+        for (int i = 0; i < 4; i++) {
+            IndexMetadata.Builder index = IndexMetadata.builder("test" + i).settings(settings(Version.CURRENT))
+                .numberOfShards(3).numberOfReplicas(0);
+            metadataBuilder.put(index);
+        }
+        Metadata metadata = metadataBuilder.build();
+        for (ObjectCursor<IndexMetadata> cursor : metadata.indices().values()) {
+            routingTableBuilder.addAsNew(cursor.value);
+        }
+        ClusterState clusterState = ClusterState.builder(org.elasticsearch.cluster.ClusterName.CLUSTER_NAME_SETTING
+            .getDefault(Settings.EMPTY)).nodes(DiscoveryNodes.builder().add(newNode("node0"))).metadata(metadata)
+            .routingTable(routingTableBuilder.build()).build();
+        clusterState = strategy.reroute(clusterState, "reroute");
+        clusterState = applyStartedShardsUntilNoChange(clusterState, strategy);
+
+        // the indices are unbalanced once new nodes join
+        DiscoveryNodes.Builder nodes = DiscoveryNodes.builder(clusterState.nodes());
+        for (int i = 1; i < 4; i++) {
+            nodes.add(newNode("node" + i));
+        }
+        clusterState = ClusterState.builder(clusterState).nodes(nodes).build();
+        indexLevelDecisions.set(0);
+        clusterState = strategy.reroute(clusterState, "reroute");
+        assertThat(indexLevelDecisions.get(), Matchers.greaterThan(0));
+        clusterState = applyStartedShardsUntilNoChange(clusterState, strategy);
+        assertIndexBalance(clusterState.getRoutingTable(), clusterState.getRoutingNodes(), 4, 4, 0, 3, 1.0f);
+
+        // but once they are balanced, there is no need to look for nodes to move their shards to
+        indexLevelDecisions.set(0);
+        ClusterState newState = strategy.reroute(clusterState, "reroute");
+        assertThat(indexLevelDecisions.get(), Matchers.equalTo(0));
+        assertSame(clusterState, newState);
+    }
+
+    /**
+     * Creates an allocation service that sees an index with four shards, of which shards 0 and 1 receive all the writes.
+     */
+    private AllocationService hotShardsAllocationService(Settings balanceSettings) {
+        Index index = new Index("logs", IndexMetadata.INDEX_UUID_NA_VALUE);
+        ImmutableOpenMap.Builder<ShardId, Double> writeLoads = ImmutableOpenMap.builder();
+        writeLoads.put(new ShardId(index, 0), 1.0);
+        writeLoads.put(new ShardId(index, 1), 1.0);
+        ClusterInfo clusterInfo = new ClusterInfo(ImmutableOpenMap.of(), ImmutableOpenMap.of(), ImmutableOpenMap.of(),
+            ImmutableOpenMap.of(), ImmutableOpenMap.of(), ImmutableOpenMap.of(), writeLoads.build(), ImmutableOpenMap.of());
+
+        return createAllocationService(Settings.builder().put(balanceSettings)
+            .put(ClusterRebalanceAllocationDecider.CLUSTER_ROUTING_ALLOCATION_ALLOW_REBALANCE_SETTING.getKey(),
+                ClusterRebalanceAllocationDecider.ClusterRebalanceType.ALWAYS.toString())
+            .build(), () -> clusterInfo);
+    }
+
+    /**
+     * Allocates the index of {@link #hotShardsAllocationService} on a single node and rebalances it once a second node joins.
+     */
+    private ClusterState rebalanceHotShards(AllocationService strategy) {
+        Metadata metadata = Metadata.builder()
+            .put(IndexMetadata.builder("logs").settings(settings(Version.CURRENT)).numberOfShards(4).numberOfReplicas(0))
+            .build();
+
+        ClusterState clusterState = ClusterState.builder(org.elasticsearch.cluster.ClusterName.CLUSTER_NAME_SETTING
+            .getDefault(Settings.EMPTY)).nodes(DiscoveryNodes.builder().add(newNode("node0"))).metadata(metadata)
+            .routingTable(RoutingTable.builder().addAsNew(metadata.index("logs")).build()).build();
+        clusterState = strategy.reroute(clusterState, "reroute");
+        clusterState = applyStartedShardsUntilNoChange(clusterState, strategy);
+        assertThat(clusterState.getRoutingNodes().node("node0").numberOfShardsWithState(STARTED), Matchers.equalTo(4));
+
+        clusterState = ClusterState.builder(clusterState).nodes(DiscoveryNodes.builder(clusterState.nodes()).add(newNode("node1")))
+            .build();
+        clusterState = strategy.reroute(clusterState, "reroute");
+        return applyStartedShardsUntilNoChange(clusterState, strategy);
+    }
+
+    private static String nodeOfShard(ClusterState clusterState, int shardId) {
+        return clusterState.routingTable().index("logs").shard(shardId).primaryShard().currentNodeId();
+    }
+
     private ClusterState initCluster(AllocationService strategy) {
         Metadata.Builder metadataBuilder = Metadata.builder();
         RoutingTable.Builder routingTableBuilder = RoutingTable.builder();
@@ -259,6 +376,16 @@ public class BalanceConfigurationTests extends ESAllocationTestCase {
         assertThat(allocator.getIndexBalance(), Matchers.equalTo(0.5f));
         assertThat(allocator.getShardBalance(), Matchers.equalTo(0.1f));
         assertThat(allocator.getThreshold(), Matchers.equalTo(3.0f));
+        assertThat(allocator.getWriteLoadBalance(), Matchers.equalTo(0.0f));
+
+        settings = Settings.builder();
+        settings.put(BalancedShardsAllocator.WRITE_LOAD_BALANCE_FACTOR_SETTING.getKey(), 0.4);
+        settings.put(BalancedShardsAllocator.SEARCH_LOAD_BALANCE_FACTOR_SETTING.getKey(), 0.3);
+        settings.put(BalancedShardsAllocator.DISK_USAGE_BALANCE_FACTOR_SETTING.getKey(), 0.2);
+        service.applySettings(settings.build());
+        assertThat(allocator.getWriteLoadBalance(), Matchers.equalTo(0.4f));
+        assertThat(allocator.getSearchLoadBalance(), Matchers.equalTo(0.3f));
+        assertThat(allocator.getDiskUsageBalance(), Matchers.equalTo(0.2f));
     }
 
     public void testNoRebalanceOnPrimaryOverload() {
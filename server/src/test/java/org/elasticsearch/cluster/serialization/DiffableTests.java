@@ -17,8 +17,11 @@ import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.common.util.set.Sets;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
 import java.util.HashMap;
@@ -26,6 +29,8 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.unmodifiableMap;
@@ -185,6 +190,74 @@ public class DiffableTests extends ESTestCase {
      * @param <T> map type
      * @param <V> value type
      */
+    public void testConcurrentImmutableOpenMapDiff() {
+        final ThreadPool threadPool = new TestThreadPool(getTestName());
+        try {
+            final Executor executor = randomBoolean() ? threadPool.generic() : command -> {
+                throw new EsRejectedExecutionException("rejected");
+            };
+            final int parallelism = randomIntBetween(1, 8);
+
+            final ImmutableOpenMap.Builder<String, TestDiffable> beforeBuilder = ImmutableOpenMap.builder();
+            final int beforeSize = randomIntBetween(0, 1000);
+            for (int i = 0; i < beforeSize; i++) {
+                beforeBuilder.put("key-" + i, new TestDiffable("value-" + i));
+            }
+            final ImmutableOpenMap<String, TestDiffable> before = beforeBuilder.build();
+
+            final ImmutableOpenMap.Builder<String, TestDiffable> afterBuilder = ImmutableOpenMap.builder(before);
+            for (int i = 0; i < beforeSize; i++) {
+                switch (randomInt(3)) {
+                    case 0:
+                        afterBuilder.remove("key-" + i);
+                        break;
+                    case 1:
+                        // an equal value that is not the same instance must not be diffed
+                        afterBuilder.put("key-" + i, new TestDiffable("value-" + i));
+                        break;
+                    case 2:
+                        afterBuilder.put("key-" + i, new TestDiffable("changed-" + i));
+                        break;
+                    default:
+                        break;
+                }
+            }
+            final int addedSize = randomIntBetween(0, 100);
+            for (int i = beforeSize; i < beforeSize + addedSize; i++) {
+                afterBuilder.put("key-" + i, new TestDiffable("value-" + i));
+            }
+            final ImmutableOpenMap<String, TestDiffable> after = afterBuilder.build();
+
+            final MapDiff<String, TestDiffable, ImmutableOpenMap<String, TestDiffable>> expected =
+                DiffableUtils.diff(before, after, DiffableUtils.getStringKeySerializer());
+            final MapDiff<String, TestDiffable, ImmutableOpenMap<String, TestDiffable>> diff =
+                DiffableUtils.diff(before, after, DiffableUtils.getStringKeySerializer(), executor, parallelism);
+
+            assertThat(new HashSet<>(diff.getDeletes()), equalTo(new HashSet<>(expected.getDeletes())));
+            assertThat(diff.getDiffs().keySet(), equalTo(expected.getDiffs().keySet()));
+            assertThat(diff.getUpserts(), equalTo(expected.getUpserts()));
+            assertThat(diff.apply(before), equalTo(after));
+
+            final MapDiff<String, TestDiffable, ImmutableOpenMap<String, TestDiffable>> nonDiffable =
+                DiffableUtils.diff(before, after, DiffableUtils.getStringKeySerializer(),
+                    new DiffableUtils.NonDiffableValueSerializer<String, TestDiffable>() {
+                        @Override
+                        public void write(TestDiffable value, StreamOutput out) throws IOException {
+                            value.writeTo(out);
+                        }
+
+                        @Override
+                        public TestDiffable read(StreamInput in, String key) throws IOException {
+                            return TestDiffable.readFrom(in);
+                        }
+                    }, executor, parallelism);
+            assertThat(nonDiffable.getDiffs(), equalTo(emptyMap()));
+            assertThat(nonDiffable.apply(before), equalTo(after));
+        } finally {
+            ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+        }
+    }
+
     public abstract class MapDriver<T, V> {
         protected final Set<Integer> keys = randomPositiveIntSet();
         protected final Set<Integer> keysToRemove = new HashSet<>(randomSubsetOf(randomInt(keys.size()), keys.toArray(new Integer[0])));
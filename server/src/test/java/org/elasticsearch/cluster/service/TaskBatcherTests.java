@@ -37,6 +37,7 @@ import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasToString;
+import static org.hamcrest.Matchers.instanceOf;
 
 public class TaskBatcherTests extends TaskExecutorTests {
 
@@ -317,6 +318,45 @@ public class TaskBatcherTests extends TaskExecutorTests {
         latch.await();
     }
 
+    public void testResubmissionAfterTimeout() throws InterruptedException {
+        final CountDownLatch timedOut = new CountDownLatch(1);
+        final CountDownLatch processed = new CountDownLatch(1);
+        try (BlockingTask blockingTask = new BlockingTask(Priority.IMMEDIATE)) {
+            submitTask("blocking", blockingTask);
+
+            TestExecutor<SimpleTask> executor = tasks -> {};
+            SimpleTask task = new SimpleTask(1);
+            submitTask("first time", task, ClusterStateTaskConfig.build(Priority.NORMAL, TimeValue.timeValueMillis(1)), executor,
+                new TestListener() {
+                    @Override
+                    public void processed(String source) {
+                        throw new AssertionError("should have timed out");
+                    }
+
+                    @Override
+                    public void onFailure(String source, Exception e) {
+                        assertThat(e, instanceOf(ProcessClusterEventTimeoutException.class));
+                        timedOut.countDown();
+                    }
+                });
+            timedOut.await();
+
+            // the timed out task no longer counts as queued
+            submitTask("second time", task, ClusterStateTaskConfig.build(Priority.NORMAL), executor, new TestListener() {
+                @Override
+                public void processed(String source) {
+                    processed.countDown();
+                }
+
+                @Override
+                public void onFailure(String source, Exception e) {
+                    throw new AssertionError(e);
+                }
+            });
+        }
+        processed.await();
+    }
+
     private static class SimpleTask {
         private final int id;
 
@@ -0,0 +1,79 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.bytes;
+
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class FileChannelBytesReferenceTests extends ESTestCase {
+
+    public void testReadsRegionOfFile() throws IOException {
+        final byte[] bytes = randomByteArrayOfLength(randomIntBetween(1, 1 << 16));
+        final Path file = createTempFile();
+        Files.write(file, bytes);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final int position = randomIntBetween(0, bytes.length - 1);
+            final int length = randomIntBetween(0, bytes.length - position);
+            final FileChannelBytesReference reference = new FileChannelBytesReference(channel, position, length);
+            final BytesArray expected = new BytesArray(bytes, position, length);
+
+            assertThat(reference.length(), equalTo(length));
+            assertThat(reference, equalTo(expected));
+            assertThat(reference.hashCode(), equalTo(expected.hashCode()));
+            if (length > 0) {
+                final int index = randomIntBetween(0, length - 1);
+                assertThat(reference.get(index), equalTo(expected.get(index)));
+            }
+            expectThrows(IndexOutOfBoundsException.class, () -> reference.get(length));
+
+            final int sliceFrom = randomIntBetween(0, length);
+            final int sliceLength = randomIntBetween(0, length - sliceFrom);
+            final BytesReference slice = reference.slice(sliceFrom, sliceLength);
+            assertThat(slice, equalTo(expected.slice(sliceFrom, sliceLength)));
+            assertThat(FileChannelBytesReference.unwrap(slice).getPosition(), equalTo((long) position + sliceFrom));
+
+            try (BytesStreamOutput out = new BytesStreamOutput()) {
+                out.writeBytesReference(reference);
+                assertThat(out.bytes().streamInput().readBytesReference(), equalTo(expected));
+            }
+        }
+    }
+
+    public void testReadPastEndOfFile() throws IOException {
+        final Path file = createTempFile();
+        Files.write(file, randomByteArrayOfLength(10));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final FileChannelBytesReference reference = new FileChannelBytesReference(channel, 5, 10);
+            expectThrows(UncheckedIOException.class, reference::toBytesRef);
+        }
+    }
+
+    public void testUnwrap() throws IOException {
+        final Path file = createTempFile();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final FileChannelBytesReference reference = new FileChannelBytesReference(channel, 0, 0);
+            assertThat(FileChannelBytesReference.unwrap(reference), sameInstance(reference));
+            final Releasable releasable = () -> {};
+            assertThat(FileChannelBytesReference.unwrap(new ReleasableBytesReference(reference, releasable)), sameInstance(reference));
+            assertThat(FileChannelBytesReference.unwrap(new BytesArray(randomByteArrayOfLength(10))), nullValue());
+        }
+    }
+}
@@ -37,7 +37,9 @@ import java.util.stream.Collectors;
 
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 public class CacheTests extends ESTestCase {
     private int numberOfEntries;
@@ -172,6 +174,81 @@ public class CacheTests extends ESTestCase {
         assertEquals(evictions.get(), cache.stats().getEvictions());
     }
 
+    // cache a set of hot entries, then scan through many entries that are only accessed once while the hot entries keep being
+    // accessed, and check that frequency based admission keeps the hot entries cached
+    public void testFrequencyBasedAdmissionKeepsHotEntries() throws ExecutionException {
+        final int maximumWeight = 100;
+        final int hotEntries = maximumWeight / 2;
+        Cache<Integer, String> cache =
+                CacheBuilder.<Integer, String>builder()
+                        .setMaximumWeight(maximumWeight)
+                        .frequencyBasedAdmission(maximumWeight)
+                        .build();
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < hotEntries; i++) {
+                cache.computeIfAbsent(i, k -> Integer.toString(k));
+            }
+        }
+        for (int i = 0; i < 20 * maximumWeight; i++) {
+            cache.computeIfAbsent(maximumWeight + i, k -> Integer.toString(k));
+            if (i % 2 == 0) {
+                cache.computeIfAbsent(randomIntBetween(0, hotEntries - 1), k -> Integer.toString(k));
+            }
+            assertThat(cache.weight(), lessThanOrEqualTo((long) maximumWeight));
+        }
+        int cachedHotEntries = 0;
+        for (int i = 0; i < hotEntries; i++) {
+            if (cache.get(i) != null) {
+                cachedHotEntries++;
+            }
+        }
+        assertThat(cachedHotEntries, greaterThanOrEqualTo(hotEntries * 9 / 10));
+    }
+
+    // randomly mutate a cache that uses frequency based admission and check that its weight and count stay consistent
+    public void testFrequencyBasedAdmissionWeightAndCount() throws ExecutionException {
+        final int maximumWeight = randomIntBetween(10, 200);
+        Cache<Integer, Integer> cache =
+                CacheBuilder.<Integer, Integer>builder()
+                        .setMaximumWeight(maximumWeight)
+                        .weigher((k, v) -> v)
+                        .frequencyBasedAdmission(randomIntBetween(1, 2 * maximumWeight))
+                        .build();
+        assertEquals(Math.max(1, maximumWeight / 100), cache.getMaximumWindowWeight());
+        for (int i = 0; i < numberOfEntries; i++) {
+            int key = randomIntBetween(0, 3 * maximumWeight);
+            switch (randomIntBetween(0, 3)) {
+                case 0:
+                    cache.put(key, randomIntBetween(1, 10));
+                    break;
+                case 1:
+                    cache.get(key);
+                    break;
+                case 2:
+                    cache.computeIfAbsent(key, k -> randomIntBetween(1, 10));
+                    break;
+                default:
+                    cache.invalidate(key);
+                    break;
+            }
+            assertThat(cache.weight(), lessThanOrEqualTo((long) maximumWeight));
+            long weight = 0;
+            int count = 0;
+            for (Integer value : cache.values()) {
+                weight += value;
+                count++;
+            }
+            assertEquals(weight, cache.weight());
+            assertEquals(count, cache.count());
+        }
+    }
+
+    public void testFrequencyBasedAdmissionRequiresMaximumWeight() {
+        IllegalStateException e = expectThrows(IllegalStateException.class,
+                () -> CacheBuilder.<Integer, String>builder().frequencyBasedAdmission(10).build());
+        assertEquals("frequency based admission requires a maximum weight", e.getMessage());
+    }
+
     // cache some entries, randomly invalidate some of them, then check that the weight of the cache is correct
     public void testWeight() {
         Cache<Integer, String> cache =
@@ -16,6 +16,7 @@ import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService;
 import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
 import org.elasticsearch.test.ESTestCase;
@@ -31,6 +32,7 @@ import java.util.function.Function;
 import static org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService.REQUEST_CIRCUIT_BREAKER_LIMIT_SETTING;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
@@ -427,6 +429,129 @@ public class BigArraysTests extends ESTestCase {
         }
     }
 
+    public void testWithOffHeapPagesRequiresOffHeapRecycler() {
+        assertSame(BigArrays.NON_RECYCLING_INSTANCE, BigArrays.NON_RECYCLING_INSTANCE.withOffHeapPages());
+        final BigArrays onHeap = new BigArrays(new PageCacheRecycler(Settings.EMPTY), null, CircuitBreaker.REQUEST);
+        assertSame(onHeap, onHeap.withOffHeapPages());
+        assertFalse(onHeap.isOffHeap());
+        final BigArrays offHeap = newOffHeapBigArrays(new NoneCircuitBreakerService());
+        assertTrue(offHeap.isOffHeap());
+        assertTrue(offHeap.withCircuitBreaking().isOffHeap());
+        assertSame(offHeap, offHeap.withOffHeapPages());
+    }
+
+    public void testOffHeapArrays() {
+        final BigArrays offHeap = newOffHeapBigArrays(new NoneCircuitBreakerService());
+        final int len = randomIntBetween(PageCacheRecycler.BYTE_PAGE_SIZE + 1, 200000);
+        final int fromIndex = randomIntBetween(0, len - 1);
+        final int toIndex = randomIntBetween(fromIndex, len);
+
+        final long[] longs = new long[len];
+        LongArray longArray = offHeap.newLongArray(randomIntBetween(1, len), randomBoolean());
+        for (int i = 0; i < len; ++i) {
+            longs[i] = randomLong();
+            longArray = offHeap.grow(longArray, i + 1);
+            longArray.set(i, longs[i]);
+        }
+        assertThat(longArray, instanceOf(OffHeapLongArray.class));
+        final long longValue = randomLong();
+        Arrays.fill(longs, fromIndex, toIndex, longValue);
+        longArray.fill(fromIndex, toIndex, longValue);
+        longs[fromIndex] += 3;
+        assertEquals(longs[fromIndex], longArray.increment(fromIndex, 3));
+
+        final IntArray intArray = offHeap.newIntArray(len, true);
+        final int[] ints = new int[len];
+        final double[] doubles = new double[len];
+        final DoubleArray doubleArray = offHeap.newDoubleArray(len, false);
+        for (int i = 0; i < len; ++i) {
+            assertEquals(0, intArray.get(i));
+            ints[i] = randomInt();
+            intArray.set(i, ints[i]);
+            doubles[i] = randomDouble();
+            doubleArray.set(i, doubles[i]);
+        }
+        assertThat(intArray, instanceOf(OffHeapIntArray.class));
+        assertThat(doubleArray, instanceOf(OffHeapDoubleArray.class));
+        final double doubleValue = randomDouble();
+        Arrays.fill(doubles, fromIndex, toIndex, doubleValue);
+        doubleArray.fill(fromIndex, toIndex, doubleValue);
+
+        final byte[] bytes = new byte[len];
+        random().nextBytes(bytes);
+        final ByteArray byteArray = offHeap.newByteArray(len, randomBoolean());
+        assertThat(byteArray, instanceOf(OffHeapByteArray.class));
+        assertFalse(byteArray.hasArray());
+        for (int i = 0; i < len; ) {
+            final int chunk = Math.min(len - i, randomInt(3 * PageCacheRecycler.BYTE_PAGE_SIZE));
+            byteArray.set(i, bytes, i, chunk);
+            i += chunk;
+        }
+        final BytesRef ref = new BytesRef();
+        for (int i = 0; i < 100; ++i) {
+            final int offset = randomInt(len - 1);
+            final int refLength = randomInt(Math.min(randomBoolean() ? 10 : Integer.MAX_VALUE, len - offset));
+            assertTrue(byteArray.get(offset, refLength, ref));
+            assertEquals(new BytesRef(bytes, offset, refLength), ref);
+        }
+        // the buffer that the array materialized the last slice into is reused when the same reference asks again
+        final byte[] scratch = ref.bytes;
+        final int offset = randomInt(len - 1);
+        final int refLength = Math.min(scratch.length, len - offset);
+        assertTrue(byteArray.get(offset, refLength, ref));
+        assertSame(scratch, ref.bytes);
+        assertEquals(new BytesRef(bytes, offset, refLength), ref);
+
+        // but the array never writes into bytes that it does not own, nor into the slice of another reference
+        final byte[] callerBytes = randomByteArrayOfLength(randomIntBetween(1, 100));
+        final byte[] callerBytesCopy = callerBytes.clone();
+        final BytesRef other = new BytesRef(callerBytes);
+        final int otherOffset = randomInt(len - 1);
+        final int otherLength = Math.min(callerBytes.length, len - otherOffset);
+        assertTrue(byteArray.get(otherOffset, otherLength, other));
+        assertNotSame(callerBytes, other.bytes);
+        assertArrayEquals(callerBytesCopy, callerBytes);
+        assertEquals(new BytesRef(bytes, otherOffset, otherLength), other);
+        assertTrue(byteArray.get(offset, refLength, ref));
+        assertEquals(new BytesRef(bytes, otherOffset, otherLength), other);
+        assertEquals(new BytesRef(bytes, offset, refLength), ref);
+
+        for (int i = 0; i < len; ++i) {
+            assertEquals(longs[i], longArray.get(i));
+            assertEquals(ints[i], intArray.get(i));
+            assertEquals(doubles[i], doubleArray.get(i), 0d);
+            assertEquals(bytes[i], byteArray.get(i));
+        }
+        Releasables.close(longArray, intArray, doubleArray, byteArray);
+    }
+
+    public void testOffHeapArraysAreAccountedInBreaker() {
+        final long maxSize = 1 << 22;
+        final HierarchyCircuitBreakerService hcbs = new HierarchyCircuitBreakerService(
+            Settings.builder()
+                .put(REQUEST_CIRCUIT_BREAKER_LIMIT_SETTING.getKey(), maxSize, ByteSizeUnit.BYTES)
+                .put(HierarchyCircuitBreakerService.USE_REAL_MEMORY_USAGE_SETTING.getKey(), false)
+                .build(),
+            Collections.emptyList(),
+            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS));
+        final BigArrays offHeap = newOffHeapBigArrays(hcbs).withCircuitBreaking();
+        final CircuitBreaker breaker = hcbs.getBreaker(CircuitBreaker.REQUEST);
+        LongArray array = offHeap.newLongArray(PageCacheRecycler.LONG_PAGE_SIZE + 1);
+        assertEquals(BigLongArray.estimateRamBytes(array.size()), breaker.getUsed());
+        array = offHeap.resize(array, 4 * PageCacheRecycler.LONG_PAGE_SIZE);
+        assertEquals(array.ramBytesUsed(), breaker.getUsed());
+        expectThrows(CircuitBreakingException.class, () -> offHeap.newLongArray(maxSize / Long.BYTES));
+        array.close();
+        assertEquals(0, breaker.getUsed());
+    }
+
+    private static BigArrays newOffHeapBigArrays(CircuitBreakerService breakerService) {
+        final PageCacheRecycler recycler = new PageCacheRecycler(
+            Settings.builder().put(PageCacheRecycler.OFF_HEAP_ENABLED_SETTING.getKey(), true).build());
+        assertTrue(recycler.isOffHeapEnabled());
+        return new BigArrays(recycler, breakerService, CircuitBreaker.REQUEST).withOffHeapPages();
+    }
+
     private List<BigArraysHelper> bigArrayCreators(final long maxSize, final boolean withBreaking) {
         final BigArrays byteBigArrays = newBigArraysInstance(maxSize, withBreaking);
         BigArraysHelper byteHelper = new BigArraysHelper(byteBigArrays,
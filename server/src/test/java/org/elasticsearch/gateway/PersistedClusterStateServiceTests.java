@@ -21,6 +21,7 @@ import org.apache.lucene.store.SimpleFSDirectory;
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.ClusterName;
 import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.coordination.ClusterStatePersistenceStats;
 import org.elasticsearch.cluster.coordination.CoordinationMetadata;
 import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.cluster.metadata.Metadata;
@@ -118,7 +119,7 @@ public class PersistedClusterStateServiceTests extends ESTestCase {
 
     private static void writeState(Writer writer, long currentTerm, ClusterState clusterState,
                                    ClusterState previousState) throws IOException {
-        if (randomBoolean() || clusterState.term() != previousState.term() || writer.fullStateWritten == false) {
+        if (randomBoolean() || writer.fullStateWritten == false) {
             writer.writeFullStateAndCommit(currentTerm, clusterState);
         } else {
             writer.writeIncrementalStateAndCommit(currentTerm, previousState, clusterState);
@@ -442,6 +443,50 @@ public class PersistedClusterStateServiceTests extends ESTestCase {
         }
     }
 
+    public void testSkipsUnchangedIndexMetadataInstancesWhenTermChanges() throws IOException {
+        try (NodeEnvironment nodeEnvironment = newNodeEnvironment(createTempDir())) {
+            final PersistedClusterStateService persistedClusterStateService = newPersistedClusterStateService(nodeEnvironment);
+            final long oldTerm = randomLongBetween(1L, Long.MAX_VALUE - 1);
+            final long newTerm = randomLongBetween(oldTerm + 1, Long.MAX_VALUE);
+
+            try (Writer writer = persistedClusterStateService.createWriter()) {
+                final ClusterState emptyState = loadPersistedClusterState(persistedClusterStateService);
+                final ClusterState oldTermState = ClusterState.builder(emptyState)
+                    .metadata(Metadata.builder(emptyState.metadata())
+                        .version(emptyState.metadata().version() + 1)
+                        .coordinationMetadata(CoordinationMetadata.builder(emptyState.coordinationMetadata()).term(oldTerm).build())
+                        .put(indexWithMapping("unchanged", "{\"_doc\":{}}"))
+                        .put(indexWithMapping("changed", "{\"_doc\":{}}")))
+                    .incrementVersion().build();
+                writer.writeFullStateAndCommit(0L, oldTermState);
+
+                // a master of the new term publishes a different index metadata with the same version
+                final IndexMetadata changed = oldTermState.metadata().index("changed");
+                final ClusterState newTermState = ClusterState.builder(oldTermState)
+                    .metadata(Metadata.builder(oldTermState.metadata())
+                        .coordinationMetadata(CoordinationMetadata.builder(oldTermState.coordinationMetadata()).term(newTerm).build())
+                        .put(IndexMetadata.builder(changed).settings(Settings.builder()
+                            .put(changed.getSettings())
+                            .put(IndexMetadata.INDEX_NUMBER_OF_REPLICAS_SETTING.getKey(), 1)).build(), false))
+                    .incrementVersion().build();
+                assertSame(oldTermState.metadata().index("unchanged"), newTermState.metadata().index("unchanged"));
+                writer.writeIncrementalStateAndCommit(newTerm, oldTermState, newTermState);
+            }
+
+            final ClusterState clusterState = loadPersistedClusterState(persistedClusterStateService);
+            assertThat(clusterState.term(), equalTo(newTerm));
+            assertThat(clusterState.metadata().indices().size(), equalTo(2));
+            assertThat(IndexMetadata.INDEX_NUMBER_OF_REPLICAS_SETTING.get(clusterState.metadata().index("changed").getSettings()),
+                equalTo(1));
+
+            final ClusterStatePersistenceStats stats = persistedClusterStateService.getStats();
+            assertThat(stats.getFullWriteCount(), equalTo(1L));
+            assertThat(stats.getIncrementalWriteCount(), equalTo(1L));
+            assertThat(stats.getIndicesWritten(), equalTo(3L));
+            assertThat(stats.getIndicesSkipped(), equalTo(1L));
+        }
+    }
+
     public void testPersistsAndReloadsIndexMetadataForMultipleIndices() throws IOException {
         try (NodeEnvironment nodeEnvironment = newNodeEnvironment(createTempDir())) {
             final PersistedClusterStateService persistedClusterStateService = newPersistedClusterStateService(nodeEnvironment);
@@ -514,6 +559,56 @@ public class PersistedClusterStateServiceTests extends ESTestCase {
         }
     }
 
+    public void testPersistsAndReloadsSharedMappings() throws IOException {
+        try (NodeEnvironment nodeEnvironment = newNodeEnvironment(createTempDir())) {
+            final PersistedClusterStateService persistedClusterStateService = newPersistedClusterStateService(nodeEnvironment);
+            final String sharedMapping = "{\"_doc\":{\"properties\":{\"field\":{\"type\":\"keyword\"}}}}";
+            final String otherMapping = "{\"_doc\":{\"properties\":{\"field\":{\"type\":\"long\"}}}}";
+
+            try (Writer writer = persistedClusterStateService.createWriter()) {
+                ClusterState clusterState = loadPersistedClusterState(persistedClusterStateService);
+                final ClusterState withMappings = ClusterState.builder(clusterState)
+                    .metadata(Metadata.builder(clusterState.metadata())
+                        .version(clusterState.metadata().version() + 1)
+                        .put(indexWithMapping("shared-1", sharedMapping))
+                        .put(indexWithMapping("shared-2", sharedMapping))
+                        .put(indexWithMapping("other", otherMapping)))
+                    .incrementVersion().build();
+                writeState(writer, 0L, withMappings, clusterState);
+
+                clusterState = loadPersistedClusterState(persistedClusterStateService);
+                assertThat(clusterState.metadata().getMappingsByHash().size(), equalTo(2));
+                assertThat(clusterState.metadata().index("shared-1").mapping().source().string(),
+                    equalTo(withMappings.metadata().index("shared-1").mapping().source().string()));
+                assertThat(clusterState.metadata().index("other").mapping().source().string(),
+                    equalTo(withMappings.metadata().index("other").mapping().source().string()));
+                assertSame(clusterState.metadata().index("shared-1").mapping(), clusterState.metadata().index("shared-2").mapping());
+
+                writeState(writer, 0L, ClusterState.builder(withMappings)
+                    .metadata(Metadata.builder(withMappings.metadata())
+                        .version(withMappings.metadata().version() + 1)
+                        .remove("other"))
+                    .incrementVersion().build(),
+                    withMappings);
+            }
+
+            final ClusterState clusterState = loadPersistedClusterState(persistedClusterStateService);
+            assertThat(clusterState.metadata().indices().size(), equalTo(2));
+            assertThat(clusterState.metadata().getMappingsByHash().size(), equalTo(1));
+            assertSame(clusterState.metadata().index("shared-1").mapping(), clusterState.metadata().index("shared-2").mapping());
+        }
+    }
+
+    private static IndexMetadata.Builder indexWithMapping(String name, String mapping) {
+        return IndexMetadata.builder(name)
+            .settings(Settings.builder()
+                .put(IndexMetadata.INDEX_NUMBER_OF_SHARDS_SETTING.getKey(), 1)
+                .put(IndexMetadata.INDEX_NUMBER_OF_REPLICAS_SETTING.getKey(), 0)
+                .put(IndexMetadata.SETTING_VERSION_CREATED, Version.CURRENT)
+                .put(IndexMetadata.SETTING_INDEX_UUID, UUIDs.randomBase64UUID(random())))
+            .putMapping(mapping);
+    }
+
     public void testReloadsMetadataAcrossMultipleSegments() throws IOException {
         try (NodeEnvironment nodeEnvironment = newNodeEnvironment(createTempDir())) {
             final PersistedClusterStateService persistedClusterStateService = newPersistedClusterStateService(nodeEnvironment);
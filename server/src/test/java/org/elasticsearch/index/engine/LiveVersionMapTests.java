@@ -401,6 +401,35 @@ public class LiveVersionMapTests extends ESTestCase {
         assertEquals(0, map.getAllTombstones().size());
     }
 
+    public void testLockOfUidDoesNotBlockOtherUidsOfSameStripe() throws InterruptedException {
+        LiveVersionMap map = new LiveVersionMap();
+        map.enforceSafeAccess();
+        BytesRef uid = uid("1");
+        // find another uid whose hash has the same high bits, the ones that select the stripe
+        BytesRef other;
+        int i = 2;
+        do {
+            other = uid(Integer.toString(i++));
+        } while ((other.hashCode() >>> 25) != (uid.hashCode() >>> 25));
+        final BytesRef sameStripe = other;
+
+        try (Releasable ignore = map.acquireLock(uid)) {
+            map.putIndexUnderLock(uid, randomIndexVersionValue());
+            Thread thread = new Thread(() -> {
+                try (Releasable r = map.acquireLock(sameStripe)) {
+                    map.putIndexUnderLock(sameStripe, randomIndexVersionValue());
+                }
+            });
+            thread.start();
+            // the lock of the uid is still held, the other uid of the same stripe must be indexed nevertheless
+            thread.join();
+            assertNotNull(map.getUnderLock(uid));
+        }
+        try (Releasable ignore = map.acquireLock(sameStripe)) {
+            assertNotNull(map.getUnderLock(sameStripe));
+        }
+    }
+
     public void testRandomlyIndexDeleteAndRefresh() throws Exception {
         final LiveVersionMap versionMap = new LiveVersionMap();
         final BytesRef uid = uid("1");
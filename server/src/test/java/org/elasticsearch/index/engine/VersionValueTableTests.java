@@ -0,0 +1,62 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class VersionValueTableTests extends ESTestCase {
+
+    public void testRandomOperations() {
+        // a small hash space forces long probe sequences and shifts on removal
+        final int hashMask = randomFrom(0x3, 0xFF, 0xFFFFFFFF);
+        final List<BytesRef> keys = new ArrayList<>();
+        final int numKeys = randomIntBetween(1, 500);
+        for (int i = 0; i < numKeys; i++) {
+            keys.add(new BytesRef("id-" + i));
+        }
+        final VersionValueTable table = new VersionValueTable(randomIntBetween(0, 100));
+        final Map<BytesRef, VersionValue> expected = new HashMap<>();
+        final int numOps = randomIntBetween(1, 5000);
+        for (int i = 0; i < numOps; i++) {
+            final BytesRef key = randomFrom(keys);
+            final int hash = key.hashCode() & hashMask;
+            // use a copy of the key to make sure that keys are compared by their bytes
+            final BytesRef lookupKey = BytesRef.deepCopyOf(key);
+            if (randomBoolean()) {
+                final VersionValue value = new IndexVersionValue(null, i, i, 1);
+                assertThat(table.put(lookupKey, hash, value), equalTo(expected.put(key, value)));
+            } else {
+                assertThat(table.remove(lookupKey, hash), equalTo(expected.remove(key)));
+            }
+            assertThat(table.size(), equalTo(expected.size()));
+            if (rarely()) {
+                assertContent(table, expected, hashMask);
+            }
+        }
+        assertContent(table, expected, hashMask);
+    }
+
+    private static void assertContent(VersionValueTable table, Map<BytesRef, VersionValue> expected, int hashMask) {
+        final Map<BytesRef, VersionValue> actual = new HashMap<>();
+        table.forEach(actual::put);
+        assertThat(actual, equalTo(expected));
+        for (Map.Entry<BytesRef, VersionValue> entry : expected.entrySet()) {
+            assertThat(table.get(entry.getKey(), entry.getKey().hashCode() & hashMask), equalTo(entry.getValue()));
+        }
+        assertThat(table.isEmpty(), equalTo(expected.isEmpty()));
+    }
+}
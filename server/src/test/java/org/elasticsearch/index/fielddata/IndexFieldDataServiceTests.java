@@ -11,14 +11,17 @@ package org.elasticsearch.index.fielddata;
 import org.apache.lucene.analysis.core.KeywordAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.SortedSetDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.store.ByteBuffersDirectory;
 import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.SetOnce;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
 import org.elasticsearch.common.settings.Settings;
@@ -49,6 +52,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 
 import static org.elasticsearch.index.mapper.NumberFieldMapper.NumberType.BYTE;
@@ -57,6 +61,7 @@ import static org.elasticsearch.index.mapper.NumberFieldMapper.NumberType.INTEGE
 import static org.elasticsearch.index.mapper.NumberFieldMapper.NumberType.LONG;
 import static org.elasticsearch.index.mapper.NumberFieldMapper.NumberType.SHORT;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -250,6 +255,54 @@ public class IndexFieldDataServiceTests extends ESSingleNodeTestCase {
         ifdService.clear();
     }
 
+    public void testRetainedGlobalOrdinalMapIsAccountedUntilShardClose() throws Exception {
+        final IndexService indexService = createIndex("test");
+        final IndicesService indicesService = getInstanceFromNode(IndicesService.class);
+        // copy the ifdService since we can set the listener only once.
+        final IndexFieldDataService ifdService = new IndexFieldDataService(indexService.getIndexSettings(),
+            indicesService.getIndicesFieldDataCache(), indicesService.getCircuitBreakerService(), indexService.mapperService());
+
+        final MappedFieldType mapper = new KeywordFieldMapper.Builder("s").build(new ContentPath(1)).fieldType();
+        final IndexWriter writer = new IndexWriter(new ByteBuffersDirectory(),
+            new IndexWriterConfig(new KeywordAnalyzer()).setMergePolicy(NoMergePolicy.INSTANCE));
+        for (String value : new String[] { "foo", "bar" }) {
+            Document doc = new Document();
+            doc.add(new SortedSetDocValuesField("s", new BytesRef(value)));
+            writer.addDocument(doc);
+            writer.commit();
+        }
+        final ShardId shardId = new ShardId("test", "_na_", 1);
+        final DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), shardId);
+        assertEquals(2, reader.leaves().size());
+        final AtomicLong accountedBytes = new AtomicLong();
+        ifdService.setListener(new IndexFieldDataCache.Listener() {
+            @Override
+            public void onCache(ShardId shardId, String fieldName, Accountable ramUsage) {
+                accountedBytes.addAndGet(ramUsage.ramBytesUsed());
+            }
+
+            @Override
+            public void onRemoval(ShardId shardId, String fieldName, boolean wasEvicted, long sizeInBytes) {
+                accountedBytes.addAndGet(-sizeInBytes);
+            }
+        });
+        final IndexOrdinalsFieldData ifd = ifdService.getForField(mapper, "test", () -> {
+            throw new UnsupportedOperationException();
+        });
+        ifd.loadGlobal(reader);
+        final long globalOrdinalsBytes = accountedBytes.get();
+        assertThat(globalOrdinalsBytes, greaterThan(0L));
+
+        // the global ordinal map outlives the reader so that the next reader of the shard can reuse it
+        reader.close();
+        assertEquals(globalOrdinalsBytes, accountedBytes.get());
+
+        ifdService.onShardClose(shardId);
+        assertEquals(0L, accountedBytes.get());
+        writer.close();
+        ifdService.clear();
+    }
+
     public void testSetCacheListenerTwice() {
         final IndexService indexService = createIndex("test");
         final IndicesService indicesService = getInstanceFromNode(IndicesService.class);
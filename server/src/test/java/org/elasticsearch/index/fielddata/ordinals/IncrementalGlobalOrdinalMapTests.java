@@ -0,0 +1,228 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.fielddata.ordinals;
+
+import org.apache.lucene.index.OrdinalMap;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.packed.PackedInts;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+public class IncrementalGlobalOrdinalMapTests extends ESTestCase {
+
+    public void testMatchesFullBuild() throws IOException {
+        final List<String> pool = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            pool.add(randomAlphaOfLengthBetween(1, 8));
+        }
+        List<Segment> largeSegments = new ArrayList<>();
+        final int numSegments = between(2, 6);
+        for (int i = 0; i < numSegments; i++) {
+            largeSegments.add(randomSegment(pool, 100, 200));
+        }
+        List<Segment> smallSegments = new ArrayList<>();
+        GlobalOrdinalMap previous = fullBuild(largeSegments);
+        final int iterations = between(1, 4);
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            // like a refresh that adds small segments and a merge that removes some of the existing ones
+            largeSegments = new ArrayList<>(randomSubsetOf(between(1, largeSegments.size()), largeSegments));
+            smallSegments = new ArrayList<>(randomSubsetOf(between(0, smallSegments.size()), smallSegments));
+            final int numAddedSegments = between(0, 2);
+            for (int i = 0; i < numAddedSegments; i++) {
+                smallSegments.add(randomSegment(pool, 0, 5));
+            }
+            final List<Segment> segments = new ArrayList<>(largeSegments);
+            segments.addAll(smallSegments);
+            Collections.shuffle(segments, random());
+
+            final IncrementalGlobalOrdinalMap incremental = IncrementalGlobalOrdinalMap.build(previous, keys(segments), subs(segments));
+            assertThat(incremental, notNullValue());
+            assertSameMapping(segments, incremental);
+            previous = incremental;
+        }
+    }
+
+    public void testFallsBackToFullBuildWhenManyTermsAreAdded() throws IOException {
+        final List<String> pool = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            pool.add(randomAlphaOfLengthBetween(1, 8));
+        }
+        final Segment segment = randomSegment(pool, 1, 5);
+        final GlobalOrdinalMap previous = fullBuild(Collections.singletonList(segment));
+        final List<Segment> newSegments = Arrays.asList(segment, randomSegment(pool, 50, 100));
+        assertThat(IncrementalGlobalOrdinalMap.build(previous, keys(newSegments), subs(newSegments)), nullValue());
+    }
+
+    public void testRequiresSegmentKeys() throws IOException {
+        final List<Segment> segments = Arrays.asList(new Segment("a", "b"), new Segment("b", "c"));
+        final GlobalOrdinalMap previous = GlobalOrdinalMap.wrap(OrdinalMap.build(null, subs(segments), PackedInts.DEFAULT));
+        assertThat(IncrementalGlobalOrdinalMap.build(previous, keys(segments), subs(segments)), nullValue());
+    }
+
+    public void testTermsOfRemovedSegments() throws IOException {
+        final Segment first = new Segment("a", "c", "e");
+        final Segment second = new Segment("b", "c", "d", "f", "g", "h", "i", "j", "k", "l");
+        final Segment third = new Segment("e", "f", "g", "h", "i", "j", "k", "l", "m");
+        final GlobalOrdinalMap previous = fullBuild(Arrays.asList(first, second, third));
+        assertThat(previous.getValueCount(), equalTo(13L));
+
+        final List<Segment> newSegments = Arrays.asList(second, third, new Segment("a"));
+        final IncrementalGlobalOrdinalMap incremental = IncrementalGlobalOrdinalMap.build(previous, keys(newSegments),
+            subs(newSegments));
+        assertThat(incremental, notNullValue());
+        assertThat(incremental.getValueCount(), equalTo(13L));
+        assertSameMapping(newSegments, incremental);
+        // "e" was first seen in the removed segment
+        assertThat(incremental.getFirstSegmentNumber(4), equalTo(1));
+        assertThat(incremental.getFirstSegmentOrd(4), equalTo(0L));
+    }
+
+    public void testReusesMappingsOfUnchangedSegments() throws IOException {
+        final Segment first = new Segment("a", "b", "c");
+        final Segment second = new Segment("b", "d");
+        final Segment third = new Segment("e");
+        List<Segment> segments = Arrays.asList(first, second, third);
+        final IncrementalGlobalOrdinalMap previous = IncrementalGlobalOrdinalMap.build(fullBuild(Arrays.asList(first, second)),
+            keys(segments), subs(segments));
+        assertThat(previous, notNullValue());
+        assertSameMapping(segments, previous);
+
+        // the added term sorts after all existing terms, no global ordinal changes
+        segments = Arrays.asList(first, second, third, new Segment("f"));
+        final IncrementalGlobalOrdinalMap appended = IncrementalGlobalOrdinalMap.build(previous, keys(segments), subs(segments));
+        assertThat(appended, notNullValue());
+        assertSameMapping(segments, appended);
+        for (int i = 0; i < 3; i++) {
+            assertSame(previous.getGlobalOrds(i), appended.getGlobalOrds(i));
+        }
+
+        // the added term sorts between the terms of the first and the second segment, only the first one keeps its mapping
+        segments = Arrays.asList(first, second, third, segments.get(3), new Segment("ca"));
+        final IncrementalGlobalOrdinalMap inserted = IncrementalGlobalOrdinalMap.build(appended, keys(segments), subs(segments));
+        assertThat(inserted, notNullValue());
+        assertSameMapping(segments, inserted);
+        assertSame(appended.getGlobalOrds(0), inserted.getGlobalOrds(0));
+        for (int i = 1; i < 4; i++) {
+            assertNotSame(appended.getGlobalOrds(i), inserted.getGlobalOrds(i));
+        }
+    }
+
+    private static void assertSameMapping(List<Segment> segments, GlobalOrdinalMap actual) throws IOException {
+        final OrdinalMap expected = OrdinalMap.build(null, subs(segments), PackedInts.DEFAULT);
+        assertThat(actual.getValueCount(), equalTo(expected.getValueCount()));
+        for (int i = 0; i < segments.size(); i++) {
+            for (long ord = 0; ord < segments.get(i).terms.length; ord++) {
+                assertThat(actual.getGlobalOrds(i).get(ord), equalTo(expected.getGlobalOrds(i).get(ord)));
+            }
+        }
+        for (long globalOrd = 0; globalOrd < expected.getValueCount(); globalOrd++) {
+            final BytesRef expectedTerm =
+                segments.get(expected.getFirstSegmentNumber(globalOrd)).terms[(int) expected.getFirstSegmentOrd(globalOrd)];
+            final BytesRef actualTerm =
+                segments.get(actual.getFirstSegmentNumber(globalOrd)).terms[(int) actual.getFirstSegmentOrd(globalOrd)];
+            assertThat(actualTerm, equalTo(expectedTerm));
+        }
+    }
+
+    private static GlobalOrdinalMap fullBuild(List<Segment> segments) throws IOException {
+        final long[] valueCounts = new long[segments.size()];
+        for (int i = 0; i < segments.size(); i++) {
+            valueCounts[i] = segments.get(i).terms.length;
+        }
+        return GlobalOrdinalMap.wrap(OrdinalMap.build(null, subs(segments), PackedInts.DEFAULT), keys(segments), valueCounts);
+    }
+
+    private static Segment randomSegment(List<String> pool, int minTerms, int maxTerms) {
+        return new Segment(randomSubsetOf(between(minTerms, maxTerms), pool).toArray(new String[0]));
+    }
+
+    private static Object[] keys(List<Segment> segments) {
+        return segments.stream().map(segment -> segment.key).toArray();
+    }
+
+    private static SortedSetDocValues[] subs(List<Segment> segments) {
+        return segments.stream().map(segment -> new TermsOnlyDocValues(segment.terms)).toArray(SortedSetDocValues[]::new);
+    }
+
+    private static class Segment {
+        final Object key = new Object();
+        final BytesRef[] terms;
+
+        Segment(String... terms) {
+            final Set<BytesRef> sorted = new TreeSet<>();
+            for (String term : terms) {
+                sorted.add(new BytesRef(term));
+            }
+            this.terms = sorted.toArray(new BytesRef[0]);
+        }
+    }
+
+    /**
+     * Doc values of a segment without documents, which is enough to build ordinal maps.
+     */
+    private static class TermsOnlyDocValues extends SortedSetDocValues {
+        private final BytesRef[] terms;
+
+        TermsOnlyDocValues(BytesRef[] terms) {
+            this.terms = terms;
+        }
+
+        @Override
+        public long getValueCount() {
+            return terms.length;
+        }
+
+        @Override
+        public BytesRef lookupOrd(long ord) {
+            return terms[(int) ord];
+        }
+
+        @Override
+        public long nextOrd() {
+            return NO_MORE_ORDS;
+        }
+
+        @Override
+        public boolean advanceExact(int target) {
+            return false;
+        }
+
+        @Override
+        public int docID() {
+            return -1;
+        }
+
+        @Override
+        public int nextDoc() {
+            return NO_MORE_DOCS;
+        }
+
+        @Override
+        public int advance(int target) {
+            return NO_MORE_DOCS;
+        }
+
+        @Override
+        public long cost() {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.index.translog;
+
+import org.elasticsearch.common.CheckedConsumer;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.junit.After;
+import org.junit.Before;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class TranslogSyncCoordinatorTests extends ESTestCase {
+
+    private ThreadPool threadPool;
+
+    @Before
+    public void setUpThreadPool() {
+        threadPool = new TestThreadPool(getTestName());
+    }
+
+    @After
+    public void tearDownThreadPool() {
+        terminate(threadPool);
+    }
+
+    public void testDisabledByDefault() {
+        assertFalse(new TranslogSyncCoordinator(Settings.EMPTY, new ThreadContext(Settings.EMPTY), EsExecutors.DIRECT_EXECUTOR_SERVICE)
+            .isEnabled());
+        assertFalse(TranslogSyncCoordinator.DISABLED.isEnabled());
+    }
+
+    public void testSyncsEveryLocationOfEveryShard() throws Exception {
+        final Settings settings = Settings.builder()
+            .put(TranslogSyncCoordinator.GROUP_COMMIT_ENABLED_SETTING.getKey(), true)
+            .put(TranslogSyncCoordinator.GROUP_COMMIT_WINDOW_SETTING.getKey(), randomFrom("0ms", "1ms"))
+            .build();
+        final TranslogSyncCoordinator coordinator = new TranslogSyncCoordinator(settings, threadPool.getThreadContext(),
+            threadPool.generic());
+        assertTrue(coordinator.isEnabled());
+
+        final Path[] dataPaths = new Path[] { createTempDir(), createTempDir() };
+        final int numShards = randomIntBetween(1, 8);
+        final List<RecordingSyncer> syncers = new ArrayList<>();
+        for (int i = 0; i < numShards; i++) {
+            syncers.add(new RecordingSyncer(dataPaths[i % dataPaths.length], i == 0 && randomBoolean()));
+        }
+
+        final int numThreads = randomIntBetween(2, 8);
+        final int syncsPerThread = randomIntBetween(10, 100);
+        final CountDownLatch latch = new CountDownLatch(numThreads * syncsPerThread);
+        final AtomicInteger unexpectedResults = new AtomicInteger();
+        final int[][] shards = new int[numThreads][syncsPerThread];
+        for (int[] threadShards : shards) {
+            for (int i = 0; i < syncsPerThread; i++) {
+                threadShards[i] = randomIntBetween(0, numShards - 1);
+            }
+        }
+        final CyclicBarrier barrier = new CyclicBarrier(numThreads);
+        final Thread[] threads = new Thread[numThreads];
+        for (int t = 0; t < numThreads; t++) {
+            final int threadId = t;
+            threads[t] = new Thread(() -> {
+                try {
+                    barrier.await();
+                } catch (Exception e) {
+                    throw new AssertionError(e);
+                }
+                for (int i = 0; i < syncsPerThread; i++) {
+                    final RecordingSyncer syncer = syncers.get(shards[threadId][i]);
+                    final Translog.Location location = new Translog.Location(1, threadId * syncsPerThread + i, 1);
+                    coordinator.sync(syncer.dataPath, syncer, location, e -> {
+                        if (syncer.fail ? e instanceof IOException == false : e != null) {
+                            unexpectedResults.incrementAndGet();
+                        }
+                        if (syncer.fail == false && syncer.synced.contains(location) == false) {
+                            unexpectedResults.incrementAndGet();
+                        }
+                        latch.countDown();
+                    });
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        latch.await();
+        assertThat(unexpectedResults.get(), equalTo(0));
+        for (RecordingSyncer syncer : syncers) {
+            assertThat("concurrent syncs of the same shard", syncer.maxConcurrentSyncs.get(), lessThanOrEqualTo(1));
+        }
+    }
+
+    public void testFailureOnlyFailsTheShardThatFailed() {
+        final Settings settings = Settings.builder().put(TranslogSyncCoordinator.GROUP_COMMIT_ENABLED_SETTING.getKey(), true).build();
+        final TranslogSyncCoordinator coordinator = new TranslogSyncCoordinator(settings, new ThreadContext(Settings.EMPTY),
+            EsExecutors.DIRECT_EXECUTOR_SERVICE);
+        final Path dataPath = createTempDir();
+        final RecordingSyncer failing = new RecordingSyncer(dataPath, true);
+        final RecordingSyncer succeeding = new RecordingSyncer(dataPath, false);
+
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        coordinator.sync(dataPath, failing, new Translog.Location(1, 0, 1), failure::set);
+        assertThat(failure.get(), instanceOf(IOException.class));
+
+        final AtomicReference<Exception> success = new AtomicReference<>(new Exception("not notified"));
+        final Translog.Location location = new Translog.Location(1, 1, 1);
+        coordinator.sync(dataPath, succeeding, location, success::set);
+        assertThat(success.get(), nullValue());
+        assertTrue(succeeding.synced.contains(location));
+    }
+
+    public void testSlowShardDoesNotHoldUpOtherShards() throws Exception {
+        final Settings settings = Settings.builder().put(TranslogSyncCoordinator.GROUP_COMMIT_ENABLED_SETTING.getKey(), true).build();
+        final TranslogSyncCoordinator coordinator = new TranslogSyncCoordinator(settings, threadPool.getThreadContext(),
+            threadPool.generic());
+        final Path dataPath = createTempDir();
+
+        // the first sync of the fast shard blocks the processing caller until the next wave is queued
+        final CountDownLatch firstWaveStarted = new CountDownLatch(1);
+        final CountDownLatch nextWaveQueued = new CountDownLatch(1);
+        final RecordingSyncer fast = new RecordingSyncer(dataPath, false) {
+            @Override
+            public void accept(Stream<Translog.Location> locations) throws IOException {
+                if (firstWaveStarted.getCount() > 0) {
+                    firstWaveStarted.countDown();
+                    safeAwait(nextWaveQueued);
+                }
+                super.accept(locations);
+            }
+        };
+        final CountDownLatch slowSyncReleased = new CountDownLatch(1);
+        final RecordingSyncer slow = new RecordingSyncer(dataPath, false) {
+            @Override
+            public void accept(Stream<Translog.Location> locations) throws IOException {
+                safeAwait(slowSyncReleased);
+                super.accept(locations);
+            }
+        };
+
+        final CountDownLatch firstWaveSynced = new CountDownLatch(1);
+        final Thread processingCaller = new Thread(
+            () -> coordinator.sync(dataPath, fast, new Translog.Location(1, 0, 1), e -> firstWaveSynced.countDown()));
+        processingCaller.start();
+        assertTrue(firstWaveStarted.await(10, TimeUnit.SECONDS));
+
+        final CountDownLatch slowSynced = new CountDownLatch(1);
+        final CountDownLatch fastSynced = new CountDownLatch(1);
+        final AtomicReference<Exception> fastFailure = new AtomicReference<>();
+        coordinator.sync(dataPath, slow, new Translog.Location(1, 1, 1), e -> slowSynced.countDown());
+        coordinator.sync(dataPath, fast, new Translog.Location(1, 2, 1), e -> {
+            fastFailure.set(e);
+            fastSynced.countDown();
+        });
+        nextWaveQueued.countDown();
+
+        // both shards are in the next wave, the fast shard is notified while the slow shard is still syncing
+        assertTrue(fastSynced.await(10, TimeUnit.SECONDS));
+        assertThat(fastFailure.get(), nullValue());
+        assertTrue(fast.synced.contains(new Translog.Location(1, 2, 1)));
+        assertThat(slowSynced.getCount(), equalTo(1L));
+
+        slowSyncReleased.countDown();
+        assertTrue(slowSynced.await(10, TimeUnit.SECONDS));
+        processingCaller.join();
+        assertThat(firstWaveSynced.getCount(), equalTo(0L));
+    }
+
+    private static void safeAwait(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static class RecordingSyncer implements CheckedConsumer<Stream<Translog.Location>, IOException> {
+        final Path dataPath;
+        final boolean fail;
+        final Set<Translog.Location> synced = ConcurrentCollections.newConcurrentSet();
+        final AtomicInteger concurrentSyncs = new AtomicInteger();
+        final AtomicInteger maxConcurrentSyncs = new AtomicInteger();
+
+        RecordingSyncer(Path dataPath, boolean fail) {
+            this.dataPath = dataPath;
+            this.fail = fail;
+        }
+
+        @Override
+        public void accept(Stream<Translog.Location> locations) throws IOException {
+            maxConcurrentSyncs.accumulateAndGet(concurrentSyncs.incrementAndGet(), Math::max);
+            try {
+                if (fail) {
+                    throw new IOException("simulated");
+                }
+                locations.forEach(synced::add);
+            } finally {
+                concurrentSyncs.decrementAndGet();
+            }
+        }
+    }
+}
@@ -36,6 +36,7 @@ import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.io.FileSystemUtils;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.metrics.HistogramMetric;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
@@ -466,7 +467,8 @@ public class TranslogTests extends ESTestCase {
                 builder.endObject();
                 assertThat(Strings.toString(builder), equalTo("{\"translog\":{\"operations\":4,\"size_in_bytes\":" + 326
                     + ",\"uncommitted_operations\":4,\"uncommitted_size_in_bytes\":" + 271
-                    + ",\"earliest_last_modified_age\":" + stats.getEarliestLastModifiedAge() + "}}"));
+                    + ",\"earliest_last_modified_age\":" + stats.getEarliestLastModifiedAge()
+                    + ",\"sync\":{\"total\":0,\"total_time_in_millis\":0,\"latency_histogram\":[],\"batch_size_histogram\":[]}}}"));
             }
         }
         translog.getDeletionPolicy().setLocalCheckpointOfSafeCommit(randomLongBetween(3, Long.MAX_VALUE));
@@ -1164,6 +1166,12 @@ public class TranslogTests extends ESTestCase {
             for (Location location : locations) {
                 assertFalse("all of the locations should be synced: " + location, translog.ensureSynced(location));
             }
+            final TranslogSyncStats syncStats = translog.stats().getSyncStats();
+            assertThat(syncStats.getSyncs(), equalTo((long) i + 1));
+            assertThat(syncStats.getBatchSizeHistogram()[HistogramMetric.bucket(translogOperations,
+                syncStats.getBatchSizeHistogram().length)], greaterThanOrEqualTo(1L));
+            assertThat(Arrays.stream(syncStats.getBatchSizeHistogram()).sum(), equalTo((long) i + 1));
+            assertThat(Arrays.stream(syncStats.getLatencyHistogram()).sum(), equalTo((long) i + 1));
         }
     }
 
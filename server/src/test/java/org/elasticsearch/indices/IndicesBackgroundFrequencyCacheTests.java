@@ -0,0 +1,161 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class IndicesBackgroundFrequencyCacheTests extends ESTestCase {
+
+    private static final Query TERM = new TermQuery(new Term("field", "term"));
+    private static final Query BACKGROUND_FILTER = new TermQuery(new Term("type", "background"));
+
+    public void testEntriesSurviveRefreshes() throws Exception {
+        final CountingBreaker breaker = new CountingBreaker(Long.MAX_VALUE);
+        final IndicesBackgroundFrequencyCache cache = new IndicesBackgroundFrequencyCache(Settings.EMPTY, breaker);
+        final Object shard = new Object();
+        final Directory dir = newDirectory();
+        final IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+        writer.addDocument(newDoc("0"));
+        final DirectoryReader reader = DirectoryReader.open(writer);
+        assertThat(reader.leaves().size(), equalTo(1));
+        final LeafReaderContext segment = reader.leaves().get(0);
+        put(cache, shard, segment, BACKGROUND_FILTER, 5);
+        put(cache, shard, segment, null, 7);
+        assertThat(get(cache, shard, segment, BACKGROUND_FILTER), equalTo(5L));
+        assertThat(get(cache, shard, segment, null), equalTo(7L));
+        assertThat(cache.get(shard, segment.reader().getReaderCacheHelper().getKey(), new TermQuery(new Term("field", "other")), null),
+            equalTo(-1L));
+        assertThat(get(cache, new Object(), segment, null), equalTo(-1L));
+        assertThat(breaker.getUsed(), greaterThan(0L));
+
+        // a refresh that adds a segment keeps the existing one
+        writer.addDocument(newDoc("1"));
+        final DirectoryReader newReader = DirectoryReader.openIfChanged(reader);
+        assertThat(newReader.leaves().size(), equalTo(2));
+        reader.close();
+        cache.cleanCache();
+        assertThat(get(cache, shard, newReader.leaves().get(0), BACKGROUND_FILTER), equalTo(5L));
+        assertThat(get(cache, shard, newReader.leaves().get(1), BACKGROUND_FILTER), equalTo(-1L));
+        assertThat(cache.count(), equalTo(2));
+        assertThat(cache.numRegisteredCloseListeners(), equalTo(1));
+
+        // the entries go away with their segment and release their memory
+        newReader.close();
+        cache.cleanCache();
+        assertThat(cache.count(), equalTo(0));
+        assertThat(cache.numRegisteredCloseListeners(), equalTo(0));
+        assertThat(breaker.getUsed(), equalTo(0L));
+        IOUtils.close(writer, dir, cache);
+    }
+
+    public void testClearShard() throws Exception {
+        final CountingBreaker breaker = new CountingBreaker(Long.MAX_VALUE);
+        final IndicesBackgroundFrequencyCache cache = new IndicesBackgroundFrequencyCache(Settings.EMPTY, breaker);
+        final Object shard = new Object();
+        final Object otherShard = new Object();
+        final Directory dir = newDirectory();
+        final IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig());
+        writer.addDocument(newDoc("0"));
+        final DirectoryReader reader = DirectoryReader.open(writer);
+        final LeafReaderContext segment = reader.leaves().get(0);
+        put(cache, shard, segment, null, 1);
+        put(cache, otherShard, segment, null, 2);
+        assertThat(cache.count(), equalTo(2));
+
+        cache.clear(shard);
+        assertThat(get(cache, shard, segment, null), equalTo(-1L));
+        assertThat(get(cache, otherShard, segment, null), equalTo(2L));
+        IOUtils.close(reader, writer, dir, cache);
+        assertThat(breaker.getUsed(), equalTo(0L));
+    }
+
+    public void testEntriesThatWouldTripTheBreakerAreNotCached() throws Exception {
+        final CountingBreaker breaker = new CountingBreaker(0);
+        final IndicesBackgroundFrequencyCache cache = new IndicesBackgroundFrequencyCache(Settings.EMPTY, breaker);
+        final Object shard = new Object();
+        final Directory dir = newDirectory();
+        final IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig());
+        writer.addDocument(newDoc("0"));
+        final DirectoryReader reader = DirectoryReader.open(writer);
+        final LeafReaderContext segment = reader.leaves().get(0);
+        put(cache, shard, segment, null, 1);
+        assertThat(get(cache, shard, segment, null), equalTo(-1L));
+        assertThat(cache.count(), equalTo(0));
+        assertThat(breaker.getUsed(), equalTo(0L));
+        IOUtils.close(reader, writer, dir, cache);
+    }
+
+    private static void put(IndicesBackgroundFrequencyCache cache, Object shard, LeafReaderContext segment, Query backgroundFilter,
+                            long freq) {
+        cache.put(shard, segment.reader().getReaderCacheHelper(), TERM, backgroundFilter, freq);
+    }
+
+    private static long get(IndicesBackgroundFrequencyCache cache, Object shard, LeafReaderContext segment, Query backgroundFilter) {
+        return cache.get(shard, segment.reader().getReaderCacheHelper().getKey(), TERM, backgroundFilter);
+    }
+
+    private static Document newDoc(String id) {
+        final Document doc = new Document();
+        doc.add(new StringField("id", id, Field.Store.NO));
+        return doc;
+    }
+
+    /**
+     * A breaker that tracks the bytes it accounts for and, like the real breakers, doesn't account the bytes that trip it.
+     */
+    private static class CountingBreaker extends NoopCircuitBreaker {
+        private final AtomicLong used = new AtomicLong();
+        private final long limit;
+
+        CountingBreaker(long limit) {
+            super(CircuitBreaker.FIELDDATA);
+            this.limit = limit;
+        }
+
+        @Override
+        public void addEstimateBytesAndMaybeBreak(long bytes, String label) throws CircuitBreakingException {
+            if (used.get() + bytes > limit) {
+                throw new CircuitBreakingException("test error", bytes, limit, Durability.TRANSIENT);
+            }
+            used.addAndGet(bytes);
+        }
+
+        @Override
+        public void addWithoutBreaking(long bytes) {
+            used.addAndGet(bytes);
+        }
+
+        @Override
+        public long getUsed() {
+            return used.get();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.indices;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.index.mapper.MappingLookup;
+import org.elasticsearch.test.ESTestCase;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class IndicesSegmentAggregationCacheTests extends ESTestCase {
+
+    private static final MappingLookup.CacheKey MAPPING_KEY = MappingLookup.EMPTY.cacheKey();
+    private static final BytesReference REQUEST_KEY = new BytesArray("request");
+
+    public void testEntriesSurviveRefreshes() throws Exception {
+        final IndicesSegmentAggregationCache cache = new IndicesSegmentAggregationCache(Settings.EMPTY);
+        final Object shard = new Object();
+        final Directory dir = newDirectory();
+        final IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+        writer.addDocument(newDoc("0"));
+        final DirectoryReader reader = DirectoryReader.open(writer);
+        assertThat(reader.leaves().size(), equalTo(1));
+        final LeafReaderContext segment = reader.leaves().get(0);
+        put(cache, shard, segment, "segment_0");
+        assertThat(get(cache, shard, segment), equalTo(new BytesArray("segment_0")));
+        assertThat(cache.get(shard, MAPPING_KEY, cacheKey(segment), new BytesArray("other_request")), nullValue());
+        assertThat(cache.get(new Object(), MAPPING_KEY, cacheKey(segment), REQUEST_KEY), nullValue());
+
+        // a refresh that adds a segment keeps the existing one
+        writer.addDocument(newDoc("1"));
+        final DirectoryReader newReader = DirectoryReader.openIfChanged(reader);
+        assertThat(newReader.leaves().size(), equalTo(2));
+        reader.close();
+        cache.cleanCache();
+        assertThat(get(cache, shard, newReader.leaves().get(0)), equalTo(new BytesArray("segment_0")));
+        assertThat(get(cache, shard, newReader.leaves().get(1)), nullValue());
+        assertThat(cache.count(), equalTo(1));
+        assertThat(cache.numRegisteredCloseListeners(), equalTo(1));
+
+        // the entry goes away with its segment
+        newReader.close();
+        cache.cleanCache();
+        assertThat(cache.count(), equalTo(0));
+        assertThat(cache.numRegisteredCloseListeners(), equalTo(0));
+        IOUtils.close(writer, dir, cache);
+    }
+
+    public void testClearShard() throws Exception {
+        final IndicesSegmentAggregationCache cache = new IndicesSegmentAggregationCache(Settings.EMPTY);
+        final Object shard = new Object();
+        final Object otherShard = new Object();
+        final Directory dir = newDirectory();
+        final IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig());
+        writer.addDocument(newDoc("0"));
+        final DirectoryReader reader = DirectoryReader.open(writer);
+        final LeafReaderContext segment = reader.leaves().get(0);
+        put(cache, shard, segment, "shard");
+        put(cache, otherShard, segment, "other_shard");
+        assertThat(cache.count(), equalTo(2));
+
+        cache.clear(shard);
+        assertThat(get(cache, shard, segment), nullValue());
+        assertThat(get(cache, otherShard, segment), equalTo(new BytesArray("other_shard")));
+        IOUtils.close(reader, writer, dir, cache);
+    }
+
+    private static void put(IndicesSegmentAggregationCache cache, Object shard, LeafReaderContext segment, String value) {
+        cache.put(shard, MAPPING_KEY, segment.reader().getReaderCacheHelper(), REQUEST_KEY, new BytesArray(value));
+    }
+
+    private static BytesReference get(IndicesSegmentAggregationCache cache, Object shard, LeafReaderContext segment) {
+        return cache.get(shard, MAPPING_KEY, cacheKey(segment), REQUEST_KEY);
+    }
+
+    private static IndexReader.CacheKey cacheKey(LeafReaderContext segment) {
+        return segment.reader().getReaderCacheHelper().getKey();
+    }
+
+    private static Document newDoc(String id) {
+        final Document doc = new Document();
+        doc.add(new StringField("id", id, Field.Store.NO));
+        return doc;
+    }
+}
@@ -0,0 +1,362 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Explanation;
+import org.apache.lucene.search.IndexOrDocValuesQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryCache;
+import org.apache.lucene.search.QueryCachingPolicy;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.ScorerSupplier;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.search.WildcardQuery;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+public class PersistentQueryCacheTests extends ESTestCase {
+
+    private static QueryCachingPolicy alwaysCachePolicy() {
+        return new QueryCachingPolicy() {
+            @Override
+            public void onUse(Query query) {
+            }
+
+            @Override
+            public boolean shouldCache(Query query) {
+                return true;
+            }
+        };
+    }
+
+    public void testQueryKey() {
+        final Query termQuery = new TermQuery(new Term("field", "value"));
+        assertThat(PersistentQueryCache.queryKey(termQuery),
+            equalTo(PersistentQueryCache.queryKey(new TermQuery(new Term("field", "value")))));
+        assertThat(PersistentQueryCache.queryKey(termQuery),
+            not(equalTo(PersistentQueryCache.queryKey(new TermQuery(new Term("field", "other"))))));
+        // same string representation, different matches
+        assertThat(PersistentQueryCache.queryKey(new TermQuery(new Term("field:a", "b"))),
+            not(equalTo(PersistentQueryCache.queryKey(new TermQuery(new Term("field", "a:b"))))));
+        assertThat(PersistentQueryCache.queryKey(new ConstantScoreQuery(termQuery)), equalTo(PersistentQueryCache.queryKey(termQuery)));
+
+        final Query rangeQuery = LongPoint.newRangeQuery("number", 1, 10);
+        assertThat(PersistentQueryCache.queryKey(rangeQuery), notNullValue());
+        assertThat(PersistentQueryCache.queryKey(new IndexOrDocValuesQuery(rangeQuery,
+            SortedNumericDocValuesField.newSlowRangeQuery("number", 1, 10))), equalTo(PersistentQueryCache.queryKey(rangeQuery)));
+
+        final Query wildcardQuery = new WildcardQuery(new Term("field", "v*e"));
+        assertThat(PersistentQueryCache.queryKey(wildcardQuery), nullValue());
+        final BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        builder.add(termQuery, Occur.FILTER);
+        builder.add(rangeQuery, Occur.MUST_NOT);
+        assertThat(PersistentQueryCache.queryKey(builder.build()), notNullValue());
+        builder.add(wildcardQuery, Occur.SHOULD);
+        assertThat(PersistentQueryCache.queryKey(builder.build()), nullValue());
+    }
+
+    public void testDocIdSetsSurviveRestart() throws IOException {
+        final Path path = createTempDir();
+        final int numDocs = randomIntBetween(1, 100);
+        try (Directory dir = newDirectory(); IndexWriter w = new IndexWriter(dir, newIndexWriterConfig())) {
+            final long lowerValue = randomLongBetween(0, 50);
+            final long upperValue = randomLongBetween(lowerValue, 100);
+            final List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < numDocs; i++) {
+                final Document doc = new Document();
+                final long value = randomLongBetween(0, 100);
+                doc.add(new LongPoint("number", value));
+                w.addDocument(doc);
+                if (lowerValue <= value && value <= upperValue) {
+                    expected.add(i);
+                }
+            }
+            w.forceMerge(1);
+            final ShardId shard = new ShardId("index", "_na_", 0);
+            final Query query = LongPoint.newRangeQuery("number", lowerValue, upperValue);
+
+            try (DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(w), shard)) {
+                final IndexSearcher searcher = new IndexSearcher(reader);
+                searcher.setQueryCachingPolicy(alwaysCachePolicy());
+                final Settings settings = Settings.builder()
+                    .put(IndicesQueryCache.INDICES_QUERIES_CACHE_ALL_SEGMENTS_SETTING.getKey(), true)
+                    .build();
+                final PersistentQueryCache persistentCache = newCache(path, Long.MAX_VALUE, 0);
+                final IndicesQueryCache cache = new IndicesQueryCache(settings, persistentCache);
+                searcher.setQueryCache(new PersistentTierQueryCache(cache));
+                assertThat(searcher.count(query), equalTo(expected.size()));
+                assertThat(persistentCache.count(), equalTo(1));
+
+                reader.close();
+                cache.onClose(shard);
+                cache.close();
+            }
+
+            // after a restart the doc id set is read from disk without executing the query
+            try (DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(w), shard);
+                 PersistentQueryCache persistentCache = newCache(path, Long.MAX_VALUE, 0)) {
+                assertThat(persistentCache.count(), equalTo(1));
+                final LeafReaderContext context = reader.leaves().get(0);
+                final Weight weight = persistentCache.doCache(new FailingWeight(query), alwaysCachePolicy());
+                assertThat(collect(weight.scorer(context)), equalTo(expected));
+            }
+        }
+    }
+
+    public void testCorruptedFileIsRecomputed() throws IOException {
+        final Path path = createTempDir();
+        try (Directory dir = newDirectory(); IndexWriter w = new IndexWriter(dir, newIndexWriterConfig())) {
+            final Document doc = new Document();
+            doc.add(new StringField("field", "value", Field.Store.NO));
+            w.addDocument(doc);
+            final Query query = new TermQuery(new Term("field", "value"));
+            try (DirectoryReader reader = DirectoryReader.open(w)) {
+                final LeafReaderContext context = reader.leaves().get(0);
+                final IndexSearcher searcher = new IndexSearcher(reader);
+                searcher.setQueryCache(null);
+                final Weight weight = searcher.createWeight(query, ScoreMode.COMPLETE_NO_SCORES, 1f);
+                try (PersistentQueryCache persistentCache = newCache(path, Long.MAX_VALUE, 0)) {
+                    assertThat(collect(persistentCache.doCache(weight, alwaysCachePolicy()).scorer(context)), equalTo(List.of(0)));
+                }
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(path, "*" + PersistentQueryCache.FILE_EXTENSION)) {
+                    for (Path file : files) {
+                        Files.write(file, new byte[] { 1, 2, 3 }, StandardOpenOption.TRUNCATE_EXISTING);
+                    }
+                }
+                try (PersistentQueryCache persistentCache = newCache(path, Long.MAX_VALUE, 0)) {
+                    assertThat(persistentCache.count(), equalTo(1));
+                    assertThat(collect(persistentCache.doCache(weight, alwaysCachePolicy()).scorer(context)), equalTo(List.of(0)));
+                    assertThat(persistentCache.count(), equalTo(1));
+                    assertThat(persistentCache.sizeInBytes(), not(equalTo(3L)));
+                }
+            }
+        }
+    }
+
+    public void testEvictsLeastRecentlyUsed() throws IOException {
+        try (Directory dir = newDirectory(); IndexWriter w = new IndexWriter(dir, newIndexWriterConfig())) {
+            for (int i = 0; i < 10; i++) {
+                final Document doc = new Document();
+                doc.add(new StringField("field", Integer.toString(i), Field.Store.NO));
+                w.addDocument(doc);
+            }
+            w.forceMerge(1);
+            try (DirectoryReader reader = DirectoryReader.open(w)) {
+                final LeafReaderContext context = reader.leaves().get(0);
+                final IndexSearcher searcher = new IndexSearcher(reader);
+                searcher.setQueryCache(null);
+                final long fileLength;
+                try (PersistentQueryCache persistentCache = newCache(createTempDir(), Long.MAX_VALUE, 0)) {
+                    cache(persistentCache, searcher, context, "0");
+                    fileLength = persistentCache.sizeInBytes();
+                }
+
+                final long maxSizeInBytes = fileLength * 3;
+                try (PersistentQueryCache persistentCache = newCache(createTempDir(), maxSizeInBytes, 0)) {
+                    for (int i = 0; i < 10; i++) {
+                        cache(persistentCache, searcher, context, Integer.toString(i));
+                        assertThat(persistentCache.sizeInBytes(), lessThanOrEqualTo(maxSizeInBytes));
+                    }
+                    assertThat(persistentCache.count(), lessThanOrEqualTo(3));
+                    // the most recently cached doc id set is still there
+                    final Query query = new TermQuery(new Term("field", "9"));
+                    final Weight weight = persistentCache.doCache(new FailingWeight(query), alwaysCachePolicy());
+                    assertThat(collect(weight.scorer(context)), equalTo(List.of(9)));
+                }
+            }
+        }
+    }
+
+    public void testSkipsSmallSegments() throws IOException {
+        try (Directory dir = newDirectory(); IndexWriter w = new IndexWriter(dir, newIndexWriterConfig())) {
+            w.addDocument(new Document());
+            try (DirectoryReader reader = DirectoryReader.open(w);
+                 PersistentQueryCache persistentCache = newCache(createTempDir(), Long.MAX_VALUE, 2)) {
+                final IndexSearcher searcher = new IndexSearcher(reader);
+                searcher.setQueryCache(null);
+                cache(persistentCache, searcher, reader.leaves().get(0), "value");
+                assertThat(persistentCache.count(), equalTo(0));
+            }
+        }
+    }
+
+    public void testDoesNotComputeFilterThatDoesNotLeadIteration() throws IOException {
+        try (Directory dir = newDirectory(); IndexWriter w = new IndexWriter(dir, newIndexWriterConfig())) {
+            final int numDocs = randomIntBetween(20, 100);
+            for (int i = 0; i < numDocs; i++) {
+                final Document doc = new Document();
+                doc.add(new StringField("field", "value", Field.Store.NO));
+                w.addDocument(doc);
+            }
+            w.forceMerge(1);
+            try (DirectoryReader reader = DirectoryReader.open(w);
+                 PersistentQueryCache persistentCache = newCache(createTempDir(), Long.MAX_VALUE, 0)) {
+                final LeafReaderContext context = reader.leaves().get(0);
+                final IndexSearcher searcher = new IndexSearcher(reader);
+                searcher.setQueryCache(null);
+                final Query query = new TermQuery(new Term("field", "value"));
+                final Weight weight = persistentCache.doCache(searcher.createWeight(query, ScoreMode.COMPLETE_NO_SCORES, 1f),
+                    alwaysCachePolicy());
+
+                // another clause leads the iteration over far fewer documents, the filter is not worth computing
+                final ScorerSupplier supplier = weight.scorerSupplier(context);
+                assertThat(supplier.cost(), equalTo((long) numDocs));
+                assertThat(collect(supplier.get(1)).size(), equalTo(numDocs));
+                assertThat(persistentCache.count(), equalTo(0));
+
+                // the filter leads the iteration
+                assertThat(collect(weight.scorerSupplier(context).get(Long.MAX_VALUE)).size(), equalTo(numDocs));
+                assertThat(persistentCache.count(), equalTo(1));
+            }
+        }
+    }
+
+    public void testWritesFilesInBackground() throws IOException {
+        try (Directory dir = newDirectory(); IndexWriter w = new IndexWriter(dir, newIndexWriterConfig())) {
+            final int numValues = PersistentQueryCache.MAX_PENDING_WRITES + randomIntBetween(1, 5);
+            for (int i = 0; i < numValues; i++) {
+                final Document doc = new Document();
+                doc.add(new StringField("field", Integer.toString(i), Field.Store.NO));
+                w.addDocument(doc);
+            }
+            w.forceMerge(1);
+            final List<Runnable> pendingWrites = new ArrayList<>();
+            final Path path = createTempDir();
+            try (DirectoryReader reader = DirectoryReader.open(w);
+                 PersistentQueryCache persistentCache = new PersistentQueryCache(path, Long.MAX_VALUE, 0, 1f, pendingWrites::add)) {
+                final LeafReaderContext context = reader.leaves().get(0);
+                final IndexSearcher searcher = new IndexSearcher(reader);
+                searcher.setQueryCache(null);
+                for (int i = 0; i < numValues; i++) {
+                    final Query query = new TermQuery(new Term("field", Integer.toString(i)));
+                    final Weight weight = persistentCache.doCache(searcher.createWeight(query, ScoreMode.COMPLETE_NO_SCORES, 1f),
+                        alwaysCachePolicy());
+                    // the doc id set is returned before it is written
+                    assertThat(collect(weight.scorer(context)), equalTo(List.of(i)));
+                    // computing the same doc id set again doesn't write it twice
+                    assertThat(collect(weight.scorer(context)), equalTo(List.of(i)));
+                }
+                assertThat(persistentCache.count(), equalTo(0));
+                // writes beyond the maximum number of pending writes are skipped rather than queued
+                assertThat(pendingWrites.size(), equalTo(PersistentQueryCache.MAX_PENDING_WRITES));
+
+                for (Runnable pendingWrite : pendingWrites) {
+                    pendingWrite.run();
+                }
+                assertThat(persistentCache.count(), equalTo(PersistentQueryCache.MAX_PENDING_WRITES));
+                final Query query = new TermQuery(new Term("field", "0"));
+                final Weight weight = persistentCache.doCache(new FailingWeight(query), alwaysCachePolicy());
+                assertThat(collect(weight.scorer(context)), equalTo(List.of(0)));
+            }
+        }
+    }
+
+    private static PersistentQueryCache newCache(Path path, long maxSizeInBytes, int minSegmentDocs) throws IOException {
+        return new PersistentQueryCache(path, maxSizeInBytes, minSegmentDocs, 1f, EsExecutors.DIRECT_EXECUTOR_SERVICE);
+    }
+
+    private static void cache(PersistentQueryCache persistentCache, IndexSearcher searcher, LeafReaderContext context,
+                              String value) throws IOException {
+        final Query query = new TermQuery(new Term("field", value));
+        final Weight weight = searcher.createWeight(query, ScoreMode.COMPLETE_NO_SCORES, 1f);
+        collect(persistentCache.doCache(weight, alwaysCachePolicy()).scorer(context));
+    }
+
+    private static List<Integer> collect(Scorer scorer) throws IOException {
+        final List<Integer> docs = new ArrayList<>();
+        if (scorer != null) {
+            final DocIdSetIterator iterator = scorer.iterator();
+            for (int doc = iterator.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = iterator.nextDoc()) {
+                docs.add(doc);
+            }
+        }
+        return docs;
+    }
+
+    /**
+     * Routes all weights of a searcher through the persistent tier of the given cache.
+     */
+    private static class PersistentTierQueryCache implements QueryCache {
+
+        private final IndicesQueryCache cache;
+
+        PersistentTierQueryCache(IndicesQueryCache cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public Weight doCache(Weight weight, QueryCachingPolicy policy) {
+            return cache.doCache(weight, policy, true);
+        }
+    }
+
+    /**
+     * A weight that fails when it is asked to match documents.
+     */
+    private static class FailingWeight extends Weight {
+
+        FailingWeight(Query query) {
+            super(query);
+        }
+
+        @Override
+        public void extractTerms(Set<Term> terms) {
+        }
+
+        @Override
+        public Explanation explain(LeafReaderContext context, int doc) {
+            throw new AssertionError("should not be called");
+        }
+
+        @Override
+        public Scorer scorer(LeafReaderContext context) {
+            throw new AssertionError("should not be called");
+        }
+
+        @Override
+        public boolean isCacheable(LeafReaderContext ctx) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices.recovery;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.store.StoreFileMetadata;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.VersionUtils;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class RecoveryFileChunkRequestTests extends ESTestCase {
+
+    public void testSerialization() throws IOException {
+        final RecoveryFileChunkRequest request = randomRequest();
+        final Version version = VersionUtils.randomCompatibleVersion(random(), Version.CURRENT);
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.setVersion(version);
+            request.writeTo(out);
+            assertThat(request.hasTrailingBytes(version), equalTo(version.onOrAfter(RecoveryFileChunkRequest.CONTENT_LAST_VERSION)));
+            assertSameRequest(request, out.bytes().streamInput(), version);
+        }
+    }
+
+    public void testThinSerializationFollowedByTrailingBytes() throws IOException {
+        final RecoveryFileChunkRequest request = randomRequest();
+        final Version version = VersionUtils.randomVersionBetween(random(), RecoveryFileChunkRequest.CONTENT_LAST_VERSION, Version.CURRENT);
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.setVersion(version);
+            request.writeThin(out);
+            request.trailingBytes().writeTo(out);
+            assertSameRequest(request, out.bytes().streamInput(), version);
+        }
+    }
+
+    private static RecoveryFileChunkRequest randomRequest() {
+        final StoreFileMetadata metadata = new StoreFileMetadata(randomAlphaOfLength(10), randomNonNegativeLong(),
+            randomAlphaOfLength(5), org.apache.lucene.util.Version.LATEST);
+        final ReleasableBytesReference content =
+            ReleasableBytesReference.wrap(new BytesArray(randomByteArrayOfLength(randomIntBetween(0, 1024))));
+        return new RecoveryFileChunkRequest(randomNonNegativeLong(), randomNonNegativeLong(), new ShardId("index", "_na_", 0),
+            metadata, randomNonNegativeLong(), content, randomBoolean(), randomIntBetween(0, 1000), randomNonNegativeLong());
+    }
+
+    private static void assertSameRequest(RecoveryFileChunkRequest expected, StreamInput in, Version version) throws IOException {
+        in.setVersion(version);
+        final RecoveryFileChunkRequest actual = new RecoveryFileChunkRequest(in);
+        assertThat(actual.recoveryId(), equalTo(expected.recoveryId()));
+        assertThat(actual.requestSeqNo(), equalTo(expected.requestSeqNo()));
+        assertThat(actual.shardId(), equalTo(expected.shardId()));
+        assertThat(actual.metadata().name(), equalTo(expected.metadata().name()));
+        assertThat(actual.metadata().length(), equalTo(expected.metadata().length()));
+        assertThat(actual.metadata().checksum(), equalTo(expected.metadata().checksum()));
+        assertThat(actual.position(), equalTo(expected.position()));
+        assertThat(actual.content(), equalTo(expected.content()));
+        assertThat(actual.lastChunk(), equalTo(expected.lastChunk()));
+        assertThat(actual.totalTranslogOps(), equalTo(expected.totalTranslogOps()));
+        assertThat(actual.sourceThrottleTimeInNanos(), equalTo(expected.sourceThrottleTimeInNanos()));
+        assertThat(in.available(), equalTo(0));
+    }
+}
@@ -48,6 +48,7 @@ import org.elasticsearch.search.aggregations.bucket.terms.StringRareTermsTests;
 import org.elasticsearch.search.aggregations.bucket.terms.StringTermsTests;
 import org.elasticsearch.search.aggregations.metrics.InternalAvgTests;
 import org.elasticsearch.search.aggregations.metrics.InternalCardinalityTests;
+import org.elasticsearch.search.aggregations.metrics.InternalDDSketchPercentilesTests;
 import org.elasticsearch.search.aggregations.metrics.InternalExtendedStatsTests;
 import org.elasticsearch.search.aggregations.metrics.InternalGeoBoundsTests;
 import org.elasticsearch.search.aggregations.metrics.InternalGeoCentroidTests;
@@ -100,6 +101,7 @@ public class AggregationsTests extends ESTestCase {
             new InternalTDigestPercentilesRanksTests(),
             new InternalHDRPercentilesTests(),
             new InternalHDRPercentilesRanksTests(),
+            new InternalDDSketchPercentilesTests(),
             new InternalPercentilesBucketTests(),
             new InternalMinTests(),
             new InternalMaxTests(),
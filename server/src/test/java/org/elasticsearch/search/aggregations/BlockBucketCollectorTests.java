@@ -0,0 +1,221 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.AvgAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.MaxAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.MinAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.StatsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.SumAggregationBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class BlockBucketCollectorTests extends AggregatorTestCase {
+
+    private static final String FIELD = "number";
+
+    /**
+     * Records the documents it collects, with their segment, and the size of the blocks it is handed.
+     */
+    private static class RecordingBucketCollector extends BucketCollector {
+
+        private final int terminateAfter;
+        private final List<String> docs = new ArrayList<>();
+        private final List<Integer> blockSizes = new ArrayList<>();
+
+        RecordingBucketCollector(int terminateAfter) {
+            this.terminateAfter = terminateAfter;
+        }
+
+        @Override
+        public LeafBucketCollector getLeafCollector(LeafReaderContext ctx) {
+            return new LeafBucketCollector() {
+                @Override
+                public void collect(int doc, long owningBucketOrd) {
+                    if (docs.size() >= terminateAfter) {
+                        throw new CollectionTerminatedException();
+                    }
+                    docs.add(ctx.ord + ":" + doc);
+                }
+
+                @Override
+                public void collect(int[] blockDocs, int count, long owningBucketOrd) throws IOException {
+                    blockSizes.add(count);
+                    super.collect(blockDocs, count, owningBucketOrd);
+                }
+            };
+        }
+
+        @Override
+        public ScoreMode scoreMode() {
+            return ScoreMode.COMPLETE_NO_SCORES;
+        }
+
+        @Override
+        public void preCollection() {}
+
+        @Override
+        public void postCollection() {}
+    }
+
+    public void testCollectsAllDocumentsInBlocks() throws IOException {
+        try (Directory dir = newDirectory()) {
+            final int[] segmentSizes = new int[] { BlockBucketCollector.BLOCK_SIZE * 2 + 5, 3 };
+            index(dir, segmentSizes);
+            try (IndexReader reader = DirectoryReader.open(dir)) {
+                final RecordingBucketCollector recording = new RecordingBucketCollector(Integer.MAX_VALUE);
+                final BlockBucketCollector collector = new BlockBucketCollector(recording);
+                collector.preCollection();
+                final List<String> expected = new ArrayList<>();
+                for (LeafReaderContext ctx : reader.leaves()) {
+                    final LeafBucketCollector leafCollector = collector.getLeafCollector(ctx);
+                    for (int doc = 0; doc < ctx.reader().maxDoc(); doc++) {
+                        leafCollector.collect(doc);
+                        expected.add(ctx.ord + ":" + doc);
+                    }
+                }
+                // the documents of the last segment are only collected once the collection is over
+                assertThat(recording.docs.size(), equalTo(expected.size() - 3));
+                collector.postCollection();
+                assertThat(recording.docs, equalTo(expected));
+                assertThat(recording.blockSizes, equalTo(List.of(BlockBucketCollector.BLOCK_SIZE, BlockBucketCollector.BLOCK_SIZE, 5, 3)));
+                // flushing again does nothing
+                collector.flush();
+                assertThat(recording.docs, equalTo(expected));
+            }
+        }
+    }
+
+    public void testTerminatedCollectionWhileFlushing() throws IOException {
+        try (Directory dir = newDirectory()) {
+            index(dir, new int[] { 10, 10 });
+            try (IndexReader reader = DirectoryReader.open(dir)) {
+                final RecordingBucketCollector recording = new RecordingBucketCollector(5);
+                final BlockBucketCollector collector = new BlockBucketCollector(recording);
+                collector.preCollection();
+                for (LeafReaderContext ctx : reader.leaves()) {
+                    final LeafBucketCollector leafCollector = collector.getLeafCollector(ctx);
+                    for (int doc = 0; doc < ctx.reader().maxDoc(); doc++) {
+                        leafCollector.collect(doc);
+                    }
+                }
+                collector.postCollection();
+                assertThat(recording.docs, equalTo(List.of("0:0", "0:1", "0:2", "0:3", "0:4")));
+            }
+        }
+    }
+
+    public void testSum() throws IOException {
+        assertBlockCollectionMatchesPerDocumentCollection(new SumAggregationBuilder("sum").field(FIELD));
+    }
+
+    public void testAvg() throws IOException {
+        assertBlockCollectionMatchesPerDocumentCollection(new AvgAggregationBuilder("avg").field(FIELD));
+    }
+
+    public void testStats() throws IOException {
+        assertBlockCollectionMatchesPerDocumentCollection(new StatsAggregationBuilder("stats").field(FIELD));
+    }
+
+    public void testMin() throws IOException {
+        assertBlockCollectionMatchesPerDocumentCollection(new MinAggregationBuilder("min").field(FIELD));
+    }
+
+    public void testMax() throws IOException {
+        assertBlockCollectionMatchesPerDocumentCollection(new MaxAggregationBuilder("max").field(FIELD));
+    }
+
+    public void testNumericTerms() throws IOException {
+        // the sub-aggregation checks that the documents of each value land in the right bucket
+        assertBlockCollectionMatchesPerDocumentCollection(
+            new TermsAggregationBuilder("terms").field(FIELD).size(1000).subAggregation(new SumAggregationBuilder("sum").field(FIELD))
+        );
+    }
+
+    /**
+     * Collects the same documents with an aggregator that is handed one document at a time and with an aggregator that is
+     * handed blocks of documents by a {@link BlockBucketCollector}, and checks that they build the same results.
+     */
+    private void assertBlockCollectionMatchesPerDocumentCollection(AggregationBuilder builder) throws IOException {
+        final MappedFieldType fieldType = new NumberFieldMapper.NumberFieldType(FIELD, NumberFieldMapper.NumberType.LONG);
+        try (Directory dir = newDirectory()) {
+            try (RandomIndexWriter writer = new RandomIndexWriter(random(), dir)) {
+                final int numDocs = between(1, BlockBucketCollector.BLOCK_SIZE * 5);
+                for (int i = 0; i < numDocs; i++) {
+                    final Document doc = new Document();
+                    // some documents have no value and others have several of them
+                    final int numValues = between(0, 3);
+                    for (int v = 0; v < numValues; v++) {
+                        doc.add(new SortedNumericDocValuesField(FIELD, randomLongBetween(-100, 100)));
+                    }
+                    doc.add(new StringField("match", randomBoolean() ? "yes" : "no", Field.Store.NO));
+                    writer.addDocument(doc);
+                    if (rarely()) {
+                        writer.commit();
+                    }
+                }
+            }
+            try (IndexReader reader = maybeWrapReaderEs(DirectoryReader.open(dir))) {
+                final IndexSearcher searcher = newIndexSearcher(reader);
+                // a query that skips documents hands the aggregators blocks of documents that are not contiguous
+                final Query query = randomBoolean() ? new MatchAllDocsQuery() : new TermQuery(new Term("match", "yes"));
+
+                final Aggregator perDocument = createAggregator(builder, searcher, fieldType);
+                perDocument.preCollection();
+                searcher.search(query, perDocument);
+                perDocument.postCollection();
+
+                final Aggregator blocks = createAggregator(builder, searcher, fieldType);
+                final BlockBucketCollector collector = new BlockBucketCollector(blocks);
+                collector.preCollection();
+                searcher.search(query, collector);
+                collector.postCollection();
+
+                assertThat(blocks.buildTopLevel(), equalTo(perDocument.buildTopLevel()));
+            }
+        }
+    }
+
+    private static void index(Directory dir, int[] segmentSizes) throws IOException {
+        try (IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+            for (int segmentSize : segmentSizes) {
+                for (int i = 0; i < segmentSize; i++) {
+                    writer.addDocument(new Document());
+                }
+                writer.commit();
+            }
+        }
+    }
+}
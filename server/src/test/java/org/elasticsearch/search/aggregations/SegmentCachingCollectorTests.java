@@ -0,0 +1,140 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.search.aggregations.bucket.histogram.HistogramAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.CardinalityAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.StatsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.SumAggregationBuilder;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
+import org.elasticsearch.search.aggregations.support.AggregationContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class SegmentCachingCollectorTests extends AggregatorTestCase {
+
+    private static final MappedFieldType NUMBER = new NumberFieldMapper.NumberFieldType("number", NumberFieldMapper.NumberType.LONG);
+
+    public void testCachedResultsEqualUncachedResults() throws IOException {
+        final AggregatorFactories.Builder aggregations = new AggregatorFactories.Builder()
+            .addAggregator(new HistogramAggregationBuilder("histogram").field("number").interval(10)
+                .subAggregation(new SumAggregationBuilder("sum").field("number")))
+            .addAggregator(new StatsAggregationBuilder("stats").field("number"))
+            .addAggregator(new CardinalityAggregationBuilder("cardinality").field("number"));
+        assertTrue(SegmentAggregationCache.canCache(aggregations.getAggregatorFactories()));
+
+        try (Directory directory = newDirectory()) {
+            try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+                final int segments = between(2, 5);
+                for (int segment = 0; segment < segments; segment++) {
+                    final int docs = between(1, 50);
+                    for (int doc = 0; doc < docs; doc++) {
+                        writer.addDocument(List.of(new SortedNumericDocValuesField("number", randomLongBetween(0, 100))));
+                    }
+                    writer.flush();
+                }
+            }
+
+            try (IndexReader reader = DirectoryReader.open(directory)) {
+                final IndexSearcher searcher = new IndexSearcher(reader);
+                final InternalAggregations expected = collectWithoutCache(searcher, aggregations);
+                final MapSegmentAggregationCache cache = new MapSegmentAggregationCache();
+
+                // the first run collects every segment and caches their results
+                final AggregationContext firstContext = createAggregationContext(searcher, new MatchAllDocsQuery(), NUMBER);
+                assertThat(collectWithCache(searcher, firstContext, aggregations, cache), equalTo(expected));
+                assertThat(cache.hits, equalTo(0));
+                assertThat(cache.results.size(), equalTo(reader.leaves().size()));
+                final int collectedBuckets = firstContext.multiBucketConsumer().getCount();
+                assertThat(collectedBuckets, greaterThan(0));
+
+                // the second run reads every segment from the cache and counts their buckets all the same
+                final AggregationContext secondContext = createAggregationContext(searcher, new MatchAllDocsQuery(), NUMBER);
+                assertThat(collectWithCache(searcher, secondContext, aggregations, cache), equalTo(expected));
+                assertThat(cache.hits, equalTo(reader.leaves().size()));
+                assertThat(secondContext.multiBucketConsumer().getCount(), equalTo(collectedBuckets));
+            }
+        }
+    }
+
+    private InternalAggregations collectWithoutCache(IndexSearcher searcher, AggregatorFactories.Builder aggregations)
+        throws IOException {
+        final AggregationContext context = createAggregationContext(searcher, new MatchAllDocsQuery(), NUMBER);
+        final Aggregator[] aggregators = aggregations.build(context, null).createTopLevelAggregators();
+        final BucketCollector collector = MultiBucketCollector.wrap(true, List.of(aggregators));
+        collector.preCollection();
+        searcher.search(new MatchAllDocsQuery(), collector);
+        collector.postCollection();
+        final List<InternalAggregation> results = new ArrayList<>();
+        for (Aggregator aggregator : aggregators) {
+            results.add(aggregator.buildTopLevel());
+        }
+        // reduce the results like the ones of the segments so that they are comparable
+        final InternalAggregation.ReduceContext reduceContext = InternalAggregation.ReduceContext.forPartialReduction(
+            context.bigArrays(), null, () -> PipelineAggregator.PipelineTree.EMPTY);
+        return InternalAggregations.topLevelReduce(List.of(InternalAggregations.from(results)), reduceContext);
+    }
+
+    private static InternalAggregations collectWithCache(IndexSearcher searcher, AggregationContext context,
+                                                         AggregatorFactories.Builder aggregations,
+                                                         SegmentAggregationCache cache) throws IOException {
+        final AggregatorFactories factories = aggregations.build(context, null);
+        final Aggregator[] aggregators = factories.createTopLevelAggregators();
+        final SegmentCachingCollector collector =
+            new SegmentCachingCollector(factories, cache, MultiBucketCollector.wrap(true, List.of(aggregators)));
+        collector.preCollection();
+        searcher.search(new MatchAllDocsQuery(), collector);
+        final List<InternalAggregation> emptyResults = new ArrayList<>();
+        for (Aggregator aggregator : aggregators) {
+            aggregator.postCollection();
+            emptyResults.add(aggregator.buildTopLevel());
+        }
+        collector.postCollection();
+        return AggregationPhase.reduceSegmentResults(collector, InternalAggregations.from(emptyResults), true, context.bigArrays());
+    }
+
+    private static class MapSegmentAggregationCache implements SegmentAggregationCache {
+
+        private final Map<Object, InternalAggregations> results = new HashMap<>();
+        private int hits;
+
+        @Override
+        public InternalAggregations get(LeafReaderContext leaf) {
+            final InternalAggregations cached = results.get(leaf.reader().getCoreCacheHelper().getKey());
+            if (cached != null) {
+                hits++;
+            }
+            return cached;
+        }
+
+        @Override
+        public void put(LeafReaderContext leaf, InternalAggregations aggregations) {
+            results.put(leaf.reader().getCoreCacheHelper().getKey(), aggregations);
+        }
+    }
+}
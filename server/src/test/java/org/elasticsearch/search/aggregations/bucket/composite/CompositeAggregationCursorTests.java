@@ -0,0 +1,143 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.composite;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.internal.ReaderContext;
+import org.elasticsearch.search.internal.ShardSearchContextId;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CompositeAggregationCursorTests extends ESTestCase {
+
+    private static final Query QUERY = new MatchAllDocsQuery();
+    private static final int[] REVERSE_MULS = new int[] { 1 };
+
+    public void testPagesFromStart() {
+        final CompositeAggregationCursor cursor = new CompositeAggregationCursor("id", QUERY, null, buckets(0, 1, 2, 3, 4, 5),
+            false, REVERSE_MULS);
+        assertThat(keys(cursor.nextPage("id", QUERY, null, 2)), equalTo(List.of(0L, 1L)));
+        assertThat(keys(cursor.nextPage("id", QUERY, key(1), 2)), equalTo(List.of(2L, 3L)));
+        assertThat(keys(cursor.nextPage("id", QUERY, key(2), 3)), equalTo(List.of(3L, 4L, 5L)));
+        // the shard may have more buckets
+        assertThat(cursor.nextPage("id", QUERY, key(4), 2), nullValue());
+    }
+
+    public void testExhaustedCursor() {
+        final CompositeAggregationCursor cursor = new CompositeAggregationCursor("id", QUERY, key(2), buckets(3, 5, 7),
+            true, REVERSE_MULS);
+        assertThat(keys(cursor.nextPage("id", QUERY, key(2), 2)), equalTo(List.of(3L, 5L)));
+        assertThat(keys(cursor.nextPage("id", QUERY, key(4), 2)), equalTo(List.of(5L, 7L)));
+        assertThat(keys(cursor.nextPage("id", QUERY, key(6), 2)), equalTo(List.of(7L)));
+        assertThat(keys(cursor.nextPage("id", QUERY, key(7), 2)), equalTo(List.of()));
+        // pages that start before the cursor
+        assertThat(cursor.nextPage("id", QUERY, null, 2), nullValue());
+        assertThat(cursor.nextPage("id", QUERY, key(1), 2), nullValue());
+    }
+
+    public void testOtherAggregationOrQuery() {
+        final CompositeAggregationCursor cursor = new CompositeAggregationCursor("id", QUERY, null, buckets(1, 2, 3),
+            true, REVERSE_MULS);
+        assertThat(cursor.nextPage("other_id", QUERY, null, 2), nullValue());
+        assertThat(cursor.nextPage("id", new TermQuery(new Term("field", "value")), null, 2), nullValue());
+    }
+
+    public void testCursorIsChargedUntilReplacedOrClosed() {
+        final AtomicLong used = new AtomicLong();
+        final AtomicLong limit = new AtomicLong(Long.MAX_VALUE);
+        final CircuitBreaker breaker = new NoopCircuitBreaker(CircuitBreaker.REQUEST) {
+            @Override
+            public void addEstimateBytesAndMaybeBreak(long bytes, String label) {
+                if (used.get() + bytes > limit.get()) {
+                    throw new CircuitBreakingException("test", bytes, limit.get(), getDurability());
+                }
+                used.addAndGet(bytes);
+            }
+
+            @Override
+            public void addWithoutBreaking(long bytes) {
+                used.addAndGet(bytes);
+            }
+        };
+        final IndexShard indexShard = mock(IndexShard.class);
+        when(indexShard.getThreadPool()).thenReturn(mock(ThreadPool.class));
+        final ReaderContext readerContext = new ReaderContext(new ShardSearchContextId(randomAlphaOfLength(5), randomNonNegativeLong()),
+            null, indexShard, new Engine.SearcherSupplier(Function.identity()) {
+                @Override
+                protected void doClose() {
+                }
+
+                @Override
+                protected Engine.Searcher acquireSearcherInternal(String source) {
+                    throw new UnsupportedOperationException();
+                }
+            }, randomNonNegativeLong(), false);
+
+        final CompositeAggregationCursor first = new CompositeAggregationCursor("id", QUERY, null, buckets(0, 1, 2), false, REVERSE_MULS);
+        assertTrue(CompositeAggregationCursor.putInContext(readerContext, "agg", first, breaker, 100));
+        assertThat(used.get(), equalTo(100L));
+
+        final CompositeAggregationCursor second = new CompositeAggregationCursor("id", QUERY, key(2), buckets(3, 4), false, REVERSE_MULS);
+        assertTrue(CompositeAggregationCursor.putInContext(readerContext, "agg", second, breaker, 60));
+        assertThat(used.get(), equalTo(60L));
+
+        // the previous cursor is kept if the breaker trips
+        limit.set(100);
+        final CompositeAggregationCursor third = new CompositeAggregationCursor("id", QUERY, key(4), buckets(5, 6), false, REVERSE_MULS);
+        assertFalse(CompositeAggregationCursor.putInContext(readerContext, "agg", third, breaker, 50));
+        assertThat(used.get(), equalTo(60L));
+        assertSame(second, readerContext.getFromContext(CompositeAggregationCursor.contextKey("agg")));
+
+        readerContext.close();
+        assertThat(used.get(), equalTo(0L));
+    }
+
+    private static CompositeKey key(long value) {
+        return new CompositeKey(value);
+    }
+
+    private static List<InternalComposite.InternalBucket> buckets(long... keys) {
+        final List<InternalComposite.InternalBucket> buckets = new ArrayList<>();
+        for (long key : keys) {
+            buckets.add(new InternalComposite.InternalBucket(Collections.singletonList("key"),
+                Collections.singletonList(DocValueFormat.RAW), key(key), REVERSE_MULS, 1,
+                InternalAggregations.EMPTY));
+        }
+        return buckets;
+    }
+
+    private static List<Long> keys(List<InternalComposite.InternalBucket> buckets) {
+        final List<Long> keys = new ArrayList<>();
+        for (InternalComposite.InternalBucket bucket : buckets) {
+            keys.add((Long) bucket.getRawKey().get(0));
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.composite;
+
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.FilterCollector;
+import org.apache.lucene.search.FilterLeafCollector;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.search.aggregations.AggregatorTestCase;
+import org.elasticsearch.search.internal.ReaderContext;
+import org.elasticsearch.search.internal.ShardSearchContextId;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.junit.After;
+import org.junit.Before;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static java.util.Collections.singleton;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CompositeAggregatorPointInTimeTests extends AggregatorTestCase {
+
+    private static final int NUM_DOCS = 20;
+
+    private ReaderContext readerContext;
+    private boolean collectionIncomplete;
+
+    @Before
+    public void createReaderContext() {
+        final IndexShard indexShard = mock(IndexShard.class);
+        when(indexShard.getThreadPool()).thenReturn(mock(ThreadPool.class));
+        readerContext = new ReaderContext(new ShardSearchContextId(randomAlphaOfLength(5), randomNonNegativeLong()),
+            null, indexShard, new Engine.SearcherSupplier(Function.identity()) {
+                @Override
+                protected void doClose() {
+                }
+
+                @Override
+                protected Engine.Searcher acquireSearcherInternal(String source) {
+                    throw new UnsupportedOperationException();
+                }
+            }, randomNonNegativeLong(), false);
+    }
+
+    @After
+    public void closeReaderContext() {
+        // releases the cursors before the breakers are checked
+        readerContext.close();
+    }
+
+    @Override
+    protected ReaderContext pointInTimeReaderContext() {
+        return readerContext;
+    }
+
+    @Override
+    protected boolean isCollectionIncomplete() {
+        return collectionIncomplete;
+    }
+
+    public void testKeepsNextPagesInPointInTime() throws IOException {
+        try (Directory directory = newDirectory()) {
+            indexNumbers(directory);
+            try (IndexReader indexReader = DirectoryReader.open(directory)) {
+                final IndexSearcher indexSearcher = newSearcher(indexReader, true, true);
+                assertThat(keys(collect(indexSearcher, null, Integer.MAX_VALUE)), equalTo(List.of(0L, 1L)));
+                final Object cursor = readerContext.getFromContext(CompositeAggregationCursor.contextKey("composite"));
+                assertNotNull(cursor);
+
+                // the next page is answered from the cursor, which stays in place
+                assertThat(keys(collect(indexSearcher, 1L, Integer.MAX_VALUE)), equalTo(List.of(2L, 3L)));
+                assertSame(cursor, readerContext.getFromContext(CompositeAggregationCursor.contextKey("composite")));
+                assertFalse(collectionIncomplete);
+            }
+        }
+    }
+
+    public void testTimedOutCollectionIsNotKept() throws IOException {
+        try (Directory directory = newDirectory()) {
+            indexNumbers(directory);
+            try (IndexReader indexReader = DirectoryReader.open(directory)) {
+                final IndexSearcher indexSearcher = newSearcher(indexReader, true, true);
+                collect(indexSearcher, null, randomIntBetween(0, NUM_DOCS - 1));
+                assertTrue(collectionIncomplete);
+                assertThat(readerContext.getFromContext(CompositeAggregationCursor.contextKey("composite")), nullValue());
+
+                // the next request collects again, and keeps its complete buckets
+                collectionIncomplete = false;
+                assertThat(keys(collect(indexSearcher, null, Integer.MAX_VALUE)), equalTo(List.of(0L, 1L)));
+                final Object cursor = readerContext.getFromContext(CompositeAggregationCursor.contextKey("composite"));
+                assertNotNull(cursor);
+
+                // a timed out request for pages that the cursor does not have does not replace it
+                collect(indexSearcher, (long) NUM_DOCS / 2, randomIntBetween(0, NUM_DOCS - 1));
+                assertTrue(collectionIncomplete);
+                assertSame(cursor, readerContext.getFromContext(CompositeAggregationCursor.contextKey("composite")));
+            }
+        }
+    }
+
+    private static void indexNumbers(Directory directory) throws IOException {
+        try (RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
+            for (int i = 0; i < NUM_DOCS; i++) {
+                indexWriter.addDocument(singleton(new SortedNumericDocValuesField("number", i)));
+            }
+        }
+    }
+
+    /**
+     * Runs a composite aggregation that keeps three pages of two buckets in the point in time. The collection times out after
+     * {@code timeOutAfterDocs} documents, like {@code QueryPhase} sees it, if there are more documents to collect.
+     */
+    private InternalComposite collect(IndexSearcher indexSearcher, @Nullable Long after, int timeOutAfterDocs) throws IOException {
+        final CompositeAggregationBuilder builder = new CompositeAggregationBuilder("composite",
+            List.of(new TermsValuesSourceBuilder("number").field("number"))).size(2).prefetchPages(3);
+        if (after != null) {
+            builder.aggregateAfter(Map.of("number", after));
+        }
+        final MappedFieldType fieldType = new NumberFieldMapper.NumberFieldType("number", NumberFieldMapper.NumberType.LONG);
+        final CompositeAggregator aggregator = createAggregator(builder, indexSearcher, fieldType);
+        aggregator.preCollection();
+        try {
+            indexSearcher.search(new MatchAllDocsQuery(), timeOutAfter(aggregator, timeOutAfterDocs));
+        } catch (SimulatedTimeoutException e) {
+            collectionIncomplete = true;
+        }
+        aggregator.postCollection();
+        return (InternalComposite) aggregator.buildTopLevel();
+    }
+
+    private static Collector timeOutAfter(Collector collector, int maxDocs) {
+        final int[] collected = new int[1];
+        return new FilterCollector(collector) {
+            @Override
+            public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+                return new FilterLeafCollector(super.getLeafCollector(context)) {
+                    @Override
+                    public void collect(int doc) throws IOException {
+                        if (collected[0]++ == maxDocs) {
+                            throw new SimulatedTimeoutException();
+                        }
+                        super.collect(doc);
+                    }
+                };
+            }
+        };
+    }
+
+    private static List<Long> keys(InternalComposite composite) {
+        final List<Long> keys = new ArrayList<>();
+        for (InternalComposite.InternalBucket bucket : composite.getBuckets()) {
+            keys.add((Long) bucket.getRawKey().get(0));
+        }
+        return keys;
+    }
+
+    private static class SimulatedTimeoutException extends RuntimeException {}
+}
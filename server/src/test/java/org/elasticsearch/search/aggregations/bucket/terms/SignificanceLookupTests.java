@@ -0,0 +1,164 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.terms;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.index.mapper.KeywordFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.TermQueryBuilder;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.AggregatorTestCase;
+import org.elasticsearch.search.aggregations.CardinalityUpperBound;
+import org.elasticsearch.search.aggregations.support.AggregationContext;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class SignificanceLookupTests extends AggregatorTestCase {
+
+    private static final MappedFieldType TAG = new KeywordFieldMapper.KeywordFieldType("tag");
+    private static final MappedFieldType BACKGROUND = new KeywordFieldMapper.KeywordFieldType("background");
+
+    private final MapBackgroundFrequencyCache cache = new MapBackgroundFrequencyCache();
+
+    @Override
+    protected BackgroundFrequencyCache backgroundFrequencyCache() {
+        return cache;
+    }
+
+    public void testCachedBackgroundFrequenciesAfterRefresh() throws IOException {
+        final Directory dir = newDirectory();
+        final IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+        final int segments = between(1, 4);
+        for (int i = 0; i < segments; i++) {
+            indexRandomDocs(writer);
+        }
+        final DirectoryReader reader = DirectoryReader.open(writer);
+        final QueryBuilder backgroundFilter = new TermQueryBuilder(BACKGROUND.name(), "yes");
+
+        // the first lookup computes the frequency in every segment and caches it
+        assertThat(backgroundFrequency(reader, backgroundFilter, "a"), equalTo(expectedFrequency(reader, "a")));
+        assertThat(cache.hits, equalTo(0));
+        assertThat(cache.puts, equalTo(reader.leaves().size()));
+
+        // the second lookup only reads the cache
+        assertThat(backgroundFrequency(reader, backgroundFilter, "a"), equalTo(expectedFrequency(reader, "a")));
+        assertThat(cache.hits, equalTo(reader.leaves().size()));
+        assertThat(cache.puts, equalTo(reader.leaves().size()));
+
+        // a refresh that adds a segment only computes the frequency in the new segment
+        indexRandomDocs(writer);
+        final DirectoryReader newReader = DirectoryReader.openIfChanged(reader);
+        assertThat(newReader.leaves().size(), equalTo(reader.leaves().size() + 1));
+        assertThat(backgroundFrequency(newReader, backgroundFilter, "a"), equalTo(expectedFrequency(newReader, "a")));
+        assertThat(cache.hits, equalTo(2 * reader.leaves().size()));
+        assertThat(cache.puts, equalTo(reader.leaves().size() + 1));
+
+        // the frequencies of other terms are cached on their own
+        assertThat(backgroundFrequency(newReader, backgroundFilter, "b"), equalTo(expectedFrequency(newReader, "b")));
+        assertThat(cache.hits, equalTo(2 * reader.leaves().size()));
+        assertThat(cache.puts, equalTo(2 * newReader.leaves().size()));
+
+        IOUtils.close(reader, newReader, writer, dir);
+    }
+
+    public void testNoCacheWithoutBackgroundFilter() throws IOException {
+        try (Directory dir = newDirectory();
+             IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+            indexRandomDocs(writer);
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                final long expected = new IndexSearcher(reader).count(new TermQuery(new Term(TAG.name(), "a")));
+                assertThat(backgroundFrequency(reader, null, "a"), equalTo(expected));
+                assertThat(cache.freqs.size(), equalTo(0));
+            }
+        }
+    }
+
+    private long backgroundFrequency(DirectoryReader reader, QueryBuilder backgroundFilter, String term) throws IOException {
+        final AggregationContext context = createAggregationContext(new IndexSearcher(reader), new MatchAllDocsQuery(), TAG, BACKGROUND);
+        final SignificanceLookup lookup = new SignificanceLookup(context, TAG, DocValueFormat.RAW, backgroundFilter);
+        try (SignificanceLookup.BackgroundFrequencyForBytes freq = lookup.bytesLookup(BigArrays.NON_RECYCLING_INSTANCE,
+            CardinalityUpperBound.ONE)) {
+            return freq.freq(new BytesRef(term));
+        }
+    }
+
+    private static long expectedFrequency(DirectoryReader reader, String term) throws IOException {
+        final Query query = new BooleanQuery.Builder()
+            .add(new TermQuery(new Term(TAG.name(), term)), Occur.FILTER)
+            .add(new TermQuery(new Term(BACKGROUND.name(), "yes")), Occur.FILTER)
+            .build();
+        return new IndexSearcher(reader).count(query);
+    }
+
+    private static void indexRandomDocs(IndexWriter writer) throws IOException {
+        final int numDocs = between(1, 50);
+        for (int i = 0; i < numDocs; i++) {
+            final Document doc = new Document();
+            doc.add(new StringField(TAG.name(), randomFrom("a", "b", "c"), Field.Store.NO));
+            doc.add(new StringField(BACKGROUND.name(), randomBoolean() ? "yes" : "no", Field.Store.NO));
+            writer.addDocument(doc);
+        }
+        // each batch of documents is a segment of its own
+        writer.flush();
+    }
+
+    /**
+     * Caches the background frequencies in a map and counts the lookups that hit the cache.
+     */
+    private static class MapBackgroundFrequencyCache implements BackgroundFrequencyCache {
+
+        private final Map<List<Object>, Long> freqs = new HashMap<>();
+        private int hits;
+        private int puts;
+
+        @Override
+        public long get(LeafReaderContext leaf, Query termQuery, Query backgroundFilter) {
+            final Long freq = freqs.get(key(leaf, termQuery, backgroundFilter));
+            if (freq == null) {
+                return -1;
+            }
+            hits++;
+            return freq;
+        }
+
+        @Override
+        public void put(LeafReaderContext leaf, Query termQuery, Query backgroundFilter, long freq) {
+            puts++;
+            freqs.put(key(leaf, termQuery, backgroundFilter), freq);
+        }
+
+        private static List<Object> key(LeafReaderContext leaf, Query termQuery, Query backgroundFilter) {
+            return List.of(leaf.reader().getReaderCacheHelper().getKey(), termQuery, backgroundFilter);
+        }
+    }
+}
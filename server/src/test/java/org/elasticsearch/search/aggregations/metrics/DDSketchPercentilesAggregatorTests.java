@@ -0,0 +1,199 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.metrics;
+
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.search.DocValuesFieldExistsQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.NumericUtils;
+import org.elasticsearch.common.CheckedConsumer;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.AggregatorTestCase;
+import org.elasticsearch.search.aggregations.support.AggregationInspectionHelper;
+import org.elasticsearch.search.aggregations.support.CoreValuesSourceType;
+import org.elasticsearch.search.aggregations.support.ValuesSourceType;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static org.hamcrest.Matchers.closeTo;
+
+public class DDSketchPercentilesAggregatorTests extends AggregatorTestCase {
+
+    @Override
+    protected AggregationBuilder createAggBuilderForTypeTest(MappedFieldType fieldType, String fieldName) {
+        return new PercentilesAggregationBuilder("ddsketch_percentiles")
+            .field(fieldName)
+            .percentilesConfig(new PercentilesConfig.DDSketch());
+    }
+
+    @Override
+    protected List<ValuesSourceType> getSupportedValuesSourceTypes() {
+        return List.of(CoreValuesSourceType.NUMERIC,
+            CoreValuesSourceType.DATE,
+            CoreValuesSourceType.BOOLEAN);
+    }
+
+    public void testNoDocs() throws IOException {
+        testCase(new MatchAllDocsQuery(), NumberFieldMapper.NumberType.LONG, iw -> {
+            // Intentionally not writing any docs
+        }, ddsketch -> {
+            assertEquals(0L, ddsketch.state.getCount());
+            assertEquals(Double.NaN, ddsketch.percentile(50), 0d);
+            assertFalse(AggregationInspectionHelper.hasValue(ddsketch));
+        });
+    }
+
+    public void testNoMatchingField() throws IOException {
+        testCase(new MatchAllDocsQuery(), NumberFieldMapper.NumberType.LONG, iw -> {
+            iw.addDocument(singleton(new SortedNumericDocValuesField("wrong_number", 7)));
+            iw.addDocument(singleton(new SortedNumericDocValuesField("wrong_number", 1)));
+        }, ddsketch -> {
+            assertEquals(0L, ddsketch.state.getCount());
+            assertFalse(AggregationInspectionHelper.hasValue(ddsketch));
+        });
+    }
+
+    public void testSomeMatchesSortedNumericDocValues() throws IOException {
+        testCase(new DocValuesFieldExistsQuery("number"), NumberFieldMapper.NumberType.LONG, iw -> {
+            iw.addDocument(singleton(new SortedNumericDocValuesField("number", 8)));
+            iw.addDocument(singleton(new SortedNumericDocValuesField("number", 5)));
+            iw.addDocument(singleton(new SortedNumericDocValuesField("number", 3)));
+            iw.addDocument(singleton(new SortedNumericDocValuesField("number", 2)));
+            iw.addDocument(singleton(new SortedNumericDocValuesField("number", 1)));
+            iw.addDocument(singleton(new SortedNumericDocValuesField("number", 1)));
+            iw.addDocument(singleton(new SortedNumericDocValuesField("number", 0)));
+        }, ddsketch -> {
+            assertEquals(7L, ddsketch.state.getCount());
+            // zero has its own bin, other values are within the relative accuracy
+            assertEquals(0.0d, ddsketch.percentile(0), 0.0d);
+            assertThat(ddsketch.percentile(100), closeTo(8.0d, 0.08d));
+            assertThat(ddsketch.percentile(75), closeTo(3.0d, 0.03d));
+            assertThat(ddsketch.percentile(50), closeTo(2.0d, 0.02d));
+            assertThat(ddsketch.percentile(22), closeTo(1.0d, 0.01d));
+            assertTrue(AggregationInspectionHelper.hasValue(ddsketch));
+        });
+    }
+
+    public void testSomeMatchesNumericDocValues() throws IOException {
+        testCase(new DocValuesFieldExistsQuery("number"), NumberFieldMapper.NumberType.LONG, iw -> {
+            iw.addDocument(singleton(new NumericDocValuesField("number", 8)));
+            iw.addDocument(singleton(new NumericDocValuesField("number", 5)));
+            iw.addDocument(singleton(new NumericDocValuesField("number", 3)));
+            iw.addDocument(singleton(new NumericDocValuesField("number", 2)));
+            iw.addDocument(singleton(new NumericDocValuesField("number", 1)));
+            iw.addDocument(singleton(new NumericDocValuesField("number", 1)));
+            iw.addDocument(singleton(new NumericDocValuesField("number", 0)));
+        }, ddsketch -> {
+            assertEquals(7L, ddsketch.state.getCount());
+            assertThat(ddsketch.percentile(100), closeTo(8.0d, 0.08d));
+            assertThat(ddsketch.percentile(88), closeTo(5.0d, 0.05d));
+            assertThat(ddsketch.percentile(33), closeTo(1.0d, 0.01d));
+            assertEquals(0.0d, ddsketch.percentile(1), 0.0d);
+            assertTrue(AggregationInspectionHelper.hasValue(ddsketch));
+        });
+    }
+
+    public void testRelativeAccuracy() throws IOException {
+        final double[] values = new double[between(1, 500)];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = randomBoolean() ? randomDoubleBetween(-1000, 1000, true) : Math.exp(randomDoubleBetween(-10, 10, true));
+        }
+        testCase(new MatchAllDocsQuery(), NumberFieldMapper.NumberType.DOUBLE, iw -> {
+            for (double value : values) {
+                iw.addDocument(singleton(new SortedNumericDocValuesField("number", NumericUtils.doubleToSortableLong(value))));
+            }
+        }, ddsketch -> {
+            assertEquals(values.length, ddsketch.state.getCount());
+            final double[] sorted = values.clone();
+            Arrays.sort(sorted);
+            for (double percent : new double[] { 0, 1, 10, 25, 50, 75, 90, 99, 100 }) {
+                final double expected = sorted[(int) Math.floor(percent / 100 * (sorted.length - 1))];
+                // leave some room for the rounding errors of the logarithm
+                final double error = Math.abs(expected) * PercentilesConfig.DDSketch.DEFAULT_RELATIVE_ACCURACY * 1.0001;
+                assertThat("percentile " + percent, ddsketch.percentile(percent), closeTo(expected, error));
+            }
+        });
+    }
+
+    public void testNonFiniteValues() throws IOException {
+        testCase(new MatchAllDocsQuery(), NumberFieldMapper.NumberType.DOUBLE, iw -> {
+            for (double value : new double[] { Double.NaN, Double.POSITIVE_INFINITY, 1, 2, 3 }) {
+                iw.addDocument(singleton(new SortedNumericDocValuesField("number", NumericUtils.doubleToSortableLong(value))));
+            }
+        }, ddsketch -> {
+            // NaN values are ignored while infinite values are counted
+            assertEquals(4L, ddsketch.state.getCount());
+            assertEquals(Double.POSITIVE_INFINITY, ddsketch.state.getMax(), 0d);
+            assertThat(ddsketch.percentile(50), closeTo(2.0d, 0.02d));
+        });
+    }
+
+    public void testQueryFiltering() throws IOException {
+        final CheckedConsumer<RandomIndexWriter, IOException> docs = iw -> {
+            iw.addDocument(asList(new LongPoint("row", 7), new SortedNumericDocValuesField("number", 8)));
+            iw.addDocument(asList(new LongPoint("row", 6), new SortedNumericDocValuesField("number", 5)));
+            iw.addDocument(asList(new LongPoint("row", 5), new SortedNumericDocValuesField("number", 3)));
+            iw.addDocument(asList(new LongPoint("row", 4), new SortedNumericDocValuesField("number", 2)));
+            iw.addDocument(asList(new LongPoint("row", 3), new SortedNumericDocValuesField("number", 1)));
+            iw.addDocument(asList(new LongPoint("row", 2), new SortedNumericDocValuesField("number", 1)));
+            iw.addDocument(asList(new LongPoint("row", 1), new SortedNumericDocValuesField("number", 0)));
+        };
+
+        testCase(LongPoint.newRangeQuery("row", 1, 4), NumberFieldMapper.NumberType.LONG, docs, ddsketch -> {
+            assertEquals(4L, ddsketch.state.getCount());
+            assertThat(ddsketch.percentile(100), closeTo(2.0d, 0.02d));
+            assertThat(ddsketch.percentile(50), closeTo(1.0d, 0.01d));
+            assertEquals(0.0d, ddsketch.percentile(25), 0.0d);
+            assertTrue(AggregationInspectionHelper.hasValue(ddsketch));
+        });
+
+        testCase(LongPoint.newRangeQuery("row", 100, 110), NumberFieldMapper.NumberType.LONG, docs, ddsketch -> {
+            assertEquals(0L, ddsketch.state.getCount());
+            assertFalse(AggregationInspectionHelper.hasValue(ddsketch));
+        });
+    }
+
+    private void testCase(Query query, NumberFieldMapper.NumberType numberType, CheckedConsumer<RandomIndexWriter, IOException> buildIndex,
+                          Consumer<InternalDDSketchPercentiles> verify) throws IOException {
+        try (Directory directory = newDirectory()) {
+            try (RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
+                buildIndex.accept(indexWriter);
+            }
+
+            try (IndexReader indexReader = DirectoryReader.open(directory)) {
+                IndexSearcher indexSearcher = newSearcher(indexReader, true, true);
+
+                PercentilesAggregationBuilder builder = new PercentilesAggregationBuilder("test")
+                    .field("number")
+                    .percentilesConfig(new PercentilesConfig.DDSketch());
+                MappedFieldType fieldType = new NumberFieldMapper.NumberFieldType("number", numberType);
+                DDSketchPercentilesAggregator aggregator = createAggregator(builder, indexSearcher, fieldType);
+                aggregator.preCollection();
+                indexSearcher.search(query, aggregator);
+                aggregator.postCollection();
+                verify.accept((InternalDDSketchPercentiles) aggregator.buildAggregation(0L));
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.search.aggregations.metrics;
+
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class DDSketchStateTests extends ESTestCase {
+
+    public void testRelativeAccuracy() {
+        final double relativeAccuracy = randomDoubleBetween(0.001, 0.1, true);
+        final double[] values = randomValues();
+        try (DDSketchState state = new DDSketchState(relativeAccuracy, BigArrays.NON_RECYCLING_INSTANCE)) {
+            Arrays.stream(values).forEach(state::add);
+            assertThat(state.getCount(), equalTo((long) values.length));
+            Arrays.sort(values);
+            for (double quantile : new double[] { 0, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 1 }) {
+                final double expected = values[(int) Math.floor(quantile * (values.length - 1))];
+                // leave some room for the rounding errors of the logarithm
+                final double error = Math.abs(expected) * relativeAccuracy * 1.0001;
+                assertThat("quantile " + quantile, state.quantile(quantile), closeTo(expected, error));
+            }
+        }
+    }
+
+    public void testCdf() {
+        try (DDSketchState state = new DDSketchState(0.01, BigArrays.NON_RECYCLING_INSTANCE)) {
+            assertThat(state.cdf(randomDouble()), equalTo(Double.NaN));
+            for (int i = 1; i <= 100; i++) {
+                state.add(i);
+                state.add(-i);
+            }
+            state.add(0, 2);
+            assertThat(state.cdf(-101), equalTo(0.0));
+            assertThat(state.cdf(0), equalTo(102.0 / 202));
+            assertThat(state.cdf(100), equalTo(1.0));
+            assertThat(state.cdf(50), closeTo(152.0 / 202, 1.0 / 202));
+            assertThat(state.cdf(-50), closeTo(51.0 / 202, 1.0 / 202));
+        }
+    }
+
+    public void testEmpty() {
+        try (DDSketchState state = new DDSketchState(0.01, BigArrays.NON_RECYCLING_INSTANCE)) {
+            assertThat(state.getCount(), equalTo(0L));
+            assertThat(state.quantile(randomDouble()), equalTo(Double.NaN));
+        }
+    }
+
+    public void testMergeIsExact() {
+        final double[] values = randomValues();
+        try (DDSketchState all = new DDSketchState(0.01, BigArrays.NON_RECYCLING_INSTANCE);
+             DDSketchState merged = new DDSketchState(0.01, BigArrays.NON_RECYCLING_INSTANCE)) {
+            Arrays.stream(values).forEach(all::add);
+            int from = 0;
+            while (from < values.length) {
+                final int to = Math.min(values.length, from + between(1, 100));
+                try (DDSketchState part = new DDSketchState(0.01, BigArrays.NON_RECYCLING_INSTANCE)) {
+                    for (int i = from; i < to; i++) {
+                        part.add(values[i]);
+                    }
+                    merged.add(part);
+                }
+                from = to;
+            }
+            assertThat(merged, equalTo(all));
+            assertThat(merged.quantile(0.5), equalTo(all.quantile(0.5)));
+        }
+    }
+
+    public void testMergeRequiresSameRelativeAccuracy() {
+        try (DDSketchState state = new DDSketchState(0.01, BigArrays.NON_RECYCLING_INSTANCE);
+             DDSketchState other = new DDSketchState(0.02, BigArrays.NON_RECYCLING_INSTANCE)) {
+            IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> state.add(other));
+            assertThat(e.getMessage(), containsString("different relative accuracies"));
+        }
+    }
+
+    public void testInvalidRelativeAccuracy() {
+        expectThrows(IllegalArgumentException.class, () -> new DDSketchState(0, BigArrays.NON_RECYCLING_INSTANCE));
+        expectThrows(IllegalArgumentException.class, () -> new DDSketchState(1, BigArrays.NON_RECYCLING_INSTANCE));
+        expectThrows(IllegalArgumentException.class, () -> new DDSketchState(Double.NaN, BigArrays.NON_RECYCLING_INSTANCE));
+    }
+
+    public void testNonFiniteValues() {
+        try (DDSketchState state = new DDSketchState(0.01, BigArrays.NON_RECYCLING_INSTANCE)) {
+            state.add(Double.NaN);
+            assertThat(state.getCount(), equalTo(0L));
+            state.add(Double.POSITIVE_INFINITY);
+            state.add(Double.NEGATIVE_INFINITY);
+            state.add(1, 3);
+            assertThat(state.getCount(), equalTo(5L));
+            assertThat(state.getMin(), equalTo(Double.NEGATIVE_INFINITY));
+            assertThat(state.getMax(), equalTo(Double.POSITIVE_INFINITY));
+            assertThat(state.quantile(0.5), closeTo(1, 0.01));
+            // infinite values are counted with the largest finite values
+            assertThat(state.quantile(0), lessThanOrEqualTo(-Double.MAX_VALUE * 0.98));
+            assertThat(state.quantile(1), greaterThanOrEqualTo(Double.MAX_VALUE * 0.98));
+            assertThat(state.cdf(1), equalTo(4.0 / 5));
+        }
+    }
+
+    public void testSerialization() throws IOException {
+        final double[] values = randomValues();
+        try (DDSketchState state = new DDSketchState(randomDoubleBetween(0.001, 0.1, true), BigArrays.NON_RECYCLING_INSTANCE)) {
+            Arrays.stream(values).forEach(state::add);
+            try (BytesStreamOutput out = new BytesStreamOutput()) {
+                DDSketchState.write(state, out);
+                try (StreamInput in = out.bytes().streamInput();
+                     DDSketchState read = DDSketchState.read(in, BigArrays.NON_RECYCLING_INSTANCE)) {
+                    assertThat(read, equalTo(state));
+                    assertThat(read.hashCode(), equalTo(state.hashCode()));
+                }
+            }
+        }
+    }
+
+    private static double[] randomValues() {
+        final double[] values = new double[between(1, 10000)];
+        final double scale = Math.pow(10, between(-10, 10));
+        for (int i = 0; i < values.length; i++) {
+            switch (between(0, 2)) {
+                case 0:
+                    values[i] = randomDouble() * scale;
+                    break;
+                case 1:
+                    values[i] = -randomDouble() * scale;
+                    break;
+                default:
+                    values[i] = Math.exp(randomDoubleBetween(-20, 20, true));
+                    break;
+            }
+        }
+        return values;
+    }
+}
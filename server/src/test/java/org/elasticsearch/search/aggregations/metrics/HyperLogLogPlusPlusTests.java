@@ -11,22 +11,29 @@ package org.elasticsearch.search.aggregations.metrics;
 import com.carrotsearch.hppc.BitMixer;
 import com.carrotsearch.hppc.IntHashSet;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.breaker.CircuitBreakingException;
 import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.MockBigArrays;
 import org.elasticsearch.common.util.PageCacheRecycler;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.VersionUtils;
 
+import java.io.IOException;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static org.elasticsearch.search.aggregations.metrics.AbstractCardinalityAlgorithm.MAX_PRECISION;
 import static org.elasticsearch.search.aggregations.metrics.AbstractCardinalityAlgorithm.MIN_PRECISION;
 import static org.hamcrest.Matchers.closeTo;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -103,6 +110,28 @@ public class HyperLogLogPlusPlusTests extends ESTestCase {
         }
     }
 
+    public void testSerialization() throws IOException {
+        final int p = randomIntBetween(MIN_PRECISION, MAX_PRECISION);
+        final Version version = randomFrom(Version.CURRENT, VersionUtils.getPreviousVersion(Version.V_8_0_0));
+        try (HyperLogLogPlusPlus counts = new HyperLogLogPlusPlus(p, BigArrays.NON_RECYCLING_INSTANCE, 1)) {
+            final int numValues = randomIntBetween(1, 1 << (p + 1));
+            for (int i = 0; i < numValues; ++i) {
+                counts.collect(0, BitMixer.mix64(randomInt()));
+            }
+            try (BytesStreamOutput out = new BytesStreamOutput()) {
+                out.setVersion(version);
+                counts.writeTo(0, out);
+                try (StreamInput in = out.bytes().streamInput()) {
+                    in.setVersion(version);
+                    try (AbstractHyperLogLogPlusPlus read = AbstractHyperLogLogPlusPlus.readFrom(in, BigArrays.NON_RECYCLING_INSTANCE)) {
+                        assertTrue(counts.equals(0, read, 0));
+                        assertEquals(counts.cardinality(0), read.cardinality(0));
+                    }
+                }
+            }
+        }
+    }
+
     public void testFakeHashes() {
         // hashes with lots of leading zeros trigger different paths in the code that we try to go through here
         final int p = randomIntBetween(MIN_PRECISION, MAX_PRECISION);
@@ -163,6 +192,37 @@ public class HyperLogLogPlusPlusTests extends ESTestCase {
         assertThat(total.get(), equalTo(0L));
     }
 
+    public void testMemoryUsageOfHyperLogLogBuckets() {
+        AtomicLong total = new AtomicLong();
+        CircuitBreakerService breakerService = mock(CircuitBreakerService.class);
+        when(breakerService.getBreaker(CircuitBreaker.REQUEST)).thenReturn(new NoopCircuitBreaker(CircuitBreaker.REQUEST) {
+            @Override
+            public void addEstimateBytesAndMaybeBreak(long bytes, String label) throws CircuitBreakingException {
+                total.addAndGet(bytes);
+            }
+
+            @Override
+            public void addWithoutBreaking(long bytes) {
+                total.addAndGet(bytes);
+            }
+        });
+        BigArrays bigArrays = new BigArrays(null, breakerService, CircuitBreaker.REQUEST).withCircuitBreaking();
+        final int p = randomIntBetween(MIN_PRECISION, 14);
+        final int numBuckets = randomIntBetween(1, 64);
+        try (HyperLogLogPlusPlus counts = new HyperLogLogPlusPlus(p, bigArrays, 0)) {
+            for (int bucket = 0; bucket < numBuckets; ++bucket) {
+                while (counts.getAlgorithm(bucket) == HyperLogLogPlusPlus.LINEAR_COUNTING) {
+                    counts.collect(bucket, randomLong());
+                }
+            }
+            // the registers of all buckets are in a single array, the hash tables of linear counting are released on upgrade
+            final long registers = numBuckets * HyperLogLogPlusPlus.memoryUsage(p);
+            assertThat(total.get(), greaterThanOrEqualTo(registers));
+            assertThat(total.get(), lessThanOrEqualTo(registers + registers / 8 + 4 * PageCacheRecycler.PAGE_SIZE_IN_BYTES));
+        }
+        assertThat(total.get(), equalTo(0L));
+    }
+
     public void testRetrieveCardinality() {
         final int p = randomIntBetween(MIN_PRECISION, MAX_PRECISION);
         final HyperLogLogPlusPlus counts = new HyperLogLogPlusPlus(p, BigArrays.NON_RECYCLING_INSTANCE, 1);
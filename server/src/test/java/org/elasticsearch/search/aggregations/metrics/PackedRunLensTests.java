@@ -0,0 +1,79 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.metrics;
+
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.test.ESTestCase;
+
+import static org.elasticsearch.search.aggregations.metrics.AbstractCardinalityAlgorithm.MAX_PRECISION;
+import static org.elasticsearch.search.aggregations.metrics.AbstractCardinalityAlgorithm.MIN_PRECISION;
+
+public class PackedRunLensTests extends ESTestCase {
+
+    public void testWords() {
+        assertEquals(2, PackedRunLens.words(4));
+        assertEquals(3, PackedRunLens.words(5));
+        assertEquals(1536, PackedRunLens.words(14));
+        assertEquals(24576, PackedRunLens.words(18));
+    }
+
+    public void testGetSet() {
+        final int p = randomIntBetween(MIN_PRECISION, 12);
+        final int m = 1 << p;
+        final byte[] expected = new byte[m];
+        final long offset = randomIntBetween(0, 10);
+        try (LongArray runLens = BigArrays.NON_RECYCLING_INSTANCE.newLongArray(offset + PackedRunLens.words(p))) {
+            final int iters = scaledRandomIntBetween(m, m * 4);
+            for (int i = 0; i < iters; ++i) {
+                final int register = randomInt(m - 1);
+                final int runLen = randomIntBetween(0, 65 - p);
+                expected[register] = (byte) runLen;
+                PackedRunLens.set(runLens, offset, register, runLen);
+            }
+            assertRunLens(expected, runLens, offset);
+            for (long word = 0; word < offset; word++) {
+                assertEquals(0L, runLens.get(word));
+            }
+        }
+    }
+
+    public void testMerge() {
+        final int p = randomIntBetween(MIN_PRECISION, MAX_PRECISION);
+        final int m = 1 << p;
+        final byte[] expected = new byte[m];
+        final long offset = randomIntBetween(0, 10);
+        final long otherOffset = randomIntBetween(0, 10);
+        try (LongArray runLens = BigArrays.NON_RECYCLING_INSTANCE.newLongArray(offset + PackedRunLens.words(p));
+             LongArray other = BigArrays.NON_RECYCLING_INSTANCE.newLongArray(otherOffset + PackedRunLens.words(p))) {
+            for (int register = 0; register < m; ++register) {
+                final int a = randomBoolean() ? 0 : randomIntBetween(0, 65 - p);
+                final int b = randomBoolean() ? a : randomIntBetween(0, 65 - p);
+                PackedRunLens.set(runLens, offset, register, a);
+                PackedRunLens.set(other, otherOffset, register, b);
+                expected[register] = (byte) Math.max(a, b);
+            }
+            PackedRunLens.merge(runLens, offset, other, otherOffset, m);
+            assertRunLens(expected, runLens, offset);
+        }
+    }
+
+    private static void assertRunLens(byte[] expected, LongArray runLens, long offset) {
+        for (int register = 0; register < expected.length; ++register) {
+            assertEquals(expected[register], PackedRunLens.get(runLens, offset, register));
+        }
+        final PackedRunLens.Iterator iterator = new PackedRunLens.Iterator(expected.length);
+        iterator.reset(runLens, offset);
+        for (byte runLen : expected) {
+            assertTrue(iterator.next());
+            assertEquals(runLen, iterator.value());
+        }
+        assertFalse(iterator.next());
+    }
+}
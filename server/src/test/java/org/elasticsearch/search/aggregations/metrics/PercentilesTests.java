@@ -37,6 +37,8 @@ public class PercentilesTests extends BaseAggregationTestCase<PercentilesAggrega
             factory.numberOfSignificantValueDigits(randomIntBetween(0, 5));
         } else if (randomBoolean()) {
             factory.compression(randomIntBetween(1, 50000));
+        } else if (randomBoolean()) {
+            factory.percentilesConfig(new PercentilesConfig.DDSketch(randomDoubleBetween(0.001, 0.1, true)));
         }
         String field = randomNumericField();
         randomFieldOrScript(factory, field);
@@ -32,6 +32,8 @@ import org.elasticsearch.index.mapper.IdFieldMapper;
 import org.elasticsearch.index.mapper.KeywordFieldMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.Uid;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHits;
 import org.elasticsearch.search.aggregations.Aggregation;
 import org.elasticsearch.search.aggregations.AggregationBuilder;
@@ -45,6 +47,7 @@ import java.io.IOException;
 
 import static org.elasticsearch.search.aggregations.AggregationBuilders.terms;
 import static org.elasticsearch.search.aggregations.AggregationBuilders.topHits;
+import static org.hamcrest.Matchers.greaterThan;
 
 public class TopHitsAggregatorTests extends AggregatorTestCase {
     public void testTopLevel() throws Exception {
@@ -116,6 +119,61 @@ public class TopHitsAggregatorTests extends AggregatorTestCase {
         assertTrue(AggregationInspectionHelper.hasValue(((InternalTopHits) terms.getBucketByKey("d").getAggregations().get("top"))));
     }
 
+    /**
+     * Tests a document that is a top hit of several buckets. Each bucket must get its own copy of the hit, with the score and
+     * the sort values of the document, even though the hits of all the buckets are fetched together.
+     */
+    public void testDocumentInSeveralBuckets() throws Exception {
+        Query query = new QueryParser("string", new KeywordAnalyzer()).parse("d^1000 c^100 b^10 a^1");
+        Aggregation result = testCase(query,
+                terms("term").field("string")
+                    .subAggregation(topHits("top").sort("string", SortOrder.DESC).trackScores(true)));
+        Terms terms = (Terms) result;
+
+        // document "1" has the values "a" and "b", document "2" has "c" and "a", and document "3" has "b" and "d"
+        SearchHits a = ((TopHits) terms.getBucketByKey("a").getAggregations().get("top")).getHits();
+        SearchHits b = ((TopHits) terms.getBucketByKey("b").getAggregations().get("top")).getHits();
+        SearchHits c = ((TopHits) terms.getBucketByKey("c").getAggregations().get("top")).getHits();
+        SearchHits d = ((TopHits) terms.getBucketByKey("d").getAggregations().get("top")).getHits();
+        SearchHit oneInA = a.getAt(1);
+        SearchHit oneInB = b.getAt(1);
+        SearchHit twoInA = a.getAt(0);
+        SearchHit twoInC = c.getAt(0);
+        SearchHit threeInB = b.getAt(0);
+        SearchHit threeInD = d.getAt(0);
+        assertEquals("1", oneInA.getId());
+        assertEquals("1", oneInB.getId());
+        assertEquals("2", twoInA.getId());
+        assertEquals("2", twoInC.getId());
+        assertEquals("3", threeInB.getId());
+        assertEquals("3", threeInD.getId());
+
+        // the sort values are the largest value of each document
+        assertArrayEquals(new Object[] { "b" }, oneInA.getSortValues());
+        assertArrayEquals(new Object[] { "b" }, oneInB.getSortValues());
+        assertArrayEquals(new Object[] { "c" }, twoInA.getSortValues());
+        assertArrayEquals(new Object[] { "c" }, twoInC.getSortValues());
+        assertArrayEquals(new Object[] { "d" }, threeInB.getSortValues());
+        assertArrayEquals(new Object[] { "d" }, threeInD.getSortValues());
+
+        // the scores follow the boosts of the values of each document
+        assertThat(twoInA.getScore(), greaterThan(oneInA.getScore()));
+        assertThat(threeInB.getScore(), greaterThan(twoInA.getScore()));
+        assertEquals(oneInA.getScore(), oneInB.getScore(), 0f);
+        assertEquals(twoInA.getScore(), twoInC.getScore(), 0f);
+        assertEquals(threeInB.getScore(), threeInD.getScore(), 0f);
+
+        // each bucket has its own hit, so changing the hit of a bucket leaves the other buckets alone
+        assertNotSame(oneInA, oneInB);
+        assertNotSame(twoInA, twoInC);
+        assertNotSame(threeInB, threeInD);
+        float oneScore = oneInB.getScore();
+        oneInA.score(-1f);
+        oneInA.sortValues(new Object[] { new BytesRef("z") }, new DocValueFormat[] { DocValueFormat.RAW });
+        assertEquals(oneScore, oneInB.getScore(), 0f);
+        assertArrayEquals(new Object[] { "b" }, oneInB.getSortValues());
+    }
+
     private static final MappedFieldType STRING_FIELD_TYPE = new KeywordFieldMapper.KeywordFieldType("string");
 
     private Aggregation testCase(Query query, AggregationBuilder builder) throws IOException {
@@ -0,0 +1,143 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.support;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.index.fielddata.FieldData;
+import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
+import org.elasticsearch.search.MultiValueMode;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class DocValuesBlockTests extends ESTestCase {
+
+    private static final String FIELD = "field";
+
+    public void testReadLongs() throws IOException {
+        final long[][] values = randomValues();
+        try (Directory dir = newDirectory()) {
+            try (IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig())) {
+                index(writer, values);
+            }
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                final LeafReader leaf = getOnlyLeafReader(reader);
+                final DocValuesBlock block = new DocValuesBlock();
+                // reuse the same block for several reads to check that the arrays are reused correctly
+                for (int iter = 0; iter < 3; iter++) {
+                    final int[] docs = randomDocs(values.length);
+                    final SortedNumericDocValues docValues = DocValues.getSortedNumeric(leaf, FIELD);
+                    final int count = block.readLongs(docValues, docs, docs.length);
+
+                    final List<Long> expectedValues = new ArrayList<>();
+                    final List<Integer> expectedDocIndices = new ArrayList<>();
+                    for (int i = 0; i < docs.length; i++) {
+                        for (long value : sorted(values[docs[i]])) {
+                            expectedValues.add(value);
+                            expectedDocIndices.add(i);
+                        }
+                    }
+                    assertThat(count, equalTo(expectedValues.size()));
+                    for (int i = 0; i < count; i++) {
+                        assertThat(block.longs()[i], equalTo(expectedValues.get(i)));
+                        assertThat(block.docIndices()[i], equalTo(expectedDocIndices.get(i)));
+                    }
+                }
+            }
+        }
+    }
+
+    public void testReadDoubles() throws IOException {
+        final long[][] values = randomValues();
+        try (Directory dir = newDirectory()) {
+            try (IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig())) {
+                index(writer, values);
+            }
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                final LeafReader leaf = getOnlyLeafReader(reader);
+                final DocValuesBlock block = new DocValuesBlock();
+                final int[] docs = randomDocs(values.length);
+
+                final SortedNumericDoubleValues multiValues = FieldData.castToDouble(DocValues.getSortedNumeric(leaf, FIELD));
+                final List<Double> expected = new ArrayList<>();
+                for (int doc : docs) {
+                    for (long value : sorted(values[doc])) {
+                        expected.add((double) value);
+                    }
+                }
+                int count = block.readDoubles(multiValues, docs, docs.length);
+                assertThat(count, equalTo(expected.size()));
+                for (int i = 0; i < count; i++) {
+                    assertThat(block.doubles()[i], equalTo(expected.get(i)));
+                }
+
+                final SortedNumericDoubleValues maxValues = FieldData.castToDouble(DocValues.getSortedNumeric(leaf, FIELD));
+                expected.clear();
+                for (int doc : docs) {
+                    if (values[doc].length > 0) {
+                        expected.add((double) Arrays.stream(values[doc]).max().getAsLong());
+                    }
+                }
+                count = block.readDoubles(MultiValueMode.MAX.select(maxValues), docs, docs.length);
+                assertThat(count, equalTo(expected.size()));
+                for (int i = 0; i < count; i++) {
+                    assertThat(block.doubles()[i], equalTo(expected.get(i)));
+                }
+            }
+        }
+    }
+
+    private static long[][] randomValues() {
+        final long[][] values = new long[randomIntBetween(1, 500)][];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = new long[randomIntBetween(0, 4)];
+            for (int j = 0; j < values[i].length; j++) {
+                values[i][j] = randomLongBetween(-1000, 1000);
+            }
+        }
+        return values;
+    }
+
+    private static void index(IndexWriter writer, long[][] values) throws IOException {
+        for (long[] docValues : values) {
+            final Document doc = new Document();
+            for (long value : docValues) {
+                doc.add(new SortedNumericDocValuesField(FIELD, value));
+            }
+            writer.addDocument(doc);
+        }
+        writer.forceMerge(1);
+    }
+
+    private static int[] randomDocs(int maxDoc) {
+        return Arrays.stream(randomArray(0, 300, Integer[]::new, () -> randomIntBetween(0, maxDoc - 1)))
+            .mapToInt(Integer::intValue)
+            .distinct()
+            .sorted()
+            .toArray();
+    }
+
+    private static long[] sorted(long[] values) {
+        final long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+}
@@ -14,6 +14,7 @@ import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.IntPoint;
 import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.FilterDirectoryReader;
 import org.apache.lucene.index.IndexReader;
@@ -39,6 +40,8 @@ import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopScoreDocCollector;
+import org.apache.lucene.search.TotalHits;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.Accountable;
@@ -52,6 +55,8 @@ import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
 import org.elasticsearch.common.lucene.index.SequentialStoredFieldsLeafReader;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.cache.bitset.BitsetFilterCache;
@@ -64,14 +69,18 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.Collections;
 import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ThreadPoolExecutor;
 
 import static org.elasticsearch.search.internal.ContextIndexSearcher.intersectScorerAndBitSet;
 import static org.elasticsearch.search.internal.ExitableDirectoryReader.ExitableLeafReader;
 import static org.elasticsearch.search.internal.ExitableDirectoryReader.ExitablePointValues;
 import static org.elasticsearch.search.internal.ExitableDirectoryReader.ExitableTerms;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 public class ContextIndexSearcherTests extends ESTestCase {
     public void testIntersectScorerAndRoleBits() throws Exception {
@@ -266,6 +275,89 @@ public class ContextIndexSearcherTests extends ESTestCase {
         IOUtils.close(reader, w, dir);
     }
 
+    public void testSlices() throws IOException {
+        try (Directory dir = newDirectory()) {
+            try (IndexWriter w = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+                int numSegments = randomIntBetween(1, 5);
+                for (int i = 0; i < numSegments; i++) {
+                    int numDocs = randomIntBetween(1, 100);
+                    for (int j = 0; j < numDocs; j++) {
+                        w.addDocument(new Document());
+                    }
+                    w.commit();
+                }
+            }
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                int maxSlices = randomIntBetween(1, 8);
+                int minDocsPerSlice = randomIntBetween(1, 50);
+                List<List<ContextIndexSearcher.LeafRange>> slices =
+                    ContextIndexSearcher.slices(reader.leaves(), maxSlices, minDocsPerSlice);
+                assertThat(slices.size(), lessThanOrEqualTo(maxSlices));
+                assertThat(slices.size(), lessThanOrEqualTo(Math.max(1, reader.maxDoc() / minDocsPerSlice)));
+                // the slices cover every document of every leaf exactly once and in order
+                int leaf = 0;
+                int nextDoc = 0;
+                for (List<ContextIndexSearcher.LeafRange> slice : slices) {
+                    assertFalse(slice.isEmpty());
+                    for (ContextIndexSearcher.LeafRange range : slice) {
+                        if (nextDoc == reader.leaves().get(leaf).reader().maxDoc()) {
+                            leaf++;
+                            nextDoc = 0;
+                        }
+                        assertSame(reader.leaves().get(leaf), range.leaf);
+                        assertEquals(nextDoc, range.minDoc);
+                        assertThat(range.maxDoc, greaterThan(range.minDoc));
+                        nextDoc = range.maxDoc;
+                    }
+                }
+                assertEquals(reader.leaves().size() - 1, leaf);
+                assertEquals(reader.leaves().get(leaf).reader().maxDoc(), nextDoc);
+            }
+        }
+    }
+
+    public void testSearchConcurrently() throws Exception {
+        try (Directory dir = newDirectory()) {
+            try (IndexWriter w = new IndexWriter(dir, newIndexWriterConfig())) {
+                int numDocs = randomIntBetween(1, 1000);
+                for (int i = 0; i < numDocs; i++) {
+                    Document doc = new Document();
+                    doc.add(new StringField("foo", randomFrom("bar", "baz"), Field.Store.NO));
+                    doc.add(new TextField("text", randomFrom("a", "a b", "a b c", "c"), Field.Store.NO));
+                    w.addDocument(doc);
+                    if (rarely()) {
+                        w.commit();
+                    }
+                }
+                if (randomBoolean()) {
+                    w.deleteDocuments(new Term("foo", "baz"));
+                }
+            }
+            ThreadPoolExecutor executor = EsExecutors.newFixed("test", randomIntBetween(1, 4), -1,
+                EsExecutors.daemonThreadFactory("test"), new ThreadContext(Settings.EMPTY), false);
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                ContextIndexSearcher searcher = new ContextIndexSearcher(reader, IndexSearcher.getDefaultSimilarity(),
+                    IndexSearcher.getDefaultQueryCache(), IndexSearcher.getDefaultQueryCachingPolicy(), randomBoolean());
+                searcher.setConcurrentSearchExecutor(executor, randomIntBetween(2, 8), randomIntBetween(1, 100));
+                assertTrue(searcher.hasConcurrentSearchExecutor());
+                Query query = randomFrom(new MatchAllDocsQuery(), new TermQuery(new Term("text", "b")),
+                    new TermQuery(new Term("foo", "bar")));
+                int numHits = randomIntBetween(1, 50);
+                TopDocs expected = searcher.search(query, numHits);
+                TopDocs actual = searcher.searchConcurrently(query,
+                    TopScoreDocCollector.createSharedManager(numHits, null, Integer.MAX_VALUE));
+                assertEquals(new TotalHits(searcher.count(query), TotalHits.Relation.EQUAL_TO), actual.totalHits);
+                assertEquals(expected.scoreDocs.length, actual.scoreDocs.length);
+                for (int i = 0; i < expected.scoreDocs.length; i++) {
+                    assertEquals(expected.scoreDocs[i].doc, actual.scoreDocs[i].doc);
+                    assertEquals(expected.scoreDocs[i].score, actual.scoreDocs[i].score, 0f);
+                }
+            } finally {
+                terminate(executor);
+            }
+        }
+    }
+
     private SparseFixedBitSet query(LeafReaderContext leaf, String field, String value) throws IOException {
         SparseFixedBitSet sparseFixedBitSet = new SparseFixedBitSet(leaf.reader().maxDoc());
         TermsEnum tenum = leaf.reader().terms(field).iterator();
@@ -81,6 +81,8 @@ import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.sort.SortAndFormats;
 import org.elasticsearch.tasks.TaskCancelledException;
 import org.elasticsearch.test.TestSearchContext;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -914,6 +916,101 @@ public class QueryPhaseTests extends IndexShardTestCase {
         }
     }
 
+    public void testConcurrentSearchMatchesSequentialSearch() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriterConfig iwc = newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE);
+        IndexWriter w = new IndexWriter(dir, iwc);
+        final int numDocs = scaledRandomIntBetween(100, 1000);
+        for (int i = 0; i < numDocs; ++i) {
+            Document doc = new Document();
+            doc.add(new TextField("text", randomFrom("a", "a b", "a b c", "b c", "a a b"), Store.NO));
+            doc.add(new NumericDocValuesField("rank", randomIntBetween(0, 50)));
+            w.addDocument(doc);
+            if (rarely()) {
+                w.commit();
+            }
+        }
+        w.close();
+        IndexReader reader = DirectoryReader.open(dir);
+        final ThreadPool threadPool = new TestThreadPool(getTestName());
+        try {
+            final Query query = randomFrom(new MatchAllDocsQuery(), new TermQuery(new Term("text", "a")),
+                new BooleanQuery.Builder().add(new TermQuery(new Term("text", "a")), Occur.SHOULD)
+                    .add(new TermQuery(new Term("text", "c")), Occur.SHOULD).build());
+            final SortAndFormats sort = randomBoolean() ? null : new SortAndFormats(
+                new Sort(new SortField("rank", SortField.Type.INT, randomBoolean())), new DocValueFormat[] { DocValueFormat.RAW });
+            final int size = randomIntBetween(1, 50);
+            final int numSlices = randomIntBetween(2, 6);
+
+            // without timeout both searches return the same top docs
+            final QuerySearchResult sequential = searchSlices(reader, query, sort, size, null, 1, null);
+            final QuerySearchResult concurrent = searchSlices(reader, query, sort, size, threadPool, numSlices, null);
+            assertFalse(concurrent.searchTimedOut());
+            assertSameTopDocs(sequential, concurrent);
+
+            // a search that times out right away returns the same empty top docs
+            final Runnable timeout = () -> { throw new QueryPhase.TimeExceededException(); };
+            final QuerySearchResult sequentialTimedOut = searchSlices(reader, query, sort, size, null, 1, timeout);
+            final QuerySearchResult concurrentTimedOut = searchSlices(reader, query, sort, size, threadPool, numSlices, timeout);
+            assertTrue(sequentialTimedOut.searchTimedOut());
+            assertTrue(concurrentTimedOut.searchTimedOut());
+            assertSameTopDocs(sequentialTimedOut, concurrentTimedOut);
+
+            // a search whose other slices time out returns the hits that the searching thread collected in the last slice
+            final Thread searchingThread = Thread.currentThread();
+            final QuerySearchResult partial = searchSlices(reader, new MatchAllDocsQuery(), sort, size, threadPool, numSlices, () -> {
+                if (Thread.currentThread() != searchingThread) {
+                    throw new QueryPhase.TimeExceededException();
+                }
+            });
+            assertTrue(partial.searchTimedOut());
+            final ScoreDoc[] partialHits = partial.topDocs().topDocs.scoreDocs;
+            assertThat(partialHits.length, greaterThanOrEqualTo(1));
+            final int docsPerSlice = (reader.maxDoc() + numSlices - 1) / numSlices;
+            for (ScoreDoc scoreDoc : partialHits) {
+                assertThat(scoreDoc.doc, greaterThanOrEqualTo((numSlices - 1) * docsPerSlice));
+            }
+        } finally {
+            terminate(threadPool);
+            reader.close();
+            dir.close();
+        }
+    }
+
+    private QuerySearchResult searchSlices(IndexReader reader, Query query, SortAndFormats sort, int size, ThreadPool threadPool,
+                                           int numSlices, Runnable cancellation) throws IOException {
+        final ContextIndexSearcher searcher = newContextSearcher(reader);
+        if (threadPool != null) {
+            searcher.setConcurrentSearchExecutor(threadPool.executor(ThreadPool.Names.SEARCH_WORKER), numSlices, 1);
+        }
+        if (cancellation != null) {
+            searcher.addQueryCancellation(cancellation);
+        }
+        TestSearchContext context = new TestSearchContext(null, indexShard, searcher);
+        context.parsedQuery(new ParsedQuery(query));
+        context.setSize(size);
+        context.sort(sort);
+        context.setTask(new SearchShardTask(123L, "", "", "", null, Collections.emptyMap()));
+        QueryPhase.executeInternal(context);
+        return context.queryResult();
+    }
+
+    private static void assertSameTopDocs(QuerySearchResult expected, QuerySearchResult actual) {
+        final TopDocs expectedTopDocs = expected.topDocs().topDocs;
+        final TopDocs actualTopDocs = actual.topDocs().topDocs;
+        assertEquals(expectedTopDocs.totalHits, actualTopDocs.totalHits);
+        assertEquals(expectedTopDocs.scoreDocs.length, actualTopDocs.scoreDocs.length);
+        for (int i = 0; i < expectedTopDocs.scoreDocs.length; i++) {
+            final ScoreDoc expectedDoc = expectedTopDocs.scoreDocs[i];
+            final ScoreDoc actualDoc = actualTopDocs.scoreDocs[i];
+            assertEquals(expectedDoc.doc, actualDoc.doc);
+            assertEquals(expectedDoc.score, actualDoc.score, 0f);
+            if (expectedDoc instanceof FieldDoc) {
+                assertArrayEquals(((FieldDoc) expectedDoc).fields, ((FieldDoc) actualDoc).fields);
+            }
+        }
+    }
+
     public void testMinScore() throws Exception {
         Directory dir = newDirectory();
         IndexWriterConfig iwc = newIndexWriterConfig();
@@ -0,0 +1,138 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.transport;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.CompositeBytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.PageCacheRecycler;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class Lz4TransportDecompressorTests extends ESTestCase {
+
+    public void testSimpleCompression() throws IOException {
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            byte randomByte = randomByte();
+            try (StreamOutput lz4Stream = Compression.Scheme.LZ4.compressingStream(output)) {
+                lz4Stream.write(randomByte);
+            }
+
+            BytesReference bytes = output.bytes();
+
+            Lz4TransportDecompressor decompressor = new Lz4TransportDecompressor(PageCacheRecycler.NON_RECYCLING_INSTANCE);
+            int bytesConsumed = decompressor.decompress(bytes);
+            assertEquals(bytes.length(), bytesConsumed);
+            assertTrue(decompressor.isEOS());
+            ReleasableBytesReference releasableBytesReference = decompressor.pollDecompressedPage();
+            assertEquals(1, releasableBytesReference.length());
+            assertEquals(randomByte, releasableBytesReference.get(0));
+            releasableBytesReference.close();
+        }
+    }
+
+    public void testMultiPageCompression() throws IOException {
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            try (StreamOutput lz4Stream = Compression.Scheme.LZ4.compressingStream(output)) {
+                for (int i = 0; i < 10000; ++i) {
+                    lz4Stream.writeInt(i);
+                }
+            }
+
+            BytesReference bytes = output.bytes();
+
+            Lz4TransportDecompressor decompressor = new Lz4TransportDecompressor(PageCacheRecycler.NON_RECYCLING_INSTANCE);
+            int bytesConsumed = decompressor.decompress(bytes);
+            assertEquals(bytes.length(), bytesConsumed);
+            assertTrue(decompressor.isEOS());
+            ReleasableBytesReference reference1 = decompressor.pollDecompressedPage();
+            ReleasableBytesReference reference2 = decompressor.pollDecompressedPage();
+            ReleasableBytesReference reference3 = decompressor.pollDecompressedPage();
+            assertNull(decompressor.pollDecompressedPage());
+            BytesReference composite = CompositeBytesReference.of(reference1, reference2, reference3);
+            assertEquals(4 * 10000, composite.length());
+            StreamInput streamInput = composite.streamInput();
+            for (int i = 0; i < 10000; ++i) {
+                assertEquals(i, streamInput.readInt());
+            }
+            Releasables.close(reference1, reference2, reference3);
+        }
+    }
+
+    public void testIncrementalRandomContent() throws IOException {
+        final byte[] content = new byte[randomIntBetween(0, 5 * PageCacheRecycler.BYTE_PAGE_SIZE)];
+        final boolean compressible = randomBoolean();
+        for (int i = 0; i < content.length; ++i) {
+            content[i] = compressible ? (byte) randomIntBetween(0, 3) : randomByte();
+        }
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            try (StreamOutput lz4Stream = Compression.Scheme.LZ4.compressingStream(output)) {
+                int offset = 0;
+                while (offset < content.length) {
+                    int length = randomIntBetween(1, content.length - offset);
+                    lz4Stream.writeBytes(content, offset, length);
+                    offset += length;
+                }
+            }
+
+            BytesReference bytes = output.bytes();
+            Lz4TransportDecompressor decompressor = new Lz4TransportDecompressor(PageCacheRecycler.NON_RECYCLING_INSTANCE);
+            int offset = 0;
+            while (offset < bytes.length()) {
+                // the header has to be available in full before decompressing
+                int length = offset == 0
+                    ? randomIntBetween(Compression.Scheme.HEADER_LENGTH, bytes.length())
+                    : randomIntBetween(1, bytes.length() - offset);
+                assertFalse(decompressor.isEOS());
+                assertEquals(length, decompressor.decompress(bytes.slice(offset, length)));
+                offset += length;
+            }
+            assertTrue(decompressor.isEOS());
+
+            List<ReleasableBytesReference> pages = new ArrayList<>();
+            ReleasableBytesReference page;
+            while ((page = decompressor.pollDecompressedPage()) != null) {
+                assertThat(page.length(), lessThanOrEqualTo(PageCacheRecycler.BYTE_PAGE_SIZE));
+                pages.add(page);
+            }
+            assertEquals(new BytesArray(content), CompositeBytesReference.of(pages.toArray(new BytesReference[0])));
+            Releasables.close(pages);
+        }
+    }
+
+    public void testCorruptedBlock() throws IOException {
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            try (StreamOutput lz4Stream = Compression.Scheme.LZ4.compressingStream(output)) {
+                for (int i = 0; i < 1000; ++i) {
+                    lz4Stream.writeInt(i);
+                }
+            }
+
+            BytesReference bytes = output.bytes();
+            byte[] corrupted = BytesReference.toBytes(bytes);
+            // claim a decompressed length that the block does not match
+            int lengthOffset = Compression.Scheme.HEADER_LENGTH + 1;
+            corrupted[lengthOffset + 3] = (byte) (corrupted[lengthOffset + 3] - 1);
+
+            try (Lz4TransportDecompressor decompressor = new Lz4TransportDecompressor(PageCacheRecycler.NON_RECYCLING_INSTANCE)) {
+                expectThrows(IOException.class, () -> decompressor.decompress(new BytesArray(corrupted)));
+            }
+        }
+    }
+}
@@ -431,6 +431,11 @@ public abstract class MapperServiceTestCase extends ESTestCase {
                 // TODO we'll have to handle this in the tests eventually
             }
 
+            @Override
+            public void removeReleasable(Aggregator aggregator) {
+                // TODO we'll have to handle this in the tests eventually
+            }
+
             @Override
             public MultiBucketConsumer multiBucketConsumer() {
                 return multiBucketConsumer;
@@ -103,6 +103,7 @@ import org.elasticsearch.search.aggregations.AggregatorFactories.Builder;
 import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
 import org.elasticsearch.search.aggregations.MultiBucketConsumerService.MultiBucketConsumer;
 import org.elasticsearch.search.aggregations.bucket.nested.NestedAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.terms.BackgroundFrequencyCache;
 import org.elasticsearch.search.aggregations.metrics.MetricsAggregator;
 import org.elasticsearch.search.aggregations.metrics.MultiValueAggregation;
 import org.elasticsearch.search.aggregations.metrics.NumericMetricsAggregation;
@@ -117,6 +118,7 @@ import org.elasticsearch.search.fetch.FetchPhase;
 import org.elasticsearch.search.fetch.subphase.FetchDocValuesPhase;
 import org.elasticsearch.search.fetch.subphase.FetchSourcePhase;
 import org.elasticsearch.search.internal.ContextIndexSearcher;
+import org.elasticsearch.search.internal.ReaderContext;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.internal.SubSearchContext;
 import org.elasticsearch.search.lookup.SearchLookup;
@@ -292,7 +294,10 @@ public abstract class AggregatorTestCase extends ESTestCase {
             randomInt(),
             () -> 0L,
             () -> false,
-            q -> q
+            this::isCollectionIncomplete,
+            q -> q,
+            pointInTimeReaderContext(),
+            backgroundFrequencyCache()
         );
         releasables.add(context);
         return context;
@@ -314,6 +319,31 @@ public abstract class AggregatorTestCase extends ESTestCase {
         return List.of();
     }
 
+    /**
+     * The {@link BackgroundFrequencyCache} of the {@link AggregationContext}s to create. By default
+     * background frequencies are not cached.
+     */
+    protected BackgroundFrequencyCache backgroundFrequencyCache() {
+        return null;
+    }
+
+    /**
+     * The {@link ReaderContext} of the point in time that the {@link AggregationContext}s to create
+     * search. By default requests do not search a point in time.
+     */
+    protected ReaderContext pointInTimeReaderContext() {
+        return null;
+    }
+
+    /**
+     * Whether the {@link AggregationContext}s to create report that the collection stopped before
+     * all the matching documents were collected, like it does when a search times out. By default
+     * the collection is complete.
+     */
+    protected boolean isCollectionIncomplete() {
+        return false;
+    }
+
     /**
      * Build a {@link SubSearchContext}s to power {@code top_hits}.
      */
@@ -173,7 +173,8 @@ public class IndexRecoveryMonitoringDocTests extends BaseMonitoringDocTestCase<I
                     + "          },"
                     + "          \"total_time_in_millis\": 0,"
                     + "          \"source_throttle_time_in_millis\": 0,"
-                    + "          \"target_throttle_time_in_millis\": 0"
+                    + "          \"target_throttle_time_in_millis\": 0,"
+                    + "          \"throughput_in_bytes_per_sec\": 0"
                     + "        },"
                     + "        \"translog\": {"
                     + "          \"recovered\": 0,"